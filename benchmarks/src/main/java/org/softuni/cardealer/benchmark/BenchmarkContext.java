@@ -0,0 +1,62 @@
+package org.softuni.cardealer.benchmark;
+
+import org.softuni.cardealer.CardealerApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Starts the application without the web layer against a private in-memory H2 database.
+ * H2's reuse of results for repeated identical queries is switched off, otherwise read
+ * benchmarks would measure a cache lookup, and statements wait up to ten seconds for a row
+ * lock rather than one, so contention benchmarks queue on hot rows instead of failing.
+ * Command line arguments win over {@code application.properties}, so the MySQL settings
+ * are replaced without touching the application itself.
+ * <p>
+ * To measure against a real server instead, pass {@code -jvmArgsAppend} with
+ * {@code -Dbenchmark.datasource.url=...} (and {@code .username}, {@code .password},
+ * {@code .dialect}); the schema is then created and dropped by the benchmark.
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(String... extraArgs) {
+        List<String> args = new ArrayList<>(datasourceArgs());
+        args.add("--spring.jpa.properties.hibernate.show_sql=false");
+        args.add("--spring.jpa.hibernate.ddl-auto=create-drop");
+        args.add("--logging.level.root=WARN");
+        args.addAll(Arrays.asList(extraArgs));
+
+        return new SpringApplicationBuilder(CardealerApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(args.toArray(new String[0]));
+    }
+
+    private static List<String> datasourceArgs() {
+        String url = System.getProperty("benchmark.datasource.url");
+
+        if (url == null) {
+            return Arrays.asList(
+                    "--spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE;LOCK_TIMEOUT=10000",
+                    "--spring.datasource.driverClassName=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=sa",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect");
+        }
+
+        return Arrays.asList(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + System.getProperty("benchmark.datasource.username", "root"),
+                "--spring.datasource.password=" + System.getProperty("benchmark.datasource.password", "1234"),
+                "--spring.jpa.properties.hibernate.dialect="
+                        + System.getProperty("benchmark.datasource.dialect", "org.hibernate.dialect.MariaDBDialect"));
+    }
+}
@@ -0,0 +1,61 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.service.CarService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares deleting a thousand cars, each with three parts, one {@code deleteCar} call at a
+ * time with a single {@code deleteCars} call. The cars are seeded again before every
+ * invocation, so each invocation is timed once; scores are for all thousand cars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BulkDeleteBenchmark {
+
+    private static final int ROWS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private CatalogFixture fixture;
+    private List<String> carIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carService = this.context.getBean(CarService.class);
+        this.fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(1000);
+    }
+
+    @Setup(Level.Invocation)
+    public void seedCars() {
+        this.carIds = this.fixture.seedCars(ROWS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int deleteCar_oneByOne() {
+        for (String id : this.carIds) {
+            this.carService.deleteCar(id);
+        }
+
+        return this.carIds.size();
+    }
+
+    @Benchmark
+    public int deleteCars_setBased() {
+        return this.carService.deleteCars(this.carIds);
+    }
+}
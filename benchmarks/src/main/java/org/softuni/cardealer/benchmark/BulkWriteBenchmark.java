@@ -0,0 +1,73 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.service.CarService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading {@code rows} cars one {@code saveCar} call at a time with a single
+ * {@code saveCars} call. Scores are per car, so the two are directly comparable.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BulkWriteBenchmark {
+
+    private static final int ROWS = 5000;
+
+    @Param({"100", "500", "2000"})
+    private int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start("--cardealer.bulk.chunk-size=" + this.chunkSize);
+        this.carService = this.context.getBean(CarService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int saveCar_oneByOne() {
+        int saved = 0;
+        for (CarServiceModel car : cars()) {
+            this.carService.saveCar(car);
+            saved++;
+        }
+
+        return saved;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int saveCars_chunked() {
+        return this.carService.saveCars(cars()).size();
+    }
+
+    private static List<CarServiceModel> cars() {
+        List<CarServiceModel> cars = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            CarServiceModel car = new CarServiceModel();
+            car.setMake("Make " + i % 50);
+            car.setModel("Model " + i % 500);
+            car.setTravelledDistance((long) i);
+            cars.add(car);
+        }
+
+        return cars;
+    }
+}
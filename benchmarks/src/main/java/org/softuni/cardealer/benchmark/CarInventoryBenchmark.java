@@ -0,0 +1,161 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.CarInventoryFilterServiceModel;
+import org.softuni.cardealer.domain.models.service.CarInventoryServiceModel;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One inventory page of {@code size} cars: two makes, a travelled distance bucket and a part
+ * that must be attached, answered with the matching count, the first twenty ids and the make,
+ * model and distance facet counts. Either from the inventory index, or with the five statements
+ * it replaces: the page, its count and a {@code GROUP BY} per facet, each of those leaving out
+ * the condition on its own column.
+ * <p>
+ * The cars have one of 20 makes, 5 models each, a distance of up to 300,000 km and 3 of 200
+ * parts. The heap the index takes is printed once it is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CarInventoryBenchmark {
+
+    private static final int LIMIT = 20;
+    private static final int MAKES = 20;
+    private static final int MODELS_PER_MAKE = 5;
+    private static final int PARTS = 200;
+    private static final int PARTS_PER_CAR = 3;
+    private static final long BUCKET_WIDTH = 50_000;
+    private static final long LAST_BUCKET = 200_000;
+    private static final String DISTANCE_BUCKET = "CAST(LEAST(FLOOR(c.travelled_distance / " + BUCKET_WIDTH + ") * "
+            + BUCKET_WIDTH + ", " + LAST_BUCKET + ") AS BIGINT)";
+    private static final String HAS_PART = "EXISTS (SELECT 1 FROM parts_cars pc WHERE pc.car_id = c.id AND pc.part_id = ?)";
+
+    @Param({"100000", "500000"})
+    private int size;
+
+    @Param({"index", "sql"})
+    private String lookup;
+
+    private ConfigurableApplicationContext context;
+    private CarInventoryIndex carInventoryIndex;
+    private JdbcTemplate jdbcTemplate;
+    private List<String> partIds;
+    private CarInventoryFilterServiceModel[] filters;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carInventoryIndex = this.context.getBean(CarInventoryIndex.class);
+        this.jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+
+        Random random = new Random(42);
+        this.partIds = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < PARTS; i++) {
+            this.partIds.add(UUID.randomUUID().toString());
+            rows.add(new Object[]{this.partIds.get(i), "Part " + i});
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO parts (id, name, price, version) VALUES (?, ?, 10, 0)", rows);
+        rows.clear();
+
+        List<Object[]> links = new ArrayList<>();
+        for (int i = 0; i < this.size; i++) {
+            String id = UUID.randomUUID().toString();
+            int make = random.nextInt(MAKES);
+            rows.add(new Object[]{id, "Make " + make, "Model " + make + "-" + random.nextInt(MODELS_PER_MAKE),
+                    (long) random.nextInt(300_000)});
+            int firstPart = random.nextInt(PARTS);
+            for (int p = 0; p < PARTS_PER_CAR; p++) {
+                links.add(new Object[]{id, this.partIds.get((firstPart + p * 67) % PARTS)});
+            }
+            if (rows.size() == 1000 || i == this.size - 1) {
+                this.jdbcTemplate.batchUpdate("INSERT INTO cars (id, make, model, travelled_distance, total_cost, version) "
+                        + "VALUES (?, ?, ?, ?, 0, 0)", rows);
+                this.jdbcTemplate.batchUpdate("INSERT INTO parts_cars (car_id, part_id) VALUES (?, ?)", links);
+                rows.clear();
+                links.clear();
+            }
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        this.carInventoryIndex.rebuild();
+        System.gc();
+        System.out.printf("%ninventory index heap: %d MB for %d cars%n",
+                (memory.getHeapMemoryUsage().getUsed() - before) >> 20, this.size);
+
+        this.filters = new CarInventoryFilterServiceModel[256];
+        for (int i = 0; i < this.filters.length; i++) {
+            CarInventoryFilterServiceModel filter = new CarInventoryFilterServiceModel();
+            int make = random.nextInt(MAKES);
+            filter.setMakes(Set.of("Make " + make, "Make " + (make + 1) % MAKES));
+            filter.setDistanceBuckets(Set.of(random.nextInt(4) * BUCKET_WIDTH));
+            filter.setPartIds(Set.of(this.partIds.get(random.nextInt(PARTS))));
+            this.filters[i] = filter;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public Object inventoryPage() {
+        CarInventoryFilterServiceModel filter = this.filters[this.next++ & (this.filters.length - 1)];
+        if ("sql".equals(this.lookup)) {
+            return this.sql(filter);
+        }
+
+        return this.carInventoryIndex.filter(filter, LIMIT);
+    }
+
+    private CarInventoryServiceModel sql(CarInventoryFilterServiceModel filter) {
+        List<String> makes = new ArrayList<>(filter.getMakes());
+        Object[] args = {makes.get(0), makes.get(1), filter.getDistanceBuckets().iterator().next(),
+                filter.getPartIds().iterator().next()};
+        String byMake = "c.make IN (?, ?)";
+        String byDistance = DISTANCE_BUCKET + " = ?";
+
+        List<String> carIds = this.jdbcTemplate.queryForList("SELECT c.id FROM cars c WHERE " + byMake
+                + " AND " + byDistance + " AND " + HAS_PART + " ORDER BY c.id LIMIT " + LIMIT, String.class, args);
+        Integer count = this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cars c WHERE " + byMake
+                + " AND " + byDistance + " AND " + HAS_PART, Integer.class, args);
+
+        return new CarInventoryServiceModel(count, carIds,
+                this.facet("c.make", byDistance + " AND " + HAS_PART, args[2], args[3]),
+                this.facet("c.model", byMake + " AND " + byDistance + " AND " + HAS_PART, args),
+                this.facet(DISTANCE_BUCKET, byMake + " AND " + HAS_PART, args[0], args[1], args[3]));
+    }
+
+    private <K> Map<K, Integer> facet(String column, String condition, Object... args) {
+        Map<K, Integer> counts = new HashMap<>();
+        this.jdbcTemplate.query("SELECT " + column + ", COUNT(*) FROM cars c WHERE " + condition + " GROUP BY " + column,
+                resultSet -> {
+                    @SuppressWarnings("unchecked")
+                    K value = (K) resultSet.getObject(1);
+                    counts.put(value, resultSet.getInt(2));
+                }, args);
+
+        return counts;
+    }
+}
@@ -0,0 +1,137 @@
+package org.softuni.cardealer.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Seeds the benchmark database straight through JDBC so that preparing large data sets
+ * does not depend on (or skew) the service code being measured.
+ */
+final class CatalogFixture {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int PARTS_PER_CAR = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    final List<String> supplierIds = new ArrayList<>();
+    final List<String> partIds = new ArrayList<>();
+    final List<String> carIds = new ArrayList<>();
+    final List<String> customerIds = new ArrayList<>();
+
+    CatalogFixture(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    CatalogFixture seed(int size) {
+        int suppliers = Math.max(1, size / 100);
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < suppliers; i++) {
+            String id = UUID.randomUUID().toString();
+            this.supplierIds.add(id);
+            rows.add(new Object[]{id, "Supplier " + i, i % 2 == 0});
+        }
+        this.insert("INSERT INTO suppliers (id, name, is_importer) VALUES (?, ?, ?)", rows);
+
+        for (int i = 0; i < size; i++) {
+            String id = UUID.randomUUID().toString();
+            this.partIds.add(id);
+            rows.add(new Object[]{id, "Part " + i, BigDecimal.valueOf(10 + i % 500), this.supplierIds.get(i % suppliers)});
+        }
+        this.insert("INSERT INTO parts (id, name, price, supplier_id) VALUES (?, ?, ?, ?)", rows);
+
+        this.seedCars(size);
+
+        LocalDate birthDate = LocalDate.of(1980, 1, 1);
+        for (int i = 0; i < size; i++) {
+            String id = UUID.randomUUID().toString();
+            this.customerIds.add(id);
+            rows.add(new Object[]{id, "Customer " + i, Date.valueOf(birthDate.plusDays(i % 10000)), i % 5 == 0});
+        }
+        this.insert("INSERT INTO customers (id, name, birth_date, is_young_driver) VALUES (?, ?, ?, ?)", rows);
+
+        return this;
+    }
+
+    /**
+     * Adds {@code count} cars, each with three of the parts seeded before.
+     *
+     * @return the ids of the added cars
+     */
+    List<String> seedCars(int count) {
+        int parts = this.partIds.size();
+        List<String> ids = new ArrayList<>(count);
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> links = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String id = UUID.randomUUID().toString();
+            ids.add(id);
+            BigDecimal totalCost = BigDecimal.ZERO;
+            for (int p = 0; p < PARTS_PER_CAR; p++) {
+                links.add(new Object[]{id, this.partIds.get((i + p) % parts)});
+                totalCost = totalCost.add(BigDecimal.valueOf(10 + (i + p) % parts % 500));
+            }
+            rows.add(new Object[]{id, "Make " + i % 50, "Model " + i % 500, (long) i * 10, totalCost});
+        }
+        this.insert("INSERT INTO cars (id, make, model, travelled_distance, total_cost) VALUES (?, ?, ?, ?, ?)", rows);
+        this.insert("INSERT INTO parts_cars (car_id, part_id) VALUES (?, ?)", links);
+        this.carIds.addAll(ids);
+
+        return ids;
+    }
+
+    /**
+     * Adds {@code count} car sales and as many part sales for the catalog seeded before,
+     * spread evenly over the {@code days} days before {@code until}.
+     */
+    CatalogFixture seedSales(int count, int days, LocalDateTime until) {
+        long spacingSeconds = Math.max(1, days * 86_400L / count);
+
+        List<Object[]> carSales = new ArrayList<>();
+        List<Object[]> partSales = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Timestamp saleDate = Timestamp.valueOf(until.minusSeconds((i + 1) * spacingSeconds));
+            String customerId = this.customerIds.get(i % this.customerIds.size());
+            double discount = i % 4 * 0.05;
+
+            carSales.add(new Object[]{UUID.randomUUID().toString(), discount, saleDate,
+                    customerId, this.carIds.get(i % this.carIds.size())});
+            partSales.add(new Object[]{UUID.randomUUID().toString(), discount, 1 + i % 5, saleDate,
+                    customerId, this.partIds.get(i % this.partIds.size())});
+
+            if (carSales.size() == BATCH_SIZE * 10) {
+                this.insertSales(carSales, partSales);
+            }
+        }
+        this.insertSales(carSales, partSales);
+
+        return this;
+    }
+
+    static String randomOf(List<String> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private void insert(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            this.jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+        rows.clear();
+    }
+
+    private void insertSales(List<Object[]> carSales, List<Object[]> partSales) {
+        this.insert("INSERT INTO car_sales (id, discount, sale_date, customer_id, car_id) VALUES (?, ?, ?, ?, ?)", carSales);
+        this.insert("INSERT INTO part_sales (id, discount, quantity, sale_date, customer_id, part_id) VALUES (?, ?, ?, ?, ?, ?)",
+                partSales);
+    }
+}
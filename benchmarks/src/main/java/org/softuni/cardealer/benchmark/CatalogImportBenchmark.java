@@ -0,0 +1,99 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.imports.ImportReport;
+import org.softuni.cardealer.service.CatalogImportService;
+import org.softuni.cardealer.service.ImportFormat;
+import org.softuni.cardealer.service.ImportProgressListener;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports {@code ROWS} parts from CSV and {@code ROWS} cars with three parts each from JSON,
+ * both held in memory so that only parsing, reference resolution and writing are measured.
+ * Scores are rows per minute.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CatalogImportBenchmark {
+
+    private static final int ROWS = 20_000;
+    private static final int SUPPLIERS = 500;
+    private static final int PART_NAMES = 5_000;
+    private static final int PARTS_PER_CAR = 3;
+
+    @Param({"500", "2000"})
+    private int chunkSize;
+
+    private ConfigurableApplicationContext context;
+    private CatalogImportService catalogImportService;
+    private byte[] partsCsv;
+    private byte[] carsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.context = BenchmarkContext.start("--cardealer.import.chunk-size=" + this.chunkSize);
+        this.catalogImportService = this.context.getBean(CatalogImportService.class);
+
+        StringBuilder suppliers = new StringBuilder("name,importer\n");
+        for (int i = 0; i < SUPPLIERS; i++) {
+            suppliers.append("Supplier ").append(i).append(',').append(i % 2 == 0).append('\n');
+        }
+        this.catalogImportService.importSuppliers(bytesOf(suppliers), ImportFormat.CSV, ImportProgressListener.NONE);
+
+        StringBuilder parts = new StringBuilder("name,price,supplier\n");
+        for (int i = 0; i < ROWS; i++) {
+            parts.append("Part ").append(i % PART_NAMES).append(',').append(i % 1000).append(".99,Supplier ")
+                    .append(i % SUPPLIERS).append('\n');
+        }
+        this.partsCsv = parts.toString().getBytes(StandardCharsets.UTF_8);
+        this.catalogImportService.importParts(new ByteArrayInputStream(this.partsCsv),
+                ImportFormat.CSV, ImportProgressListener.NONE);
+
+        StringBuilder cars = new StringBuilder();
+        for (int i = 0; i < ROWS; i++) {
+            cars.append("{\"make\":\"Make ").append(i % 50).append("\",\"model\":\"Model ").append(i % 500)
+                    .append("\",\"travelledDistance\":").append(i).append(",\"parts\":[");
+            for (int p = 0; p < PARTS_PER_CAR; p++) {
+                cars.append(p == 0 ? "" : ",").append("\"Part ").append((i * PARTS_PER_CAR + p) % PART_NAMES).append('"');
+            }
+            cars.append("]}\n");
+        }
+        this.carsJson = cars.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long importParts_csv() throws IOException {
+        ImportReport report = this.catalogImportService.importParts(new ByteArrayInputStream(this.partsCsv),
+                ImportFormat.CSV, ImportProgressListener.NONE);
+
+        return report.getImportedRows();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long importCars_json() throws IOException {
+        ImportReport report = this.catalogImportService.importCars(new ByteArrayInputStream(this.carsJson),
+                ImportFormat.JSON, ImportProgressListener.NONE);
+
+        return report.getImportedRows();
+    }
+
+    private static ByteArrayInputStream bytesOf(CharSequence content) {
+        return new ByteArrayInputStream(content.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
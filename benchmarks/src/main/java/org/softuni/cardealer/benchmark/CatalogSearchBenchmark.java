@@ -0,0 +1,101 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.search.CatalogSearchIndex;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Type-ahead lookups of the ten best part names for what a user has typed so far, out of
+ * {@code size} parts named like {@code "Bosch Brake Pad K4821"}: from the search index, and
+ * with the {@code LIKE '%...%'} statement it replaces, ordered by name so that it ranks too. The
+ * queries are one to five letters of a word of the names, some after the whole word before it.
+ * <p>
+ * The heap the index takes is printed once it is built.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CatalogSearchBenchmark {
+
+    private static final int LIMIT = 10;
+    private static final String[] BRANDS = {"Bosch", "Brembo", "Valeo", "Denso", "Mahle", "Febi", "Lemforder",
+            "Sachs", "Hella", "Mann", "Continental", "Delphi", "Gates", "Ngk", "Osram", "Philips"};
+    private static final String[] KINDS = {"Brake Pad", "Brake Disc", "Oil Filter", "Air Filter", "Spark Plug",
+            "Timing Belt", "Water Pump", "Wiper Blade", "Headlight Bulb", "Shock Absorber", "Clutch Kit",
+            "Fuel Pump", "Radiator", "Alternator", "Starter Motor", "Wheel Bearing", "Control Arm", "Tie Rod End"};
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    @Param({"index", "like"})
+    private String lookup;
+
+    private ConfigurableApplicationContext context;
+    private CatalogSearchIndex catalogSearchIndex;
+    private JdbcTemplate jdbcTemplate;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.catalogSearchIndex = this.context.getBean(CatalogSearchIndex.class);
+        this.jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+
+        Random random = new Random(42);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < this.size; i++) {
+            String name = String.format("%s %s %c%d", BRANDS[random.nextInt(BRANDS.length)],
+                    KINDS[random.nextInt(KINDS.length)], (char) ('A' + random.nextInt(26)), random.nextInt(10_000));
+            rows.add(new Object[]{UUID.randomUUID().toString(), name});
+            if (rows.size() == 1000 || i == this.size - 1) {
+                this.jdbcTemplate.batchUpdate("INSERT INTO parts (id, name, price, version) VALUES (?, ?, 10, 0)", rows);
+                rows.clear();
+            }
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        this.catalogSearchIndex.rebuild();
+        System.gc();
+        System.out.printf("%nsearch index heap: %d MB for %d parts%n",
+                (memory.getHeapMemoryUsage().getUsed() - before) >> 20, this.size);
+
+        this.queries = new String[1024];
+        for (int i = 0; i < this.queries.length; i++) {
+            String[] words = (BRANDS[random.nextInt(BRANDS.length)] + " " + KINDS[random.nextInt(KINDS.length)]).split(" ");
+            int word = random.nextInt(words.length);
+            String typed = words[word].substring(0, 1 + random.nextInt(Math.min(5, words[word].length())));
+            this.queries[i] = word > 0 && random.nextBoolean() ? words[word - 1] + " " + typed : typed;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<String> typeAhead() {
+        String query = this.queries[this.next++ & (this.queries.length - 1)];
+        if ("like".equals(this.lookup)) {
+            return this.jdbcTemplate.queryForList("SELECT id FROM parts WHERE LOWER(name) LIKE ? ORDER BY name LIMIT " + LIMIT,
+                    String.class, "%" + query.toLowerCase() + "%");
+        }
+
+        return this.catalogSearchIndex.searchParts(query, LIMIT);
+    }
+}
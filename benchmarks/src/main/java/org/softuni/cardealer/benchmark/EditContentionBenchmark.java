@@ -0,0 +1,107 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.EditConflictException;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edits cars from four threads at once, spread over {@code hotCars} cars: with one car every
+ * edit races the other threads, with 1024 hardly any do. {@code editCar_retry} is the plain
+ * read, change and {@code editCar(model)} that the caller repeats on a conflict;
+ * {@code editCar_merge} lets {@code editCar(id, changes)} merge the edits, each thread
+ * changing a field of its own. The {@code conflicts} counter is the number of conflicts the
+ * callers had to retry over the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class EditContentionBenchmark {
+
+    @Param({"1", "16", "1024"})
+    private int hotCars;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private List<String> carIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Edits {
+
+        public long conflicts;
+
+        int thread;
+        long value;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            this.thread = threadParams.getThreadIndex();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carService = this.context.getBean(CarService.class);
+        this.carIds = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(this.hotCars).carIds;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public CarServiceModel editCar_retry(Edits edits) {
+        String id = this.hotCar();
+        while (true) {
+            CarServiceModel car = this.carService.findCarById(id);
+            car.setTravelledDistance(car.getTravelledDistance() + 1);
+            try {
+                return this.carService.editCar(car);
+            } catch (EditConflictException e) {
+                edits.conflicts++;
+            }
+        }
+    }
+
+    @Benchmark
+    public CarServiceModel editCar_merge(Edits edits) {
+        String id = this.hotCar();
+        long value = ++edits.value;
+        while (true) {
+            try {
+                return this.carService.editCar(id, car -> {
+                    switch (edits.thread % 3) {
+                        case 0:
+                            car.setMake("Make " + value);
+                            break;
+                        case 1:
+                            car.setModel("Model " + value);
+                            break;
+                        default:
+                            car.setTravelledDistance(value);
+                    }
+                });
+            } catch (EditConflictException e) {
+                edits.conflicts++;
+            }
+        }
+    }
+
+    private String hotCar() {
+        return this.carIds.get(ThreadLocalRandom.current().nextInt(this.hotCars));
+    }
+}
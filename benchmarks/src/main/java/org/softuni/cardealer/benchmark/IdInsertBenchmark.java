@@ -0,0 +1,74 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.service.CarService;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput of {@code saveCars} for each id format once the table already holds
+ * {@code existingRows} cars. Random keys scatter inserts over the whole primary key index,
+ * time-ordered keys append to its right edge, so the gap widens as the table grows.
+ * <p>
+ * The in-memory default only hints at the effect; point the benchmark at MySQL or MariaDB
+ * ({@link BenchmarkContext}) to see the clustered index behaviour at millions of rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class IdInsertBenchmark {
+
+    private static final int CHUNK = 5000;
+
+    @Param({"random-string", "time-ordered-string", "time-ordered-binary"})
+    private String idFormat;
+
+    @Param({"1000000", "5000000"})
+    private int existingRows;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start(
+                "--spring.jpa.properties.cardealer.id.format=" + this.idFormat,
+                "--cardealer.bulk.chunk-size=" + CHUNK);
+        this.carService = this.context.getBean(CarService.class);
+
+        for (int loaded = 0; loaded < this.existingRows; loaded += CHUNK) {
+            this.carService.saveCars(cars());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK)
+    public int insertCars() {
+        return this.carService.saveCars(cars()).size();
+    }
+
+    private static List<CarServiceModel> cars() {
+        List<CarServiceModel> cars = new ArrayList<>(CHUNK);
+        for (int i = 0; i < CHUNK; i++) {
+            CarServiceModel car = new CarServiceModel();
+            car.setMake("Make " + i % 50);
+            car.setModel("Model " + i % 500);
+            car.setTravelledDistance((long) i);
+            cars.add(car);
+        }
+
+        return cars;
+    }
+}
@@ -0,0 +1,86 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.CustomerService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads page {@code page} of the customer and car listings, {@code PAGE_SIZE} rows each, from
+ * a catalog deep enough for page 10,000. The token for the page is obtained by walking the
+ * listing once during setup. {@code listCustomers_offset} reads the same rows with an OFFSET
+ * instead, as {@code findAll(Pageable)} would, for comparison. The longer warmup is for page 1,
+ * which has no walk in setup to warm the listing up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 6, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KeysetPaginationBenchmark {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int CATALOG_SIZE = 100_010;
+
+    @Param({"1", "10000"})
+    private int page;
+
+    private ConfigurableApplicationContext context;
+    private CustomerService customerService;
+    private CarService carService;
+    private EntityManager entityManager;
+
+    private String customerToken;
+    private String carToken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.customerService = this.context.getBean(CustomerService.class);
+        this.carService = this.context.getBean(CarService.class);
+        this.entityManager = this.context.getBean(EntityManagerFactory.class).createEntityManager();
+        new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(CATALOG_SIZE);
+
+        for (int i = 1; i < this.page; i++) {
+            this.customerToken = this.customerService.listCustomers(this.customerToken, PAGE_SIZE).getNextPageToken();
+            this.carToken = this.carService.listCars(this.carToken, PAGE_SIZE).getNextPageToken();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.entityManager.close();
+        this.context.close();
+    }
+
+    @Benchmark
+    public PageServiceModel<CustomerServiceModel> listCustomers_keyset() {
+        return this.customerService.listCustomers(this.customerToken, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Customer> listCustomers_offset() {
+        this.entityManager.clear();
+
+        return this.entityManager.createQuery("SELECT c FROM Customer c ORDER BY c.id", Customer.class)
+                .setFirstResult((this.page - 1) * PAGE_SIZE)
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultList();
+    }
+
+    @Benchmark
+    public PageServiceModel<CarServiceModel> listCars_keyset() {
+        return this.carService.listCars(this.carToken, PAGE_SIZE);
+    }
+}
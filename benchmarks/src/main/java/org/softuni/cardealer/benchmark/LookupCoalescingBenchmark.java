@@ -0,0 +1,67 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.metrics.StatementCountingStatistics;
+import org.softuni.cardealer.service.CarService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thirty-two threads opening the same {@code hotCars} cars over and over, as terminals do when
+ * a car is in the news, with {@code cardealer.lookups.single-flight} switched off and on. The
+ * {@code statements} counter is the number of statements the lookups sent to the database;
+ * divided by the operations it is the database load of one lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(32)
+@Fork(1)
+public class LookupCoalescingBenchmark {
+
+    @Param({"false", "true"})
+    private boolean singleFlight;
+
+    @Param({"1", "20"})
+    private int hotCars;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private List<String> carIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Lookups {
+
+        public long statements;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start("--cardealer.lookups.single-flight.enabled=" + this.singleFlight);
+        this.carService = this.context.getBean(CarService.class);
+        CatalogFixture fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(1000);
+        this.carIds = fixture.carIds.subList(0, this.hotCars);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public CarServiceModel findCarById(Lookups lookups) {
+        long before = StatementCountingStatistics.preparedOnCurrentThread();
+        CarServiceModel car = this.carService.findCarById(this.carIds.get(ThreadLocalRandom.current().nextInt(this.hotCars)));
+        lookups.statements += StatementCountingStatistics.preparedOnCurrentThread() - before;
+
+        return car;
+    }
+}
@@ -0,0 +1,129 @@
+package org.softuni.cardealer.benchmark;
+
+import org.mapstruct.factory.Mappers;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.CarSale;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.mapper.SaleMapper;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated mappers with the reflective {@link ModelMapper} they replaced.
+ * Run with {@code -prof gc} to see the allocation per operation next to the throughput.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    @Param({"0", "10"})
+    private int partsPerCar;
+
+    private ModelMapper modelMapper;
+    private CarMapper carMapper;
+    private SaleMapper saleMapper;
+
+    private Car car;
+    private CarSale carSale;
+    private CarServiceModel carServiceModel;
+    private CarSaleServiceModel carSaleServiceModel;
+
+    @Setup
+    public void setUp() {
+        this.modelMapper = new ModelMapper();
+        this.carMapper = Mappers.getMapper(CarMapper.class);
+        this.saleMapper = Mappers.getMapper(SaleMapper.class);
+
+        Supplier supplier = new Supplier();
+        supplier.setId(UUID.randomUUID().toString());
+        supplier.setName("Supplier");
+        supplier.setImporter(true);
+
+        List<Part> parts = new ArrayList<>();
+        for (int i = 0; i < this.partsPerCar; i++) {
+            Part part = new Part();
+            part.setId(UUID.randomUUID().toString());
+            part.setName("Part " + i);
+            part.setPrice(BigDecimal.valueOf(i + 1));
+            part.setSupplier(supplier);
+            parts.add(part);
+        }
+
+        this.car = new Car();
+        this.car.setId(UUID.randomUUID().toString());
+        this.car.setMake("Make");
+        this.car.setModel("Model");
+        this.car.setTravelledDistance(1000L);
+        this.car.setParts(parts);
+
+        Customer customer = new Customer();
+        customer.setId(UUID.randomUUID().toString());
+        customer.setName("Customer");
+        customer.setBirthDate(LocalDate.of(1990, 1, 1));
+
+        this.carSale = new CarSale();
+        this.carSale.setId(UUID.randomUUID().toString());
+        this.carSale.setDiscount(0.1);
+        this.carSale.setCustomer(customer);
+        this.carSale.setCar(this.car);
+
+        this.carServiceModel = this.carMapper.toServiceModel(this.car);
+        this.carSaleServiceModel = this.saleMapper.toServiceModel(this.carSale);
+    }
+
+    @Benchmark
+    public CarServiceModel carToServiceModel_modelMapper() {
+        return this.modelMapper.map(this.car, CarServiceModel.class);
+    }
+
+    @Benchmark
+    public CarServiceModel carToServiceModel_generated() {
+        return this.carMapper.toServiceModel(this.car);
+    }
+
+    @Benchmark
+    public Car carToEntity_modelMapper() {
+        return this.modelMapper.map(this.carServiceModel, Car.class);
+    }
+
+    @Benchmark
+    public Car carToEntity_generated() {
+        return this.carMapper.toEntity(this.carServiceModel);
+    }
+
+    @Benchmark
+    public CarSaleServiceModel carSaleToServiceModel_modelMapper() {
+        return this.modelMapper.map(this.carSale, CarSaleServiceModel.class);
+    }
+
+    @Benchmark
+    public CarSaleServiceModel carSaleToServiceModel_generated() {
+        return this.saleMapper.toServiceModel(this.carSale);
+    }
+
+    @Benchmark
+    public CarSale carSaleToEntity_modelMapper() {
+        return this.modelMapper.map(this.carSaleServiceModel, CarSale.class);
+    }
+
+    @Benchmark
+    public CarSale carSaleToEntity_generated() {
+        return this.saleMapper.toEntity(this.carSaleServiceModel);
+    }
+}
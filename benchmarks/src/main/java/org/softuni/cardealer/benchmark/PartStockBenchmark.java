@@ -0,0 +1,78 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.service.InsufficientStockException;
+import org.softuni.cardealer.service.SaleService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sells one part from sixteen threads at once, with {@code cardealer.stock.reservations}
+ * switched off and on. With {@code stock} in the billions every sale goes through; with none
+ * every sale is rejected, which is what a sold-out best seller turns into. The {@code rejected}
+ * counter is the number of rejected sales over the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(16)
+@Fork(1)
+public class PartStockBenchmark {
+
+    @Param({"false", "true"})
+    private boolean reservations;
+
+    @Param({"1000000000", "0"})
+    private int stock;
+
+    private ConfigurableApplicationContext context;
+    private SaleService saleService;
+    private PartSaleServiceModel sale;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Sales {
+
+        public long rejected;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start("--cardealer.stock.reservations.enabled=" + this.reservations);
+        this.saleService = this.context.getBean(SaleService.class);
+
+        String partId = UUID.randomUUID().toString();
+        this.context.getBean(JdbcTemplate.class).update(
+                "INSERT INTO parts (id, name, price, stock, version) VALUES (?, 'Best Seller', 10, ?, 0)",
+                partId, this.stock);
+
+        PartServiceModel part = new PartServiceModel();
+        part.setId(partId);
+        this.sale = new PartSaleServiceModel();
+        this.sale.setPart(part);
+        this.sale.setQuantity(1);
+        this.sale.setDiscount(0.0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public PartSaleServiceModel salePart(Sales sales) {
+        try {
+            return this.saleService.salePart(this.sale);
+        } catch (InsufficientStockException e) {
+            sales.rejected++;
+            return null;
+        }
+    }
+}
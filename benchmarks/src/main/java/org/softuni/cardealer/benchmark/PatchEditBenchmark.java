@@ -0,0 +1,88 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.CarPatchServiceModel;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.CustomerPatchServiceModel;
+import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.CustomerService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changes one field of a random car or customer: {@code editCar} and {@code editCustomer}
+ * read the entity, apply the change and save every editable field, while {@code patchCar}
+ * and {@code patchCustomer} update the one column and read the result back. The longer
+ * warmup lets the lookups reach a steady state; until then scores keep falling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PatchEditBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private CustomerService customerService;
+    private List<String> carIds;
+    private List<String> customerIds;
+    private long distance;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carService = this.context.getBean(CarService.class);
+        this.customerService = this.context.getBean(CustomerService.class);
+        CatalogFixture fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(1000);
+        this.carIds = fixture.carIds;
+        this.customerIds = fixture.customerIds;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public CarServiceModel editCar() {
+        long distance = ++this.distance;
+
+        return this.carService.editCar(random(this.carIds), car -> car.setTravelledDistance(distance));
+    }
+
+    @Benchmark
+    public CarServiceModel patchCar() {
+        CarPatchServiceModel patch = new CarPatchServiceModel();
+        patch.setId(random(this.carIds));
+        patch.setTravelledDistance(++this.distance);
+
+        return this.carService.patchCar(patch);
+    }
+
+    @Benchmark
+    public CustomerServiceModel editCustomer() {
+        boolean youngDriver = (++this.distance & 1) == 0;
+
+        return this.customerService.editCustomer(random(this.customerIds), customer -> customer.setYoungDriver(youngDriver));
+    }
+
+    @Benchmark
+    public CustomerServiceModel patchCustomer() {
+        CustomerPatchServiceModel patch = new CustomerPatchServiceModel();
+        patch.setId(random(this.customerIds));
+        patch.setYoungDriver((++this.distance & 1) == 0);
+
+        return this.customerService.patchCustomer(patch);
+    }
+
+    private static String random(List<String> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,102 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.service.ReactiveSaleService;
+import org.softuni.cardealer.service.SaleService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Flux;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code submissions} part sales submitted at once, of random parts out of a thousand. The
+ * blocking {@link SaleService} gets a thread per submission, as a thread-per-request server
+ * would give it; {@link ReactiveSaleService} gets them all from the benchmark thread and runs
+ * them on its own threads, as many as the connection pool has connections. One operation is
+ * all the submissions.
+ * <p>
+ * The peak number of platform threads of the fork is printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReactiveSaleBenchmark {
+
+    @Param({"blocking", "reactive"})
+    private String service;
+
+    @Param({"100", "2000"})
+    private int submissions;
+
+    private ConfigurableApplicationContext context;
+    private SaleService saleService;
+    private ReactiveSaleService reactiveSaleService;
+    private List<String> partIds;
+    private ExecutorService submitters;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.saleService = this.context.getBean(SaleService.class);
+        this.reactiveSaleService = this.context.getBean(ReactiveSaleService.class);
+        this.partIds = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(1000).partIds;
+        this.submitters = Executors.newFixedThreadPool(this.submissions);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.submitters.shutdownNow();
+        this.context.close();
+
+        System.out.printf("%npeak platform threads: %d%n", ManagementFactory.getThreadMXBean().getPeakThreadCount());
+    }
+
+    @Benchmark
+    public long submitSales() throws InterruptedException, ExecutionException {
+        if ("reactive".equals(this.service)) {
+            return Flux.range(0, this.submissions)
+                    .flatMap(i -> this.reactiveSaleService.salePart(this.randomSale()), this.submissions)
+                    .count()
+                    .block();
+        }
+
+        List<Callable<PartSaleServiceModel>> batch = new ArrayList<>(this.submissions);
+        for (int i = 0; i < this.submissions; i++) {
+            batch.add(() -> this.saleService.salePart(this.randomSale()));
+        }
+
+        long sold = 0;
+        for (Future<PartSaleServiceModel> sale : this.submitters.invokeAll(batch)) {
+            sale.get();
+            sold++;
+        }
+
+        return sold;
+    }
+
+    private PartSaleServiceModel randomSale() {
+        PartServiceModel part = new PartServiceModel();
+        part.setId(this.partIds.get(ThreadLocalRandom.current().nextInt(this.partIds.size())));
+        PartSaleServiceModel sale = new PartSaleServiceModel();
+        sale.setPart(part);
+        sale.setQuantity(1);
+        sale.setDiscount(0.0);
+
+        return sale;
+    }
+}
@@ -0,0 +1,79 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.service.CarService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.softuni.cardealer.benchmark.CatalogFixture.randomOf;
+
+/**
+ * Compares the lookups that load managed entities and map them ({@code _entity}) with the
+ * read-only lookups that select straight into view models ({@code _view}). Parts are read
+ * through the repository on both paths, as the service would answer them from its cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ReadOnlyLookupBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private CarRepository carRepository;
+    private PartRepository partRepository;
+    private CarMapper carMapper;
+    private PartMapper partMapper;
+    private CatalogFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carService = this.context.getBean(CarService.class);
+        this.carRepository = this.context.getBean(CarRepository.class);
+        this.partRepository = this.context.getBean(PartRepository.class);
+        this.carMapper = this.context.getBean(CarMapper.class);
+        this.partMapper = this.context.getBean(PartMapper.class);
+        this.fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(CATALOG_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public CarServiceModel findCarById_entity() {
+        return this.carMapper.toServiceModel(
+                this.carRepository.findWithPartsById(randomOf(this.fixture.carIds)).orElse(null));
+    }
+
+    @Benchmark
+    public CarServiceModel findCarById_view() {
+        return this.carService.findCarById(randomOf(this.fixture.carIds));
+    }
+
+    @Benchmark
+    public PartServiceModel findPartById_entity() {
+        return this.partMapper.toServiceModel(
+                this.partRepository.findWithSupplierById(randomOf(this.fixture.partIds)).orElse(null));
+    }
+
+    @Benchmark
+    public PartServiceModel findPartById_view() {
+        return this.partMapper.toServiceModel(
+                this.partRepository.findViewById(randomOf(this.fixture.partIds)).orElse(null));
+    }
+}
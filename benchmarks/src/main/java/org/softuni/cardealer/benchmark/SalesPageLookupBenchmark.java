@@ -0,0 +1,97 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.CustomerService;
+import org.softuni.cardealer.service.PartService;
+import org.softuni.cardealer.service.RequestLookups;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The lookups behind one page of {@code rows} sales out of a catalog of 10,000 cars, parts and
+ * customers: the car, the part and the customer of every row. {@code lookups} either calls the
+ * single-id service methods row by row, or asks {@link RequestLookups} for all of them and reads
+ * them afterwards. Parts are served from the catalog cache by both once they have been read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SalesPageLookupBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"20", "100"})
+    private int rows;
+
+    @Param({"per-row", "request-lookups"})
+    private String lookups;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private PartService partService;
+    private CustomerService customerService;
+    private String[][] pages;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carService = this.context.getBean(CarService.class);
+        this.partService = this.context.getBean(PartService.class);
+        this.customerService = this.context.getBean(CustomerService.class);
+        CatalogFixture fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(CATALOG_SIZE);
+
+        Random random = new Random(42);
+        this.pages = new String[64][];
+        for (int p = 0; p < this.pages.length; p++) {
+            this.pages[p] = new String[this.rows * 3];
+            for (int row = 0; row < this.rows; row++) {
+                this.pages[p][row * 3] = fixture.carIds.get(random.nextInt(CATALOG_SIZE));
+                this.pages[p][row * 3 + 1] = fixture.partIds.get(random.nextInt(CATALOG_SIZE));
+                this.pages[p][row * 3 + 2] = fixture.customerIds.get(random.nextInt(CATALOG_SIZE));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<Object> salesPage() {
+        String[] page = this.pages[this.next++ & (this.pages.length - 1)];
+        List<Object> rendered = new ArrayList<>(page.length);
+
+        if ("per-row".equals(this.lookups)) {
+            for (int i = 0; i < page.length; i += 3) {
+                rendered.add(this.carService.findCarById(page[i]));
+                rendered.add(this.partService.findPartById(page[i + 1]));
+                rendered.add(this.customerService.findCustomerById(page[i + 2]));
+            }
+
+            return rendered;
+        }
+
+        RequestLookups requestLookups = new RequestLookups(this.carService, this.partService, this.customerService);
+        List<Supplier<?>> asked = new ArrayList<>(page.length);
+        for (int i = 0; i < page.length; i += 3) {
+            asked.add(requestLookups.car(page[i]));
+            asked.add(requestLookups.part(page[i + 1]));
+            asked.add(requestLookups.customer(page[i + 2]));
+        }
+        asked.forEach(lookup -> rendered.add(lookup.get()));
+
+        return rendered;
+    }
+}
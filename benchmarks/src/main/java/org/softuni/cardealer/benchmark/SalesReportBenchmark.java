@@ -0,0 +1,78 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.report.CustomerRevenueModel;
+import org.softuni.cardealer.domain.models.report.DiscountTotalsModel;
+import org.softuni.cardealer.domain.models.report.MakeModelSalesModel;
+import org.softuni.cardealer.domain.models.report.SupplierRevenueModel;
+import org.softuni.cardealer.service.SalesReportService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the sales reports over the last 30 days while the sale history grows at a constant
+ * {@code SALES_PER_DAY}, so every {@code salesCount} puts the same number of sales in the
+ * window. The {@code _allTime} variant scans the whole history for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SalesReportBenchmark {
+
+    private static final int CATALOG_SIZE = 1000;
+    private static final int SALES_PER_DAY = 100;
+    private static final LocalDateTime NOW = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final LocalDateTime MONTH_AGO = NOW.minusDays(30);
+
+    @Param({"10000", "100000", "400000"})
+    private int salesCount;
+
+    private ConfigurableApplicationContext context;
+    private SalesReportService salesReportService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.salesReportService = this.context.getBean(SalesReportService.class);
+        new CatalogFixture(this.context.getBean(JdbcTemplate.class))
+                .seed(CATALOG_SIZE)
+                .seedSales(this.salesCount, this.salesCount / SALES_PER_DAY, NOW);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<CustomerRevenueModel> revenuePerCustomer_lastMonth() {
+        return this.salesReportService.revenuePerCustomer(MONTH_AGO, NOW);
+    }
+
+    @Benchmark
+    public List<CustomerRevenueModel> revenuePerCustomer_allTime() {
+        return this.salesReportService.revenuePerCustomer(null, null);
+    }
+
+    @Benchmark
+    public List<SupplierRevenueModel> revenuePerSupplier_lastMonth() {
+        return this.salesReportService.revenuePerSupplier(MONTH_AGO, NOW);
+    }
+
+    @Benchmark
+    public DiscountTotalsModel discountTotals_lastMonth() {
+        return this.salesReportService.discountTotals(MONTH_AGO, NOW);
+    }
+
+    @Benchmark
+    public List<MakeModelSalesModel> salesPerMakeModel_lastMonth() {
+        return this.salesReportService.salesPerMakeModel(MONTH_AGO, NOW);
+    }
+}
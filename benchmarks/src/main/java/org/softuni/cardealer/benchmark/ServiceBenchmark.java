@@ -0,0 +1,113 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.BaseServiceModel;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.SaleService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.softuni.cardealer.benchmark.CatalogFixture.randomOf;
+
+/**
+ * Measures the service layer against an embedded H2 database seeded with {@code dataSize}
+ * rows per table. Throughput and sample-time modes are both on, so a run reports operations
+ * per second together with p50/p90/p99/p99.9 latencies; {@link BenchmarkRunner} adds the GC
+ * profiler for allocation per operation.
+ * <p>
+ * Each call runs in its own transaction, as it would inside a web request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceBenchmark {
+
+    @Param({"1000", "100000"})
+    private int dataSize;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private SaleService saleService;
+    private TransactionTemplate transactionTemplate;
+    private CatalogFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carService = this.context.getBean(CarService.class);
+        this.saleService = this.context.getBean(SaleService.class);
+        this.transactionTemplate = this.context.getBean(TransactionTemplate.class);
+        this.fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(this.dataSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public CarServiceModel saveCar() {
+        CarServiceModel car = new CarServiceModel();
+        car.setMake("Make");
+        car.setModel("Model");
+        car.setTravelledDistance(ThreadLocalRandom.current().nextLong(1_000_000));
+
+        return this.transactionTemplate.execute(status -> this.carService.saveCar(car));
+    }
+
+    @Benchmark
+    public CarServiceModel editCar() {
+        CarServiceModel car = new CarServiceModel();
+        car.setId(randomOf(this.fixture.carIds));
+        car.setMake("Edited make");
+        car.setModel("Edited model");
+        car.setTravelledDistance(ThreadLocalRandom.current().nextLong(1_000_000));
+
+        return this.transactionTemplate.execute(status -> this.carService.editCar(car));
+    }
+
+    @Benchmark
+    public CarServiceModel findCarById() {
+        String id = randomOf(this.fixture.carIds);
+
+        return this.transactionTemplate.execute(status -> this.carService.findCarById(id));
+    }
+
+    @Benchmark
+    public CarSaleServiceModel saleCar() {
+        CarSaleServiceModel carSale = new CarSaleServiceModel();
+        carSale.setDiscount(0.05);
+        carSale.setCar(reference(new CarServiceModel(), randomOf(this.fixture.carIds)));
+        carSale.setCustomer(reference(new CustomerServiceModel(), randomOf(this.fixture.customerIds)));
+
+        return this.transactionTemplate.execute(status -> this.saleService.saleCar(carSale));
+    }
+
+    @Benchmark
+    public PartSaleServiceModel salePart() {
+        PartSaleServiceModel partSale = new PartSaleServiceModel();
+        partSale.setDiscount(0.05);
+        partSale.setQuantity(1 + ThreadLocalRandom.current().nextInt(5));
+        partSale.setPart(reference(new PartServiceModel(), randomOf(this.fixture.partIds)));
+        partSale.setCustomer(reference(new CustomerServiceModel(), randomOf(this.fixture.customerIds)));
+
+        return this.transactionTemplate.execute(status -> this.saleService.salePart(partSale));
+    }
+
+    private static <T extends BaseServiceModel> T reference(T model, String id) {
+        model.setId(id);
+        return model;
+    }
+}
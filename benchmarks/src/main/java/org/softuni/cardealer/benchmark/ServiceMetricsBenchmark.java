@@ -0,0 +1,67 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.PartService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.softuni.cardealer.benchmark.CatalogFixture.randomOf;
+
+/**
+ * Cost of the service metrics on the hot path: the same calls with the metrics aspect and
+ * Hibernate statistics switched on and off. {@code findPartById} is served from the catalog
+ * cache, so it shows the overhead against a call that does almost nothing; {@code findCarById}
+ * shows it against a call that goes to the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceMetricsBenchmark {
+
+    @Param({"off", "on"})
+    private String metrics;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private PartService partService;
+    private TransactionTemplate transactionTemplate;
+    private CatalogFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean enabled = "on".equals(this.metrics);
+        this.context = BenchmarkContext.start(
+                "--cardealer.metrics.service.enabled=" + enabled,
+                "--spring.jpa.properties.hibernate.generate_statistics=" + enabled);
+        this.carService = this.context.getBean(CarService.class);
+        this.partService = this.context.getBean(PartService.class);
+        this.transactionTemplate = this.context.getBean(TransactionTemplate.class);
+        this.fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public PartServiceModel findPartById_cached() {
+        return this.partService.findPartById(randomOf(this.fixture.partIds));
+    }
+
+    @Benchmark
+    public CarServiceModel findCarById() {
+        String id = randomOf(this.fixture.carIds);
+
+        return this.transactionTemplate.execute(status -> this.carService.findCarById(id));
+    }
+}
@@ -0,0 +1,119 @@
+package org.softuni.cardealer.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.softuni.cardealer.config.VirtualThreads;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.PartService;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ten thousand requests in flight at once, each spending {@code downstreamMillis} in other
+ * blocking I/O and then reading a car and a part through the services, as a front-end request
+ * would. {@code executor} serves them the way Tomcat would: its default 200 platform threads,
+ * a platform thread per request, or a virtual thread per request (Java 21 or later). One
+ * operation is all ten thousand requests.
+ * <p>
+ * The peak number of platform threads and the peak resident memory of the fork are printed
+ * at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    private static final int REQUESTS = 10_000;
+
+    @Param({"platform-200", "platform-10000", "virtual"})
+    private String executor;
+
+    @Param({"0", "20"})
+    private int downstreamMillis;
+
+    private ConfigurableApplicationContext context;
+    private CarService carService;
+    private PartService partService;
+    private List<String> carIds;
+    private List<String> partIds;
+    private ExecutorService requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.context = BenchmarkContext.start();
+        this.carService = this.context.getBean(CarService.class);
+        this.partService = this.context.getBean(PartService.class);
+        CatalogFixture fixture = new CatalogFixture(this.context.getBean(JdbcTemplate.class)).seed(1000);
+        this.carIds = fixture.carIds;
+        this.partIds = fixture.partIds;
+
+        switch (this.executor) {
+            case "platform-200":
+                this.requests = Executors.newFixedThreadPool(200);
+                break;
+            case "platform-10000":
+                this.requests = Executors.newFixedThreadPool(REQUESTS);
+                break;
+            default:
+                this.requests = VirtualThreads.newThreadPerTaskExecutor("request-");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.requests.shutdownNow();
+        this.context.close();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        String peakResident = Files.readAllLines(Paths.get("/proc/self/status")).stream()
+                .filter(line -> line.startsWith("VmHWM:"))
+                .findFirst()
+                .orElse("VmHWM: n/a");
+        System.out.printf("%npeak platform threads: %d, peak resident memory %s%n",
+                threads.getPeakThreadCount(), peakResident.substring("VmHWM:".length()).trim());
+    }
+
+    @Benchmark
+    public int tenThousandRequests() throws InterruptedException, ExecutionException {
+        List<Callable<Integer>> batch = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            batch.add(this::request);
+        }
+
+        int parts = 0;
+        for (Future<Integer> response : this.requests.invokeAll(batch)) {
+            parts += response.get();
+        }
+
+        return parts;
+    }
+
+    private Integer request() throws InterruptedException {
+        if (this.downstreamMillis > 0) {
+            Thread.sleep(this.downstreamMillis);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int parts = this.carService.findCarById(this.carIds.get(random.nextInt(this.carIds.size()))).getParts().size();
+        this.partService.findPartById(this.partIds.get(random.nextInt(this.partIds.size())));
+
+        return parts;
+    }
+}
@@ -0,0 +1,206 @@
+package org.softuni.cardealer.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.domain.models.service.SupplierServiceModel;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SupplierMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for part and supplier lookups. Values are copied on the way in and
+ * on the way out, so no caller ever holds the cached instance.
+ * <p>
+ * A miss puts a pending entry in the cache and loads outside of it: a load run inside the
+ * cache's map would hold a monitor over the query, pinning a virtual thread to its carrier,
+ * and block every other key in the same bin. Concurrent lookups of the key wait for the
+ * pending entry, for as long as {@link SingleFlight} lets them; an eviction drops it, so a
+ * load that raced an edit is not kept.
+ * <p>
+ * A lookup in a read-write transaction goes past the cache, as it may see changes that are
+ * not committed yet, and an eviction in a transaction is done again once it completes.
+ */
+@Component
+public class CatalogCache {
+
+    private final AsyncCache<String, PartServiceModel> parts;
+    private final AsyncCache<String, SupplierServiceModel> suppliers;
+    private final PartMapper partMapper;
+    private final SupplierMapper supplierMapper;
+    private final SingleFlight singleFlight;
+
+    @Autowired
+    public CatalogCache(@Value("${cardealer.cache.catalog.maximum-size:10000}") long maximumSize,
+                        @Value("${cardealer.cache.catalog.expire-after-write-seconds:600}") long expireAfterWriteSeconds,
+                        PartMapper partMapper,
+                        SupplierMapper supplierMapper,
+                        SingleFlight singleFlight) {
+        this.parts = newCache(maximumSize, expireAfterWriteSeconds);
+        this.suppliers = newCache(maximumSize, expireAfterWriteSeconds);
+        this.partMapper = partMapper;
+        this.supplierMapper = supplierMapper;
+        this.singleFlight = singleFlight;
+    }
+
+    public PartServiceModel findPart(String id, Function<String, PartServiceModel> loader) {
+        PartServiceModel part = this.load(this.parts, "Part", id, key -> this.partMapper.copy(loader.apply(key)));
+
+        return this.partMapper.copy(part);
+    }
+
+    /**
+     * Looks up many parts at once: the cached ones from the cache, the others, unless another
+     * lookup is loading them already, with a single call of {@code loader}.
+     *
+     * @param loader loads the parts of the ids it is given, leaving out those that do not exist
+     * @return the part of every id in the order of {@code ids}, {@code null} for an id that
+     * does not exist
+     */
+    public List<PartServiceModel> findParts(List<String> ids,
+                                            Function<Collection<String>, Map<String, PartServiceModel>> loader) {
+        if (SingleFlight.inReadWriteTransaction()) {
+            Map<String, PartServiceModel> loaded = loader.apply(new ArrayList<>(new LinkedHashSet<>(ids)));
+            List<PartServiceModel> found = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                found.add(this.partMapper.copy(loaded.get(Objects.requireNonNull(id, "id"))));
+            }
+
+            return found;
+        }
+
+        Map<String, CompletableFuture<PartServiceModel>> pending = new HashMap<>();
+        Map<String, CompletableFuture<PartServiceModel>> loading = new LinkedHashMap<>();
+        for (String id : ids) {
+            if (!pending.containsKey(Objects.requireNonNull(id, "id"))) {
+                CompletableFuture<PartServiceModel> own = new CompletableFuture<>();
+                CompletableFuture<PartServiceModel> part = this.parts.get(id, (key, executor) -> own);
+                pending.put(id, part);
+                if (part == own) {
+                    loading.put(id, own);
+                }
+            }
+        }
+
+        if (!loading.isEmpty()) {
+            try {
+                Map<String, PartServiceModel> loaded = loader.apply(new ArrayList<>(loading.keySet()));
+                loading.forEach((id, own) -> own.complete(this.partMapper.copy(loaded.get(id))));
+            } catch (RuntimeException | Error e) {
+                loading.values().forEach(own -> own.completeExceptionally(e));
+                throw e;
+            }
+        }
+
+        List<PartServiceModel> found = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            found.add(this.partMapper.copy(this.singleFlight.await(pending.get(id), "Part", id)));
+        }
+
+        return found;
+    }
+
+    public SupplierServiceModel findSupplier(String id, Function<String, SupplierServiceModel> loader) {
+        SupplierServiceModel supplier = this.load(this.suppliers, "Supplier", id, key -> this.supplierMapper.copy(loader.apply(key)));
+
+        return this.supplierMapper.copy(supplier);
+    }
+
+    public void evictPart(String id) {
+        this.parts.synchronous().invalidate(id);
+        afterCompletion(() -> this.parts.synchronous().invalidate(id));
+    }
+
+    /**
+     * Evicts the supplier together with every cached part that embeds it, and with the parts
+     * still loading, which may have read it before the change.
+     */
+    public void evictSupplier(String id) {
+        this.evictSupplierAndParts(id);
+        afterCompletion(() -> this.evictSupplierAndParts(id));
+    }
+
+    private void evictSupplierAndParts(String id) {
+        this.suppliers.synchronous().invalidate(id);
+        this.parts.asMap().values().removeIf(pending -> {
+            if (!pending.isDone()) {
+                return true;
+            }
+
+            PartServiceModel part = pending.isCompletedExceptionally() ? null : pending.join();
+
+            return part != null && part.getSupplier() != null && id.equals(part.getSupplier().getId());
+        });
+    }
+
+    public CacheStats partStats() {
+        return this.parts.synchronous().stats();
+    }
+
+    public CacheStats supplierStats() {
+        return this.suppliers.synchronous().stats();
+    }
+
+    /**
+     * @return the cached value, or the one loaded by this call or a concurrent one; a failed
+     * load is not cached and fails every lookup that waited for it
+     */
+    private <V> V load(AsyncCache<String, V> cache, String kind, String id, Function<String, V> loader) {
+        if (SingleFlight.inReadWriteTransaction()) {
+            return loader.apply(Objects.requireNonNull(id, "id"));
+        }
+
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> pending = cache.get(id, (key, executor) -> loading);
+        if (pending == loading) {
+            try {
+                loading.complete(loader.apply(id));
+            } catch (RuntimeException | Error e) {
+                loading.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        return this.singleFlight.await(pending, kind, id);
+    }
+
+    /**
+     * Runs the eviction again once the current transaction completes, as a lookup made before
+     * the commit may have cached what the transaction changed.
+     */
+    private static void afterCompletion(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private static <V> AsyncCache<String, V> newCache(long maximumSize, long expireAfterWriteSeconds) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds))
+                .recordStats()
+                .buildAsync();
+    }
+}
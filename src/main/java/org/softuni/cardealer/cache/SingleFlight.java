@@ -0,0 +1,132 @@
+package org.softuni.cardealer.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent lookups of the same entity: the first caller runs the load and every
+ * caller arriving while it is in progress waits for that load and shares its result, so a
+ * popular car opened on many terminals at once costs the database one query instead of one
+ * per terminal. Nothing is kept once the load is done; the next lookup loads again.
+ * <p>
+ * The load runs on the thread of the first caller, in its transaction. A caller in a
+ * read-write transaction therefore neither leads nor joins a shared load, as it may see its
+ * own uncommitted changes and the others may not. A failed load fails every caller that
+ * waited for it with the same exception. Waiting callers give up after the wait timeout
+ * with a {@link QueryTimeoutException}; the load itself carries on for whoever is left.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final boolean enabled;
+    private final long waitTimeoutMillis;
+
+    @Autowired
+    public SingleFlight(@Value("${cardealer.lookups.single-flight.enabled:true}") boolean enabled,
+                        @Value("${cardealer.lookups.single-flight.wait-timeout-millis:5000}") long waitTimeoutMillis) {
+        if (waitTimeoutMillis < 1) {
+            throw new IllegalArgumentException("Invalid single-flight settings");
+        }
+
+        this.enabled = enabled;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+    }
+
+    /**
+     * @return the value loaded by this call, or by the call for the same {@code kind} and
+     * {@code id} that was already in progress
+     */
+    @SuppressWarnings("unchecked")
+    public <V> V load(String kind, String id, Supplier<V> loader) {
+        if (!this.enabled || inReadWriteTransaction()) {
+            return loader.get();
+        }
+
+        String key = kind + ':' + id;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> pending = this.flights.putIfAbsent(key, flight);
+        if (pending != null) {
+            return (V) this.await(pending, kind, id);
+        }
+
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error e) {
+            this.flights.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // removed first, so that no caller arriving after the load joins it
+        this.flights.remove(key, flight);
+        flight.complete(value);
+
+        return value;
+    }
+
+    /**
+     * Lets the lookups that follow start a load of their own rather than join one that may
+     * have read the entity before a change to it. Inside a transaction this is done again
+     * once it completes, as a load started before the commit does not see the change either.
+     */
+    public void forget(String kind, String id) {
+        String key = kind + ':' + id;
+        this.flights.remove(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    SingleFlight.this.flights.remove(key);
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits for a load started by another caller for at most the wait timeout.
+     *
+     * @throws QueryTimeoutException if the load is still in progress after the wait timeout
+     */
+    <V> V await(CompletableFuture<V> pending, String kind, String id) {
+        try {
+            return pending.get(this.waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException(String.format("%s %s was still loading after %d ms",
+                    kind, id, this.waitTimeoutMillis), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted while waiting for %s %s to load", kind, id), e);
+        }
+    }
+
+    int inFlight() {
+        return this.flights.size();
+    }
+
+    static boolean inReadWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+}
@@ -1,6 +1,11 @@
 package org.softuni.cardealer.config;
 
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.mapper.CustomerMapper;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SaleMapper;
+import org.softuni.cardealer.mapper.SupplierMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -8,7 +13,27 @@ import org.springframework.context.annotation.Configuration;
 public class AppBeanConfig {
 
     @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
+    public CarMapper carMapper() {
+        return Mappers.getMapper(CarMapper.class);
+    }
+
+    @Bean
+    public CustomerMapper customerMapper() {
+        return Mappers.getMapper(CustomerMapper.class);
+    }
+
+    @Bean
+    public PartMapper partMapper() {
+        return Mappers.getMapper(PartMapper.class);
+    }
+
+    @Bean
+    public SaleMapper saleMapper() {
+        return Mappers.getMapper(SaleMapper.class);
+    }
+
+    @Bean
+    public SupplierMapper supplierMapper() {
+        return Mappers.getMapper(SupplierMapper.class);
     }
 }
@@ -0,0 +1,71 @@
+package org.softuni.cardealer.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.softuni.cardealer.datasource.ReadWriteRoutingDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single data source with a {@link ReadWriteRoutingDataSource} once
+ * {@code cardealer.datasource.replicas.urls} lists at least one replica. The replicas share the
+ * driver of {@code spring.datasource} and, unless set, its credentials and pool sizes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cardealer.datasource.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+    /**
+     * The primary pool is bound to {@code spring.datasource.hikari}, as the pool Spring Boot
+     * configures in place of this one would be. Replica pools wait
+     * {@code connection-timeout-millis} at most for a connection and start even while their
+     * replica is down, so a lost replica costs a read that long once per
+     * {@code retry-after-millis} rather than failing the read or the startup.
+     */
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            @Value("${cardealer.datasource.replicas.urls}") List<String> urls,
+            @Value("${cardealer.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${cardealer.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${cardealer.datasource.replicas.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}")
+                    int maximumPoolSize,
+            @Value("${cardealer.datasource.replicas.minimum-idle:${spring.datasource.hikari.minimum-idle:-1}}")
+                    int minimumIdle,
+            @Value("${cardealer.datasource.replicas.connection-timeout-millis:250}") long connectionTimeoutMillis,
+            @Value("${cardealer.datasource.replicas.read-your-writes-millis:1000}") long readYourWritesMillis,
+            @Value("${cardealer.datasource.replicas.retry-after-millis:5000}") long retryAfterMillis) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            if (minimumIdle >= 0) {
+                replica.setMinimumIdle(minimumIdle);
+            }
+            replica.setConnectionTimeout(connectionTimeoutMillis);
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+
+        return new ReadWriteRoutingDataSource(primary, replicas,
+                Duration.ofMillis(readYourWritesMillis), Duration.ofMillis(retryAfterMillis));
+    }
+}
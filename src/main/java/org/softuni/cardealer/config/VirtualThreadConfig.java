@@ -0,0 +1,35 @@
+package org.softuni.cardealer.config;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Serves every request on a virtual thread of its own, so a request blocked in JDBC inside
+ * the services parks instead of holding one of Tomcat's platform threads. Switched on by the
+ * {@code virtual-threads} profile; needs Java 21 or later and fails the startup otherwise.
+ * <p>
+ * Concurrency is then limited by the connection pool and {@code server.tomcat.max-connections}
+ * rather than {@code server.tomcat.max-threads}, which no longer applies.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cardealer.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService requestExecutor() {
+        return VirtualThreads.newThreadPerTaskExecutor("http-virtual-");
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer(
+            ExecutorService requestExecutor) {
+        return factory -> factory.addConnectorCustomizers(connector ->
+                ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(requestExecutor));
+    }
+}
@@ -0,0 +1,184 @@
+package org.softuni.cardealer.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Hands out connections to the primary, or to one of the replicas in turn for read-only
+ * transactions. A lazy proxy, as the transaction managers ask for the connection when the
+ * transaction begins, before it is marked read-only; the connection is only picked at the
+ * first statement.
+ * <p>
+ * Reads go to the primary anyway
+ * <ul>
+ * <li>for {@code readYourWrites} after any thread committed a read-write transaction, so that
+ * a caller sees its own changes while the replicas catch up, also when its next request is
+ * served by another thread. The service layer knows no user session to narrow this to, so
+ * while writes come more often than that, every read goes to the primary;</li>
+ * <li>inside {@link #onPrimary}, for reads that a write is based on;</li>
+ * <li>when no replica hands out a connection. A replica that fails to is left alone for
+ * {@code retryAfter}, then tried again.</li>
+ * </ul>
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+    private static final ThreadLocal<Integer> PINNED = ThreadLocal.withInitial(() -> 0);
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long readYourWritesNanos;
+    private final long retryAfterNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile long primaryUntilNanos = System.nanoTime();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<? extends DataSource> replicas,
+                                      Duration readYourWrites, Duration retryAfter) {
+        this.primary = primary;
+        for (DataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.readYourWritesNanos = readYourWrites.toNanos();
+        this.retryAfterNanos = retryAfter.toNanos();
+
+        this.setTargetDataSource(new Router());
+        this.afterPropertiesSet();
+    }
+
+    /**
+     * Runs {@code reads} with every transaction it starts reading from the primary, for reads
+     * that must not lag behind it, like the version an edit is checked against.
+     */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        PINNED.set(PINNED.get() + 1);
+        try {
+            return reads.get();
+        } finally {
+            PINNED.set(PINNED.get() - 1);
+        }
+    }
+
+    DataSource getPrimary() {
+        return this.primary;
+    }
+
+    List<DataSource> getReplicas() {
+        return this.replicas.stream().map(replica -> replica.dataSource).collect(Collectors.toList());
+    }
+
+    private Connection route(String username, String password) throws SQLException {
+        if (this.readsFromReplica()) {
+            Connection connection = this.replicaConnection(username, password);
+            if (connection != null) {
+                return connection;
+            }
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new WriteCommit());
+        }
+
+        return connect(this.primary, username, password);
+    }
+
+    private boolean readsFromReplica() {
+        if (this.replicas.isEmpty() || PINNED.get() > 0
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+
+        return System.nanoTime() - this.primaryUntilNanos >= 0;
+    }
+
+    private Connection replicaConnection(String username, String password) {
+        int first = Math.floorMod(this.next.getAndIncrement(), this.replicas.size());
+        for (int i = 0; i < this.replicas.size(); i++) {
+            Replica replica = this.replicas.get((first + i) % this.replicas.size());
+            if (replica.down && System.nanoTime() - replica.downSince < this.retryAfterNanos) {
+                continue;
+            }
+
+            try {
+                Connection connection = connect(replica.dataSource, username, password);
+                replica.down = false;
+
+                return connection;
+            } catch (SQLException e) {
+                replica.downSince = System.nanoTime();
+                replica.down = true;
+                LOGGER.warn("Replica unavailable for {}, reading from the primary: {}",
+                        Duration.ofNanos(this.retryAfterNanos), e.getMessage());
+            }
+        }
+
+        return null;
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeIfCloseable(this.primary);
+        for (Replica replica : this.replicas) {
+            closeIfCloseable(replica.dataSource);
+        }
+    }
+
+    private static void closeIfCloseable(DataSource dataSource) throws IOException {
+        if (dataSource instanceof Closeable) {
+            ((Closeable) dataSource).close();
+        }
+    }
+
+    private final class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return route(null, null);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return route(username, password);
+        }
+    }
+
+    private static final class Replica {
+
+        final DataSource dataSource;
+        volatile boolean down;
+        volatile long downSince;
+
+        Replica(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+
+    private final class WriteCommit extends TransactionSynchronizationAdapter {
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == TransactionSynchronization.STATUS_COMMITTED) {
+                primaryUntilNanos = System.nanoTime() + readYourWritesNanos;
+            }
+        }
+    }
+}
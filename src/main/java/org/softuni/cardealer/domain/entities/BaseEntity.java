@@ -1,23 +1,29 @@
 package org.softuni.cardealer.domain.entities;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Type;
+import org.softuni.cardealer.domain.id.EntityIdFormat;
 
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Version;
 
 @MappedSuperclass
 public abstract class BaseEntity {
 
     private String id;
+    private long version;
 
     public BaseEntity() {
     }
 
     @Id
-    @GeneratedValue(generator = "uuid-string")
-    @GenericGenerator(name = "uuid-string", strategy = "org.hibernate.id.UUIDGenerator")
+    @GeneratedValue(generator = "entity-id")
+    @GenericGenerator(name = "entity-id", strategy = "org.softuni.cardealer.domain.id.EntityIdGenerator")
+    @Type(type = EntityIdFormat.TYPE_NAME)
     @Column(name = "id", nullable = false, unique = true, updatable = false)
     public String getId() {
         return id;
@@ -26,4 +32,19 @@ public abstract class BaseEntity {
     public void setId(String id) {
         this.id = id;
     }
+
+    /**
+     * Incremented on every update, which only goes through while the row still has the
+     * version the entity was read with. Bulk updates that change a row bump it as well.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
 }
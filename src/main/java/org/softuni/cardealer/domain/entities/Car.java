@@ -1,6 +1,10 @@
 package org.softuni.cardealer.domain.entities;
 
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OptimisticLock;
+
 import javax.persistence.*;
+import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
@@ -11,6 +15,7 @@ public class Car extends BaseEntity {
     private String model;
     private Long travelledDistance;
     private List<Part> parts;
+    private BigDecimal totalCost = BigDecimal.ZERO;
 
     public Car() {
     }
@@ -42,11 +47,17 @@ public class Car extends BaseEntity {
         this.travelledDistance = travelledDistance;
     }
 
+    /**
+     * Left out of the version check: parts are only attached and detached together with a
+     * {@code UPDATE VERSIONED} of the total cost, which bumps the version already.
+     */
     @ManyToMany(targetEntity = Part.class)
+    @OptimisticLock(excluded = true)
     @JoinTable(
             name = "parts_cars",
             joinColumns = @JoinColumn(name = "car_id", referencedColumnName = "id"),
-            inverseJoinColumns = @JoinColumn(name = "part_id", referencedColumnName = "id")
+            inverseJoinColumns = @JoinColumn(name = "part_id", referencedColumnName = "id"),
+            indexes = @Index(name = "idx_parts_cars_part_id", columnList = "part_id")
     )
     public List<Part> getParts() {
         return parts;
@@ -55,4 +66,18 @@ public class Car extends BaseEntity {
     public void setParts(List<Part> parts) {
         this.parts = parts;
     }
+
+    /**
+     * Sum of the prices of {@link #getParts()}, kept up to date by the services rather than
+     * computed on read. {@code CarService#rebuildTotalCosts} recomputes it from scratch.
+     */
+    @ColumnDefault("0")
+    @Column(name = "total_cost", nullable = false)
+    public BigDecimal getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(BigDecimal totalCost) {
+        this.totalCost = totalCost;
+    }
 }
@@ -1,12 +1,9 @@
 package org.softuni.cardealer.domain.entities;
 
-import javax.persistence.Entity;
-import javax.persistence.JoinColumn;
-import javax.persistence.ManyToOne;
-import javax.persistence.Table;
+import javax.persistence.*;
 
 @Entity
-@Table(name = "car_sales")
+@Table(name = "car_sales", indexes = @Index(name = "idx_car_sales_sale_date", columnList = "sale_date"))
 public class CarSale extends Sale {
 
     private Car car;
@@ -14,7 +11,7 @@ public class CarSale extends Sale {
     public CarSale() {
     }
 
-    @ManyToOne(targetEntity = Car.class)
+    @ManyToOne(targetEntity = Car.class, fetch = FetchType.LAZY)
     @JoinColumn(name = "car_id", referencedColumnName = "id")
     public Car getCar() {
         return car;
@@ -1,14 +1,18 @@
 package org.softuni.cardealer.domain.entities;
 
+import org.hibernate.annotations.Check;
+
 import javax.persistence.*;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "parts")
+@Table(name = "parts", indexes = @Index(name = "idx_parts_name", columnList = "name"))
+@Check(constraints = "stock IS NULL OR stock >= 0")
 public class Part extends BaseEntity {
 
     private String name;
     private BigDecimal price;
+    private Integer stock;
     private Supplier supplier;
 
     public Part() {
@@ -32,7 +36,21 @@ public class Part extends BaseEntity {
         this.price = price;
     }
 
-    @ManyToOne(targetEntity = Supplier.class)
+    /**
+     * Units in stock, {@code null} for a part whose stock is not tracked. Set on insert and
+     * from then on only changed by the set-based updates in {@code PartRepository}; an update
+     * of the entity never writes it back, so an edit cannot undo a concurrent sale.
+     */
+    @Column(name = "stock", updatable = false)
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
+    @ManyToOne(targetEntity = Supplier.class, fetch = FetchType.LAZY)
     @JoinColumn(
             name = "supplier_id",
             referencedColumnName = "id"
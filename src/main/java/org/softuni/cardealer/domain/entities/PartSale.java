@@ -3,7 +3,7 @@ package org.softuni.cardealer.domain.entities;
 import javax.persistence.*;
 
 @Entity
-@Table(name = "part_sales")
+@Table(name = "part_sales", indexes = @Index(name = "idx_part_sales_sale_date", columnList = "sale_date"))
 public class PartSale extends Sale {
 
     private Integer quantity;
@@ -21,7 +21,7 @@ public class PartSale extends Sale {
         this.quantity = quantity;
     }
 
-    @ManyToOne(targetEntity = Part.class)
+    @ManyToOne(targetEntity = Part.class, fetch = FetchType.LAZY)
     @JoinColumn(name = "part_id", referencedColumnName = "id")
     public Part getPart() {
         return part;
@@ -1,12 +1,14 @@
 package org.softuni.cardealer.domain.entities;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @MappedSuperclass
 public abstract class Sale extends BaseEntity {
 
     private Double discount;
     private Customer customer;
+    private LocalDateTime saleDate;
 
     public Sale() {
     }
@@ -20,7 +22,7 @@ public abstract class Sale extends BaseEntity {
         this.discount = discount;
     }
 
-    @ManyToOne(targetEntity = Customer.class)
+    @ManyToOne(targetEntity = Customer.class, fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id", referencedColumnName = "id")
     public Customer getCustomer() {
         return customer;
@@ -29,4 +31,24 @@ public abstract class Sale extends BaseEntity {
     public void setCustomer(Customer customer) {
         this.customer = customer;
     }
+
+    /**
+     * Set when the sale is first saved unless given. Sales stored before the column existed
+     * have none until {@code SalesReportService#backfillSaleDates} dates them.
+     */
+    @Column(name = "sale_date")
+    public LocalDateTime getSaleDate() {
+        return saleDate;
+    }
+
+    public void setSaleDate(LocalDateTime saleDate) {
+        this.saleDate = saleDate;
+    }
+
+    @PrePersist
+    protected void defaultSaleDate() {
+        if (this.saleDate == null) {
+            this.saleDate = LocalDateTime.now();
+        }
+    }
 }
@@ -2,10 +2,11 @@ package org.softuni.cardealer.domain.entities;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 @Entity
-@Table(name = "suppliers")
+@Table(name = "suppliers", indexes = @Index(name = "idx_suppliers_name", columnList = "name"))
 public class Supplier extends BaseEntity {
 
     private String name;
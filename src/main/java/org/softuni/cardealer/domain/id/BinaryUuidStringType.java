@@ -0,0 +1,93 @@
+package org.softuni.cardealer.domain.id;
+
+import org.hibernate.type.AbstractSingleColumnStandardBasicType;
+import org.hibernate.type.descriptor.WrapperOptions;
+import org.hibernate.type.descriptor.java.AbstractTypeDescriptor;
+import org.hibernate.type.descriptor.sql.BinaryTypeDescriptor;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Keeps a UUID as its canonical string in Java and as 16 raw bytes in the database.
+ */
+public class BinaryUuidStringType extends AbstractSingleColumnStandardBasicType<String> {
+
+    public static final BinaryUuidStringType INSTANCE = new BinaryUuidStringType();
+
+    public static final int LENGTH = 16;
+
+    public BinaryUuidStringType() {
+        super(BinaryTypeDescriptor.INSTANCE, UuidStringTypeDescriptor.INSTANCE);
+    }
+
+    @Override
+    public String getName() {
+        return "binary-uuid-string";
+    }
+
+    /**
+     * Registered only as the type of entity ids, not under its own name or Java type.
+     */
+    @Override
+    public String[] getRegistrationKeys() {
+        return new String[]{EntityIdFormat.TYPE_NAME};
+    }
+
+    private static class UuidStringTypeDescriptor extends AbstractTypeDescriptor<String> {
+
+        private static final UuidStringTypeDescriptor INSTANCE = new UuidStringTypeDescriptor();
+
+        private UuidStringTypeDescriptor() {
+            super(String.class);
+        }
+
+        @Override
+        public String toString(String value) {
+            return value;
+        }
+
+        @Override
+        public String fromString(String string) {
+            return string;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <X> X unwrap(String value, Class<X> type, WrapperOptions options) {
+            if (value == null) {
+                return null;
+            }
+            if (String.class.isAssignableFrom(type)) {
+                return (X) value;
+            }
+            if (byte[].class.isAssignableFrom(type)) {
+                UUID uuid = UUID.fromString(value);
+
+                return (X) ByteBuffer.allocate(LENGTH)
+                        .putLong(uuid.getMostSignificantBits())
+                        .putLong(uuid.getLeastSignificantBits())
+                        .array();
+            }
+
+            throw unknownUnwrap(type);
+        }
+
+        @Override
+        public <X> String wrap(X value, WrapperOptions options) {
+            if (value == null) {
+                return null;
+            }
+            if (value instanceof String) {
+                return (String) value;
+            }
+            if (value instanceof byte[]) {
+                ByteBuffer bytes = ByteBuffer.wrap((byte[]) value);
+
+                return new UUID(bytes.getLong(), bytes.getLong()).toString();
+            }
+
+            throw unknownWrap(value.getClass());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.softuni.cardealer.domain.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.service.ServiceRegistry;
+
+import java.util.Arrays;
+
+/**
+ * How entity ids are generated and stored. Chosen with the {@value #SETTING} Hibernate
+ * setting ({@code spring.jpa.properties.cardealer.id.format}); the service layer always
+ * sees the canonical 36-character UUID string.
+ */
+public enum EntityIdFormat {
+
+    /**
+     * Random (version 4) UUIDs stored as strings. The original format.
+     */
+    RANDOM_STRING("random-string"),
+
+    /**
+     * Time-ordered (version 7) UUIDs stored as strings. Needs no schema change, so it is
+     * the first step of a migration towards {@link #TIME_ORDERED_BINARY}.
+     */
+    TIME_ORDERED_STRING("time-ordered-string"),
+
+    /**
+     * Time-ordered (version 7) UUIDs stored as {@code BINARY(16)}, primary and foreign keys alike.
+     */
+    TIME_ORDERED_BINARY("time-ordered-binary");
+
+    public static final String SETTING = "cardealer.id.format";
+
+    /**
+     * Name of the Hibernate type the id columns are mapped with.
+     */
+    public static final String TYPE_NAME = "entity-id";
+
+    private final String settingValue;
+
+    EntityIdFormat(String settingValue) {
+        this.settingValue = settingValue;
+    }
+
+    public boolean isTimeOrdered() {
+        return this != RANDOM_STRING;
+    }
+
+    public boolean isBinary() {
+        return this == TIME_ORDERED_BINARY;
+    }
+
+    public static EntityIdFormat from(ServiceRegistry serviceRegistry) {
+        Object value = serviceRegistry.getService(ConfigurationService.class).getSettings().get(SETTING);
+
+        return value == null ? RANDOM_STRING : fromSettingValue(value.toString());
+    }
+
+    public static EntityIdFormat fromSettingValue(String value) {
+        return Arrays.stream(values())
+                .filter(format -> format.settingValue.equalsIgnoreCase(value.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        String.format("Unknown %s '%s', expected one of %s", SETTING, value, Arrays.toString(values()))));
+    }
+
+    @Override
+    public String toString() {
+        return this.settingValue;
+    }
+}
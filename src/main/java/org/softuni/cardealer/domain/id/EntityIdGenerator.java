@@ -0,0 +1,28 @@
+package org.softuni.cardealer.domain.id;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.Configurable;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.UUID;
+
+public class EntityIdGenerator implements IdentifierGenerator, Configurable {
+
+    private EntityIdFormat format = EntityIdFormat.RANDOM_STRING;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        this.format = EntityIdFormat.from(serviceRegistry);
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        UUID id = this.format.isTimeOrdered() ? TimeOrderedUuids.next() : UUID.randomUUID();
+
+        return id.toString();
+    }
+}
@@ -0,0 +1,53 @@
+package org.softuni.cardealer.domain.id;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.MetadataImplementor;
+import org.hibernate.engine.spi.Mapping;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.mapping.Column;
+import org.hibernate.mapping.Table;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+
+import java.util.Iterator;
+
+/**
+ * Sizes every column holding an entity id, foreign keys and join tables included, to
+ * {@value BinaryUuidStringType#LENGTH} bytes when ids are stored as binary. Without it the
+ * dialect default of 255 would be used for generated DDL.
+ */
+public class EntityIdIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        if (!EntityIdFormat.from(serviceRegistry).isBinary()) {
+            return;
+        }
+
+        Mapping mapping = (MetadataImplementor) metadata;
+        for (Table table : metadata.collectTableMappings()) {
+            Iterator<?> columns = table.getColumnIterator();
+            while (columns.hasNext()) {
+                Column column = (Column) columns.next();
+                if (column.getValue() != null && isEntityId(column.getValue().getType(), mapping)) {
+                    column.setLength(BinaryUuidStringType.LENGTH);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+
+    private static boolean isEntityId(Type type, Mapping mapping) {
+        if (type instanceof EntityType) {
+            type = ((EntityType) type).getIdentifierOrUniqueKeyType(mapping);
+        }
+
+        return type instanceof BinaryUuidStringType;
+    }
+}
@@ -0,0 +1,33 @@
+package org.softuni.cardealer.domain.id;
+
+import org.hibernate.boot.model.TypeContributions;
+import org.hibernate.boot.model.TypeContributor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.StringType;
+
+/**
+ * Registers the {@value EntityIdFormat#TYPE_NAME} type used by {@code BaseEntity.id}
+ * according to the configured {@link EntityIdFormat}.
+ */
+public class EntityIdTypeContributor implements TypeContributor {
+
+    @Override
+    public void contribute(TypeContributions typeContributions, ServiceRegistry serviceRegistry) {
+        if (EntityIdFormat.from(serviceRegistry).isBinary()) {
+            typeContributions.contributeType(BinaryUuidStringType.INSTANCE);
+        } else {
+            typeContributions.contributeType(new StringIdType());
+        }
+    }
+
+    /**
+     * The plain string type under the id type's name, leaving {@code string} itself as it is.
+     */
+    private static final class StringIdType extends StringType {
+
+        @Override
+        public String[] getRegistrationKeys() {
+            return new String[]{EntityIdFormat.TYPE_NAME};
+        }
+    }
+}
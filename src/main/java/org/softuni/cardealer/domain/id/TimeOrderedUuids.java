@@ -0,0 +1,37 @@
+package org.softuni.cardealer.domain.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates version 7 UUIDs (RFC 9562): a 48-bit millisecond timestamp, a 12-bit counter
+ * that keeps ids generated within the same millisecond increasing, and 62 random bits.
+ * Ids from one JVM are strictly increasing, both as bytes and as strings.
+ */
+public final class TimeOrderedUuids {
+
+    private static final int COUNTER_BITS = 12;
+
+    /**
+     * The last issued timestamp and counter, packed as {@code millis << 12 | counter}.
+     * A counter overflow simply carries into the timestamp.
+     */
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private TimeOrderedUuids() {
+    }
+
+    public static UUID next() {
+        long candidate = System.currentTimeMillis() << COUNTER_BITS;
+        long state = LAST.updateAndGet(last -> candidate > last ? candidate : last + 1);
+
+        long mostSignificantBits = (state >>> COUNTER_BITS) << 16
+                | 0x7000L
+                | state & 0xFFFL;
+        long leastSignificantBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL
+                | 0x8000000000000000L;
+
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
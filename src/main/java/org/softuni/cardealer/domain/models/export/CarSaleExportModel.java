@@ -0,0 +1,62 @@
+package org.softuni.cardealer.domain.models.export;
+
+/**
+ * Flat, read-only row of the car sales export, built straight from the query result.
+ */
+public class CarSaleExportModel {
+
+    public static final String[] COLUMNS = {
+            "id", "customerId", "customerName", "carId", "carMake", "carModel", "discount"
+    };
+
+    private final String id;
+    private final String customerId;
+    private final String customerName;
+    private final String carId;
+    private final String carMake;
+    private final String carModel;
+    private final Double discount;
+
+    public CarSaleExportModel(String id, String customerId, String customerName,
+                              String carId, String carMake, String carModel, Double discount) {
+        this.id = id;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.carId = carId;
+        this.carMake = carMake;
+        this.carModel = carModel;
+        this.discount = discount;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCarId() {
+        return carId;
+    }
+
+    public String getCarMake() {
+        return carMake;
+    }
+
+    public String getCarModel() {
+        return carModel;
+    }
+
+    public Double getDiscount() {
+        return discount;
+    }
+
+    public Object[] values() {
+        return new Object[]{id, customerId, customerName, carId, carMake, carModel, discount};
+    }
+}
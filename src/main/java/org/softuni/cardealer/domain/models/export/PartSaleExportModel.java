@@ -0,0 +1,71 @@
+package org.softuni.cardealer.domain.models.export;
+
+import java.math.BigDecimal;
+
+/**
+ * Flat, read-only row of the part sales export, built straight from the query result.
+ */
+public class PartSaleExportModel {
+
+    public static final String[] COLUMNS = {
+            "id", "customerId", "customerName", "partId", "partName", "partPrice", "quantity", "discount"
+    };
+
+    private final String id;
+    private final String customerId;
+    private final String customerName;
+    private final String partId;
+    private final String partName;
+    private final BigDecimal partPrice;
+    private final Integer quantity;
+    private final Double discount;
+
+    public PartSaleExportModel(String id, String customerId, String customerName,
+                               String partId, String partName, BigDecimal partPrice,
+                               Integer quantity, Double discount) {
+        this.id = id;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.partId = partId;
+        this.partName = partName;
+        this.partPrice = partPrice;
+        this.quantity = quantity;
+        this.discount = discount;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getPartId() {
+        return partId;
+    }
+
+    public String getPartName() {
+        return partName;
+    }
+
+    public BigDecimal getPartPrice() {
+        return partPrice;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Double getDiscount() {
+        return discount;
+    }
+
+    public Object[] values() {
+        return new Object[]{id, customerId, customerName, partId, partName, partPrice, quantity, discount};
+    }
+}
@@ -0,0 +1,53 @@
+package org.softuni.cardealer.domain.models.imports;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of an import run. Only the first {@code maxReportedErrors} row errors are kept,
+ * {@link #getFailedRows()} counts all of them.
+ */
+public class ImportReport {
+
+    private final int maxReportedErrors;
+    private final List<ImportRowError> errors = new ArrayList<>();
+
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+
+    public ImportReport(int maxReportedErrors) {
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public long getProcessedRows() {
+        return processedRows;
+    }
+
+    public long getImportedRows() {
+        return importedRows;
+    }
+
+    public long getFailedRows() {
+        return failedRows;
+    }
+
+    public List<ImportRowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public void addImported(long rows) {
+        this.processedRows += rows;
+        this.importedRows += rows;
+    }
+
+    public void addError(long row, String message) {
+        this.processedRows++;
+        this.failedRows++;
+
+        if (this.errors.size() < this.maxReportedErrors) {
+            this.errors.add(new ImportRowError(row, message));
+        }
+    }
+}
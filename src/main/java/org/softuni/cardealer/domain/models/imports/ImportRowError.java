@@ -0,0 +1,28 @@
+package org.softuni.cardealer.domain.models.imports;
+
+/**
+ * A row that could not be imported; {@code row} is 1-based and does not count the CSV header.
+ */
+public class ImportRowError {
+
+    private final long row;
+    private final String message;
+
+    public ImportRowError(long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    public long getRow() {
+        return row;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "row " + row + ": " + message;
+    }
+}
@@ -0,0 +1,39 @@
+package org.softuni.cardealer.domain.models.report;
+
+import java.math.BigDecimal;
+
+public class CustomerRevenueModel {
+
+    private final String customerId;
+    private final String customerName;
+    private final long salesCount;
+    private final BigDecimal revenue;
+
+    public CustomerRevenueModel(String customerId, String customerName, Number salesCount, Number revenue) {
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.salesCount = ReportValues.count(salesCount);
+        this.revenue = ReportValues.money(revenue);
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public long getSalesCount() {
+        return salesCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public CustomerRevenueModel plus(CustomerRevenueModel other) {
+        return new CustomerRevenueModel(customerId, customerName,
+                salesCount + other.salesCount, revenue.add(other.revenue));
+    }
+}
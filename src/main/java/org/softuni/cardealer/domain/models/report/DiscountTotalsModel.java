@@ -0,0 +1,33 @@
+package org.softuni.cardealer.domain.models.report;
+
+import java.math.BigDecimal;
+
+public class DiscountTotalsModel {
+
+    private final long salesCount;
+    private final long discountedSalesCount;
+    private final BigDecimal discountTotal;
+
+    public DiscountTotalsModel(Number salesCount, Number discountedSalesCount, Number discountTotal) {
+        this.salesCount = ReportValues.count(salesCount);
+        this.discountedSalesCount = ReportValues.count(discountedSalesCount);
+        this.discountTotal = ReportValues.money(discountTotal);
+    }
+
+    public long getSalesCount() {
+        return salesCount;
+    }
+
+    public long getDiscountedSalesCount() {
+        return discountedSalesCount;
+    }
+
+    public BigDecimal getDiscountTotal() {
+        return discountTotal;
+    }
+
+    public DiscountTotalsModel plus(DiscountTotalsModel other) {
+        return new DiscountTotalsModel(salesCount + other.salesCount,
+                discountedSalesCount + other.discountedSalesCount, discountTotal.add(other.discountTotal));
+    }
+}
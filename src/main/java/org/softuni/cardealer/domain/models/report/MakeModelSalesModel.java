@@ -0,0 +1,34 @@
+package org.softuni.cardealer.domain.models.report;
+
+import java.math.BigDecimal;
+
+public class MakeModelSalesModel {
+
+    private final String make;
+    private final String model;
+    private final long salesCount;
+    private final BigDecimal revenue;
+
+    public MakeModelSalesModel(String make, String model, Number salesCount, Number revenue) {
+        this.make = make;
+        this.model = model;
+        this.salesCount = ReportValues.count(salesCount);
+        this.revenue = ReportValues.money(revenue);
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public long getSalesCount() {
+        return salesCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+}
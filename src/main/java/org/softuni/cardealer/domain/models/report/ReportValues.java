@@ -0,0 +1,30 @@
+package org.softuni.cardealer.domain.models.report;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aggregates come back from the database as whatever numeric type the dialect picks for
+ * mixed {@code BigDecimal}/{@code Double} arithmetic, so the report constructors take
+ * {@link Number} and normalise it here.
+ */
+final class ReportValues {
+
+    private static final int MONEY_SCALE = 2;
+
+    private ReportValues() {
+    }
+
+    static BigDecimal money(Number value) {
+        if (value == null) {
+            return BigDecimal.ZERO.setScale(MONEY_SCALE);
+        }
+
+        BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+        return decimal.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+    }
+
+    static long count(Number value) {
+        return value == null ? 0 : value.longValue();
+    }
+}
@@ -0,0 +1,39 @@
+package org.softuni.cardealer.domain.models.report;
+
+import java.math.BigDecimal;
+
+public class SupplierRevenueModel {
+
+    private final String supplierId;
+    private final String supplierName;
+    private final long partsSold;
+    private final BigDecimal revenue;
+
+    public SupplierRevenueModel(String supplierId, String supplierName, Number partsSold, Number revenue) {
+        this.supplierId = supplierId;
+        this.supplierName = supplierName;
+        this.partsSold = ReportValues.count(partsSold);
+        this.revenue = ReportValues.money(revenue);
+    }
+
+    public String getSupplierId() {
+        return supplierId;
+    }
+
+    public String getSupplierName() {
+        return supplierName;
+    }
+
+    public long getPartsSold() {
+        return partsSold;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public SupplierRevenueModel plus(SupplierRevenueModel other) {
+        return new SupplierRevenueModel(supplierId, supplierName,
+                partsSold + other.partsSold, revenue.add(other.revenue));
+    }
+}
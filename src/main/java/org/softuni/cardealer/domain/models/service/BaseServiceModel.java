@@ -3,6 +3,7 @@ package org.softuni.cardealer.domain.models.service;
 public abstract class BaseServiceModel {
 
     private String id;
+    private Long version;
 
     public BaseServiceModel() {
     }
@@ -14,4 +15,16 @@ public abstract class BaseServiceModel {
     public void setId(String id) {
         this.id = id;
     }
+
+    /**
+     * The version the model was read at. An edit carrying it is rejected with an
+     * {@code EditConflictException} if the entity has changed since; {@code null} skips the check.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
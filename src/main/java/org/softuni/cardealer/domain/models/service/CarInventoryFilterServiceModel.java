@@ -0,0 +1,55 @@
+package org.softuni.cardealer.domain.models.service;
+
+import java.util.Set;
+
+/**
+ * Filter of the car inventory. A car matches if it has one of the {@code makes}, one of the
+ * {@code models}, a travelled distance in one of the {@code distanceBuckets} and every one of
+ * the {@code partIds} attached; an empty or {@code null} set does not filter.
+ */
+public class CarInventoryFilterServiceModel {
+
+    private Set<String> makes;
+    private Set<String> models;
+    private Set<Long> distanceBuckets;
+    private Set<String> partIds;
+
+    public CarInventoryFilterServiceModel() {
+    }
+
+    public Set<String> getMakes() {
+        return makes;
+    }
+
+    public void setMakes(Set<String> makes) {
+        this.makes = makes;
+    }
+
+    public Set<String> getModels() {
+        return models;
+    }
+
+    public void setModels(Set<String> models) {
+        this.models = models;
+    }
+
+    /**
+     * @return the lower bounds of the buckets, as {@link CarInventoryServiceModel#getDistanceBucketCounts()}
+     * names them
+     */
+    public Set<Long> getDistanceBuckets() {
+        return distanceBuckets;
+    }
+
+    public void setDistanceBuckets(Set<Long> distanceBuckets) {
+        this.distanceBuckets = distanceBuckets;
+    }
+
+    public Set<String> getPartIds() {
+        return partIds;
+    }
+
+    public void setPartIds(Set<String> partIds) {
+        this.partIds = partIds;
+    }
+}
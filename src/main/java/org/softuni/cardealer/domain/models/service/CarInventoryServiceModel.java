@@ -0,0 +1,54 @@
+package org.softuni.cardealer.domain.models.service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The cars matching a {@link CarInventoryFilterServiceModel filter}, with facet counts. The
+ * count of a make is the number of cars of that make that match the rest of the filter, so
+ * that it is what selecting the make instead would give; models and distance buckets count
+ * the same way.
+ */
+public class CarInventoryServiceModel {
+
+    private final int matchingCount;
+    private final List<String> carIds;
+    private final Map<String, Integer> makeCounts;
+    private final Map<String, Integer> modelCounts;
+    private final Map<Long, Integer> distanceBucketCounts;
+
+    public CarInventoryServiceModel(int matchingCount, List<String> carIds, Map<String, Integer> makeCounts,
+                                    Map<String, Integer> modelCounts, Map<Long, Integer> distanceBucketCounts) {
+        this.matchingCount = matchingCount;
+        this.carIds = carIds;
+        this.makeCounts = makeCounts;
+        this.modelCounts = modelCounts;
+        this.distanceBucketCounts = distanceBucketCounts;
+    }
+
+    public int getMatchingCount() {
+        return matchingCount;
+    }
+
+    /**
+     * @return the ids of the first matching cars, up to the limit asked for
+     */
+    public List<String> getCarIds() {
+        return carIds;
+    }
+
+    public Map<String, Integer> getMakeCounts() {
+        return makeCounts;
+    }
+
+    public Map<String, Integer> getModelCounts() {
+        return modelCounts;
+    }
+
+    /**
+     * @return counts by the lower bound of each bucket, in ascending order
+     */
+    public Map<Long, Integer> getDistanceBucketCounts() {
+        return distanceBucketCounts;
+    }
+}
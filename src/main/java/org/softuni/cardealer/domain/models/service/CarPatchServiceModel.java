@@ -0,0 +1,39 @@
+package org.softuni.cardealer.domain.models.service;
+
+/**
+ * Changes to a car: the fields that are set replace the stored ones, the {@code null} ones are
+ * left as they are. The {@link #getVersion() version}, if set, is the one the changes are based on.
+ */
+public class CarPatchServiceModel extends BaseServiceModel {
+
+    private String make;
+    private String model;
+    private Long travelledDistance;
+
+    public CarPatchServiceModel() {
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public void setMake(String make) {
+        this.make = make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public void setModel(String model) {
+        this.model = model;
+    }
+
+    public Long getTravelledDistance() {
+        return travelledDistance;
+    }
+
+    public void setTravelledDistance(Long travelledDistance) {
+        this.travelledDistance = travelledDistance;
+    }
+}
@@ -1,5 +1,6 @@
 package org.softuni.cardealer.domain.models.service;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 public class CarServiceModel extends BaseServiceModel {
@@ -8,6 +9,7 @@ public class CarServiceModel extends BaseServiceModel {
     private String model;
     private Long travelledDistance;
     private List<PartServiceModel> parts;
+    private BigDecimal totalCost;
 
     public CarServiceModel() {
     }
@@ -43,4 +45,12 @@ public class CarServiceModel extends BaseServiceModel {
     public void setParts(List<PartServiceModel> parts) {
         this.parts = parts;
     }
+
+    public BigDecimal getTotalCost() {
+        return totalCost;
+    }
+
+    public void setTotalCost(BigDecimal totalCost) {
+        this.totalCost = totalCost;
+    }
 }
@@ -0,0 +1,40 @@
+package org.softuni.cardealer.domain.models.service;
+
+import java.time.LocalDate;
+
+/**
+ * Changes to a customer, as {@link CarPatchServiceModel} describes them for a car.
+ */
+public class CustomerPatchServiceModel extends BaseServiceModel {
+
+    private String name;
+    private LocalDate birthDate;
+    private Boolean isYoungDriver;
+
+    public CustomerPatchServiceModel() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDate getBirthDate() {
+        return birthDate;
+    }
+
+    public void setBirthDate(LocalDate birthDate) {
+        this.birthDate = birthDate;
+    }
+
+    public Boolean getYoungDriver() {
+        return isYoungDriver;
+    }
+
+    public void setYoungDriver(Boolean youngDriver) {
+        isYoungDriver = youngDriver;
+    }
+}
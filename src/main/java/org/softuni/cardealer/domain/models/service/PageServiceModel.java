@@ -0,0 +1,30 @@
+package org.softuni.cardealer.domain.models.service;
+
+import java.util.List;
+
+/**
+ * One page of a listing ordered by id. Pass {@link #getNextPageToken()} back to get the page
+ * after it; it is {@code null} on the last page.
+ */
+public class PageServiceModel<T> {
+
+    private final List<T> items;
+    private final String nextPageToken;
+
+    public PageServiceModel(List<T> items, String nextPageToken) {
+        this.items = items;
+        this.nextPageToken = nextPageToken;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+}
@@ -0,0 +1,31 @@
+package org.softuni.cardealer.domain.models.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Changes to a part, as {@link CarPatchServiceModel} describes them for a car.
+ */
+public class PartPatchServiceModel extends BaseServiceModel {
+
+    private String name;
+    private BigDecimal price;
+
+    public PartPatchServiceModel() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+}
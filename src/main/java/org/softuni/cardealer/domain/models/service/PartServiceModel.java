@@ -6,6 +6,7 @@ public class PartServiceModel extends BaseServiceModel {
 
     private String name;
     private BigDecimal price;
+    private Integer stock;
     private SupplierServiceModel supplier;
 
     public PartServiceModel() {
@@ -27,6 +28,19 @@ public class PartServiceModel extends BaseServiceModel {
         this.price = price;
     }
 
+    /**
+     * Units in stock when the part was saved or listed, {@code null} if its stock is not
+     * tracked. Left out of lookups by id, which may come from the cache; the current level is
+     * read with {@code PartService#findStock}.
+     */
+    public Integer getStock() {
+        return stock;
+    }
+
+    public void setStock(Integer stock) {
+        this.stock = stock;
+    }
+
     public SupplierServiceModel getSupplier() {
         return supplier;
     }
@@ -1,9 +1,12 @@
 package org.softuni.cardealer.domain.models.service;
 
+import java.time.LocalDateTime;
+
 public abstract class SaleServiceModel extends BaseServiceModel {
 
     private Double discount;
     private CustomerServiceModel customer;
+    private LocalDateTime saleDate;
 
     public SaleServiceModel() {
     }
@@ -23,4 +26,12 @@ public abstract class SaleServiceModel extends BaseServiceModel {
     public void setCustomer(CustomerServiceModel customer) {
         this.customer = customer;
     }
+
+    public LocalDateTime getSaleDate() {
+        return saleDate;
+    }
+
+    public void setSaleDate(LocalDateTime saleDate) {
+        this.saleDate = saleDate;
+    }
 }
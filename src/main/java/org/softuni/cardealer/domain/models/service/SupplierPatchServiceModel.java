@@ -0,0 +1,29 @@
+package org.softuni.cardealer.domain.models.service;
+
+/**
+ * Changes to a supplier, as {@link CarPatchServiceModel} describes them for a car.
+ */
+public class SupplierPatchServiceModel extends BaseServiceModel {
+
+    private String name;
+    private Boolean isImporter;
+
+    public SupplierPatchServiceModel() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Boolean getImporter() {
+        return isImporter;
+    }
+
+    public void setImporter(Boolean importer) {
+        isImporter = importer;
+    }
+}
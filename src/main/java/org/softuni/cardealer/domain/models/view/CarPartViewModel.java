@@ -0,0 +1,62 @@
+package org.softuni.cardealer.domain.models.view;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only row of a car joined with one of its parts, built straight from the query result.
+ * A car comes back as one row per attached part, or as a single row with a {@code null}
+ * part when it has none.
+ */
+public class CarPartViewModel {
+
+    private final String id;
+    private final long version;
+    private final String make;
+    private final String model;
+    private final Long travelledDistance;
+    private final BigDecimal totalCost;
+    private final PartViewModel part;
+
+    public CarPartViewModel(String id, long version, String make, String model, Long travelledDistance,
+                            BigDecimal totalCost, String partId, Long partVersion, String partName, BigDecimal partPrice,
+                            String supplierId, Long supplierVersion, String supplierName, Boolean supplierIsImporter) {
+        this.id = id;
+        this.version = version;
+        this.make = make;
+        this.model = model;
+        this.travelledDistance = travelledDistance;
+        this.totalCost = totalCost;
+        this.part = partId == null
+                ? null
+                : new PartViewModel(partId, partVersion, partName, partPrice,
+                        supplierId, supplierVersion, supplierName, supplierIsImporter);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getMake() {
+        return make;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public Long getTravelledDistance() {
+        return travelledDistance;
+    }
+
+    public BigDecimal getTotalCost() {
+        return totalCost;
+    }
+
+    public PartViewModel getPart() {
+        return part;
+    }
+}
@@ -0,0 +1,47 @@
+package org.softuni.cardealer.domain.models.view;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only part row with its supplier's columns, built straight from the query result.
+ * The supplier columns are {@code null} for a part without a supplier.
+ */
+public class PartViewModel {
+
+    private final String id;
+    private final long version;
+    private final String name;
+    private final BigDecimal price;
+    private final SupplierViewModel supplier;
+
+    public PartViewModel(String id, long version, String name, BigDecimal price,
+                         String supplierId, Long supplierVersion, String supplierName, Boolean supplierIsImporter) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.price = price;
+        this.supplier = supplierId == null
+                ? null
+                : new SupplierViewModel(supplierId, supplierVersion, supplierName, Boolean.TRUE.equals(supplierIsImporter));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public SupplierViewModel getSupplier() {
+        return supplier;
+    }
+}
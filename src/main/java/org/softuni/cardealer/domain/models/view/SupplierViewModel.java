@@ -0,0 +1,35 @@
+package org.softuni.cardealer.domain.models.view;
+
+/**
+ * Read-only supplier row, built straight from the query result.
+ */
+public class SupplierViewModel {
+
+    private final String id;
+    private final long version;
+    private final String name;
+    private final boolean isImporter;
+
+    public SupplierViewModel(String id, long version, String name, boolean isImporter) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.isImporter = isImporter;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isImporter() {
+        return isImporter;
+    }
+}
@@ -0,0 +1,27 @@
+package org.softuni.cardealer.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.view.CarPartViewModel;
+import org.softuni.cardealer.domain.models.view.PartViewModel;
+
+import java.util.List;
+
+@Mapper(uses = PartMapper.class)
+public interface CarMapper {
+
+    CarServiceModel toServiceModel(Car car);
+
+    /**
+     * @param car   any of the car's rows
+     * @param parts the parts of all its rows
+     */
+    CarServiceModel toServiceModel(CarPartViewModel car, List<PartViewModel> parts);
+
+    @Mapping(target = "totalCost", ignore = true)
+    Car toEntity(CarServiceModel carServiceModel);
+
+    CarServiceModel copy(CarServiceModel carServiceModel);
+}
@@ -0,0 +1,13 @@
+package org.softuni.cardealer.mapper;
+
+import org.mapstruct.Mapper;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+
+@Mapper
+public interface CustomerMapper {
+
+    CustomerServiceModel toServiceModel(Customer customer);
+
+    Customer toEntity(CustomerServiceModel customerServiceModel);
+}
@@ -0,0 +1,20 @@
+package org.softuni.cardealer.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.domain.models.view.PartViewModel;
+
+@Mapper(uses = SupplierMapper.class)
+public interface PartMapper {
+
+    PartServiceModel toServiceModel(Part part);
+
+    @Mapping(target = "stock", ignore = true)
+    PartServiceModel toServiceModel(PartViewModel part);
+
+    Part toEntity(PartServiceModel partServiceModel);
+
+    PartServiceModel copy(PartServiceModel partServiceModel);
+}
@@ -0,0 +1,19 @@
+package org.softuni.cardealer.mapper;
+
+import org.mapstruct.Mapper;
+import org.softuni.cardealer.domain.entities.CarSale;
+import org.softuni.cardealer.domain.entities.PartSale;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+
+@Mapper(uses = {CustomerMapper.class, CarMapper.class, PartMapper.class})
+public interface SaleMapper {
+
+    CarSaleServiceModel toServiceModel(CarSale carSale);
+
+    CarSale toEntity(CarSaleServiceModel carSaleServiceModel);
+
+    PartSaleServiceModel toServiceModel(PartSale partSale);
+
+    PartSale toEntity(PartSaleServiceModel partSaleServiceModel);
+}
@@ -0,0 +1,18 @@
+package org.softuni.cardealer.mapper;
+
+import org.mapstruct.Mapper;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.service.SupplierServiceModel;
+import org.softuni.cardealer.domain.models.view.SupplierViewModel;
+
+@Mapper
+public interface SupplierMapper {
+
+    SupplierServiceModel toServiceModel(Supplier supplier);
+
+    SupplierServiceModel toServiceModel(SupplierViewModel supplier);
+
+    Supplier toEntity(SupplierServiceModel supplierServiceModel);
+
+    SupplierServiceModel copy(SupplierServiceModel supplierServiceModel);
+}
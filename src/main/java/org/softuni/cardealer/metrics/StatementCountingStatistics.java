@@ -0,0 +1,32 @@
+package org.softuni.cardealer.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/**
+ * Hibernate's statistics, additionally counting the statements prepared on each thread so
+ * that one call can be told apart from the calls running next to it. Hibernate only reports
+ * prepared statements while {@code hibernate.generate_statistics} is on.
+ */
+public class StatementCountingStatistics extends StatisticsImpl {
+
+    private static final ThreadLocal<long[]> PREPARED_ON_THREAD = ThreadLocal.withInitial(() -> new long[1]);
+
+    public StatementCountingStatistics(SessionFactoryImplementor sessionFactory) {
+        super(sessionFactory);
+    }
+
+    @Override
+    public void prepareStatement() {
+        super.prepareStatement();
+        PREPARED_ON_THREAD.get()[0]++;
+    }
+
+    /**
+     * @return the statements prepared on the calling thread so far; take the difference of two
+     * readings to count a call
+     */
+    public static long preparedOnCurrentThread() {
+        return PREPARED_ON_THREAD.get()[0];
+    }
+}
@@ -0,0 +1,16 @@
+package org.softuni.cardealer.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.hibernate.stat.spi.StatisticsImplementor;
+
+/**
+ * Plugged in through {@code hibernate.stats.factory}.
+ */
+public class StatementCountingStatisticsFactory implements StatisticsFactory {
+
+    @Override
+    public StatisticsImplementor buildStatistics(SessionFactoryImplementor sessionFactory) {
+        return new StatementCountingStatistics(sessionFactory);
+    }
+}
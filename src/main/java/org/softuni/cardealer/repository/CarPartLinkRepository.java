@@ -0,0 +1,21 @@
+package org.softuni.cardealer.repository;
+
+import java.util.Collection;
+
+public interface CarPartLinkRepository {
+
+    /**
+     * Deletes the cars and their {@code parts_cars} rows, with one statement each.
+     *
+     * @return the number of deleted cars
+     */
+    int deleteWithPartLinks(Collection<String> carIds);
+
+    /**
+     * Detaches the parts from every car they are attached to, with one statement. The cars'
+     * total costs are left as they are.
+     *
+     * @return the number of attachments removed
+     */
+    int deletePartLinks(Collection<String> partIds);
+}
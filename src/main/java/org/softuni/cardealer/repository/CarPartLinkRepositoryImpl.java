@@ -0,0 +1,59 @@
+package org.softuni.cardealer.repository;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.Type;
+import org.softuni.cardealer.domain.entities.Car;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Collection;
+
+/**
+ * Native statements on {@code parts_cars}, which JPQL cannot reach from the part's side. For
+ * the cars' side, a JPQL bulk delete of cars would clear the join table with
+ * {@code car_id IN (SELECT id FROM cars WHERE ...)}, which H2 evaluates again for every row
+ * of the table. The ids are bound with the type they are mapped with, so that they match the
+ * id columns in every {@code cardealer.id.format}.
+ */
+public class CarPartLinkRepositoryImpl implements CarPartLinkRepository {
+
+    private static final String DELETE_CAR_LINKS = "DELETE FROM parts_cars WHERE car_id IN (:ids)";
+    private static final String DELETE_CARS = "DELETE FROM cars WHERE id IN (:ids)";
+    private static final String DELETE_PART_LINKS = "DELETE FROM parts_cars WHERE part_id IN (:ids)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int deleteWithPartLinks(Collection<String> carIds) {
+        this.entityManager.flush();
+        this.execute(DELETE_CAR_LINKS, carIds);
+        int deleted = this.execute(DELETE_CARS, carIds);
+        this.entityManager.clear();
+
+        return deleted;
+    }
+
+    @Override
+    @Transactional
+    public int deletePartLinks(Collection<String> partIds) {
+        this.entityManager.flush();
+        int detached = this.execute(DELETE_PART_LINKS, partIds);
+        this.entityManager.clear();
+
+        return detached;
+    }
+
+    private int execute(String sql, Collection<String> ids) {
+        Type idType = this.entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getMetamodel().entityPersister(Car.class).getIdentifierType();
+
+        return this.entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .setParameterList("ids", ids, idType)
+                .executeUpdate();
+    }
+}
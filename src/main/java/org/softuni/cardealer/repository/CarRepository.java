@@ -1,9 +1,161 @@
 package org.softuni.cardealer.repository;
 
 import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.models.view.CarPartViewModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
 
 @Repository
-public interface CarRepository extends JpaRepository<Car, String> {
+public interface CarRepository extends JpaRepository<Car, String>, ChunkedSaveRepository<Car>, PatchRepository<Car>,
+        CarPartLinkRepository {
+
+    /**
+     * Fetch plan for {@code CarServiceModel}: the car with its parts and their suppliers, in one
+     * statement. A fetch join rather than an entity graph, because with a graph hint Hibernate 5.3
+     * compiles the query again on every call instead of taking its cached plan.
+     */
+    @Query("SELECT c FROM Car c LEFT JOIN FETCH c.parts p LEFT JOIN FETCH p.supplier WHERE c.id = :id")
+    Optional<Car> findWithPartsById(@Param("id") String id);
+
+    /**
+     * Read-only lookup for {@code CarServiceModel}, in one statement like
+     * {@link #findWithPartsById}. The columns go straight into view models, so nothing is
+     * loaded into the persistence context, snapshotted for dirty checking or flushed.
+     *
+     * @return one row per attached part, a single row without a part for a car that has none
+     * and no rows for a car that does not exist
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new org.softuni.cardealer.domain.models.view.CarPartViewModel("
+            + "c.id, c.version, c.make, c.model, c.travelledDistance, c.totalCost, "
+            + "p.id, p.version, p.name, p.price, sup.id, sup.version, sup.name, sup.importer) "
+            + "FROM Car c LEFT JOIN c.parts p LEFT JOIN p.supplier sup WHERE c.id = :id")
+    List<CarPartViewModel> findViewById(@Param("id") String id);
+
+    /**
+     * {@link #findViewById} for many cars at once, the rows of a car next to each other.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new org.softuni.cardealer.domain.models.view.CarPartViewModel("
+            + "c.id, c.version, c.make, c.model, c.travelledDistance, c.totalCost, "
+            + "p.id, p.version, p.name, p.price, sup.id, sup.version, sup.name, sup.importer) "
+            + "FROM Car c LEFT JOIN c.parts p LEFT JOIN p.supplier sup WHERE c.id IN :ids ORDER BY c.id")
+    List<CarPartViewModel> findViewsByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * @return {@code [carId, timesAttached]} for every car the part is attached to
+     */
+    @Query("SELECT c.id, COUNT(c) FROM Car c JOIN c.parts p WHERE p.id = :partId GROUP BY c.id")
+    List<Object[]> countAttachmentsByCar(@Param("partId") String partId);
+
+    /**
+     * @return {@code [carId, priceSum]} for every car any of the parts is attached to, the sum
+     * of the prices of those of its parts only
+     */
+    @Query("SELECT c.id, SUM(p.price) FROM Car c JOIN c.parts p WHERE p.id IN :partIds GROUP BY c.id")
+    List<Object[]> sumPartPricesByCar(@Param("partIds") Collection<String> partIds);
+
+    /**
+     * @return {@code [carId, supplierId, supplierName, partCount, partPriceSum]} per supplier of each car's parts
+     */
+    @Query("SELECT c.id, sup.id, sup.name, COUNT(p), SUM(p.price) FROM Car c JOIN c.parts p JOIN p.supplier sup "
+            + "WHERE c.id IN :carIds GROUP BY c.id, sup.id, sup.name")
+    List<Object[]> partCostPerSupplier(@Param("carIds") Collection<String> carIds);
+
+    /**
+     * Shifts the total cost of the cars by {@code delta}. VERSIONED bumps their version as well,
+     * so that an edit of a car read before the shift fails instead of writing the old total back.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE VERSIONED Car c SET c.totalCost = c.totalCost + :delta WHERE c.id IN :ids")
+    int addToTotalCost(@Param("ids") Collection<String> ids, @Param("delta") BigDecimal delta);
+
+    /**
+     * @return the ids of the cars that have been sold, which are kept for the sales
+     */
+    @Query("SELECT DISTINCT s.car.id FROM CarSale s WHERE s.car.id IN :ids")
+    List<String> findSoldIdsIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Recomputes the total cost of every car whose stored value is off.
+     *
+     * @return the number of corrected cars
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true, value = "UPDATE cars SET version = version + 1, total_cost = ("
+            + "SELECT COALESCE(SUM(p.price), 0) FROM parts_cars pc JOIN parts p ON p.id = pc.part_id WHERE pc.car_id = cars.id"
+            + ") WHERE total_cost <> ("
+            + "SELECT COALESCE(SUM(p.price), 0) FROM parts_cars pc JOIN parts p ON p.id = pc.part_id WHERE pc.car_id = cars.id"
+            + ")")
+    int rebuildTotalCosts();
+
+    /**
+     * Ids of the first page of the keyset listing, see {@link #findPageIdsAfter}.
+     */
+    @Query("SELECT c.id FROM Car c ORDER BY c.id")
+    List<String> findFirstPageIds(Pageable pageable);
+
+    /**
+     * Ids of the {@code pageable}'s page size of cars following {@code after} in id order. Only
+     * ever asked for its first page, so the statement has a LIMIT but no OFFSET. The cars are
+     * loaded with {@link #findWithPartsByIdIn} afterwards, as a LIMIT cannot be combined with
+     * fetching a collection.
+     */
+    @Query("SELECT c.id FROM Car c WHERE c.id > :after ORDER BY c.id")
+    List<String> findPageIdsAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * The cars with their parts and suppliers, in id order. The DISTINCT only removes the
+     * repeated cars from the result and is kept out of the SQL, where it would also merge a
+     * part attached to a car twice.
+     */
+    @QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+    @Query("SELECT DISTINCT c FROM Car c LEFT JOIN FETCH c.parts p LEFT JOIN FETCH p.supplier "
+            + "WHERE c.id IN :ids ORDER BY c.id")
+    List<Car> findWithPartsByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * {@code [id, make, model]} of the first cars in id order, for loading the search index a
+     * page at a time, see {@link #findSearchTextsAfter}.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT c.id, c.make, c.model FROM Car c ORDER BY c.id")
+    List<Object[]> findFirstSearchTexts(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT c.id, c.make, c.model FROM Car c WHERE c.id > :after ORDER BY c.id")
+    List<Object[]> findSearchTextsAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * {@code [id, make, model, travelledDistance]} of the first cars in id order, for loading the
+     * inventory index a page at a time, see {@link #findInventoryRowsAfter}.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT c.id, c.make, c.model, c.travelledDistance FROM Car c ORDER BY c.id")
+    List<Object[]> findFirstInventoryRows(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT c.id, c.make, c.model, c.travelledDistance FROM Car c WHERE c.id > :after ORDER BY c.id")
+    List<Object[]> findInventoryRowsAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * @return {@code [carId, partId]} for every part attached to one of the cars, once per attachment
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT c.id, p.id FROM Car c JOIN c.parts p WHERE c.id IN :carIds")
+    List<Object[]> findPartIdsByCarIds(@Param("carIds") Collection<String> carIds);
 }
@@ -1,9 +1,96 @@
 package org.softuni.cardealer.repository;
 
 import org.softuni.cardealer.domain.entities.CarSale;
+import org.springframework.data.domain.Pageable;
+import org.softuni.cardealer.domain.models.export.CarSaleExportModel;
+import org.softuni.cardealer.domain.models.report.CustomerRevenueModel;
+import org.softuni.cardealer.domain.models.report.DiscountTotalsModel;
+import org.softuni.cardealer.domain.models.report.MakeModelSalesModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface CarSaleRepository extends JpaRepository<CarSale, String> {
+
+    /**
+     * Fetch plan for {@code CarSaleServiceModel}, see {@link CarRepository#findWithPartsById}.
+     */
+    @Query("SELECT s FROM CarSale s LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.car c "
+            + "LEFT JOIN FETCH c.parts p LEFT JOIN FETCH p.supplier WHERE s.id = :id")
+    Optional<CarSale> findWithDetailsById(@Param("id") String id);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new org.softuni.cardealer.domain.models.export.CarSaleExportModel("
+            + "s.id, cu.id, cu.name, c.id, c.make, c.model, s.discount) "
+            + "FROM CarSale s LEFT JOIN s.customer cu LEFT JOIN s.car c")
+    Stream<CarSaleExportModel> streamAllForExport();
+
+    /**
+     * Sales in {@code [from, to)}. Kept to a plain range so that the {@code sale_date} index
+     * can be used; callers wanting an open end pass an extreme date instead of {@code null}.
+     */
+    String SALE_DATE_IN_RANGE = "s.saleDate >= :from AND s.saleDate < :to";
+
+    /**
+     * Dates the sales stored before the column existed, so that they fall into the reports
+     * whose range is open at the start.
+     *
+     * @return the number of sales dated
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CarSale s SET s.saleDate = :date, s.version = s.version + 1 WHERE s.saleDate IS NULL")
+    int backfillSaleDates(@Param("date") LocalDateTime date);
+
+    @Query("SELECT new org.softuni.cardealer.domain.models.report.CustomerRevenueModel("
+            + "cu.id, cu.name, COUNT(s), SUM(c.totalCost * (1 - s.discount))) "
+            + "FROM CarSale s JOIN s.customer cu LEFT JOIN s.car c "
+            + "WHERE " + SALE_DATE_IN_RANGE + " GROUP BY cu.id, cu.name")
+    List<CustomerRevenueModel> revenuePerCustomer(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * @return {@code [carId, salesCount, sum of (1 - discount)]} per car sold in the range
+     */
+    @Query("SELECT s.car.id, COUNT(s), SUM(1 - s.discount) FROM CarSale s "
+            + "WHERE " + SALE_DATE_IN_RANGE + " AND s.car IS NOT NULL GROUP BY s.car.id")
+    List<Object[]> salesPerCar(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new org.softuni.cardealer.domain.models.report.MakeModelSalesModel("
+            + "c.make, c.model, COUNT(s), SUM(c.totalCost * (1 - s.discount))) "
+            + "FROM CarSale s JOIN s.car c "
+            + "WHERE " + SALE_DATE_IN_RANGE + " GROUP BY c.make, c.model ORDER BY COUNT(s) DESC, c.make, c.model")
+    List<MakeModelSalesModel> salesPerMakeModel(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new org.softuni.cardealer.domain.models.report.DiscountTotalsModel("
+            + "COUNT(s), SUM(CASE WHEN s.discount > 0 THEN 1 ELSE 0 END), SUM(c.totalCost * s.discount)) "
+            + "FROM CarSale s LEFT JOIN s.car c "
+            + "WHERE " + SALE_DATE_IN_RANGE)
+    DiscountTotalsModel discountTotals(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * First page of the keyset listing, see {@link #findPageAfter}.
+     */
+    @Query("SELECT s FROM CarSale s LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.car ORDER BY s.id")
+    List<CarSale> findFirstPage(Pageable pageable);
+
+    /**
+     * The {@code pageable}'s page size of car sales following {@code after} in id order. Only ever
+     * asked for its first page, so the statement has a LIMIT but no OFFSET. The cars' parts are
+     * not fetched, as a LIMIT cannot be combined with fetching a collection.
+     */
+    @Query("SELECT s FROM CarSale s LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.car "
+            + "WHERE s.id > :after ORDER BY s.id")
+    List<CarSale> findPageAfter(@Param("after") String after, Pageable pageable);
 }
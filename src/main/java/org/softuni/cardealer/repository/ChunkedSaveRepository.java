@@ -0,0 +1,22 @@
+package org.softuni.cardealer.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+public interface ChunkedSaveRepository<T> {
+
+    /**
+     * Saves the entities in one transaction, flushing and clearing the persistence context
+     * once per chunk so that Hibernate can send each chunk as JDBC batches.
+     */
+    void saveAllInChunks(Collection<T> entities);
+
+    /**
+     * Saves the entities as {@link #saveAllInChunks(Collection)} does and maps each chunk
+     * once it is flushed, before it is cleared, while its lazy associations can still load.
+     *
+     * @return the mapped entities, in the order they were given
+     */
+    <R> List<R> saveAllInChunks(Collection<T> entities, Function<? super T, ? extends R> mapper);
+}
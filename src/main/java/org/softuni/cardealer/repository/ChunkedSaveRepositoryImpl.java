@@ -0,0 +1,77 @@
+package org.softuni.cardealer.repository;
+
+import org.softuni.cardealer.domain.entities.BaseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class ChunkedSaveRepositoryImpl<T extends BaseEntity> implements ChunkedSaveRepository<T> {
+
+    private final int chunkSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ChunkedSaveRepositoryImpl(@Value("${cardealer.bulk.chunk-size:500}") int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    @Transactional
+    public void saveAllInChunks(Collection<T> entities) {
+        this.saveInChunks(entities, chunk -> {
+        });
+    }
+
+    @Override
+    @Transactional
+    public <R> List<R> saveAllInChunks(Collection<T> entities, Function<? super T, ? extends R> mapper) {
+        List<R> saved = new ArrayList<>(entities.size());
+        this.saveInChunks(entities, chunk -> chunk.forEach(entity -> saved.add(mapper.apply(entity))));
+
+        return saved;
+    }
+
+    private void saveInChunks(Collection<T> entities, Consumer<List<T>> beforeClear) {
+        List<T> chunk = new ArrayList<>(Math.min(entities.size(), this.chunkSize));
+
+        for (T entity : entities) {
+            if (entity.getId() == null) {
+                this.entityManager.persist(entity);
+                chunk.add(entity);
+            } else {
+                chunk.add(this.entityManager.merge(entity));
+            }
+
+            if (chunk.size() == this.chunkSize) {
+                this.flushAndClear(chunk, beforeClear);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            this.flushAndClear(chunk, beforeClear);
+        }
+    }
+
+    /**
+     * The chunk is handed on after the flush, so that it carries the new versions, and before
+     * the clear, which detaches it.
+     */
+    private void flushAndClear(List<T> chunk, Consumer<List<T>> beforeClear) {
+        this.entityManager.flush();
+        beforeClear.accept(chunk);
+        this.entityManager.clear();
+        chunk.clear();
+    }
+}
@@ -1,9 +1,28 @@
 package org.softuni.cardealer.repository;
 
 import org.softuni.cardealer.domain.entities.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, String> {
+public interface CustomerRepository extends JpaRepository<Customer, String>, ChunkedSaveRepository<Customer>,
+        PatchRepository<Customer> {
+
+    /**
+     * First page of the keyset listing, see {@link #findPageAfter}.
+     */
+    @Query("SELECT c FROM Customer c ORDER BY c.id")
+    List<Customer> findFirstPage(Pageable pageable);
+
+    /**
+     * The {@code pageable}'s page size of customers following {@code after} in id order. Only ever
+     * asked for its first page, so the statement has a LIMIT but no OFFSET.
+     */
+    @Query("SELECT c FROM Customer c WHERE c.id > :after ORDER BY c.id")
+    List<Customer> findPageAfter(@Param("after") String after, Pageable pageable);
 }
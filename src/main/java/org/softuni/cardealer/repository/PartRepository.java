@@ -1,9 +1,138 @@
 package org.softuni.cardealer.repository;
 
 import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.view.PartViewModel;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PartRepository extends JpaRepository<Part, String> {
+public interface PartRepository extends JpaRepository<Part, String>, ChunkedSaveRepository<Part>,
+        PatchRepository<Part> {
+
+    /**
+     * Fetch plan for {@code PartServiceModel}, see {@link CarRepository#findWithPartsById}.
+     */
+    @Query("SELECT p FROM Part p LEFT JOIN FETCH p.supplier WHERE p.id = :id")
+    Optional<Part> findWithSupplierById(@Param("id") String id);
+
+    /**
+     * Read-only lookup for {@code PartServiceModel}, see {@link CarRepository#findViewById}.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new org.softuni.cardealer.domain.models.view.PartViewModel("
+            + "p.id, p.version, p.name, p.price, sup.id, sup.version, sup.name, sup.importer) "
+            + "FROM Part p LEFT JOIN p.supplier sup WHERE p.id = :id")
+    Optional<PartViewModel> findViewById(@Param("id") String id);
+
+    /**
+     * {@link #findViewById} for many parts at once.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT new org.softuni.cardealer.domain.models.view.PartViewModel("
+            + "p.id, p.version, p.name, p.price, sup.id, sup.version, sup.name, sup.importer) "
+            + "FROM Part p LEFT JOIN p.supplier sup WHERE p.id IN :ids")
+    List<PartViewModel> findViewsByIdIn(@Param("ids") Collection<String> ids);
+
+    @Query("SELECT p.id FROM Part p WHERE p.supplier.id = :supplierId")
+    List<String> findIdsBySupplierId(@Param("supplierId") String supplierId);
+
+    /**
+     * @return the ids of the parts that have been sold, which are kept for the sales
+     */
+    @Query("SELECT DISTINCT s.part.id FROM PartSale s WHERE s.part.id IN :ids")
+    List<String> findSoldIdsIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Deletes the parts with one statement. They have to be detached from their cars first,
+     * see {@link CarRepository#deletePartLinks}.
+     *
+     * @return the number of deleted parts
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Part p WHERE p.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * Takes {@code quantity} units off the part's stock if that many are left, as one
+     * conditional statement, so two sales can never both take the last units. The stock of a
+     * part that does not track it stays {@code null} and always matches.
+     *
+     * @return 1 if the units were taken, 0 if too few are left or the part does not exist
+     */
+    @Modifying
+    @Query("UPDATE Part p SET p.stock = p.stock - :quantity "
+            + "WHERE p.id = :id AND (p.stock IS NULL OR p.stock >= :quantity)")
+    int takeStock(@Param("id") String id, @Param("quantity") int quantity);
+
+    /**
+     * Adds {@code quantity} units to the part's stock, starting to track it if it did not.
+     *
+     * @return 1, or 0 if the part does not exist
+     */
+    @Modifying
+    @Query("UPDATE Part p SET p.stock = COALESCE(p.stock, 0) + :quantity WHERE p.id = :id")
+    int addStock(@Param("id") String id, @Param("quantity") int quantity);
+
+    /**
+     * @return one element, the stock or {@code null} if it is not tracked; none if the part
+     * does not exist
+     */
+    @Query("SELECT p.stock FROM Part p WHERE p.id = :id")
+    List<Integer> findStockById(@Param("id") String id);
+
+    @Query("SELECT min(p.id) FROM Part p WHERE p.name = :name")
+    Optional<String> findIdByName(@Param("name") String name);
+
+    /**
+     * @return {@code [id, price]} for each of the given parts that exists
+     */
+    @Query("SELECT p.id, p.price FROM Part p WHERE p.id IN :ids")
+    List<Object[]> findPricesByIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * @return {@code [partId, supplierId, supplierName, 1, price]}, shaped like
+     * {@link CarRepository#partCostPerSupplier}
+     */
+    @Query("SELECT p.id, sup.id, sup.name, COUNT(p), SUM(p.price) FROM Part p JOIN p.supplier sup "
+            + "WHERE p.id IN :partIds GROUP BY p.id, sup.id, sup.name")
+    List<Object[]> costPerSupplier(@Param("partIds") Collection<String> partIds);
+
+    /**
+     * @return {@code [id, price]} of the part with the given name, as {@link #findIdByName} picks it
+     */
+    @Query("SELECT p.id, p.price FROM Part p WHERE p.id = (SELECT min(n.id) FROM Part n WHERE n.name = :name)")
+    List<Object[]> findPriceByName(@Param("name") String name);
+
+    /**
+     * First page of the keyset listing, see {@link #findPageAfter}.
+     */
+    @Query("SELECT p FROM Part p LEFT JOIN FETCH p.supplier ORDER BY p.id")
+    List<Part> findFirstPage(Pageable pageable);
+
+    /**
+     * The {@code pageable}'s page size of parts following {@code after} in id order. Only ever
+     * asked for its first page, so the statement has a LIMIT but no OFFSET.
+     */
+    @Query("SELECT p FROM Part p LEFT JOIN FETCH p.supplier WHERE p.id > :after ORDER BY p.id")
+    List<Part> findPageAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * {@code [id, name]} of the first parts in id order, see {@link CarRepository#findFirstSearchTexts}.
+     */
+    @Transactional(readOnly = true)
+    @Query("SELECT p.id, p.name FROM Part p ORDER BY p.id")
+    List<Object[]> findFirstSearchTexts(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT p.id, p.name FROM Part p WHERE p.id > :after ORDER BY p.id")
+    List<Object[]> findSearchTextsAfter(@Param("after") String after, Pageable pageable);
 }
@@ -1,9 +1,82 @@
 package org.softuni.cardealer.repository;
 
 import org.softuni.cardealer.domain.entities.PartSale;
+import org.springframework.data.domain.Pageable;
+import org.softuni.cardealer.domain.models.export.PartSaleExportModel;
+import org.softuni.cardealer.domain.models.report.CustomerRevenueModel;
+import org.softuni.cardealer.domain.models.report.DiscountTotalsModel;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface PartSaleRepository extends JpaRepository<PartSale, String> {
+
+    /**
+     * Fetch plan for {@code PartSaleServiceModel}, see {@link CarRepository#findWithPartsById}.
+     */
+    @Query("SELECT s FROM PartSale s LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.part p "
+            + "LEFT JOIN FETCH p.supplier WHERE s.id = :id")
+    Optional<PartSale> findWithDetailsById(@Param("id") String id);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT new org.softuni.cardealer.domain.models.export.PartSaleExportModel("
+            + "s.id, cu.id, cu.name, p.id, p.name, p.price, s.quantity, s.discount) "
+            + "FROM PartSale s LEFT JOIN s.customer cu LEFT JOIN s.part p")
+    Stream<PartSaleExportModel> streamAllForExport();
+
+    String SALE_DATE_IN_RANGE = CarSaleRepository.SALE_DATE_IN_RANGE;
+
+    /**
+     * See {@link CarSaleRepository#backfillSaleDates}.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PartSale s SET s.saleDate = :date, s.version = s.version + 1 WHERE s.saleDate IS NULL")
+    int backfillSaleDates(@Param("date") LocalDateTime date);
+
+    @Query("SELECT new org.softuni.cardealer.domain.models.report.CustomerRevenueModel("
+            + "cu.id, cu.name, COUNT(s), SUM(p.price * s.quantity * (1 - s.discount))) "
+            + "FROM PartSale s JOIN s.customer cu LEFT JOIN s.part p "
+            + "WHERE " + SALE_DATE_IN_RANGE + " GROUP BY cu.id, cu.name")
+    List<CustomerRevenueModel> revenuePerCustomer(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * @return {@code [partId, quantity, sum of quantity * (1 - discount)]} per part sold in the range
+     */
+    @Query("SELECT s.part.id, SUM(s.quantity), SUM(s.quantity * (1 - s.discount)) FROM PartSale s "
+            + "WHERE " + SALE_DATE_IN_RANGE + " AND s.part IS NOT NULL GROUP BY s.part.id")
+    List<Object[]> salesPerPart(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("SELECT new org.softuni.cardealer.domain.models.report.DiscountTotalsModel("
+            + "COUNT(s), SUM(CASE WHEN s.discount > 0 THEN 1 ELSE 0 END), SUM(p.price * s.quantity * s.discount)) "
+            + "FROM PartSale s LEFT JOIN s.part p "
+            + "WHERE " + SALE_DATE_IN_RANGE)
+    DiscountTotalsModel discountTotals(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * First page of the keyset listing, see {@link #findPageAfter}.
+     */
+    @Query("SELECT s FROM PartSale s LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.part p LEFT JOIN FETCH p.supplier "
+            + "ORDER BY s.id")
+    List<PartSale> findFirstPage(Pageable pageable);
+
+    /**
+     * The {@code pageable}'s page size of part sales following {@code after} in id order. Only ever
+     * asked for its first page, so the statement has a LIMIT but no OFFSET.
+     */
+    @Query("SELECT s FROM PartSale s LEFT JOIN FETCH s.customer LEFT JOIN FETCH s.part p LEFT JOIN FETCH p.supplier "
+            + "WHERE s.id > :after ORDER BY s.id")
+    List<PartSale> findPageAfter(@Param("after") String after, Pageable pageable);
 }
@@ -0,0 +1,16 @@
+package org.softuni.cardealer.repository;
+
+import java.util.Map;
+
+public interface PatchRepository<T> {
+
+    /**
+     * Sets the given attributes of one entity, and bumps its version, with a single UPDATE
+     * that leaves every other column alone and reads nothing first.
+     *
+     * @param changes         the new values by attribute name
+     * @param expectedVersion the version the entity must still have, {@code null} for any
+     * @return the number of rows updated, {@code 0} if there is no such entity or it has another version
+     */
+    int patch(Class<T> type, String id, Long expectedVersion, Map<String, ?> changes);
+}
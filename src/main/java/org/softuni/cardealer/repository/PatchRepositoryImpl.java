@@ -0,0 +1,72 @@
+package org.softuni.cardealer.repository;
+
+import org.softuni.cardealer.domain.entities.BaseEntity;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class PatchRepositoryImpl<T extends BaseEntity> implements PatchRepository<T> {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Managed copies of the entity would go stale, so the persistence context is flushed before
+     * the statement and cleared after it, as {@code @Modifying} queries here do. Every value is
+     * bound as a parameter: Hibernate would otherwise inline numeric values into the statement,
+     * making it a new one, parsed again, for every distance or version patched.
+     */
+    @Override
+    @Transactional
+    public int patch(Class<T> type, String id, Long expectedVersion, Map<String, ?> changes) {
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to patch");
+        }
+
+        CriteriaBuilder builder = this.entityManager.getCriteriaBuilder();
+        CriteriaUpdate<T> update = builder.createCriteriaUpdate(type);
+        Root<T> root = update.from(type);
+        Map<ParameterExpression<?>, Object> values = new LinkedHashMap<>();
+        changes.forEach((field, value) -> values.put(set(update, builder, root.get(field), field), value));
+
+        Path<Long> version = root.get("version");
+        update.set(version, builder.sum(version, builder.literal(1L)));
+
+        ParameterExpression<String> idParameter = builder.parameter(String.class, "patchedId");
+        Predicate where = builder.equal(root.get("id"), idParameter);
+        ParameterExpression<Long> versionParameter = builder.parameter(Long.class, "expectedVersion");
+        if (expectedVersion != null) {
+            where = builder.and(where, builder.equal(version, versionParameter));
+        }
+        update.where(where);
+
+        this.entityManager.flush();
+        Query query = this.entityManager.createQuery(update).setParameter(idParameter, id);
+        values.forEach((parameter, value) -> query.setParameter(parameter.getName(), value));
+        if (expectedVersion != null) {
+            query.setParameter(versionParameter, expectedVersion);
+        }
+        int updated = query.executeUpdate();
+        this.entityManager.clear();
+
+        return updated;
+    }
+
+    private static <Y> ParameterExpression<? extends Y> set(CriteriaUpdate<?> update, CriteriaBuilder builder,
+                                                            Path<Y> path, String name) {
+        ParameterExpression<? extends Y> parameter = builder.parameter(path.getJavaType(), name);
+        update.set(path, parameter);
+
+        return parameter;
+    }
+}
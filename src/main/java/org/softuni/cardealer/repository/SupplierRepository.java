@@ -1,9 +1,43 @@
 package org.softuni.cardealer.repository;
 
 import org.softuni.cardealer.domain.entities.Supplier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface SupplierRepository extends JpaRepository<Supplier, String> {
+public interface SupplierRepository extends JpaRepository<Supplier, String>, ChunkedSaveRepository<Supplier>,
+        PatchRepository<Supplier> {
+
+    @Query("SELECT min(s.id) FROM Supplier s WHERE s.name = :name")
+    Optional<String> findIdByName(@Param("name") String name);
+
+    /**
+     * First page of the keyset listing, see {@link #findPageAfter}.
+     */
+    @Query("SELECT s FROM Supplier s ORDER BY s.id")
+    List<Supplier> findFirstPage(Pageable pageable);
+
+    /**
+     * The {@code pageable}'s page size of suppliers following {@code after} in id order. Only ever
+     * asked for its first page, so the statement has a LIMIT but no OFFSET.
+     */
+    @Query("SELECT s FROM Supplier s WHERE s.id > :after ORDER BY s.id")
+    List<Supplier> findPageAfter(@Param("after") String after, Pageable pageable);
+
+    /**
+     * Deletes the suppliers with one statement. Their parts have to be deleted first.
+     *
+     * @return the number of deleted suppliers
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Supplier s WHERE s.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<String> ids);
 }
@@ -0,0 +1,424 @@
+package org.softuni.cardealer.search;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.softuni.cardealer.domain.models.service.CarInventoryFilterServiceModel;
+import org.softuni.cardealer.domain.models.service.CarInventoryServiceModel;
+import org.softuni.cardealer.repository.CarRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Car inventory filters and facet counts, answered from compressed bitmaps instead of SQL.
+ * Every car gets an ordinal, and every make, model, travelled distance bucket and attached
+ * part a Roaring bitmap of the ordinals of its cars, so a filter is a few unions and one
+ * intersection, and a facet count the cardinality of an intersection, neither of which
+ * touches the cars themselves.
+ * <p>
+ * Loaded from the repository once the application is ready and kept current by the car
+ * service. The ordinal of a deleted car is not reused until the next {@link #rebuild()}.
+ * Filters share a read lock; a change takes the write lock for the few bitmaps it touches.
+ */
+@Component
+public class CarInventoryIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CarInventoryIndex.class);
+
+    private final CarRepository carRepository;
+    private final long[] distanceBuckets;
+    private final Pageable loadPage;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private Inventory inventory;
+    private List<IndexedCar> changedDuringRebuild;
+
+    @Autowired
+    public CarInventoryIndex(CarRepository carRepository,
+                             @Value("${cardealer.inventory.distance-buckets:0,50000,100000,150000,200000}")
+                                     long[] distanceBuckets,
+                             @Value("${cardealer.inventory.load-page-size:10000}") int loadPageSize) {
+        if (distanceBuckets.length == 0 || loadPageSize < 1) {
+            throw new IllegalArgumentException("Invalid inventory index settings");
+        }
+        for (int i = 1; i < distanceBuckets.length; i++) {
+            if (distanceBuckets[i] <= distanceBuckets[i - 1]) {
+                throw new IllegalArgumentException("Inventory distance buckets must ascend");
+            }
+        }
+
+        this.carRepository = carRepository;
+        this.distanceBuckets = distanceBuckets.clone();
+        this.loadPage = PageRequest.of(0, loadPageSize);
+        this.inventory = new Inventory();
+    }
+
+    /**
+     * Reloads the index from the database, a page of cars and their part ids at a time. Filters
+     * are answered from the previous contents until it is done; changes made meanwhile are
+     * applied again on top of what was loaded, as that may predate them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            this.lock.writeLock().lock();
+            try {
+                this.changedDuringRebuild = new ArrayList<>();
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+
+            Inventory loaded = null;
+            try {
+                loaded = this.load();
+            } finally {
+                this.lock.writeLock().lock();
+                try {
+                    if (loaded != null) {
+                        this.changedDuringRebuild.forEach(loaded::put);
+                        this.inventory = loaded;
+                    }
+                    this.changedDuringRebuild = null;
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+            }
+
+            LOGGER.info("Car inventory index built in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            this.rebuildLock.unlock();
+        }
+    }
+
+    public void putCar(String id, String make, String model, Long travelledDistance, Collection<String> partIds) {
+        this.change(new IndexedCar(id, make, model, this.distanceBucket(travelledDistance),
+                partIds == null ? new String[0] : partIds.toArray(new String[0])));
+    }
+
+    public void removeCar(String id) {
+        this.change(new IndexedCar(id, null, null, 0, null));
+    }
+
+    /**
+     * Detaches the parts from every indexed car, as deleting them does in the database.
+     */
+    public void removeParts(Collection<String> partIds) {
+        this.lock.writeLock().lock();
+        try {
+            Inventory inventory = this.inventory;
+            Set<String> removed = Set.copyOf(partIds);
+            int[] attached = FastAggregation.or(removed.stream()
+                    .map(inventory.parts::get)
+                    .filter(Objects::nonNull)
+                    .iterator()).toArray();
+
+            for (int ordinal : attached) {
+                IndexedCar car = inventory.cars.get(ordinal);
+                IndexedCar detached = new IndexedCar(car.id, car.make, car.model, car.distanceBucket,
+                        Arrays.stream(car.partIds).filter(id -> !removed.contains(id)).toArray(String[]::new));
+                inventory.put(detached);
+                if (this.changedDuringRebuild != null) {
+                    this.changedDuringRebuild.add(detached);
+                }
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of matching cars, the ids of the first {@code limit} of them in the
+     * order they were indexed, and the facet counts
+     */
+    public CarInventoryServiceModel filter(CarInventoryFilterServiceModel filter, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        if (filter == null) {
+            filter = new CarInventoryFilterServiceModel();
+        }
+
+        this.lock.readLock().lock();
+        try {
+            Inventory inventory = this.inventory;
+            RoaringBitmap makes = anyOf(inventory.makes, filter.getMakes());
+            RoaringBitmap models = anyOf(inventory.models, filter.getModels());
+            RoaringBitmap distances = anyOf(inventory.distanceBuckets, filter.getDistanceBuckets());
+            RoaringBitmap parts = allOf(inventory.parts, filter.getPartIds());
+
+            RoaringBitmap matching = and(inventory.live, makes, models, distances, parts);
+            List<String> carIds = new ArrayList<>(Math.min(limit, matching.getCardinality()));
+            IntIterator ordinals = matching.getIntIterator();
+            while (carIds.size() < limit && ordinals.hasNext()) {
+                carIds.add(inventory.cars.get(ordinals.next()).id);
+            }
+
+            return new CarInventoryServiceModel(matching.getCardinality(), carIds,
+                    counts(inventory.makes, and(null, models, distances, parts)),
+                    counts(inventory.models, and(null, makes, distances, parts)),
+                    counts(inventory.distanceBuckets, and(null, makes, models, parts)));
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.inventory.live.getCardinality();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void change(IndexedCar car) {
+        this.lock.writeLock().lock();
+        try {
+            this.inventory.put(car);
+            if (this.changedDuringRebuild != null) {
+                this.changedDuringRebuild.add(car);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    private Inventory load() {
+        Inventory loaded = new Inventory();
+        List<Object[]> page = this.carRepository.findFirstInventoryRows(this.loadPage);
+        while (!page.isEmpty()) {
+            this.load(loaded, page);
+            if (page.size() < this.loadPage.getPageSize()) {
+                break;
+            }
+
+            page = this.carRepository.findInventoryRowsAfter((String) page.get(page.size() - 1)[0], this.loadPage);
+        }
+        loaded.runOptimize();
+
+        return loaded;
+    }
+
+    private void load(Inventory loaded, List<Object[]> page) {
+        Map<String, List<String>> partIds = new HashMap<>();
+        List<String> carIds = page.stream().map(row -> (String) row[0]).collect(Collectors.toList());
+        for (Object[] link : this.carRepository.findPartIdsByCarIds(carIds)) {
+            partIds.computeIfAbsent((String) link[0], key -> new ArrayList<>()).add((String) link[1]);
+        }
+
+        for (Object[] row : page) {
+            String id = (String) row[0];
+            loaded.put(new IndexedCar(id, (String) row[1], (String) row[2], this.distanceBucket((Long) row[3]),
+                    partIds.getOrDefault(id, List.of()).toArray(new String[0])));
+        }
+    }
+
+    /**
+     * @return the lower bound of the bucket the distance falls in, the first bucket's for a
+     * distance below it or none
+     */
+    private long distanceBucket(Long travelledDistance) {
+        if (travelledDistance == null) {
+            return this.distanceBuckets[0];
+        }
+
+        int bucket = Arrays.binarySearch(this.distanceBuckets, travelledDistance);
+
+        return this.distanceBuckets[bucket >= 0 ? bucket : Math.max(0, -bucket - 2)];
+    }
+
+    /**
+     * @return the union of the bitmaps of the values, or {@code null} if none are asked for
+     */
+    private static <K> RoaringBitmap anyOf(Map<K, RoaringBitmap> bitmaps, Set<K> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+
+        List<RoaringBitmap> selected = new ArrayList<>(values.size());
+        for (K value : values) {
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                selected.add(bitmap);
+            }
+        }
+
+        return FastAggregation.or(selected.iterator());
+    }
+
+    /**
+     * @return the intersection of the bitmaps of the values, or {@code null} if none are asked for
+     */
+    private static <K> RoaringBitmap allOf(Map<K, RoaringBitmap> bitmaps, Set<K> values) {
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+
+        List<RoaringBitmap> selected = new ArrayList<>(values.size());
+        for (K value : values) {
+            RoaringBitmap bitmap = bitmaps.get(value);
+            if (bitmap == null) {
+                return new RoaringBitmap();
+            }
+            selected.add(bitmap);
+        }
+
+        return FastAggregation.and(selected.iterator());
+    }
+
+    /**
+     * @return the intersection of the bitmaps that are not {@code null}, or {@code null} if all
+     * of them are; a fresh bitmap unless it is {@code first} alone
+     */
+    private static RoaringBitmap and(RoaringBitmap first, RoaringBitmap... others) {
+        RoaringBitmap result = first;
+        for (RoaringBitmap other : others) {
+            if (other != null) {
+                result = result == null ? other : RoaringBitmap.and(result, other);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the number of cars of each value within {@code within}, all of them for
+     * {@code null}, leaving out values without any
+     */
+    private static <K> Map<K, Integer> counts(Map<K, RoaringBitmap> bitmaps, RoaringBitmap within) {
+        Map<K, Integer> counts = new TreeMap<>();
+        bitmaps.forEach((value, bitmap) -> {
+            int count = within == null ? bitmap.getCardinality() : RoaringBitmap.andCardinality(bitmap, within);
+            if (count > 0) {
+                counts.put(value, count);
+            }
+        });
+
+        return counts;
+    }
+
+    /**
+     * What the index holds of a car; no part ids, not even none, for a removed car.
+     */
+    private static final class IndexedCar {
+
+        private final String id;
+        private final String make;
+        private final String model;
+        private final long distanceBucket;
+        private final String[] partIds;
+
+        private IndexedCar(String id, String make, String model, long distanceBucket, String[] partIds) {
+            this.id = id;
+            this.make = make;
+            this.model = model;
+            this.distanceBucket = distanceBucket;
+            this.partIds = partIds;
+        }
+
+        private boolean isRemoved() {
+            return this.partIds == null;
+        }
+    }
+
+    private static final class Inventory {
+
+        private final Map<String, Integer> ordinals = new HashMap<>();
+        private final List<IndexedCar> cars = new ArrayList<>();
+        private final RoaringBitmap live = new RoaringBitmap();
+        private final Map<String, RoaringBitmap> makes = new HashMap<>();
+        private final Map<String, RoaringBitmap> models = new HashMap<>();
+        private final Map<Long, RoaringBitmap> distanceBuckets = new HashMap<>();
+        private final Map<String, RoaringBitmap> parts = new HashMap<>();
+
+        /**
+         * Indexes the car in place of what was indexed for its id before, keeping its ordinal.
+         */
+        private void put(IndexedCar car) {
+            Integer ordinal = this.ordinals.get(car.id);
+            if (ordinal != null) {
+                this.unindex(ordinal, this.cars.get(ordinal));
+            }
+            if (car.isRemoved()) {
+                if (ordinal != null) {
+                    this.ordinals.remove(car.id);
+                    this.cars.set(ordinal, null);
+                }
+                return;
+            }
+
+            if (ordinal == null) {
+                ordinal = this.cars.size();
+                this.ordinals.put(car.id, ordinal);
+                this.cars.add(car);
+            } else {
+                this.cars.set(ordinal, car);
+            }
+
+            this.live.add(ordinal);
+            add(this.makes, car.make, ordinal);
+            add(this.models, car.model, ordinal);
+            add(this.distanceBuckets, car.distanceBucket, ordinal);
+            for (String partId : car.partIds) {
+                add(this.parts, partId, ordinal);
+            }
+        }
+
+        private void unindex(int ordinal, IndexedCar car) {
+            this.live.remove(ordinal);
+            remove(this.makes, car.make, ordinal);
+            remove(this.models, car.model, ordinal);
+            remove(this.distanceBuckets, car.distanceBucket, ordinal);
+            for (String partId : car.partIds) {
+                remove(this.parts, partId, ordinal);
+            }
+        }
+
+        private void runOptimize() {
+            this.live.runOptimize();
+            for (Map<?, RoaringBitmap> bitmaps : List.of(this.makes, this.models, this.distanceBuckets, this.parts)) {
+                bitmaps.values().forEach(RoaringBitmap::runOptimize);
+            }
+        }
+
+        private static <K> void add(Map<K, RoaringBitmap> bitmaps, K value, int ordinal) {
+            if (value != null) {
+                bitmaps.computeIfAbsent(value, key -> new RoaringBitmap()).add(ordinal);
+            }
+        }
+
+        private static <K> void remove(Map<K, RoaringBitmap> bitmaps, K value, int ordinal) {
+            RoaringBitmap bitmap = value == null ? null : bitmaps.get(value);
+            if (bitmap == null) {
+                return;
+            }
+
+            bitmap.remove(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(value);
+            }
+        }
+    }
+}
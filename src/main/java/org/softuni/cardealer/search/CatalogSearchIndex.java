@@ -0,0 +1,148 @@
+package org.softuni.cardealer.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Type-ahead search over car makes and models and part names, answered from memory instead
+ * of with {@code LIKE '%...%'} statements. Loaded from the repositories once the application
+ * is ready and kept current by the car and part services as they save, edit and delete.
+ * Writes that bypass the services, such as catalog imports, show up after {@link #rebuild()}.
+ * <p>
+ * A car is found by its make and model as one text, so {@code "ford fi"} finds a Ford Fiesta;
+ * see {@link PrefixIndex} for the matching and the ranking.
+ */
+@Component
+public class CatalogSearchIndex implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSearchIndex.class);
+
+    private final CarRepository carRepository;
+    private final PartRepository partRepository;
+    private final PrefixIndex cars;
+    private final PrefixIndex parts;
+    private final Pageable loadPage;
+    private final ExecutorService merger;
+
+    @Autowired
+    public CatalogSearchIndex(CarRepository carRepository,
+                              PartRepository partRepository,
+                              @Value("${cardealer.search.max-pending-changes:4096}") int maxPendingChanges,
+                              @Value("${cardealer.search.load-page-size:10000}") int loadPageSize) {
+        if (loadPageSize < 1) {
+            throw new IllegalArgumentException("Invalid search index settings");
+        }
+
+        this.carRepository = carRepository;
+        this.partRepository = partRepository;
+        this.merger = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-search-merge");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        this.cars = new PrefixIndex(maxPendingChanges, this.merger);
+        this.parts = new PrefixIndex(maxPendingChanges, this.merger);
+        this.loadPage = PageRequest.of(0, loadPageSize);
+    }
+
+    /**
+     * Reloads both indexes from the database, a page at a time. Searches keep being answered
+     * from the previous contents until it is done.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        this.cars.replace(sink -> this.load(sink,
+                this.carRepository::findFirstSearchTexts, this.carRepository::findSearchTextsAfter,
+                row -> carText((String) row[1], (String) row[2])));
+        this.parts.replace(sink -> this.load(sink,
+                this.partRepository::findFirstSearchTexts, this.partRepository::findSearchTextsAfter,
+                row -> (String) row[1]));
+
+        LOGGER.info("Catalog search index built in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void putCar(String id, String make, String model) {
+        this.cars.put(id, carText(make, model));
+    }
+
+    public void removeCar(String id) {
+        this.cars.remove(id);
+    }
+
+    public void putPart(String id, String name) {
+        this.parts.put(id, name);
+    }
+
+    public void removePart(String id) {
+        this.parts.remove(id);
+    }
+
+    /**
+     * @return the ids of up to {@code limit} cars whose make and model match {@code query},
+     * best match first
+     */
+    public List<String> searchCars(String query, int limit) {
+        return this.cars.search(query, limit);
+    }
+
+    /**
+     * @return the ids of up to {@code limit} parts whose name matches {@code query}, best match
+     * first
+     */
+    public List<String> searchParts(String query, int limit) {
+        return this.parts.search(query, limit);
+    }
+
+    @Override
+    public void destroy() {
+        this.merger.shutdownNow();
+    }
+
+    int pendingChanges() {
+        return this.cars.pendingChanges() + this.parts.pendingChanges();
+    }
+
+    private void load(BiConsumer<String, String> sink,
+                      Function<Pageable, List<Object[]>> firstPage,
+                      BiFunction<String, Pageable, List<Object[]>> pageAfter,
+                      Function<Object[], String> text) {
+        List<Object[]> page = firstPage.apply(this.loadPage);
+        while (!page.isEmpty()) {
+            for (Object[] row : page) {
+                sink.accept((String) row[0], text.apply(row));
+            }
+            if (page.size() < this.loadPage.getPageSize()) {
+                return;
+            }
+
+            page = pageAfter.apply((String) page.get(page.size() - 1)[0], this.loadPage);
+        }
+    }
+
+    private static String carText(String make, String model) {
+        if (make == null) {
+            return model;
+        }
+
+        return model == null ? make : make + " " + model;
+    }
+}
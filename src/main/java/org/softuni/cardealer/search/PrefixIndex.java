@@ -0,0 +1,540 @@
+package org.softuni.cardealer.search;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Phrase-prefix index from ids to one text each. A query matches a text if it is a prefix of
+ * the text from the start of one of its words on, after both are lower-cased and stripped of
+ * everything but letters and digits; {@code "ford fi"} matches {@code "Ford Fiesta"} and
+ * {@code "fi"} matches it too. Matches at the first word rank before matches at a later one,
+ * and each group is in text order, so an exact match comes first.
+ * <p>
+ * The bulk of the entries sit in an immutable {@link Segment}: sorted keys packed into one
+ * UTF-8 byte array with an offset and an id ordinal per key, and the ids packed the same way,
+ * so an entry costs its bytes and a few ints instead of a string, an array and a map node
+ * each. A query is a binary search and a scan of the matching range. Changes go into a map of
+ * pending texts that shadows the segment, and are merged into a new segment on
+ * {@code merger} once there are {@code maxPending} of them; a merge copies the segment, which
+ * takes a few hundred milliseconds at a million entries, so writers do not wait for it.
+ */
+final class PrefixIndex {
+
+    private static final String REMOVED = "";
+
+    private final int maxPending;
+    private final Executor merger;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock mergeLock = new ReentrantLock();
+    private final AtomicBoolean mergeScheduled = new AtomicBoolean();
+    private volatile State state = new State(Segment.EMPTY, new ConcurrentHashMap<>());
+
+    PrefixIndex(int maxPending, Executor merger) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Invalid search index settings");
+        }
+
+        this.maxPending = maxPending;
+        this.merger = merger;
+    }
+
+    void put(String id, String text) {
+        this.change(id, normalize(text));
+    }
+
+    void remove(String id) {
+        this.change(id, REMOVED);
+    }
+
+    /**
+     * Replaces the whole index with the texts {@code source} hands out, keeping the changes
+     * made while it did: those may be newer than what it read.
+     */
+    void replace(Consumer<BiConsumer<String, String>> source) {
+        this.mergeLock.lock();
+        try {
+            Map<String, String> texts = new HashMap<>();
+            source.accept((id, text) -> texts.put(id, normalize(text)));
+            Segment segment = Segment.EMPTY.merge(texts);
+
+            this.writeLock.lock();
+            try {
+                this.state = new State(segment, new ConcurrentHashMap<>(this.state.pending));
+            } finally {
+                this.writeLock.unlock();
+            }
+        } finally {
+            this.mergeLock.unlock();
+        }
+    }
+
+    /**
+     * @return the ids of the best {@code limit} matches, best first
+     */
+    List<String> search(String query, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        State current = this.state;
+        boolean shadowed = !current.pending.isEmpty();
+        byte[] key = prefix.getBytes(StandardCharsets.UTF_8);
+        Set<String> found = new LinkedHashSet<>();
+        List<Match> matches = new ArrayList<>();
+        for (Segment.Keys keys : current.segment.keysByRank) {
+            Segment.Packed packed = keys.keys;
+            for (int i = packed.lowerBound(key); i < packed.size() && found.size() < limit && packed.startsWith(i, key); i++) {
+                String id = current.segment.id(keys.ordinals[i]);
+                if (shadowed && current.pending.containsKey(id)) {
+                    continue;
+                }
+                if (found.add(id) && shadowed) {
+                    matches.add(new Match(keys.rank, packed.string(i), id));
+                }
+            }
+        }
+
+        if (!shadowed) {
+            return List.copyOf(found);
+        }
+
+        current.pending.forEach((id, text) -> {
+            for (int start = 0, rank = 0; ; rank = 1) {
+                if (text.startsWith(prefix, start)) {
+                    matches.add(new Match(rank, text.substring(start), id));
+                    return;
+                }
+
+                start = text.indexOf(' ', start) + 1;
+                if (start == 0) {
+                    return;
+                }
+            }
+        });
+
+        matches.sort(Match.ORDER);
+        Set<String> ranked = new LinkedHashSet<>();
+        for (int i = 0; i < matches.size() && ranked.size() < limit; i++) {
+            ranked.add(matches.get(i).id);
+        }
+
+        return List.copyOf(ranked);
+    }
+
+    int pendingChanges() {
+        return this.state.pending.size();
+    }
+
+    private void change(String id, String text) {
+        int pending;
+        this.writeLock.lock();
+        try {
+            this.state.pending.put(id, text);
+            pending = this.state.pending.size();
+        } finally {
+            this.writeLock.unlock();
+        }
+
+        if (pending >= this.maxPending && this.mergeScheduled.compareAndSet(false, true)) {
+            this.merger.execute(() -> {
+                this.mergeLock.lock();
+                try {
+                    this.mergeScheduled.set(false);
+                    this.merge();
+                } finally {
+                    this.mergeLock.unlock();
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the new segment outside of the lock, so that writes go on meanwhile, and then
+     * only drops the pending changes that it took in and that were not made again since.
+     */
+    private void merge() {
+        State merged = this.state;
+        Map<String, String> changes = new HashMap<>(merged.pending);
+        Segment segment = merged.segment.merge(changes);
+
+        this.writeLock.lock();
+        try {
+            ConcurrentHashMap<String, String> pending = new ConcurrentHashMap<>(this.state.pending);
+            changes.forEach((id, text) -> pending.remove(id, text));
+            this.state = new State(segment, pending);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return {@code text} lower-cased, with every run of other characters than letters and
+     * digits turned into one space and none at either end
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return REMOVED;
+        }
+
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean gap = false;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (gap && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.appendCodePoint(Character.toLowerCase(codePoint));
+                gap = false;
+            } else {
+                gap = true;
+            }
+        }
+
+        return normalized.toString();
+    }
+
+    private static final class State {
+
+        private final Segment segment;
+        private final ConcurrentHashMap<String, String> pending;
+
+        private State(Segment segment, ConcurrentHashMap<String, String> pending) {
+            this.segment = segment;
+            this.pending = pending;
+        }
+    }
+
+    private static final class Match {
+
+        private static final Comparator<Match> ORDER = Comparator.<Match>comparingInt(match -> match.rank)
+                .thenComparing(match -> match.key)
+                .thenComparing(match -> match.id);
+
+        private final int rank;
+        private final String key;
+        private final String id;
+
+        private Match(int rank, String key, String id) {
+            this.rank = rank;
+            this.key = key;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Packed, immutable part of the index. Keys compare as unsigned bytes, which for UTF-8 is
+     * code point order, and equal keys by id, as ids get their ordinals in id order: the order
+     * {@link Match#ORDER} puts the pending texts in.
+     */
+    private static final class Segment {
+
+        private static final Segment EMPTY = new Segment(Packed.EMPTY,
+                new Keys[]{new Keys(0, Packed.EMPTY, new int[0]), new Keys(1, Packed.EMPTY, new int[0])});
+
+        private final Packed ids;
+        private final Keys[] keysByRank;
+
+        private Segment(Packed ids, Keys[] keysByRank) {
+            this.ids = ids;
+            this.keysByRank = keysByRank;
+        }
+
+        String id(int ordinal) {
+            return this.ids.string(ordinal);
+        }
+
+        /**
+         * @return a segment with the ids in {@code changes} set to their new texts, or dropped
+         * for an empty one. Only the changes are sorted; the ids and keys of this segment are
+         * already in order and are merged with them in one pass each.
+         */
+        Segment merge(Map<String, String> changes) {
+            BitSet dropped = new BitSet(this.ids.size());
+            List<String> added = new ArrayList<>();
+            for (Map.Entry<String, String> change : changes.entrySet()) {
+                int ordinal = this.ids.indexOf(utf8(change.getKey()));
+                if (ordinal >= 0) {
+                    dropped.set(ordinal);
+                }
+                if (!change.getValue().isEmpty()) {
+                    added.add(change.getKey());
+                }
+            }
+            added.sort(Comparator.naturalOrder());
+
+            int[] renumbered = new int[this.ids.size()];
+            int[] addedOrdinals = new int[added.size()];
+            Packed ids = this.ids.merge(dropped, utf8(added), renumbered, addedOrdinals);
+
+            List<List<Key>> addedKeys = List.of(new ArrayList<>(), new ArrayList<>());
+            for (int i = 0; i < added.size(); i++) {
+                String text = changes.get(added.get(i));
+                addedKeys.get(0).add(new Key(utf8(text), addedOrdinals[i]));
+                for (int space = text.indexOf(' '); space >= 0; space = text.indexOf(' ', space + 1)) {
+                    addedKeys.get(1).add(new Key(utf8(text.substring(space + 1)), addedOrdinals[i]));
+                }
+            }
+
+            Keys[] keysByRank = new Keys[this.keysByRank.length];
+            for (int rank = 0; rank < keysByRank.length; rank++) {
+                List<Key> keys = addedKeys.get(rank);
+                keys.sort(Key.ORDER);
+                keysByRank[rank] = this.keysByRank[rank].merge(dropped, renumbered, keys);
+            }
+
+            return new Segment(ids, keysByRank);
+        }
+
+        private static byte[] utf8(String string) {
+            return string.getBytes(StandardCharsets.UTF_8);
+        }
+
+        private static List<byte[]> utf8(List<String> strings) {
+            List<byte[]> encoded = new ArrayList<>(strings.size());
+            for (String string : strings) {
+                encoded.add(utf8(string));
+            }
+
+            return encoded;
+        }
+
+        private static final class Key {
+
+            private static final Comparator<Key> ORDER = (left, right) -> {
+                int comparison = Arrays.compareUnsigned(left.bytes, right.bytes);
+
+                return comparison != 0 ? comparison : Integer.compare(left.ordinal, right.ordinal);
+            };
+
+            private final byte[] bytes;
+            private final int ordinal;
+
+            private Key(byte[] bytes, int ordinal) {
+                this.bytes = bytes;
+                this.ordinal = ordinal;
+            }
+        }
+
+        /**
+         * Byte strings in unsigned order, laid end to end; string {@code i} runs from
+         * {@code offsets[i]} to {@code offsets[i + 1]}.
+         */
+        private static final class Packed {
+
+            private static final Packed EMPTY = new Packed(new byte[0], new int[1]);
+
+            private final byte[] bytes;
+            private final int[] offsets;
+
+            private Packed(byte[] bytes, int[] offsets) {
+                this.bytes = bytes;
+                this.offsets = offsets;
+            }
+
+            int size() {
+                return this.offsets.length - 1;
+            }
+
+            int length(int i) {
+                return this.offsets[i + 1] - this.offsets[i];
+            }
+
+            String string(int i) {
+                return new String(this.bytes, this.offsets[i], this.length(i), StandardCharsets.UTF_8);
+            }
+
+            int compare(int i, byte[] other) {
+                return Arrays.compareUnsigned(this.bytes, this.offsets[i], this.offsets[i + 1], other, 0, other.length);
+            }
+
+            /**
+             * @return the index of the first string not below {@code other}
+             */
+            int lowerBound(byte[] other) {
+                int low = 0;
+                int high = this.size();
+                while (low < high) {
+                    int middle = (low + high) >>> 1;
+                    if (this.compare(middle, other) < 0) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+
+                return low;
+            }
+
+            int indexOf(byte[] other) {
+                int i = this.lowerBound(other);
+
+                return i < this.size() && this.compare(i, other) == 0 ? i : -1;
+            }
+
+            boolean startsWith(int i, byte[] prefix) {
+                int start = this.offsets[i];
+
+                return this.length(i) >= prefix.length
+                        && Arrays.equals(this.bytes, start, start + prefix.length, prefix, 0, prefix.length);
+            }
+
+            /**
+             * Merges the strings not {@code dropped} with the sorted {@code added} ones, none of
+             * them equal, recording the new index of each in {@code renumbered} and
+             * {@code addedIndexes}.
+             */
+            Packed merge(BitSet dropped, List<byte[]> added, int[] renumbered, int[] addedIndexes) {
+                Packer packer = new Packer(this, dropped, added);
+                int i = 0;
+                int j = 0;
+                while (i < this.size() || j < added.size()) {
+                    if (i < this.size() && dropped.get(i)) {
+                        i++;
+                    } else if (j == added.size() || i < this.size() && this.compare(i, added.get(j)) < 0) {
+                        renumbered[i] = packer.add(this, i);
+                        i++;
+                    } else {
+                        addedIndexes[j] = packer.add(added.get(j));
+                        j++;
+                    }
+                }
+
+                return packer.packed();
+            }
+        }
+
+        /**
+         * Sorted keys of one rank, each with the ordinal of the id it belongs to.
+         */
+        private static final class Keys {
+
+            private final int rank;
+            private final Packed keys;
+            private final int[] ordinals;
+
+            private Keys(int rank, Packed keys, int[] ordinals) {
+                this.rank = rank;
+                this.keys = keys;
+                this.ordinals = ordinals;
+            }
+
+            /**
+             * Like {@link Packed#merge}, for keys of the dropped ids left out and the others
+             * moved to their ids' new ordinals, which keeps them in order.
+             */
+            Keys merge(BitSet dropped, int[] renumbered, List<Key> added) {
+                Packer packer = new Packer(this.keys, dropped, this.ordinals, added);
+                int[] ordinals = new int[packer.count];
+                int i = 0;
+                int j = 0;
+                while (i < this.keys.size() || j < added.size()) {
+                    if (i < this.keys.size() && dropped.get(this.ordinals[i])) {
+                        i++;
+                        continue;
+                    }
+
+                    boolean kept = j == added.size();
+                    if (!kept && i < this.keys.size()) {
+                        Key next = added.get(j);
+                        int comparison = this.keys.compare(i, next.bytes);
+                        kept = comparison < 0 || comparison == 0 && renumbered[this.ordinals[i]] < next.ordinal;
+                    }
+
+                    if (kept) {
+                        ordinals[packer.add(this.keys, i)] = renumbered[this.ordinals[i]];
+                        i++;
+                    } else {
+                        ordinals[packer.add(added.get(j).bytes)] = added.get(j).ordinal;
+                        j++;
+                    }
+                }
+
+                return new Keys(this.rank, packer.packed(), ordinals);
+            }
+        }
+
+        /**
+         * Fills a {@link Packed} of a size worked out up front, so that nothing is copied twice.
+         */
+        private static final class Packer {
+
+            private final byte[] bytes;
+            private final int[] offsets;
+            private final int count;
+            private int size;
+
+            private Packer(Packed packed, BitSet dropped, List<byte[]> added) {
+                int count = packed.size() - dropped.cardinality() + added.size();
+                int length = packed.bytes.length;
+                for (int i = dropped.nextSetBit(0); i >= 0; i = dropped.nextSetBit(i + 1)) {
+                    length -= packed.length(i);
+                }
+                for (byte[] bytes : added) {
+                    length += bytes.length;
+                }
+
+                this.bytes = new byte[length];
+                this.offsets = new int[count + 1];
+                this.count = count;
+            }
+
+            private Packer(Packed keys, BitSet droppedOrdinals, int[] ordinals, List<Key> added) {
+                int count = added.size();
+                int length = 0;
+                for (int i = 0; i < keys.size(); i++) {
+                    if (!droppedOrdinals.get(ordinals[i])) {
+                        count++;
+                        length += keys.length(i);
+                    }
+                }
+                for (Key key : added) {
+                    length += key.bytes.length;
+                }
+
+                this.bytes = new byte[length];
+                this.offsets = new int[count + 1];
+                this.count = count;
+            }
+
+            int add(Packed packed, int i) {
+                return this.add(packed.bytes, packed.offsets[i], packed.length(i));
+            }
+
+            int add(byte[] string) {
+                return this.add(string, 0, string.length);
+            }
+
+            private int add(byte[] source, int from, int length) {
+                System.arraycopy(source, from, this.bytes, this.offsets[this.size], length);
+                this.offsets[this.size + 1] = this.offsets[this.size] + length;
+
+                return this.size++;
+            }
+
+            Packed packed() {
+                return new Packed(this.bytes, this.offsets);
+            }
+        }
+    }
+}
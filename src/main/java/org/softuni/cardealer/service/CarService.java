@@ -1,14 +1,101 @@
 package org.softuni.cardealer.service;
 
+import org.softuni.cardealer.domain.models.service.CarInventoryFilterServiceModel;
+import org.softuni.cardealer.domain.models.service.CarInventoryServiceModel;
+import org.softuni.cardealer.domain.models.service.CarPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface CarService {
 
     CarServiceModel saveCar(CarServiceModel carServiceModel);
 
+    List<CarServiceModel> saveCars(Collection<CarServiceModel> carServiceModels);
+
+    /**
+     * Saves the model's editable fields onto the stored car.
+     *
+     * @throws EditConflictException if the car has been edited since the model's
+     *                               {@link CarServiceModel#getVersion() version}
+     */
     CarServiceModel editCar(CarServiceModel carServiceModel);
 
+    /**
+     * Applies {@code changes} to the current car and saves it. If a concurrent edit gets in
+     * first, the changes are applied again to the car as that edit left it, as long as it
+     * changed none of the fields the changes set.
+     *
+     * @throws EditConflictException if a concurrent edit changed one of the same fields, or the
+     *                               car kept being edited concurrently
+     */
+    CarServiceModel editCar(String id, Consumer<CarServiceModel> changes);
+
+    /**
+     * Saves only the fields the patch sets, with one UPDATE and without reading the car first.
+     *
+     * @return the car as patched
+     * @throws java.util.NoSuchElementException if there is no car with the patch's id
+     * @throws EditConflictException            if the car has been edited since the patch's
+     *                                          {@link CarPatchServiceModel#getVersion() version}
+     */
+    CarServiceModel patchCar(CarPatchServiceModel patch);
+
     CarServiceModel deleteCar(String id);
 
+    /**
+     * Deletes the cars, and detaches their parts, with a few statements for the whole batch.
+     * Ids that do not exist are skipped.
+     *
+     * @return the number of cars deleted
+     * @throws org.springframework.dao.DataIntegrityViolationException if any of the cars has
+     *                                                                 been sold; none is deleted then
+     */
+    int deleteCars(Collection<String> ids);
+
     CarServiceModel findCarById(String id);
+
+    /**
+     * Looks up many cars with one statement per thousand ids rather than one per car.
+     *
+     * @return the car of every id in the order of {@code ids}, {@code null} for an id that
+     * does not exist
+     */
+    List<CarServiceModel> findCarsByIds(List<String> ids);
+
+    /**
+     * Lists the cars in id order, {@code pageSize} at a time.
+     *
+     * @param pageToken {@code null} for the first page, otherwise the previous page's
+     *                  {@link PageServiceModel#getNextPageToken() next page token}
+     */
+    PageServiceModel<CarServiceModel> listCars(String pageToken, int pageSize);
+
+    /**
+     * Type-ahead search over make and model, answered from memory.
+     *
+     * @return the ids of up to {@code limit} matching cars, best match first
+     */
+    List<String> searchCars(String query, int limit);
+
+    /**
+     * Filters the inventory from memory, with facet counts for the filter screen.
+     *
+     * @return the matching cars, the ids of the first {@code limit} of them
+     */
+    CarInventoryServiceModel filterInventory(CarInventoryFilterServiceModel filter, int limit);
+
+    CarServiceModel attachPart(String carId, String partId);
+
+    CarServiceModel detachPart(String carId, String partId);
+
+    /**
+     * Recomputes every car's total cost from its parts.
+     *
+     * @return the number of cars whose stored total cost was wrong
+     */
+    int rebuildTotalCosts();
 }
@@ -1,61 +1,356 @@
 package org.softuni.cardealer.service;
 
-import org.modelmapper.ModelMapper;
+import org.softuni.cardealer.cache.SingleFlight;
 import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.service.CarInventoryFilterServiceModel;
+import org.softuni.cardealer.domain.models.service.CarInventoryServiceModel;
+import org.softuni.cardealer.domain.models.service.CarPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.domain.models.view.CarPartViewModel;
+import org.softuni.cardealer.domain.models.view.PartViewModel;
+import org.softuni.cardealer.mapper.CarMapper;
 import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CarServiceImpl implements CarService {
 
+    private static final Map<String, Function<CarServiceModel, ?>> EDITABLE_FIELDS = Map.of(
+            "make", CarServiceModel::getMake,
+            "model", CarServiceModel::getModel,
+            "travelledDistance", CarServiceModel::getTravelledDistance);
+
+    private static final Map<String, Function<CarPatchServiceModel, ?>> PATCHABLE_FIELDS = Map.of(
+            "make", CarPatchServiceModel::getMake,
+            "model", CarPatchServiceModel::getModel,
+            "travelledDistance", CarPatchServiceModel::getTravelledDistance);
+
     private final CarRepository carRepository;
-    private final ModelMapper modelMapper;
+    private final PartRepository partRepository;
+    private final CarMapper carMapper;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final CarInventoryIndex carInventoryIndex;
+    private final SingleFlight singleFlight;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public CarServiceImpl(CarRepository carRepository, ModelMapper modelMapper) {
+    public CarServiceImpl(CarRepository carRepository, PartRepository partRepository, CarMapper carMapper,
+                          CatalogSearchIndex catalogSearchIndex, CarInventoryIndex carInventoryIndex,
+                          SingleFlight singleFlight, PlatformTransactionManager transactionManager) {
         this.carRepository = carRepository;
-        this.modelMapper = modelMapper;
+        this.partRepository = partRepository;
+        this.carMapper = carMapper;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.carInventoryIndex = carInventoryIndex;
+        this.singleFlight = singleFlight;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public CarServiceModel saveCar(CarServiceModel carServiceModel) {
-        Car car = this.modelMapper.map(carServiceModel, Car.class);
+        Car car = this.carMapper.toEntity(carServiceModel);
+        this.applyTotalCosts(List.of(car));
         car = this.carRepository.saveAndFlush(car);
 
-        return this.modelMapper.map(car, CarServiceModel.class);
+        return this.indexed(this.carMapper.toServiceModel(car));
 
     }
 
+    @Override
+    public List<CarServiceModel> saveCars(Collection<CarServiceModel> carServiceModels) {
+        List<Car> cars = carServiceModels.stream()
+                .map(this.carMapper::toEntity)
+                .collect(Collectors.toList());
+        this.applyTotalCosts(cars);
+
+        return this.carRepository.saveAllInChunks(cars, this.carMapper::toServiceModel).stream()
+                .map(this::indexed)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The car is read and written in one transaction, so the version is checked against the
+     * car as loaded and the update needs no merge. A template rather than {@code @Transactional}
+     * so that it also applies when {@link #editCar(String, Consumer)} calls this method.
+     */
     @Override
     public CarServiceModel editCar(CarServiceModel carServiceModel) {
-        Car car = this.carRepository.findById(carServiceModel.getId()).orElse(null);
-        car.setMake(carServiceModel.getMake());
-        car.setModel(carServiceModel.getModel());
-        car.setTravelledDistance(carServiceModel.getTravelledDistance());
+        CarServiceModel result = this.transactionTemplate.execute(status -> {
+            Car car = this.carRepository.findWithPartsById(carServiceModel.getId()).orElse(null);
+            OptimisticEdits.checkVersion("Car", car, carServiceModel);
+            car.setMake(carServiceModel.getMake());
+            car.setModel(carServiceModel.getModel());
+            car.setTravelledDistance(carServiceModel.getTravelledDistance());
 
-        car = this.carRepository.saveAndFlush(car);
+            Car edited = OptimisticEdits.save("Car", carServiceModel, () -> this.carRepository.saveAndFlush(car));
 
-        return this.modelMapper.map(car, CarServiceModel.class);
+            return this.carMapper.toServiceModel(edited);
+        });
 
+        return this.indexed(result);
+    }
+
+    @Override
+    public CarServiceModel editCar(String id, Consumer<CarServiceModel> changes) {
+        return OptimisticEdits.editWithRetry("Car", id, this::findCarById, changes, this::editCar, EDITABLE_FIELDS);
+    }
+
+    /**
+     * Neither H2 nor MySQL can return the updated row from an UPDATE, so the car is read back
+     * after it, in the same transaction and through the projection lookups use.
+     */
+    @Override
+    public CarServiceModel patchCar(CarPatchServiceModel patch) {
+        Map<String, Object> changes = OptimisticEdits.changesOf(patch, PATCHABLE_FIELDS);
+        CarServiceModel result = this.transactionTemplate.execute(status -> {
+            OptimisticEdits.patch(Car.class, this.carRepository, patch.getId(), patch.getVersion(), changes);
+
+            return this.loadCar(patch.getId());
+        });
+
+        return this.indexed(result);
     }
 
     @Override
     public CarServiceModel deleteCar(String id) {
-        Car car = this.carRepository.findById(id).orElse(null);
+        Car car = this.carRepository.findWithPartsById(id).orElse(null);
 
         this.carRepository.delete(car);
+        this.removed(id);
+
+        return this.carMapper.toServiceModel(car);
 
-        return this.modelMapper.map(car, CarServiceModel.class);
+    }
+
+    /**
+     * One transaction for every chunk, so that either all of the cars go or none of them do.
+     * The indexes are updated once it has committed, also when that is the caller's.
+     */
+    @Override
+    public int deleteCars(Collection<String> ids) {
+        List<List<String>> chunks = IdBatches.chunks(ids);
+        int deleted = this.transactionTemplate.execute(status -> {
+            IdBatches.requireUnsold("Car", chunks, this.carRepository::findSoldIdsIn);
+
+            int count = 0;
+            for (List<String> chunk : chunks) {
+                count += this.carRepository.deleteWithPartLinks(chunk);
+            }
+
+            return count;
+        });
 
+        AfterCommit.run(() -> {
+            for (List<String> chunk : chunks) {
+                for (String id : chunk) {
+                    this.singleFlight.forget("Car", id);
+                    this.catalogSearchIndex.removeCar(id);
+                    this.carInventoryIndex.removeCar(id);
+                }
+            }
+        });
+
+        return deleted;
     }
 
+    /**
+     * Concurrent lookups of the same car share one load, and each gets a copy of the car it read.
+     */
     @Override
     public CarServiceModel findCarById(String id) {
-        Car car = this.carRepository.findById(id).orElse(null);
+        CarServiceModel car = this.singleFlight.load("Car", Objects.requireNonNull(id, "id"), () -> this.loadCar(id));
+
+        return this.carMapper.copy(car);
+    }
+
+    @Override
+    public List<CarServiceModel> findCarsByIds(List<String> ids) {
+        return IdBatches.inRequestOrder(ids, chunk -> {
+            Map<String, List<CarPartViewModel>> rowsByCar = this.carRepository.findViewsByIdIn(chunk).stream()
+                    .collect(Collectors.groupingBy(CarPartViewModel::getId));
+
+            Map<String, CarServiceModel> cars = new HashMap<>();
+            rowsByCar.forEach((id, rows) -> cars.put(id, this.toServiceModel(rows)));
+
+            return cars;
+        });
+    }
+
+    private CarServiceModel loadCar(String id) {
+        List<CarPartViewModel> rows = this.carRepository.findViewById(id);
+
+        return rows.isEmpty() ? null : this.toServiceModel(rows);
+    }
+
+    /**
+     * @param rows the rows of one car, one for each of its parts
+     */
+    private CarServiceModel toServiceModel(List<CarPartViewModel> rows) {
+        List<PartViewModel> parts = rows.stream()
+                .map(CarPartViewModel::getPart)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        return this.carMapper.toServiceModel(rows.get(0), parts);
+    }
+
+    /**
+     * Pages over the ids first and loads the page's cars with their parts by those ids, as the
+     * LIMIT cannot go on the statement that fetches the parts.
+     */
+    @Override
+    public PageServiceModel<CarServiceModel> listCars(String pageToken, int pageSize) {
+        Pageable limit = PageTokens.limit(pageSize);
+        String after = PageTokens.decode(pageToken);
+        List<String> ids = after == null
+                ? this.carRepository.findFirstPageIds(limit)
+                : this.carRepository.findPageIdsAfter(after, limit);
+
+        PageServiceModel<String> idPage = PageTokens.toIdPage(ids, pageSize);
+        List<CarServiceModel> cars = idPage.getItems().isEmpty()
+                ? List.of()
+                : this.carRepository.findWithPartsByIdIn(idPage.getItems()).stream()
+                .map(this.carMapper::toServiceModel)
+                .collect(Collectors.toList());
+
+        return new PageServiceModel<>(cars, idPage.getNextPageToken());
+    }
+
+    @Override
+    public List<String> searchCars(String query, int limit) {
+        return this.catalogSearchIndex.searchCars(query, limit);
+    }
+
+    @Override
+    public CarInventoryServiceModel filterInventory(CarInventoryFilterServiceModel filter, int limit) {
+        return this.carInventoryIndex.filter(filter, limit);
+    }
+
+    @Override
+    public CarServiceModel attachPart(String carId, String partId) {
+        CarServiceModel result = this.transactionTemplate.execute(status -> {
+            Car car = this.carRepository.findWithPartsById(carId).orElseThrow();
+            Part part = this.partRepository.findWithSupplierById(partId).orElseThrow();
+
+            if (car.getParts() == null) {
+                car.setParts(new ArrayList<>());
+            }
+            car.getParts().add(part);
+            this.carRepository.addToTotalCost(List.of(carId), part.getPrice());
+
+            return this.carMapper.toServiceModel(this.carRepository.findWithPartsById(carId).orElseThrow());
+        });
+        return this.indexed(result);
+    }
+
+    @Override
+    public CarServiceModel detachPart(String carId, String partId) {
+        CarServiceModel result = this.transactionTemplate.execute(status -> {
+            Car car = this.carRepository.findWithPartsById(carId).orElseThrow();
+            Part part = this.partRepository.findWithSupplierById(partId).orElseThrow();
+
+            if (car.getParts() == null || !car.getParts().remove(part)) {
+                throw new IllegalArgumentException(String.format("Part %s is not attached to car %s", partId, carId));
+            }
+            this.carRepository.addToTotalCost(List.of(carId), part.getPrice().negate());
+
+            return this.carMapper.toServiceModel(this.carRepository.findWithPartsById(carId).orElseThrow());
+        });
+        return this.indexed(result);
+    }
+
+    @Override
+    @Transactional
+    public int rebuildTotalCosts() {
+        return this.carRepository.rebuildTotalCosts();
+    }
+
+    /**
+     * The lookups and indexes follow a change once it has committed, also when the caller runs
+     * the service call in a transaction of its own, so that a change that is rolled back or
+     * loses to a concurrent edit leaves no trace in them. The values are taken now, as the
+     * caller may change the returned car before that.
+     */
+    private CarServiceModel indexed(CarServiceModel car) {
+        String id = car.getId();
+        String make = car.getMake();
+        String model = car.getModel();
+        Long travelledDistance = car.getTravelledDistance();
+        List<String> partIds = car.getParts() == null
+                ? List.of()
+                : car.getParts().stream().map(PartServiceModel::getId).collect(Collectors.toList());
+
+        AfterCommit.run(() -> {
+            this.singleFlight.forget("Car", id);
+            this.catalogSearchIndex.putCar(id, make, model);
+            this.carInventoryIndex.putCar(id, make, model, travelledDistance, partIds);
+        });
+
+        return car;
+    }
+
+    private void removed(String id) {
+        AfterCommit.run(() -> {
+            this.singleFlight.forget("Car", id);
+            this.catalogSearchIndex.removeCar(id);
+            this.carInventoryIndex.removeCar(id);
+        });
+    }
+
+    /**
+     * Sets the total cost of new cars from the stored part prices, not from the prices
+     * the caller passed along with the parts.
+     */
+    private void applyTotalCosts(List<Car> cars) {
+        Set<String> partIds = new HashSet<>();
+        for (Car car : cars) {
+            if (car.getParts() != null) {
+                car.getParts().stream()
+                        .map(Part::getId)
+                        .filter(Objects::nonNull)
+                        .forEach(partIds::add);
+            }
+        }
 
-        return this.modelMapper.map(car, CarServiceModel.class);
+        Map<String, BigDecimal> prices = new HashMap<>();
+        if (!partIds.isEmpty()) {
+            for (Object[] row : this.partRepository.findPricesByIds(partIds)) {
+                prices.put((String) row[0], (BigDecimal) row[1]);
+            }
+        }
 
+        for (Car car : cars) {
+            BigDecimal totalCost = BigDecimal.ZERO;
+            if (car.getParts() != null) {
+                for (Part part : car.getParts()) {
+                    totalCost = totalCost.add(prices.getOrDefault(part.getId(), BigDecimal.ZERO));
+                }
+            }
+            car.setTotalCost(totalCost);
+        }
     }
 }
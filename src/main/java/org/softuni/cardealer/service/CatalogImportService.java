@@ -0,0 +1,26 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.models.imports.ImportReport;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface CatalogImportService {
+
+    /**
+     * Imports suppliers from rows with the columns {@code name} and {@code importer}.
+     */
+    ImportReport importSuppliers(InputStream inputStream, ImportFormat format, ImportProgressListener listener) throws IOException;
+
+    /**
+     * Imports parts from rows with the columns {@code name}, {@code price} and {@code supplier},
+     * the latter being the name of an existing supplier.
+     */
+    ImportReport importParts(InputStream inputStream, ImportFormat format, ImportProgressListener listener) throws IOException;
+
+    /**
+     * Imports cars from rows with the columns {@code make}, {@code model}, {@code travelledDistance}
+     * and {@code parts}, the latter being a list of existing part names.
+     */
+    ImportReport importCars(InputStream inputStream, ImportFormat format, ImportProgressListener listener) throws IOException;
+}
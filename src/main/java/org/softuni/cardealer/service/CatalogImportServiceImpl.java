@@ -0,0 +1,284 @@
+package org.softuni.cardealer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.softuni.cardealer.domain.entities.BaseEntity;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.imports.ImportReport;
+import org.softuni.cardealer.domain.models.imports.ImportRowError;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.ChunkedSaveRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Reads the input one row at a time and commits every {@code chunk-size} rows in their own
+ * transaction, so neither the input nor the persistence context grows with the file. Rows
+ * that cannot be converted are reported and skipped; if a chunk fails in the database, its
+ * rows are retried one by one so that only the offending rows are reported.
+ * <p>
+ * Supplier and part names are resolved to ids through a bounded cache that lives for one
+ * import run; unknown names are not cached. References are attached as proxies, so a name
+ * costs one id query until it is evicted and loads no entity. Part references carry the price
+ * as well, from which an imported car's total cost is set.
+ */
+@Service
+public class CatalogImportServiceImpl implements CatalogImportService {
+
+    private final SupplierRepository supplierRepository;
+    private final PartRepository partRepository;
+    private final CarRepository carRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int referenceCacheSize;
+    private final int maxReportedErrors;
+
+    @Autowired
+    public CatalogImportServiceImpl(SupplierRepository supplierRepository,
+                                    PartRepository partRepository,
+                                    CarRepository carRepository,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${cardealer.import.chunk-size:1000}") int chunkSize,
+                                    @Value("${cardealer.import.reference-cache-size:10000}") int referenceCacheSize,
+                                    @Value("${cardealer.import.max-reported-errors:1000}") int maxReportedErrors) {
+        if (chunkSize < 1 || referenceCacheSize < 1 || maxReportedErrors < 0) {
+            throw new IllegalArgumentException("Invalid catalog import settings");
+        }
+
+        this.supplierRepository = supplierRepository;
+        this.partRepository = partRepository;
+        this.carRepository = carRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.referenceCacheSize = referenceCacheSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    @Override
+    public ImportReport importSuppliers(InputStream inputStream, ImportFormat format, ImportProgressListener listener) throws IOException {
+        return this.importRows(format.newReader(inputStream), listener, this.supplierRepository, row -> {
+            Supplier supplier = new Supplier();
+            supplier.setName(required(row, "name"));
+            supplier.setImporter(parseBoolean(row, "importer"));
+
+            return supplier;
+        });
+    }
+
+    @Override
+    public ImportReport importParts(InputStream inputStream, ImportFormat format, ImportProgressListener listener) throws IOException {
+        References<String> suppliers = new References<>(this.referenceCacheSize, this.supplierRepository::findIdByName);
+
+        return this.importRows(format.newReader(inputStream), listener, this.partRepository, row -> {
+            Part part = new Part();
+            part.setName(required(row, "name"));
+            part.setPrice(parseDecimal(row, "price"));
+
+            String supplierName = row.text("supplier");
+            if (supplierName != null) {
+                part.setSupplier(this.supplierRepository.getOne(suppliers.resolve("supplier", supplierName)));
+            }
+
+            return part;
+        });
+    }
+
+    @Override
+    public ImportReport importCars(InputStream inputStream, ImportFormat format, ImportProgressListener listener) throws IOException {
+        References<PartReference> parts = new References<>(this.referenceCacheSize, name ->
+                this.partRepository.findPriceByName(name).stream()
+                        .findFirst()
+                        .map(row -> new PartReference((String) row[0], (BigDecimal) row[1])));
+
+        return this.importRows(format.newReader(inputStream), listener, this.carRepository, row -> {
+            Car car = new Car();
+            car.setMake(required(row, "make"));
+            car.setModel(required(row, "model"));
+            car.setTravelledDistance(parseLong(row, "travelledDistance"));
+
+            List<Part> carParts = new ArrayList<>();
+            BigDecimal totalCost = BigDecimal.ZERO;
+            for (String partName : row.list("parts")) {
+                PartReference part = parts.resolve("part", partName);
+                carParts.add(this.partRepository.getOne(part.id));
+                totalCost = totalCost.add(part.price);
+            }
+            car.setParts(carParts);
+            car.setTotalCost(totalCost);
+
+            return car;
+        });
+    }
+
+    private <E extends BaseEntity> ImportReport importRows(ImportRowReader reader,
+                                                           ImportProgressListener listener,
+                                                           ChunkedSaveRepository<E> repository,
+                                                           Function<ImportRow, E> converter) throws IOException {
+        ImportReport report = new ImportReport(this.maxReportedErrors);
+        List<ImportRow> chunk = new ArrayList<>(this.chunkSize);
+
+        ImportRow row;
+        while ((row = reader.next()) != null) {
+            chunk.add(row);
+
+            if (chunk.size() == this.chunkSize) {
+                this.writeChunk(chunk, repository, converter, report);
+                chunk.clear();
+                listener.onChunkCommitted(report);
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            this.writeChunk(chunk, repository, converter, report);
+            listener.onChunkCommitted(report);
+        }
+
+        return report;
+    }
+
+    private <E extends BaseEntity> void writeChunk(List<ImportRow> chunk,
+                                                   ChunkedSaveRepository<E> repository,
+                                                   Function<ImportRow, E> converter,
+                                                   ImportReport report) {
+        List<ImportRowError> rejected;
+        try {
+            rejected = this.transactionTemplate.execute(status -> this.save(chunk, repository, converter));
+        } catch (RuntimeException chunkFailure) {
+            chunk.forEach(row -> this.writeAlone(row, repository, converter, report));
+            return;
+        }
+
+        report.addImported(chunk.size() - rejected.size());
+        rejected.forEach(error -> report.addError(error.getRow(), error.getMessage()));
+    }
+
+    private <E extends BaseEntity> void writeAlone(ImportRow row,
+                                                   ChunkedSaveRepository<E> repository,
+                                                   Function<ImportRow, E> converter,
+                                                   ImportReport report) {
+        List<ImportRowError> rejected;
+        try {
+            rejected = this.transactionTemplate.execute(status -> this.save(List.of(row), repository, converter));
+        } catch (RuntimeException e) {
+            report.addError(row.getNumber(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            return;
+        }
+
+        if (rejected.isEmpty()) {
+            report.addImported(1);
+        } else {
+            report.addError(row.getNumber(), rejected.get(0).getMessage());
+        }
+    }
+
+    private <E extends BaseEntity> List<ImportRowError> save(List<ImportRow> rows,
+                                                             ChunkedSaveRepository<E> repository,
+                                                             Function<ImportRow, E> converter) {
+        List<E> entities = new ArrayList<>(rows.size());
+        List<ImportRowError> rejected = new ArrayList<>();
+
+        for (ImportRow row : rows) {
+            try {
+                entities.add(converter.apply(row));
+            } catch (InvalidRowException e) {
+                rejected.add(new ImportRowError(row.getNumber(), e.getMessage()));
+            }
+        }
+
+        repository.saveAllInChunks(entities);
+        return rejected;
+    }
+
+    private static String required(ImportRow row, String column) {
+        String value = row.text(column);
+        if (value == null) {
+            throw new InvalidRowException("Missing " + column);
+        }
+
+        return value;
+    }
+
+    private static boolean parseBoolean(ImportRow row, String column) {
+        String value = row.text(column);
+        if (value == null || value.equalsIgnoreCase("false") || value.equals("0")) {
+            return false;
+        }
+        if (value.equalsIgnoreCase("true") || value.equals("1")) {
+            return true;
+        }
+
+        throw new InvalidRowException(String.format("Invalid %s '%s'", column, value));
+    }
+
+    private static BigDecimal parseDecimal(ImportRow row, String column) {
+        String value = required(row, column);
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException(String.format("Invalid %s '%s'", column, value));
+        }
+    }
+
+    private static Long parseLong(ImportRow row, String column) {
+        String value = required(row, column);
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException(String.format("Invalid %s '%s'", column, value));
+        }
+    }
+
+    private static final class References<T> {
+
+        private final Cache<String, T> byName;
+        private final Function<String, Optional<T>> finder;
+
+        private References(int maximumSize, Function<String, Optional<T>> finder) {
+            this.byName = Caffeine.newBuilder().maximumSize(maximumSize).build();
+            this.finder = finder;
+        }
+
+        private T resolve(String kind, String name) {
+            T reference = this.byName.get(name, key -> this.finder.apply(key).orElse(null));
+            if (reference == null) {
+                throw new InvalidRowException(String.format("Unknown %s '%s'", kind, name));
+            }
+
+            return reference;
+        }
+    }
+
+    private static final class PartReference {
+
+        private final String id;
+        private final BigDecimal price;
+
+        private PartReference(String id, BigDecimal price) {
+            this.id = id;
+            this.price = price;
+        }
+    }
+
+    private static final class InvalidRowException extends RuntimeException {
+
+        private InvalidRowException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.softuni.cardealer.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+class CsvExportRowWriter implements ExportRowWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Writer writer;
+    private String[] headerPending;
+
+    CsvExportRowWriter(OutputStream outputStream, String[] columns) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.headerPending = columns;
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        if (this.headerPending != null) {
+            this.writeLine(this.headerPending);
+            this.headerPending = null;
+        }
+
+        this.writeLine(values);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (this.headerPending != null) {
+            this.writeLine(this.headerPending);
+            this.headerPending = null;
+        }
+
+        this.writer.flush();
+    }
+
+    private void writeLine(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                this.writer.write(',');
+            }
+            this.writeValue(values[i]);
+        }
+
+        this.writer.write('\n');
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        String text = value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            this.writer.write(text);
+            return;
+        }
+
+        this.writer.write('"');
+        this.writer.write(text.replace("\"", "\"\""));
+        this.writer.write('"');
+    }
+}
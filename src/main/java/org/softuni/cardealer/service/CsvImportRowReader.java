@@ -0,0 +1,92 @@
+package org.softuni.cardealer.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class CsvImportRowReader implements ImportRowReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private final Reader reader;
+    private final String[] columns;
+    private long rowNumber;
+
+    CsvImportRowReader(InputStream inputStream) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        List<String> header = this.readRecord();
+        this.columns = header == null ? new String[0] : header.toArray(new String[0]);
+        if (this.columns.length > 0 && !this.columns[0].isEmpty() && this.columns[0].charAt(0) == BYTE_ORDER_MARK) {
+            this.columns[0] = this.columns[0].substring(1);
+        }
+        for (int i = 0; i < this.columns.length; i++) {
+            this.columns[i] = this.columns[i].trim();
+        }
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        List<String> record;
+        do {
+            record = this.readRecord();
+            if (record == null) {
+                return null;
+            }
+        } while (record.size() == 1 && record.get(0).isEmpty());
+
+        Map<String, Object> values = new HashMap<>(this.columns.length * 2);
+        for (int i = 0; i < Math.min(this.columns.length, record.size()); i++) {
+            values.put(this.columns[i], record.get(i));
+        }
+
+        return new ImportRow(++this.rowNumber, values);
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = this.reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Unterminated quoted field after row " + this.rowNumber);
+                }
+                if (c == '"') {
+                    c = this.reader.read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+
+            c = this.reader.read();
+        }
+    }
+}
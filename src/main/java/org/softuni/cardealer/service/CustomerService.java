@@ -1,14 +1,49 @@
 package org.softuni.cardealer.service;
 
+import org.softuni.cardealer.domain.models.service.CustomerPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
 
 public interface CustomerService {
 
     CustomerServiceModel saveCustomer(CustomerServiceModel customerServiceModel);
 
+    List<CustomerServiceModel> saveCustomers(Collection<CustomerServiceModel> customerServiceModels);
+
+    /**
+     * @throws EditConflictException if the customer has been edited since the model's version
+     */
     CustomerServiceModel editCustomer(CustomerServiceModel customerServiceModel);
 
+    /**
+     * Applies {@code changes} to the current customer, merging them with concurrent edits of other
+     * fields as {@link CarService#editCar(String, Consumer)} does.
+     */
+    CustomerServiceModel editCustomer(String id, Consumer<CustomerServiceModel> changes);
+
+    /**
+     * Patches the customer as {@link CarService#patchCar} does a car.
+     */
+    CustomerServiceModel patchCustomer(CustomerPatchServiceModel patch);
+
     CustomerServiceModel deleteCustomer(String id);
 
     CustomerServiceModel findCustomerById(String id);
+
+    /**
+     * Looks up many customers as {@link CarService#findCarsByIds} does.
+     */
+    List<CustomerServiceModel> findCustomersByIds(List<String> ids);
+
+    /**
+     * Lists the customers in id order, {@code pageSize} at a time.
+     *
+     * @param pageToken {@code null} for the first page, otherwise the previous page's
+     *                  {@link PageServiceModel#getNextPageToken() next page token}
+     */
+    PageServiceModel<CustomerServiceModel> listCustomers(String pageToken, int pageSize);
 }
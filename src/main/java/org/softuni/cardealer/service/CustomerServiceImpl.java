@@ -1,44 +1,104 @@
 package org.softuni.cardealer.service;
 
-import org.modelmapper.ModelMapper;
 import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.models.service.CustomerPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.mapper.CustomerMapper;
 import org.softuni.cardealer.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class CustomerServiceImpl implements CustomerService {
 
+    private static final Map<String, Function<CustomerServiceModel, ?>> EDITABLE_FIELDS = Map.of(
+            "name", CustomerServiceModel::getName,
+            "birthDate", CustomerServiceModel::getBirthDate,
+            "youngDriver", CustomerServiceModel::isYoungDriver);
+
+    private static final Map<String, Function<CustomerPatchServiceModel, ?>> PATCHABLE_FIELDS = Map.of(
+            "name", CustomerPatchServiceModel::getName,
+            "birthDate", CustomerPatchServiceModel::getBirthDate,
+            "youngDriver", CustomerPatchServiceModel::getYoungDriver);
+
     private final CustomerRepository customerRepository;
-    private final ModelMapper modelMapper;
+    private final CustomerMapper customerMapper;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public CustomerServiceImpl(CustomerRepository customerRepository, ModelMapper modelMapper) {
+    public CustomerServiceImpl(CustomerRepository customerRepository, CustomerMapper customerMapper,
+                               PlatformTransactionManager transactionManager) {
         this.customerRepository = customerRepository;
-        this.modelMapper = modelMapper;
+        this.customerMapper = customerMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public CustomerServiceModel saveCustomer(CustomerServiceModel customerServiceModel) {
-        Customer customer = this.modelMapper.map(customerServiceModel, Customer.class);
+        Customer customer = this.customerMapper.toEntity(customerServiceModel);
         customer = this.customerRepository.saveAndFlush(customer);
 
-        return this.modelMapper.map(customer, CustomerServiceModel.class);
+        return this.customerMapper.toServiceModel(customer);
 
     }
 
+    @Override
+    public List<CustomerServiceModel> saveCustomers(Collection<CustomerServiceModel> customerServiceModels) {
+        List<Customer> customers = customerServiceModels.stream()
+                .map(this.customerMapper::toEntity)
+                .collect(Collectors.toList());
+
+        return this.customerRepository.saveAllInChunks(customers, this.customerMapper::toServiceModel);
+    }
+
+    /**
+     * The customer is read and written in one transaction, held by a template rather than
+     * {@code @Transactional} so that it also applies when
+     * {@link #editCustomer(String, Consumer)} calls this method.
+     */
     @Override
     public CustomerServiceModel editCustomer(CustomerServiceModel customerServiceModel) {
-        Customer customer = this.customerRepository.findById(customerServiceModel.getId()).orElse(null);
-        customer.setName(customerServiceModel.getName());
-        customer.setBirthDate(customerServiceModel.getBirthDate());
-        customer.setYoungDriver(customerServiceModel.isYoungDriver());
+        return this.transactionTemplate.execute(status -> {
+            Customer customer = this.customerRepository.findById(customerServiceModel.getId()).orElse(null);
+            OptimisticEdits.checkVersion("Customer", customer, customerServiceModel);
+            customer.setName(customerServiceModel.getName());
+            customer.setBirthDate(customerServiceModel.getBirthDate());
+            customer.setYoungDriver(customerServiceModel.isYoungDriver());
 
-        customer = this.customerRepository.saveAndFlush(customer);
+            Customer edited = OptimisticEdits.save("Customer", customerServiceModel,
+                    () -> this.customerRepository.saveAndFlush(customer));
+
+            return this.customerMapper.toServiceModel(edited);
+        });
+    }
+
+    @Override
+    public CustomerServiceModel editCustomer(String id, Consumer<CustomerServiceModel> changes) {
+        return OptimisticEdits.editWithRetry("Customer", id, this::findCustomerById, changes, this::editCustomer,
+                EDITABLE_FIELDS);
+    }
+
+    @Override
+    public CustomerServiceModel patchCustomer(CustomerPatchServiceModel patch) {
+        Map<String, Object> changes = OptimisticEdits.changesOf(patch, PATCHABLE_FIELDS);
 
-        return this.modelMapper.map(customer, CustomerServiceModel.class);
+        return this.transactionTemplate.execute(status -> {
+            OptimisticEdits.patch(Customer.class, this.customerRepository, patch.getId(), patch.getVersion(), changes);
 
+            return this.customerMapper.toServiceModel(this.customerRepository.findById(patch.getId()).orElseThrow());
+        });
     }
 
     @Override
@@ -46,13 +106,32 @@ public class CustomerServiceImpl implements CustomerService {
         Customer customer = this.customerRepository.findById(id).orElse(null);
         this.customerRepository.delete(customer);
 
-        return this.modelMapper.map(customer, CustomerServiceModel.class);
+        return this.customerMapper.toServiceModel(customer);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public CustomerServiceModel findCustomerById(String id) {
         Customer customer = this.customerRepository.findById(id).orElse(null);
 
-        return this.modelMapper.map(customer, CustomerServiceModel.class);
+        return this.customerMapper.toServiceModel(customer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CustomerServiceModel> findCustomersByIds(List<String> ids) {
+        return IdBatches.inRequestOrder(ids, chunk -> this.customerRepository.findAllById(chunk).stream()
+                .collect(Collectors.toMap(Customer::getId, this.customerMapper::toServiceModel)));
+    }
+
+    @Override
+    public PageServiceModel<CustomerServiceModel> listCustomers(String pageToken, int pageSize) {
+        Pageable limit = PageTokens.limit(pageSize);
+        String after = PageTokens.decode(pageToken);
+        List<Customer> customers = after == null
+                ? this.customerRepository.findFirstPage(limit)
+                : this.customerRepository.findPageAfter(after, limit);
+
+        return PageTokens.toPage(customers, pageSize, this.customerMapper::toServiceModel);
     }
 }
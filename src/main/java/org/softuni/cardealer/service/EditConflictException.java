@@ -0,0 +1,88 @@
+package org.softuni.cardealer.service;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Thrown when an edit was based on a version of the entity that is no longer current,
+ * because another edit was saved in the meantime. Nothing of the rejected edit is saved.
+ */
+public class EditConflictException extends RuntimeException {
+
+    private final String entityName;
+    private final String id;
+    private final Long expectedVersion;
+    private final Long actualVersion;
+    private final Set<String> conflictingFields;
+
+    public EditConflictException(String entityName, String id, Long expectedVersion, Long actualVersion) {
+        this(entityName, id, expectedVersion, actualVersion, Collections.emptySet(), null);
+    }
+
+    public EditConflictException(String entityName, String id, Long expectedVersion, Throwable cause) {
+        this(entityName, id, expectedVersion, null, Collections.emptySet(), cause);
+    }
+
+    /**
+     * A conflict that could not be merged because both edits changed {@code conflictingFields}.
+     */
+    public EditConflictException(EditConflictException conflict, Set<String> conflictingFields) {
+        this(conflict.entityName, conflict.id, conflict.expectedVersion, conflict.actualVersion,
+                Set.copyOf(conflictingFields), conflict);
+    }
+
+    private EditConflictException(String entityName, String id, Long expectedVersion, Long actualVersion,
+                                  Set<String> conflictingFields, Throwable cause) {
+        super(message(entityName, id, expectedVersion, actualVersion, conflictingFields), cause);
+        this.entityName = entityName;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+        this.conflictingFields = conflictingFields;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the version the edit was based on, {@code null} if the edit did not carry one
+     */
+    public Long getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * @return the version found instead, {@code null} if the conflict was only detected on save
+     */
+    public Long getActualVersion() {
+        return actualVersion;
+    }
+
+    /**
+     * @return the fields both edits changed, empty unless a merge failed over them
+     */
+    public Set<String> getConflictingFields() {
+        return conflictingFields;
+    }
+
+    private static String message(String entityName, String id, Long expectedVersion, Long actualVersion,
+                                  Set<String> conflictingFields) {
+        StringBuilder message = new StringBuilder(String.format("%s %s was edited concurrently", entityName, id));
+        if (expectedVersion != null) {
+            message.append(String.format(": expected version %d", expectedVersion));
+            if (actualVersion != null) {
+                message.append(String.format(" but found %d", actualVersion));
+            }
+        }
+        if (!conflictingFields.isEmpty()) {
+            message.append(String.format(", both edits changed %s", conflictingFields));
+        }
+
+        return message.toString();
+    }
+}
@@ -0,0 +1,29 @@
+package org.softuni.cardealer.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum ExportFormat {
+
+    /**
+     * Comma separated values with a header line, quoted as in RFC 4180.
+     */
+    CSV {
+        @Override
+        ExportRowWriter newWriter(OutputStream outputStream, String[] columns) {
+            return new CsvExportRowWriter(outputStream, columns);
+        }
+    },
+
+    /**
+     * One JSON object per line.
+     */
+    NDJSON {
+        @Override
+        ExportRowWriter newWriter(OutputStream outputStream, String[] columns) throws IOException {
+            return new NdjsonExportRowWriter(outputStream, columns);
+        }
+    };
+
+    abstract ExportRowWriter newWriter(OutputStream outputStream, String[] columns) throws IOException;
+}
@@ -0,0 +1,13 @@
+package org.softuni.cardealer.service;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes export rows to a stream it does not own: flushing is the last thing done to it,
+ * closing is left to the caller.
+ */
+interface ExportRowWriter extends Flushable {
+
+    void writeRow(Object[] values) throws IOException;
+}
@@ -0,0 +1,90 @@
+package org.softuni.cardealer.service;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Lookups of many entities by id with one {@code IN (...)} statement per chunk of ids instead of
+ * one statement per id. Chunks keep the statement under the size limits of the database and
+ * the number of distinct statements the driver has to prepare small.
+ */
+final class IdBatches {
+
+    static final int CHUNK_SIZE = 1000;
+
+    private static final int SOLD_IDS_REPORTED = 10;
+
+    private IdBatches() {
+    }
+
+    /**
+     * @param loader loads a chunk of distinct ids, leaving out the ids that do not exist
+     * @return the entity of every id in the order of {@code ids}, {@code null} for an id that
+     * does not exist; an id asked for twice gets the same model twice
+     */
+    static <V> List<V> inRequestOrder(List<String> ids, Function<Collection<String>, Map<String, V>> loader) {
+        ids.forEach(id -> Objects.requireNonNull(id, "id"));
+        Map<String, V> found = load(ids, loader);
+
+        List<V> ordered = new ArrayList<>(ids.size());
+        ids.forEach(id -> ordered.add(found.get(id)));
+
+        return ordered;
+    }
+
+    /**
+     * @return the entities of the ids that exist, by id
+     */
+    static <V> Map<String, V> load(Collection<String> ids, Function<Collection<String>, Map<String, V>> loader) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<String, V> found = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            found.putAll(loader.apply(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size()))));
+        }
+
+        return found;
+    }
+
+    /**
+     * @return the distinct ids in chunks of at most {@link #CHUNK_SIZE}
+     */
+    static List<List<String>> chunks(Collection<String> ids) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.forEach(id -> Objects.requireNonNull(id, "id"));
+
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + CHUNK_SIZE, distinct.size())));
+        }
+
+        return chunks;
+    }
+
+    /**
+     * Checks every chunk before anything is deleted, so that a bulk delete removes all of its
+     * entities or none of them, as the sales' foreign keys would refuse a sold one halfway.
+     *
+     * @param findSold finds the ids of a chunk that sales refer to
+     * @throws DataIntegrityViolationException naming the first sold ids found
+     */
+    static void requireUnsold(String entityName, List<List<String>> chunks,
+                              Function<Collection<String>, List<String>> findSold) {
+        List<String> sold = new ArrayList<>();
+        for (List<String> chunk : chunks) {
+            sold.addAll(findSold.apply(chunk));
+        }
+
+        if (!sold.isEmpty()) {
+            throw new DataIntegrityViolationException(String.format("%ss %s have been sold and cannot be deleted (%d in all)",
+                    entityName, sold.subList(0, Math.min(SOLD_IDS_REPORTED, sold.size())), sold.size()));
+        }
+    }
+}
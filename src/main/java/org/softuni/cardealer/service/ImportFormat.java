@@ -0,0 +1,30 @@
+package org.softuni.cardealer.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public enum ImportFormat {
+
+    /**
+     * Comma separated values with a header line, quoted as in RFC 4180. List columns hold
+     * values separated by {@code ;}.
+     */
+    CSV {
+        @Override
+        ImportRowReader newReader(InputStream inputStream) throws IOException {
+            return new CsvImportRowReader(inputStream);
+        }
+    },
+
+    /**
+     * Either one JSON array of row objects or a sequence of row objects, e.g. one per line.
+     */
+    JSON {
+        @Override
+        ImportRowReader newReader(InputStream inputStream) throws IOException {
+            return new JsonImportRowReader(inputStream);
+        }
+    };
+
+    abstract ImportRowReader newReader(InputStream inputStream) throws IOException;
+}
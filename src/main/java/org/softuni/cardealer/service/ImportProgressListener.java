@@ -0,0 +1,15 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.models.imports.ImportReport;
+
+@FunctionalInterface
+public interface ImportProgressListener {
+
+    ImportProgressListener NONE = report -> {
+    };
+
+    /**
+     * Called on the importing thread after each chunk has been committed, with the running totals.
+     */
+    void onChunkCommitted(ImportReport report);
+}
@@ -0,0 +1,60 @@
+package org.softuni.cardealer.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+class ImportRow {
+
+    private static final String LIST_SEPARATOR = ";";
+
+    private final long number;
+    private final Map<String, Object> values;
+
+    ImportRow(long number, Map<String, Object> values) {
+        this.number = number;
+        this.values = values;
+    }
+
+    long getNumber() {
+        return this.number;
+    }
+
+    /**
+     * @return the trimmed value of the column, or {@code null} if it is missing or blank
+     */
+    String text(String column) {
+        Object value = this.values.get(column);
+        if (value == null) {
+            return null;
+        }
+
+        String text = value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * @return the non-blank items of a list column; empty if the column is missing
+     */
+    @SuppressWarnings("unchecked")
+    List<String> list(String column) {
+        Object value = this.values.get(column);
+        if (value == null) {
+            return Collections.emptyList();
+        }
+
+        Iterable<String> items = value instanceof List
+                ? (List<String>) value
+                : List.of(value.toString().split(LIST_SEPARATOR));
+
+        List<String> list = new ArrayList<>();
+        for (String item : items) {
+            if (item != null && !item.isBlank()) {
+                list.add(item.trim());
+            }
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,15 @@
+package org.softuni.cardealer.service;
+
+import java.io.IOException;
+
+/**
+ * Reads import rows one at a time from a stream it does not own and never closes.
+ */
+interface ImportRowReader {
+
+    /**
+     * @return the next row, or {@code null} at the end of the input
+     * @throws IOException if the input cannot be read or is not well-formed
+     */
+    ImportRow next() throws IOException;
+}
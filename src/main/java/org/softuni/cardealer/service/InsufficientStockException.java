@@ -0,0 +1,35 @@
+package org.softuni.cardealer.service;
+
+/**
+ * Thrown when a part sale asks for more units than the part has in stock. Nothing of the
+ * sale is saved.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final String partId;
+    private final int requested;
+    private final int available;
+
+    public InsufficientStockException(String partId, int requested, int available) {
+        super(String.format("Part %s has %d in stock, %d requested", partId, available, requested));
+        this.partId = partId;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public String getPartId() {
+        return partId;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return the units that were left when the sale was rejected, at most as many as there are now
+     * unless the part has been restocked since
+     */
+    public int getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,78 @@
+package org.softuni.cardealer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class JsonImportRowReader implements ImportRowReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+
+    private final JsonParser parser;
+    private boolean started;
+    private boolean inArray;
+    private long rowNumber;
+
+    JsonImportRowReader(InputStream inputStream) throws IOException {
+        this.parser = JSON_FACTORY.createParser(inputStream);
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        JsonToken token = this.parser.nextToken();
+        if (!this.started) {
+            this.started = true;
+            if (token == JsonToken.START_ARRAY) {
+                this.inArray = true;
+                token = this.parser.nextToken();
+            }
+        }
+
+        if (token == null || (this.inArray && token == JsonToken.END_ARRAY)) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(this.parser, "Expected an object for row " + (this.rowNumber + 1));
+        }
+
+        Map<String, Object> values = new HashMap<>();
+        while (this.parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = this.parser.getCurrentName();
+            JsonToken value = this.parser.nextToken();
+
+            if (value == JsonToken.START_ARRAY) {
+                values.put(name, this.readList());
+            } else if (value == JsonToken.START_OBJECT) {
+                this.parser.skipChildren();
+            } else if (value != JsonToken.VALUE_NULL) {
+                values.put(name, this.parser.getText());
+            }
+        }
+
+        return new ImportRow(++this.rowNumber, values);
+    }
+
+    private List<String> readList() throws IOException {
+        List<String> items = new ArrayList<>();
+
+        JsonToken item;
+        while ((item = this.parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (item.isScalarValue()) {
+                items.add(this.parser.getText());
+            } else {
+                this.parser.skipChildren();
+            }
+        }
+
+        return items;
+    }
+}
@@ -0,0 +1,60 @@
+package org.softuni.cardealer.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+
+class NdjsonExportRowWriter implements ExportRowWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final JsonGenerator generator;
+    private final String[] columns;
+
+    NdjsonExportRowWriter(OutputStream outputStream, String[] columns) throws IOException {
+        this.generator = JSON_FACTORY.createGenerator(outputStream);
+        this.generator.setPrettyPrinter(new MinimalPrettyPrinter(""));
+        this.columns = columns;
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        this.generator.writeStartObject();
+
+        for (int i = 0; i < this.columns.length; i++) {
+            this.generator.writeFieldName(this.columns[i]);
+            this.writeValue(values[i]);
+        }
+
+        this.generator.writeEndObject();
+        this.generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.generator.flush();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            this.generator.writeNull();
+        } else if (value instanceof BigDecimal) {
+            this.generator.writeNumber((BigDecimal) value);
+        } else if (value instanceof Double) {
+            this.generator.writeNumber((Double) value);
+        } else if (value instanceof Integer) {
+            this.generator.writeNumber((Integer) value);
+        } else if (value instanceof Long) {
+            this.generator.writeNumber((Long) value);
+        } else if (value instanceof Boolean) {
+            this.generator.writeBoolean((Boolean) value);
+        } else {
+            this.generator.writeString(value.toString());
+        }
+    }
+}
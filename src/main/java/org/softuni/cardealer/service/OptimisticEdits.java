@@ -0,0 +1,166 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.entities.BaseEntity;
+import org.softuni.cardealer.datasource.ReadWriteRoutingDataSource;
+import org.softuni.cardealer.domain.models.service.BaseServiceModel;
+import org.softuni.cardealer.repository.PatchRepository;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Optimistic concurrency for the {@code edit*} methods. An edit applies only while the entity
+ * still has the version it was based on, otherwise it fails with an {@link EditConflictException}.
+ * <p>
+ * {@link #editWithRetry} layers an automatic merge on top: when the edit loses a race it is
+ * applied again to the entity as it is now, unless the other edit changed one of the same
+ * fields, which is left to the caller as a conflict.
+ * <p>
+ * {@link #patch} applies the same version check within the UPDATE itself, so a patch needs no
+ * read of the entity before it.
+ */
+final class OptimisticEdits {
+
+    static final int MAX_ATTEMPTS = 5;
+
+    private OptimisticEdits() {
+    }
+
+    /**
+     * Rejects an edit based on an older version than {@code entity} has.
+     */
+    static void checkVersion(String entityName, BaseEntity entity, BaseServiceModel edit) {
+        if (edit.getVersion() != null && edit.getVersion() != entity.getVersion()) {
+            throw new EditConflictException(entityName, entity.getId(), edit.getVersion(), entity.getVersion());
+        }
+    }
+
+    /**
+     * Runs the save, turning a concurrent update that happened since the entity was read into
+     * an {@link EditConflictException}.
+     */
+    static <E> E save(String entityName, BaseServiceModel edit, Supplier<E> save) {
+        try {
+            return save.get();
+        } catch (OptimisticLockingFailureException e) {
+            throw new EditConflictException(entityName, edit.getId(), edit.getVersion(), e);
+        }
+    }
+
+    /**
+     * @param fields the patchable fields by the entity attribute they set
+     * @return the fields the patch sets, by attribute
+     * @throws IllegalArgumentException if the patch sets none
+     */
+    static <P> Map<String, Object> changesOf(P patch, Map<String, Function<P, ?>> fields) {
+        Map<String, Object> changes = new HashMap<>();
+        fields.forEach((name, getter) -> {
+            Object value = getter.apply(patch);
+            if (value != null) {
+                changes.put(name, value);
+            }
+        });
+
+        if (changes.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to patch");
+        }
+
+        return changes;
+    }
+
+    /**
+     * Updates the changed columns of the entity while it has {@code expectedVersion}. Only when
+     * nothing was updated and there was a version to check is the entity read, to tell a missing
+     * entity from a conflicting edit.
+     *
+     * @param expectedVersion the version the patch is based on, {@code null} to skip the check
+     * @throws NoSuchElementException if there is no such entity
+     */
+    static <E extends BaseEntity, R extends JpaRepository<E, String> & PatchRepository<E>> void patch(
+            Class<E> type, R repository, String id, Long expectedVersion, Map<String, ?> changes) {
+        String entityName = type.getSimpleName();
+        if (repository.patch(type, Objects.requireNonNull(id, "id"), expectedVersion, changes) > 0) {
+            return;
+        }
+
+        Optional<E> current = expectedVersion == null ? Optional.empty() : repository.findById(id);
+        if (current.isEmpty()) {
+            throw new NoSuchElementException(String.format("%s %s does not exist", entityName, id));
+        }
+        throw new EditConflictException(entityName, id, expectedVersion, current.get().getVersion());
+    }
+
+    /**
+     * Reads the entity, applies {@code changes} and writes it, up to {@link #MAX_ATTEMPTS} times
+     * while the write conflicts and the concurrent edits left the changed fields alone.
+     *
+     * @param fields the editable fields by name, compared to find which fields each edit changed
+     */
+    static <M extends BaseServiceModel> M editWithRetry(String entityName, String id, Function<String, M> read,
+                                                        Consumer<M> changes, UnaryOperator<M> write,
+                                                        Map<String, Function<M, ?>> fields) {
+        M edit = read(entityName, id, read);
+        for (int attempt = 1; ; attempt++) {
+            Map<String, Object> base = valuesOf(edit, fields);
+            changes.accept(edit);
+            Set<String> changed = changedFields(base, valuesOf(edit, fields));
+
+            try {
+                return write.apply(edit);
+            } catch (EditConflictException e) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw e;
+                }
+
+                edit = read(entityName, id, read);
+                Set<String> overlapping = changedFields(base, valuesOf(edit, fields));
+                overlapping.retainAll(changed);
+                if (!overlapping.isEmpty()) {
+                    throw new EditConflictException(e, overlapping);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads from the primary, as a replica behind it would hand out a version that conflicts
+     * on every attempt.
+     */
+    private static <M> M read(String entityName, String id, Function<String, M> read) {
+        M model = ReadWriteRoutingDataSource.onPrimary(() -> read.apply(id));
+        if (model == null) {
+            throw new NoSuchElementException(String.format("%s %s does not exist", entityName, id));
+        }
+
+        return model;
+    }
+
+    private static <M> Map<String, Object> valuesOf(M model, Map<String, Function<M, ?>> fields) {
+        Map<String, Object> values = new HashMap<>();
+        fields.forEach((name, getter) -> values.put(name, getter.apply(model)));
+
+        return values;
+    }
+
+    private static Set<String> changedFields(Map<String, Object> before, Map<String, Object> after) {
+        Set<String> changed = new TreeSet<>();
+        before.forEach((name, value) -> {
+            if (!Objects.equals(value, after.get(name))) {
+                changed.add(name);
+            }
+        });
+
+        return changed;
+    }
+}
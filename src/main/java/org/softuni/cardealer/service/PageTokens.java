@@ -0,0 +1,90 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.entities.BaseEntity;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset pagination over entity ids. A page is read as "the next {@code size} ids after the
+ * last one seen", which the primary key index answers at the same cost however deep the page
+ * is, unlike an OFFSET that has to step over every row before it.
+ * <p>
+ * The token carries the last id of the page. It is encoded so that callers treat it as opaque
+ * and the format can change without breaking them.
+ */
+final class PageTokens {
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String PREFIX = "id:";
+
+    private PageTokens() {
+    }
+
+    /**
+     * @return the id to continue after, {@code null} for the first page
+     */
+    static String decode(String pageToken) {
+        if (pageToken == null) {
+            return null;
+        }
+
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+        if (!decoded.startsWith(PREFIX) || decoded.length() == PREFIX.length()) {
+            throw new IllegalArgumentException("Invalid page token");
+        }
+
+        return decoded.substring(PREFIX.length());
+    }
+
+    /**
+     * One row more than the page holds, to tell whether another page follows.
+     */
+    static Pageable limit(int pageSize) {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("Page size must be between 1 and %d, was %d", MAX_PAGE_SIZE, pageSize));
+        }
+
+        return PageRequest.of(0, pageSize + 1);
+    }
+
+    /**
+     * @param rows up to {@code pageSize + 1} entities in id order, as read with {@link #limit}
+     */
+    static <E extends BaseEntity, M> PageServiceModel<M> toPage(List<E> rows, int pageSize, Function<E, M> mapper) {
+        List<E> page = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        String nextPageToken = rows.size() > pageSize ? encode(page.get(pageSize - 1).getId()) : null;
+
+        return new PageServiceModel<>(page.stream().map(mapper).collect(Collectors.toList()), nextPageToken);
+    }
+
+    /**
+     * For listings that read the ids of a page first and load its entities by them afterwards.
+     *
+     * @param ids up to {@code pageSize + 1} ids in order, as read with {@link #limit}
+     */
+    static PageServiceModel<String> toIdPage(List<String> ids, int pageSize) {
+        List<String> page = ids.size() > pageSize ? ids.subList(0, pageSize) : ids;
+        String nextPageToken = ids.size() > pageSize ? encode(page.get(pageSize - 1)) : null;
+
+        return new PageServiceModel<>(page, nextPageToken);
+    }
+
+    private static String encode(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,14 +1,80 @@
 package org.softuni.cardealer.service;
 
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.PartPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.PartServiceModel;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface PartService {
 
     PartServiceModel savePart(PartServiceModel partServiceModel);
 
+    List<PartServiceModel> saveParts(Collection<PartServiceModel> partServiceModels);
+
+    /**
+     * @throws EditConflictException if the part has been edited since the model's version
+     */
     PartServiceModel editPart(PartServiceModel partServiceModel);
 
+    /**
+     * Applies {@code changes} to the current part, merging them with concurrent edits of other
+     * fields as {@link CarService#editCar(String, Consumer)} does.
+     */
+    PartServiceModel editPart(String id, Consumer<PartServiceModel> changes);
+
+    /**
+     * Patches the part as {@link CarService#patchCar} does a car. A new price shifts the total
+     * costs of the cars the part is attached to, and needs a read of the part for that.
+     */
+    PartServiceModel patchPart(PartPatchServiceModel patch);
+
     PartServiceModel deletePart(String id);
 
+    /**
+     * Detaches the parts from their cars, taking their prices off the cars' total costs, and
+     * deletes them, with a few statements for the whole batch. Ids that do not exist are skipped.
+     *
+     * @return the number of parts deleted
+     * @throws org.springframework.dao.DataIntegrityViolationException if any of the parts has
+     *                                                                 been sold; none is deleted then
+     */
+    int deleteParts(Collection<String> ids);
+
     PartServiceModel findPartById(String id);
+
+    /**
+     * Looks up many parts as {@link CarService#findCarsByIds} does, the cached ones from the cache.
+     */
+    List<PartServiceModel> findPartsByIds(List<String> ids);
+
+    /**
+     * Type-ahead search over the name, answered from memory.
+     *
+     * @return the ids of up to {@code limit} matching parts, best match first
+     */
+    List<String> searchParts(String query, int limit);
+
+    /**
+     * @return the units in stock now, {@code null} if the part's stock is not tracked
+     * @throws java.util.NoSuchElementException if the part does not exist
+     */
+    Integer findStock(String id);
+
+    /**
+     * Adds {@code quantity} units to the part's stock, starting to track it if it did not.
+     *
+     * @return the units in stock after the addition
+     */
+    int addStock(String id, int quantity);
+
+    /**
+     * Lists the parts in id order, {@code pageSize} at a time.
+     *
+     * @param pageToken {@code null} for the first page, otherwise the previous page's
+     *                  {@link PageServiceModel#getNextPageToken() next page token}
+     */
+    PageServiceModel<PartServiceModel> listParts(String pageToken, int pageSize);
 }
@@ -1,60 +1,310 @@
 package org.softuni.cardealer.service;
 
-import org.modelmapper.ModelMapper;
+import org.softuni.cardealer.cache.CatalogCache;
 import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.PartPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.domain.models.view.PartViewModel;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.repository.CarRepository;
 import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PartServiceImpl implements PartService {
 
+    private static final int CAR_UPDATE_CHUNK_SIZE = 1000;
+
+    private static final Map<String, Function<PartServiceModel, ?>> EDITABLE_FIELDS = Map.of(
+            "name", PartServiceModel::getName,
+            "price", PartServiceModel::getPrice);
+
+    private static final Map<String, Function<PartPatchServiceModel, ?>> PATCHABLE_FIELDS = Map.of(
+            "name", PartPatchServiceModel::getName,
+            "price", PartPatchServiceModel::getPrice);
+
     private final PartRepository partRepository;
-    private final ModelMapper modelMapper;
+    private final CarRepository carRepository;
+    private final PartMapper partMapper;
+    private final CatalogCache catalogCache;
+    private final CatalogSearchIndex catalogSearchIndex;
+    private final CarInventoryIndex carInventoryIndex;
+    private final StockReservations stockReservations;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public PartServiceImpl(PartRepository partRepository, ModelMapper modelMapper) {
+    public PartServiceImpl(PartRepository partRepository, CarRepository carRepository,
+                           PartMapper partMapper, CatalogCache catalogCache, CatalogSearchIndex catalogSearchIndex,
+                           CarInventoryIndex carInventoryIndex, StockReservations stockReservations,
+                           PlatformTransactionManager transactionManager) {
         this.partRepository = partRepository;
-        this.modelMapper = modelMapper;
+        this.carRepository = carRepository;
+        this.partMapper = partMapper;
+        this.catalogCache = catalogCache;
+        this.catalogSearchIndex = catalogSearchIndex;
+        this.carInventoryIndex = carInventoryIndex;
+        this.stockReservations = stockReservations;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public PartServiceModel savePart(PartServiceModel partServiceModel) {
 
-        Part part = this.modelMapper.map(partServiceModel, Part.class);
+        Part part = this.partMapper.toEntity(partServiceModel);
         this.partRepository.saveAndFlush(part);
+        this.catalogSearchIndex.putPart(part.getId(), part.getName());
+
+        return this.partMapper.toServiceModel(part);
+
+    }
 
-        return this.modelMapper.map(part, PartServiceModel.class);
+    @Override
+    public List<PartServiceModel> saveParts(Collection<PartServiceModel> partServiceModels) {
+        List<Part> parts = partServiceModels.stream()
+                .map(this.partMapper::toEntity)
+                .collect(Collectors.toList());
+
+        List<PartServiceModel> saved = this.partRepository.saveAllInChunks(parts, this.partMapper::toServiceModel);
+        saved.forEach(part -> this.catalogSearchIndex.putPart(part.getId(), part.getName()));
 
+        return saved;
     }
 
+    /**
+     * The part and the total costs of its cars are updated in one transaction, held by a
+     * template rather than {@code @Transactional} so that it also applies when
+     * {@link #editPart(String, Consumer)} calls this method.
+     */
     @Override
     public PartServiceModel editPart(PartServiceModel partServiceModel) {
-        Part part = this.partRepository.findById(partServiceModel.getId()).orElse(null);
-        part.setName(partServiceModel.getName());
-        part.setPrice(partServiceModel.getPrice());
+        try {
+            PartServiceModel result = this.transactionTemplate.execute(status -> {
+                Part part = this.partRepository.findWithSupplierById(partServiceModel.getId()).orElse(null);
+                OptimisticEdits.checkVersion("Part", part, partServiceModel);
+                BigDecimal oldPrice = part.getPrice();
+                part.setName(partServiceModel.getName());
+                part.setPrice(partServiceModel.getPrice());
 
-        Part edited = this.partRepository.saveAndFlush(part);
+                Part edited = OptimisticEdits.save("Part", partServiceModel, () -> this.partRepository.saveAndFlush(part));
 
-        return this.modelMapper.map(edited, PartServiceModel.class);
+                if (oldPrice.compareTo(edited.getPrice()) != 0) {
+                    this.updateCarTotalCosts(edited.getId(), edited.getPrice().subtract(oldPrice));
+                }
 
+                return this.partMapper.toServiceModel(edited);
+            });
+            this.catalogSearchIndex.putPart(result.getId(), result.getName());
+
+            return result;
+        } finally {
+            // on a conflict too, so that the caller reads the current version afterwards
+            this.catalogCache.evictPart(partServiceModel.getId());
+        }
+    }
+
+    /**
+     * Reads past the cache, so that a retried edit starts from the stored part.
+     */
+    @Override
+    public PartServiceModel editPart(String id, Consumer<PartServiceModel> changes) {
+        return OptimisticEdits.editWithRetry("Part", id,
+                key -> this.partMapper.toServiceModel(this.partRepository.findViewById(key).orElse(null)),
+                changes, this::editPart, EDITABLE_FIELDS);
+    }
+
+    /**
+     * A new price has to be read against the old one to shift the total costs of the part's
+     * cars, so a patch of the price reads the part first and is applied only while the part
+     * still has the version read.
+     */
+    @Override
+    public PartServiceModel patchPart(PartPatchServiceModel patch) {
+        Map<String, Object> changes = OptimisticEdits.changesOf(patch, PATCHABLE_FIELDS);
+        try {
+            PartServiceModel result = this.transactionTemplate.execute(status -> {
+                if (patch.getPrice() == null) {
+                    OptimisticEdits.patch(Part.class, this.partRepository, patch.getId(), patch.getVersion(), changes);
+                } else {
+                    PartViewModel before = this.partRepository.findViewById(patch.getId()).orElseThrow(() ->
+                            new NoSuchElementException(String.format("Part %s does not exist", patch.getId())));
+                    if (patch.getVersion() != null && patch.getVersion() != before.getVersion()) {
+                        throw new EditConflictException("Part", patch.getId(), patch.getVersion(), before.getVersion());
+                    }
+
+                    OptimisticEdits.patch(Part.class, this.partRepository, patch.getId(), before.getVersion(), changes);
+                    if (before.getPrice().compareTo(patch.getPrice()) != 0) {
+                        this.updateCarTotalCosts(patch.getId(), patch.getPrice().subtract(before.getPrice()));
+                    }
+                }
+
+                return this.partMapper.toServiceModel(this.partRepository.findViewById(patch.getId()).orElseThrow());
+            });
+            this.catalogSearchIndex.putPart(result.getId(), result.getName());
+
+            return result;
+        } finally {
+            this.catalogCache.evictPart(patch.getId());
+        }
     }
 
     @Override
     public PartServiceModel deletePart(String id) {
-        Part part = this.partRepository.findById(id).orElseThrow();
+        Part part = this.partRepository.findWithSupplierById(id).orElseThrow();
 
         this.partRepository.delete(part);
-        return this.modelMapper.map(part, PartServiceModel.class);
+        this.catalogCache.evictPart(id);
+        this.catalogSearchIndex.removePart(id);
+
+        return this.partMapper.toServiceModel(part);
+
+    }
+
+    /**
+     * One transaction for every chunk, as in {@link CarServiceImpl#deleteCars}. The cars the
+     * parts were attached to keep the rest of their parts. The parts leave the cache and the
+     * indexes once the transaction commits, which is the caller's when it has one.
+     */
+    @Override
+    public int deleteParts(Collection<String> ids) {
+        List<List<String>> chunks = IdBatches.chunks(ids);
+        int deleted = this.transactionTemplate.execute(status -> {
+            IdBatches.requireUnsold("Part", chunks, this.partRepository::findSoldIdsIn);
+
+            int count = 0;
+            for (List<String> chunk : chunks) {
+                this.subtractFromCarTotalCosts(chunk);
+                this.carRepository.deletePartLinks(chunk);
+                count += this.partRepository.deleteByIdIn(chunk);
+            }
+
+            return count;
+        });
+
+        AfterCommit.run(() -> {
+            for (List<String> chunk : chunks) {
+                chunk.forEach(this.catalogCache::evictPart);
+                chunk.forEach(this.catalogSearchIndex::removePart);
+                this.carInventoryIndex.removeParts(chunk);
+            }
+        });
 
+        return deleted;
     }
 
     @Override
     public PartServiceModel findPartById(String id) {
-        Part part = this.partRepository.findById(id).orElse(null);
+        return this.catalogCache.findPart(id, key -> {
+            PartViewModel part = this.partRepository.findViewById(Objects.requireNonNull(key, "id")).orElse(null);
 
-        return this.modelMapper.map(part, PartServiceModel.class);
+            return this.partMapper.toServiceModel(part);
+        });
+    }
+
+    @Override
+    public List<PartServiceModel> findPartsByIds(List<String> ids) {
+        return this.catalogCache.findParts(ids, misses -> IdBatches.load(misses, chunk ->
+                this.partRepository.findViewsByIdIn(chunk).stream()
+                        .collect(Collectors.toMap(PartViewModel::getId, this.partMapper::toServiceModel))));
+    }
+
+    @Override
+    public List<String> searchParts(String query, int limit) {
+        return this.catalogSearchIndex.searchParts(query, limit);
+    }
+
+    @Override
+    public Integer findStock(String id) {
+        List<Integer> stock = this.partRepository.findStockById(id);
+        if (stock.isEmpty()) {
+            throw new NoSuchElementException(String.format("Part %s does not exist", id));
+        }
+
+        return stock.get(0);
+    }
+
+    @Override
+    public int addStock(String id, int quantity) {
+        if (quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+
+        int stock = this.transactionTemplate.execute(status -> {
+            if (this.partRepository.addStock(id, quantity) == 0) {
+                throw new NoSuchElementException(String.format("Part %s does not exist", id));
+            }
+
+            return this.partRepository.findStockById(id).get(0);
+        });
+        this.stockReservations.restocked(id);
+
+        return stock;
+    }
+
+    @Override
+    public PageServiceModel<PartServiceModel> listParts(String pageToken, int pageSize) {
+        Pageable limit = PageTokens.limit(pageSize);
+        String after = PageTokens.decode(pageToken);
+        List<Part> parts = after == null
+                ? this.partRepository.findFirstPage(limit)
+                : this.partRepository.findPageAfter(after, limit);
+
+        return PageTokens.toPage(parts, pageSize, this.partMapper::toServiceModel);
+    }
+
+    /**
+     * Shifts the total cost of only the cars the part is attached to, found through the
+     * {@code parts_cars.part_id} index. A car that has the part more than once is shifted
+     * by the delta that many times.
+     */
+    private void updateCarTotalCosts(String partId, BigDecimal priceDelta) {
+        Map<BigDecimal, List<String>> carIdsByDelta = new HashMap<>();
+        for (Object[] row : this.carRepository.countAttachmentsByCar(partId)) {
+            BigDecimal delta = priceDelta.multiply(BigDecimal.valueOf((Long) row[1]));
+            carIdsByDelta.computeIfAbsent(delta, key -> new ArrayList<>()).add((String) row[0]);
+        }
+
+        this.addToCarTotalCosts(carIdsByDelta);
+    }
+
+    /**
+     * Takes the prices of the parts off the total costs of the cars they are attached to, with
+     * one statement per distinct amount rather than per car.
+     */
+    private void subtractFromCarTotalCosts(Collection<String> partIds) {
+        Map<BigDecimal, List<String>> carIdsByDelta = new HashMap<>();
+        for (Object[] row : this.carRepository.sumPartPricesByCar(partIds)) {
+            BigDecimal delta = ((BigDecimal) row[1]).negate().stripTrailingZeros();
+            carIdsByDelta.computeIfAbsent(delta, key -> new ArrayList<>()).add((String) row[0]);
+        }
+
+        this.addToCarTotalCosts(carIdsByDelta);
+    }
 
+    private void addToCarTotalCosts(Map<BigDecimal, List<String>> carIdsByDelta) {
+        carIdsByDelta.forEach((delta, carIds) -> {
+            for (int from = 0; from < carIds.size(); from += CAR_UPDATE_CHUNK_SIZE) {
+                List<String> chunk = carIds.subList(from, Math.min(from + CAR_UPDATE_CHUNK_SIZE, carIds.size()));
+                this.carRepository.addToTotalCost(chunk, delta);
+            }
+        });
     }
 }
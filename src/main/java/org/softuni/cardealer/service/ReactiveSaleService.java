@@ -0,0 +1,30 @@
+package org.softuni.cardealer.service;
+
+import org.reactivestreams.Publisher;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link SaleService} for callers that must not block: nothing is saved until the returned
+ * publisher is subscribed to, and the sale then completes or fails as a signal of it, with
+ * the same rules and exceptions as the blocking service.
+ */
+public interface ReactiveSaleService {
+
+    Mono<CarSaleServiceModel> saleCar(CarSaleServiceModel carSaleServiceModel);
+
+    Mono<PartSaleServiceModel> salePart(PartSaleServiceModel partSaleServiceModel);
+
+    /**
+     * Saves the sales as they arrive, only requesting more from {@code carSales} as the saved
+     * ones are consumed. Stops at the first failed sale; the ones saved before it stay saved.
+     */
+    Flux<CarSaleServiceModel> saleCars(Publisher<CarSaleServiceModel> carSales);
+
+    /**
+     * Part sale counterpart of {@link #saleCars(Publisher)}.
+     */
+    Flux<PartSaleServiceModel> saleParts(Publisher<PartSaleServiceModel> partSales);
+}
@@ -0,0 +1,75 @@
+package org.softuni.cardealer.service;
+
+import org.reactivestreams.Publisher;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Runs each sale through {@link SaleService} on a scheduler of its own, never on the
+ * subscribing thread. The database is reached through JDBC, which blocks, so the scheduler
+ * has about as many threads as the connection pool has connections: more would only wait for
+ * a connection, and sales beyond that wait as queued tasks rather than as parked threads.
+ * <p>
+ * Results are signalled on the scheduler's {@code sale-database} threads; subscribers doing
+ * more than light work with them should move it elsewhere with {@code publishOn}.
+ */
+@Service
+public class ReactiveSaleServiceImpl implements ReactiveSaleService, DisposableBean {
+
+    private final SaleService saleService;
+    private final int databaseThreads;
+    private final Scheduler databaseScheduler;
+
+    @Autowired
+    public ReactiveSaleServiceImpl(
+            SaleService saleService,
+            @Value("${cardealer.sales.reactive.database-threads:${spring.datasource.hikari.maximum-pool-size:10}}")
+                    int databaseThreads) {
+        if (databaseThreads < 1) {
+            throw new IllegalArgumentException("Invalid reactive sale settings");
+        }
+
+        this.saleService = saleService;
+        this.databaseThreads = databaseThreads;
+        this.databaseScheduler = Schedulers.newParallel("sale-database", databaseThreads, true);
+    }
+
+    @Override
+    public Mono<CarSaleServiceModel> saleCar(CarSaleServiceModel carSaleServiceModel) {
+        return this.onDatabase(() -> this.saleService.saleCar(carSaleServiceModel));
+    }
+
+    @Override
+    public Mono<PartSaleServiceModel> salePart(PartSaleServiceModel partSaleServiceModel) {
+        return this.onDatabase(() -> this.saleService.salePart(partSaleServiceModel));
+    }
+
+    @Override
+    public Flux<CarSaleServiceModel> saleCars(Publisher<CarSaleServiceModel> carSales) {
+        return Flux.from(carSales).flatMap(this::saleCar, this.databaseThreads);
+    }
+
+    @Override
+    public Flux<PartSaleServiceModel> saleParts(Publisher<PartSaleServiceModel> partSales) {
+        return Flux.from(partSales).flatMap(this::salePart, this.databaseThreads);
+    }
+
+    @Override
+    public void destroy() {
+        this.databaseScheduler.dispose();
+    }
+
+    private <T> Mono<T> onDatabase(Callable<T> sale) {
+        return Mono.fromCallable(sale).subscribeOn(this.databaseScheduler);
+    }
+}
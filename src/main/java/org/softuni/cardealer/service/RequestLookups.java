@@ -0,0 +1,103 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Collects the single car, part and customer lookups of one request and resolves them together,
+ * with one batch lookup per entity type, instead of a statement per lookup. Code rendering a
+ * page of sales asks for the rows' cars, parts and customers first and reads them afterwards:
+ * reading any of them resolves everything asked for until then.
+ * <p>
+ * An id asked for again in the same request is not looked up again and resolves to the same
+ * model. A lookup of an id that does not exist resolves to {@code null}. Meant for the thread
+ * serving the request; it is not safe for use from several threads at once.
+ */
+@Component
+@RequestScope
+public class RequestLookups {
+
+    private final Batch<CarServiceModel> cars;
+    private final Batch<PartServiceModel> parts;
+    private final Batch<CustomerServiceModel> customers;
+
+    @Autowired
+    public RequestLookups(CarService carService, PartService partService, CustomerService customerService) {
+        this.cars = new Batch<>(carService::findCarsByIds);
+        this.parts = new Batch<>(partService::findPartsByIds);
+        this.customers = new Batch<>(customerService::findCustomersByIds);
+    }
+
+    public Supplier<CarServiceModel> car(String id) {
+        return this.cars.lookup(id);
+    }
+
+    public Supplier<PartServiceModel> part(String id) {
+        return this.parts.lookup(id);
+    }
+
+    public Supplier<CustomerServiceModel> customer(String id) {
+        return this.customers.lookup(id);
+    }
+
+    /**
+     * Resolves every lookup asked for so far that has not been resolved yet.
+     */
+    public void dispatch() {
+        this.cars.dispatch();
+        this.parts.dispatch();
+        this.customers.dispatch();
+    }
+
+    private final class Batch<V> {
+
+        private final Function<List<String>, List<V>> findByIds;
+        private final Map<String, V> resolved = new HashMap<>();
+        private final Set<String> queued = new LinkedHashSet<>();
+
+        private Batch(Function<List<String>, List<V>> findByIds) {
+            this.findByIds = findByIds;
+        }
+
+        private Supplier<V> lookup(String id) {
+            if (!this.resolved.containsKey(Objects.requireNonNull(id, "id"))) {
+                this.queued.add(id);
+            }
+
+            return () -> {
+                if (!this.resolved.containsKey(id)) {
+                    RequestLookups.this.dispatch();
+                }
+
+                return this.resolved.get(id);
+            };
+        }
+
+        private void dispatch() {
+            if (this.queued.isEmpty()) {
+                return;
+            }
+
+            List<String> ids = new ArrayList<>(this.queued);
+            List<V> found = this.findByIds.apply(ids);
+            for (int i = 0; i < ids.size(); i++) {
+                this.resolved.put(ids.get(i), found.get(i));
+            }
+            this.queued.clear();
+        }
+    }
+}
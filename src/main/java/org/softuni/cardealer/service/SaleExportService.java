@@ -0,0 +1,21 @@
+package org.softuni.cardealer.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface SaleExportService {
+
+    /**
+     * Writes every car sale to the stream. The stream is flushed but not closed.
+     *
+     * @return the number of exported sales
+     */
+    long exportCarSales(OutputStream outputStream, ExportFormat format) throws IOException;
+
+    /**
+     * Writes every part sale to the stream. The stream is flushed but not closed.
+     *
+     * @return the number of exported sales
+     */
+    long exportPartSales(OutputStream outputStream, ExportFormat format) throws IOException;
+}
@@ -0,0 +1,62 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.models.export.CarSaleExportModel;
+import org.softuni.cardealer.domain.models.export.PartSaleExportModel;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Streams sales from a forward-only cursor straight into the output. Rows are read as flat
+ * projections rather than entities, so nothing accumulates in the persistence context and
+ * memory use does not depend on the number of sales.
+ */
+@Service
+public class SaleExportServiceImpl implements SaleExportService {
+
+    private final CarSaleRepository carSaleRepository;
+    private final PartSaleRepository partSaleRepository;
+
+    @Autowired
+    public SaleExportServiceImpl(CarSaleRepository carSaleRepository, PartSaleRepository partSaleRepository) {
+        this.carSaleRepository = carSaleRepository;
+        this.partSaleRepository = partSaleRepository;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportCarSales(OutputStream outputStream, ExportFormat format) throws IOException {
+        try (Stream<CarSaleExportModel> rows = this.carSaleRepository.streamAllForExport()) {
+            return export(rows, CarSaleExportModel::values, format.newWriter(outputStream, CarSaleExportModel.COLUMNS));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportPartSales(OutputStream outputStream, ExportFormat format) throws IOException {
+        try (Stream<PartSaleExportModel> rows = this.partSaleRepository.streamAllForExport()) {
+            return export(rows, PartSaleExportModel::values, format.newWriter(outputStream, PartSaleExportModel.COLUMNS));
+        }
+    }
+
+    private static <T> long export(Stream<T> rows, Function<T, Object[]> values, ExportRowWriter writer) throws IOException {
+        long exported = 0;
+
+        Iterator<T> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writer.writeRow(values.apply(iterator.next()));
+            exported++;
+        }
+
+        writer.flush();
+        return exported;
+    }
+}
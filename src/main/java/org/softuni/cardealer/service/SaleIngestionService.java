@@ -0,0 +1,18 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Accepts sales without waiting for them to be written. The returned future completes
+ * with the saved sale once its batch commits, or exceptionally with a
+ * {@link java.util.concurrent.RejectedExecutionException} when the sale could not be queued.
+ */
+public interface SaleIngestionService {
+
+    CompletableFuture<CarSaleServiceModel> submitCarSale(CarSaleServiceModel carSaleServiceModel);
+
+    CompletableFuture<PartSaleServiceModel> submitPartSale(PartSaleServiceModel partSaleServiceModel);
+}
@@ -0,0 +1,315 @@
+package org.softuni.cardealer.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.softuni.cardealer.domain.entities.CarSale;
+import org.softuni.cardealer.domain.entities.PartSale;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.SaleServiceModel;
+import org.softuni.cardealer.mapper.SaleMapper;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Queues sales in a bounded queue that worker threads drain in batches of up to
+ * {@code batch-size}, waiting at most {@code linger-millis} for a batch to fill. Each batch
+ * is written in one transaction; if it fails, its sales are retried one by one so that a
+ * single bad sale only fails its own future.
+ * <p>
+ * Part sales take their units off the part's stock in the batch's transaction, as
+ * {@link SaleServiceImpl#salePart} does, so a sale that finds too few units left fails with an
+ * {@link InsufficientStockException} and the others in its batch are still written.
+ * <p>
+ * A full queue blocks the caller for up to {@code offer-timeout-millis} and then rejects the
+ * sale. On shutdown no new sales are accepted and everything already queued is written.
+ */
+@Service
+@ConditionalOnProperty(name = "cardealer.sales.ingestion.enabled", havingValue = "true")
+public class SaleIngestionServiceImpl implements SaleIngestionService, SmartLifecycle {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SaleIngestionServiceImpl.class);
+
+    private static final long POLL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final CarSaleRepository carSaleRepository;
+    private final PartSaleRepository partSaleRepository;
+    private final PartRepository partRepository;
+    private final SaleMapper saleMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BlockingQueue<PendingSale<?>> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int workers;
+    private final long offerTimeoutMillis;
+
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+    private ExecutorService executor;
+
+    @Autowired
+    public SaleIngestionServiceImpl(CarSaleRepository carSaleRepository,
+                                    PartSaleRepository partSaleRepository,
+                                    PartRepository partRepository,
+                                    SaleMapper saleMapper,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${cardealer.sales.ingestion.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${cardealer.sales.ingestion.batch-size:200}") int batchSize,
+                                    @Value("${cardealer.sales.ingestion.linger-millis:5}") long lingerMillis,
+                                    @Value("${cardealer.sales.ingestion.workers:2}") int workers,
+                                    @Value("${cardealer.sales.ingestion.offer-timeout-millis:100}") long offerTimeoutMillis) {
+        if (queueCapacity < 1 || batchSize < 1 || workers < 1 || lingerMillis < 0 || offerTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Invalid sale ingestion settings");
+        }
+
+        this.carSaleRepository = carSaleRepository;
+        this.partSaleRepository = partSaleRepository;
+        this.partRepository = partRepository;
+        this.saleMapper = saleMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.workers = workers;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @Override
+    public CompletableFuture<CarSaleServiceModel> submitCarSale(CarSaleServiceModel carSaleServiceModel) {
+        return this.submit(carSaleServiceModel);
+    }
+
+    @Override
+    public CompletableFuture<PartSaleServiceModel> submitPartSale(PartSaleServiceModel partSaleServiceModel) {
+        return this.submit(partSaleServiceModel);
+    }
+
+    @Override
+    public void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.workers, runnable -> {
+            Thread thread = new Thread(runnable, "sale-ingestion-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (int i = 0; i < this.workers; i++) {
+            this.executor.execute(this::drainQueue);
+        }
+
+        this.running = true;
+    }
+
+    @Override
+    public void stop() {
+        this.acceptLock.writeLock().lock();
+        try {
+            this.accepting = false;
+        } finally {
+            this.acceptLock.writeLock().unlock();
+        }
+
+        if (this.executor != null) {
+            this.executor.shutdown();
+            try {
+                if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    LOGGER.warn("Sale ingestion workers did not finish in {}s, draining on the shutdown thread",
+                            SHUTDOWN_TIMEOUT_SECONDS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<PendingSale<?>> remaining = new ArrayList<>();
+        while (this.queue.drainTo(remaining, this.batchSize) > 0) {
+            this.write(remaining);
+            remaining.clear();
+        }
+
+        this.running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    private <M extends SaleServiceModel> CompletableFuture<M> submit(M sale) {
+        PendingSale<M> pending = new PendingSale<>(sale);
+
+        this.acceptLock.readLock().lock();
+        try {
+            if (!this.accepting) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Sale ingestion is shut down"));
+            }
+            if (!this.queue.offer(pending, this.offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Sale ingestion queue is full"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Interrupted while queueing sale", e));
+        } finally {
+            this.acceptLock.readLock().unlock();
+        }
+
+        return pending.result;
+    }
+
+    private void drainQueue() {
+        List<PendingSale<?>> batch = new ArrayList<>(this.batchSize);
+
+        while (this.accepting || !this.queue.isEmpty()) {
+            try {
+                this.collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (!batch.isEmpty()) {
+                this.write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<PendingSale<?>> batch) throws InterruptedException {
+        PendingSale<?> first = this.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + this.lingerNanos;
+        while (batch.size() < this.batchSize) {
+            this.queue.drainTo(batch, this.batchSize - batch.size());
+
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() == this.batchSize || remaining <= 0) {
+                return;
+            }
+
+            PendingSale<?> next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<PendingSale<?>> batch) {
+        List<SaleServiceModel> saved;
+        try {
+            saved = this.transactionTemplate.execute(status -> this.save(batch));
+        } catch (RuntimeException batchFailure) {
+            batch.forEach(this::writeAlone);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(saved.get(i));
+        }
+    }
+
+    private void writeAlone(PendingSale<?> pending) {
+        try {
+            pending.complete(this.transactionTemplate.execute(status -> this.save(List.of(pending)).get(0)));
+        } catch (RuntimeException e) {
+            pending.result.completeExceptionally(e);
+        }
+    }
+
+    private List<SaleServiceModel> save(List<PendingSale<?>> batch) {
+        List<CarSale> carSales = new ArrayList<>();
+        List<PartSale> partSales = new ArrayList<>();
+
+        for (PendingSale<?> pending : batch) {
+            if (pending.sale instanceof CarSaleServiceModel) {
+                carSales.add(this.saleMapper.toEntity((CarSaleServiceModel) pending.sale));
+            } else {
+                partSales.add(this.saleMapper.toEntity((PartSaleServiceModel) pending.sale));
+            }
+        }
+
+        this.takeStock(partSales);
+        this.carSaleRepository.saveAll(carSales);
+        this.partSaleRepository.saveAll(partSales);
+        this.carSaleRepository.flush();
+
+        List<SaleServiceModel> saved = new ArrayList<>(batch.size());
+        int carSaleIndex = 0;
+        int partSaleIndex = 0;
+        for (PendingSale<?> pending : batch) {
+            saved.add(pending.sale instanceof CarSaleServiceModel
+                    ? this.saleMapper.toServiceModel(carSales.get(carSaleIndex++))
+                    : this.saleMapper.toServiceModel(partSales.get(partSaleIndex++)));
+        }
+
+        return saved;
+    }
+
+    /**
+     * Takes the stock of the part sales in the order of their part ids, so that two batches
+     * selling the same parts lock their rows in the same order and cannot deadlock.
+     */
+    private void takeStock(List<PartSale> partSales) {
+        List<PartSale> stocked = new ArrayList<>();
+        for (PartSale partSale : partSales) {
+            if (partSale.getPart() != null && partSale.getPart().getId() != null) {
+                if (partSale.getQuantity() == null || partSale.getQuantity() < 1) {
+                    throw new IllegalArgumentException("Quantity must be positive");
+                }
+                stocked.add(partSale);
+            }
+        }
+        stocked.sort(Comparator.comparing(partSale -> partSale.getPart().getId()));
+
+        for (PartSale partSale : stocked) {
+            String partId = partSale.getPart().getId();
+            int quantity = partSale.getQuantity();
+            if (this.partRepository.takeStock(partId, quantity) == 0) {
+                List<Integer> stock = this.partRepository.findStockById(partId);
+                if (stock.isEmpty()) {
+                    throw new NoSuchElementException(String.format("Part %s does not exist", partId));
+                }
+                throw new InsufficientStockException(partId, quantity, stock.get(0));
+            }
+        }
+    }
+
+    private static final class PendingSale<M extends SaleServiceModel> {
+
+        private final M sale;
+        private final CompletableFuture<M> result = new CompletableFuture<>();
+
+        private PendingSale(M sale) {
+            this.sale = sale;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void complete(SaleServiceModel saved) {
+            this.result.complete((M) saved);
+        }
+    }
+}
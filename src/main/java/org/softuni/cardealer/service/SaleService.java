@@ -8,4 +8,8 @@ public interface SaleService {
     CarSaleServiceModel saleCar(CarSaleServiceModel carSaleServiceModel);
 
     PartSaleServiceModel salePart(PartSaleServiceModel partSaleServiceModel);
+
+    CarSaleServiceModel findCarSaleById(String id);
+
+    PartSaleServiceModel findPartSaleById(String id);
 }
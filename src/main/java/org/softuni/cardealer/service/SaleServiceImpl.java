@@ -1,42 +1,95 @@
 package org.softuni.cardealer.service;
 
-import org.modelmapper.ModelMapper;
 import org.softuni.cardealer.domain.entities.CarSale;
 import org.softuni.cardealer.domain.entities.PartSale;
 import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
 import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.mapper.SaleMapper;
 import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartRepository;
 import org.softuni.cardealer.repository.PartSaleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.NoSuchElementException;
 
 @Service
 public class SaleServiceImpl implements SaleService {
 
     private final CarSaleRepository carSaleRepository;
     private final PartSaleRepository partSaleRepository;
-    private final ModelMapper modelMapper;
+    private final PartRepository partRepository;
+    private final SaleMapper saleMapper;
+    private final StockReservations stockReservations;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public SaleServiceImpl(CarSaleRepository carSaleRepository, PartSaleRepository partSaleRepository, ModelMapper modelMapper) {
+    public SaleServiceImpl(CarSaleRepository carSaleRepository, PartSaleRepository partSaleRepository,
+                           PartRepository partRepository, SaleMapper saleMapper,
+                           StockReservations stockReservations, PlatformTransactionManager transactionManager) {
         this.carSaleRepository = carSaleRepository;
         this.partSaleRepository = partSaleRepository;
-        this.modelMapper = modelMapper;
+        this.partRepository = partRepository;
+        this.saleMapper = saleMapper;
+        this.stockReservations = stockReservations;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public CarSaleServiceModel saleCar(CarSaleServiceModel carSaleServiceModel) {
-        CarSale carSale = this.modelMapper.map(carSaleServiceModel, CarSale.class);
+        CarSale carSale = this.saleMapper.toEntity(carSaleServiceModel);
         carSale = this.carSaleRepository.saveAndFlush(carSale);
 
-        return this.modelMapper.map(carSale, CarSaleServiceModel.class);
+        return this.saleMapper.toServiceModel(carSale);
     }
 
+    /**
+     * Takes the sold units off the part's stock and saves the sale in one transaction, so the
+     * sale is only saved if the stock was there and the stock is only taken if the sale is saved.
+     */
     @Override
     public PartSaleServiceModel salePart(PartSaleServiceModel partSaleServiceModel) {
-        PartSale partSale = this.modelMapper.map(partSaleServiceModel, PartSale.class);
-        partSale = this.partSaleRepository.saveAndFlush(partSale);
+        PartSale partSale = this.saleMapper.toEntity(partSaleServiceModel);
+        if (partSale.getPart() == null || partSale.getPart().getId() == null) {
+            return this.saleMapper.toServiceModel(this.partSaleRepository.saveAndFlush(partSale));
+        }
+
+        if (partSale.getQuantity() == null || partSale.getQuantity() < 1) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        String partId = partSale.getPart().getId();
+        int quantity = partSale.getQuantity();
+
+        return this.stockReservations.reserve(partId, quantity, () -> this.transactionTemplate.execute(status -> {
+            if (this.partRepository.takeStock(partId, quantity) == 0) {
+                List<Integer> stock = this.partRepository.findStockById(partId);
+                if (stock.isEmpty()) {
+                    throw new NoSuchElementException(String.format("Part %s does not exist", partId));
+                }
+                throw new InsufficientStockException(partId, quantity, stock.get(0));
+            }
+
+            return this.saleMapper.toServiceModel(this.partSaleRepository.saveAndFlush(partSale));
+        }));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CarSaleServiceModel findCarSaleById(String id) {
+        CarSale carSale = this.carSaleRepository.findWithDetailsById(id).orElse(null);
+
+        return this.saleMapper.toServiceModel(carSale);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PartSaleServiceModel findPartSaleById(String id) {
+        PartSale partSale = this.partSaleRepository.findWithDetailsById(id).orElse(null);
 
-        return this.modelMapper.map(partSale, PartSaleServiceModel.class);
+        return this.saleMapper.toServiceModel(partSale);
     }
 }
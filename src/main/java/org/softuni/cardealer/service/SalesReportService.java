@@ -0,0 +1,46 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.models.report.CustomerRevenueModel;
+import org.softuni.cardealer.domain.models.report.DiscountTotalsModel;
+import org.softuni.cardealer.domain.models.report.MakeModelSalesModel;
+import org.softuni.cardealer.domain.models.report.SupplierRevenueModel;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sales reports over the sales made in {@code [from, to)}; either bound may be {@code null}.
+ * Sales saved before sale dates were recorded have none and are left out of every report
+ * until {@link #backfillSaleDates} has dated them.
+ * <p>
+ * Discounts are fractions of the price. A car sells for its current total part cost and
+ * a part sale for the current part price times the quantity, both less the discount.
+ */
+public interface SalesReportService {
+
+    /**
+     * @return customers by revenue, highest first
+     */
+    List<CustomerRevenueModel> revenuePerCustomer(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * @return suppliers by revenue, highest first, counting the parts of sold cars as well
+     */
+    List<SupplierRevenueModel> revenuePerSupplier(LocalDateTime from, LocalDateTime to);
+
+    DiscountTotalsModel discountTotals(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * @return car makes and models by number of sales, most sold first
+     */
+    List<MakeModelSalesModel> salesPerMakeModel(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Dates every sale without a sale date at the earliest date MySQL can store, so that it
+     * counts in every report whose range is open at the start and in no other. Run once after
+     * upgrading a schema that has such sales.
+     *
+     * @return the number of car and part sales dated
+     */
+    int backfillSaleDates();
+}
@@ -0,0 +1,160 @@
+package org.softuni.cardealer.service;
+
+import org.softuni.cardealer.domain.models.report.CustomerRevenueModel;
+import org.softuni.cardealer.domain.models.report.DiscountTotalsModel;
+import org.softuni.cardealer.domain.models.report.MakeModelSalesModel;
+import org.softuni.cardealer.domain.models.report.SupplierRevenueModel;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Every report is aggregated by the database and read as small projections, never as sale
+ * entities. Car and part sales live in separate tables, so reports covering both are run
+ * once per table and the per-key rows merged here.
+ * <p>
+ * Supplier revenue is worked out in two steps: sales per car or part in the range, then the
+ * part cost per supplier of just those cars and parts. Its cost follows what was sold in the
+ * range rather than the size of the sales history.
+ * <p>
+ * Open date bounds are replaced by the earliest and latest dates MySQL can store, which
+ * keeps every query a range scan on {@code sale_date}. Undated sales are backfilled at the
+ * earliest of them rather than matched with an {@code IS NULL}, which would cost that scan.
+ */
+@Service
+@Transactional(readOnly = true)
+public class SalesReportServiceImpl implements SalesReportService {
+
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    private final CarSaleRepository carSaleRepository;
+    private final PartSaleRepository partSaleRepository;
+    private final CarRepository carRepository;
+    private final PartRepository partRepository;
+
+    @Autowired
+    public SalesReportServiceImpl(CarSaleRepository carSaleRepository,
+                                  PartSaleRepository partSaleRepository,
+                                  CarRepository carRepository,
+                                  PartRepository partRepository) {
+        this.carSaleRepository = carSaleRepository;
+        this.partSaleRepository = partSaleRepository;
+        this.carRepository = carRepository;
+        this.partRepository = partRepository;
+    }
+
+    @Override
+    public List<CustomerRevenueModel> revenuePerCustomer(LocalDateTime from, LocalDateTime to) {
+        from = fromOrEarliest(from);
+        to = toOrLatest(to);
+
+        List<CustomerRevenueModel> customers = merge(
+                this.carSaleRepository.revenuePerCustomer(from, to),
+                this.partSaleRepository.revenuePerCustomer(from, to),
+                CustomerRevenueModel::getCustomerId, CustomerRevenueModel::plus);
+        customers.sort(Comparator.comparing(CustomerRevenueModel::getRevenue).reversed());
+
+        return customers;
+    }
+
+    @Override
+    public List<SupplierRevenueModel> revenuePerSupplier(LocalDateTime from, LocalDateTime to) {
+        from = fromOrEarliest(from);
+        to = toOrLatest(to);
+
+        List<SupplierRevenueModel> suppliers = merge(
+                revenuePerSupplier(this.carSaleRepository.salesPerCar(from, to), this.carRepository::partCostPerSupplier),
+                revenuePerSupplier(this.partSaleRepository.salesPerPart(from, to), this.partRepository::costPerSupplier),
+                SupplierRevenueModel::getSupplierId, SupplierRevenueModel::plus);
+        suppliers.sort(Comparator.comparing(SupplierRevenueModel::getRevenue).reversed());
+
+        return suppliers;
+    }
+
+    @Override
+    public DiscountTotalsModel discountTotals(LocalDateTime from, LocalDateTime to) {
+        from = fromOrEarliest(from);
+        to = toOrLatest(to);
+
+        return this.carSaleRepository.discountTotals(from, to)
+                .plus(this.partSaleRepository.discountTotals(from, to));
+    }
+
+    @Override
+    public List<MakeModelSalesModel> salesPerMakeModel(LocalDateTime from, LocalDateTime to) {
+        return this.carSaleRepository.salesPerMakeModel(fromOrEarliest(from), toOrLatest(to));
+    }
+
+    @Override
+    @Transactional
+    public int backfillSaleDates() {
+        return this.carSaleRepository.backfillSaleDates(EARLIEST) + this.partSaleRepository.backfillSaleDates(EARLIEST);
+    }
+
+    /**
+     * @param salesPerItem    {@code [itemId, units sold, sum of units * (1 - discount)]} per car or part
+     * @param costPerSupplier {@code [itemId, supplierId, supplierName, partCount, partPriceSum]} for the given items
+     */
+    private static List<SupplierRevenueModel> revenuePerSupplier(List<Object[]> salesPerItem,
+                                                                 Function<List<String>, List<Object[]>> costPerSupplier) {
+        Map<String, Object[]> salesByItem = new HashMap<>();
+        for (Object[] row : salesPerItem) {
+            salesByItem.put((String) row[0], row);
+        }
+
+        List<String> itemIds = new ArrayList<>(salesByItem.keySet());
+        Map<String, SupplierRevenueModel> suppliers = new LinkedHashMap<>();
+        for (int start = 0; start < itemIds.size(); start += ID_CHUNK_SIZE) {
+            List<String> chunk = itemIds.subList(start, Math.min(start + ID_CHUNK_SIZE, itemIds.size()));
+
+            for (Object[] row : costPerSupplier.apply(chunk)) {
+                Object[] sales = salesByItem.get((String) row[0]);
+                long partsSold = ((Number) sales[1]).longValue() * ((Number) row[3]).longValue();
+                BigDecimal revenue = toBigDecimal(row[4]).multiply(toBigDecimal(sales[2]));
+
+                suppliers.merge((String) row[1],
+                        new SupplierRevenueModel((String) row[1], (String) row[2], partsSold, revenue),
+                        SupplierRevenueModel::plus);
+            }
+        }
+
+        return new ArrayList<>(suppliers.values());
+    }
+
+    private static BigDecimal toBigDecimal(Object number) {
+        return number instanceof BigDecimal ? (BigDecimal) number : new BigDecimal(number.toString());
+    }
+
+    private static LocalDateTime fromOrEarliest(LocalDateTime from) {
+        return from == null ? EARLIEST : from;
+    }
+
+    private static LocalDateTime toOrLatest(LocalDateTime to) {
+        return to == null ? LATEST : to;
+    }
+
+    private static <T> List<T> merge(List<T> first, List<T> second, Function<T, String> key, BinaryOperator<T> plus) {
+        Map<String, T> merged = new LinkedHashMap<>();
+        first.forEach(row -> merged.merge(key.apply(row), row, plus));
+        second.forEach(row -> merged.merge(key.apply(row), row, plus));
+
+        return new ArrayList<>(merged.values());
+    }
+}
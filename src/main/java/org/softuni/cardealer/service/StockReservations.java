@@ -0,0 +1,101 @@
+package org.softuni.cardealer.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory front for the stock updates of part sales, off unless
+ * {@code cardealer.stock.reservations.enabled} is set. The database stays the authority on
+ * stock; this only keeps a hot part from turning into a pile-up on its row:
+ * <ul>
+ * <li>Sales of the same part run one at a time, behind one of {@code stripes} locks chosen by
+ * the part id, so they queue here instead of on the row lock in the database.</li>
+ * <li>The stock found when a sale was rejected is remembered for {@code short-ttl-millis}. As
+ * sales only ever lower it, any sale for more than that is rejected without a statement until
+ * the part is restocked or the entry expires. The expiry covers restocks by other instances.</li>
+ * </ul>
+ */
+@Component
+public class StockReservations {
+
+    private final boolean enabled;
+    private final Lock[] stripes;
+    private final Cache<String, Integer> shortStock;
+
+    @Autowired
+    public StockReservations(@Value("${cardealer.stock.reservations.enabled:false}") boolean enabled,
+                             @Value("${cardealer.stock.reservations.stripes:64}") int stripes,
+                             @Value("${cardealer.stock.reservations.short-ttl-millis:5000}") long shortTtlMillis) {
+        if (stripes < 1 || shortTtlMillis < 0) {
+            throw new IllegalArgumentException("Invalid stock reservation settings");
+        }
+
+        this.enabled = enabled;
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.shortStock = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(shortTtlMillis))
+                .build();
+    }
+
+    /**
+     * Runs {@code sale}, which takes {@code quantity} units of the part in its own transaction
+     * and throws an {@link InsufficientStockException} if too few are left.
+     */
+    public <T> T reserve(String partId, int quantity, Supplier<T> sale) {
+        if (!this.enabled) {
+            return sale.get();
+        }
+
+        Lock lock = this.stripeOf(partId);
+        lock.lock();
+        try {
+            Integer available = this.shortStock.getIfPresent(partId);
+            if (available != null && quantity > available) {
+                throw new InsufficientStockException(partId, quantity, available);
+            }
+
+            try {
+                return sale.get();
+            } catch (InsufficientStockException e) {
+                this.shortStock.put(partId, e.getAvailable());
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets what is known about the part's stock, once a restock has been committed. Waits
+     * for a sale of the part in progress, which could otherwise still record the stock from
+     * before the restock.
+     */
+    public void restocked(String partId) {
+        if (!this.enabled) {
+            return;
+        }
+
+        Lock lock = this.stripeOf(partId);
+        lock.lock();
+        try {
+            this.shortStock.invalidate(partId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock stripeOf(String partId) {
+        return this.stripes[Math.floorMod(partId.hashCode(), this.stripes.length)];
+    }
+}
@@ -1,14 +1,50 @@
 package org.softuni.cardealer.service;
 
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.SupplierPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.SupplierServiceModel;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface SupplierService {
 
     SupplierServiceModel saveSupplier(SupplierServiceModel supplierServiceModel);
 
+    List<SupplierServiceModel> saveSuppliers(Collection<SupplierServiceModel> supplierServiceModels);
+
+    /**
+     * @throws EditConflictException if the supplier has been edited since the model's version
+     */
     SupplierServiceModel editSupplier(SupplierServiceModel supplierServiceModel);
 
+    /**
+     * Applies {@code changes} to the current supplier, merging them with concurrent edits of other
+     * fields as {@link CarService#editCar(String, Consumer)} does.
+     */
+    SupplierServiceModel editSupplier(String id, Consumer<SupplierServiceModel> changes);
+
+    /**
+     * Patches the supplier as {@link CarService#patchCar} does a car.
+     */
+    SupplierServiceModel patchSupplier(SupplierPatchServiceModel patch);
+
+    /**
+     * Deletes the supplier together with its parts, see {@link PartService#deleteParts}.
+     *
+     * @throws org.springframework.dao.DataIntegrityViolationException if any of its parts has
+     *                                                                 been sold; nothing is deleted then
+     */
     SupplierServiceModel deleteSupplier(String id);
 
     SupplierServiceModel findSupplierById(String id);
+
+    /**
+     * Lists the suppliers in id order, {@code pageSize} at a time.
+     *
+     * @param pageToken {@code null} for the first page, otherwise the previous page's
+     *                  {@link PageServiceModel#getNextPageToken() next page token}
+     */
+    PageServiceModel<SupplierServiceModel> listSuppliers(String pageToken, int pageSize);
 }
@@ -1,58 +1,166 @@
 package org.softuni.cardealer.service;
 
-import org.modelmapper.ModelMapper;
+import org.softuni.cardealer.cache.CatalogCache;
 import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.SupplierPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.SupplierServiceModel;
+import org.softuni.cardealer.mapper.SupplierMapper;
+import org.softuni.cardealer.repository.PartRepository;
 import org.softuni.cardealer.repository.SupplierRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class SupplierServiceImpl implements SupplierService {
 
+    private static final Map<String, Function<SupplierServiceModel, ?>> EDITABLE_FIELDS = Map.of(
+            "name", SupplierServiceModel::getName,
+            "importer", SupplierServiceModel::isImporter);
+
+    private static final Map<String, Function<SupplierPatchServiceModel, ?>> PATCHABLE_FIELDS = Map.of(
+            "name", SupplierPatchServiceModel::getName,
+            "importer", SupplierPatchServiceModel::getImporter);
+
     private final SupplierRepository supplierRepository;
-    private final ModelMapper modelMapper;
+    private final PartRepository partRepository;
+    private final SupplierMapper supplierMapper;
+    private final CatalogCache catalogCache;
+    private final PartService partService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
-    public SupplierServiceImpl(SupplierRepository supplierRepository, ModelMapper modelMapper) {
+    public SupplierServiceImpl(SupplierRepository supplierRepository, PartRepository partRepository,
+                               SupplierMapper supplierMapper, CatalogCache catalogCache, PartService partService,
+                               PlatformTransactionManager transactionManager) {
         this.supplierRepository = supplierRepository;
-        this.modelMapper = modelMapper;
+        this.partRepository = partRepository;
+        this.supplierMapper = supplierMapper;
+        this.catalogCache = catalogCache;
+        this.partService = partService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
     public SupplierServiceModel saveSupplier(SupplierServiceModel supplierServiceModel) {
-        Supplier supplier = this.modelMapper.map(supplierServiceModel, Supplier.class);
+        Supplier supplier = this.supplierMapper.toEntity(supplierServiceModel);
         this.supplierRepository.saveAndFlush(supplier);
 
-        return this.modelMapper.map(supplier, SupplierServiceModel.class);
+        return this.supplierMapper.toServiceModel(supplier);
+
+    }
+
+    @Override
+    public List<SupplierServiceModel> saveSuppliers(Collection<SupplierServiceModel> supplierServiceModels) {
+        List<Supplier> suppliers = supplierServiceModels.stream()
+                .map(this.supplierMapper::toEntity)
+                .collect(Collectors.toList());
 
+        return this.supplierRepository.saveAllInChunks(suppliers, this.supplierMapper::toServiceModel);
     }
 
+    /**
+     * The supplier is read and written in one transaction, held by a template rather than
+     * {@code @Transactional} so that it also applies when
+     * {@link #editSupplier(String, Consumer)} calls this method.
+     */
     @Override
     public SupplierServiceModel editSupplier(SupplierServiceModel supplierServiceModel) {
-        Supplier supplier = this.supplierRepository.findById(supplierServiceModel.getId()).orElse(null);
-        supplier.setName(supplierServiceModel.getName());
-        supplier.setImporter(supplierServiceModel.isImporter());
-        Supplier result = this.supplierRepository.saveAndFlush(supplier);
+        try {
+            return this.transactionTemplate.execute(status -> {
+                Supplier supplier = this.supplierRepository.findById(supplierServiceModel.getId()).orElse(null);
+                OptimisticEdits.checkVersion("Supplier", supplier, supplierServiceModel);
+                supplier.setName(supplierServiceModel.getName());
+                supplier.setImporter(supplierServiceModel.isImporter());
+
+                Supplier edited = OptimisticEdits.save("Supplier", supplierServiceModel,
+                        () -> this.supplierRepository.saveAndFlush(supplier));
+
+                return this.supplierMapper.toServiceModel(edited);
+            });
+        } finally {
+            // on a conflict too, so that the caller reads the current version afterwards
+            this.catalogCache.evictSupplier(supplierServiceModel.getId());
+        }
+    }
 
-        return this.modelMapper.map(result, SupplierServiceModel.class);
+    /**
+     * Reads past the cache, so that a retried edit starts from the stored supplier.
+     */
+    @Override
+    public SupplierServiceModel editSupplier(String id, Consumer<SupplierServiceModel> changes) {
+        return OptimisticEdits.editWithRetry("Supplier", id,
+                key -> this.supplierMapper.toServiceModel(this.supplierRepository.findById(key).orElse(null)),
+                changes, this::editSupplier, EDITABLE_FIELDS);
+    }
 
+    @Override
+    public SupplierServiceModel patchSupplier(SupplierPatchServiceModel patch) {
+        Map<String, Object> changes = OptimisticEdits.changesOf(patch, PATCHABLE_FIELDS);
+        try {
+            return this.transactionTemplate.execute(status -> {
+                OptimisticEdits.patch(Supplier.class, this.supplierRepository, patch.getId(), patch.getVersion(),
+                        changes);
+                Supplier patched = this.supplierRepository.findById(patch.getId()).orElseThrow();
+
+                return this.supplierMapper.toServiceModel(patched);
+            });
+        } finally {
+            this.catalogCache.evictSupplier(patch.getId());
+        }
     }
 
+    /**
+     * Deletes the supplier's parts along with it, in the same transaction, through
+     * {@link PartService#deleteParts}. The supplier and its parts stay in the cache and the
+     * indexes until that transaction has committed.
+     */
     @Override
     public SupplierServiceModel deleteSupplier(String id) {
-        Supplier supplier = this.supplierRepository.findById(id).orElse(null);
-        this.supplierRepository.delete(supplier);
+        SupplierServiceModel deleted = this.transactionTemplate.execute(status -> {
+            Supplier supplier = this.supplierRepository.findById(id).orElseThrow();
 
-        return this.modelMapper.map(supplier, SupplierServiceModel.class);
+            this.partService.deleteParts(this.partRepository.findIdsBySupplierId(id));
+            this.supplierRepository.deleteByIdIn(List.of(id));
 
+            return this.supplierMapper.toServiceModel(supplier);
+        });
+        AfterCommit.run(() -> this.catalogCache.evictSupplier(id));
+
+        return deleted;
     }
 
+    /**
+     * Not a transaction of its own: a cache hit needs no connection, and on a miss
+     * {@code findById} runs in a read-only transaction that goes to a replica.
+     */
     @Override
     public SupplierServiceModel findSupplierById(String id) {
-        Supplier supplier = this.supplierRepository.findById(id).orElse(null);
+        return this.catalogCache.findSupplier(id, key -> {
+            Supplier supplier = this.supplierRepository.findById(key).orElse(null);
 
-        return this.modelMapper.map(supplier, SupplierServiceModel.class);
+            return this.supplierMapper.toServiceModel(supplier);
+        });
+    }
 
+    @Override
+    public PageServiceModel<SupplierServiceModel> listSuppliers(String pageToken, int pageSize) {
+        Pageable limit = PageTokens.limit(pageSize);
+        String after = PageTokens.decode(pageToken);
+        List<Supplier> suppliers = after == null
+                ? this.supplierRepository.findFirstPage(limit)
+                : this.supplierRepository.findPageAfter(after, limit);
+
+        return PageTokens.toPage(suppliers, pageSize, this.supplierMapper::toServiceModel);
     }
 }
@@ -0,0 +1,90 @@
+-- Converts an existing car_dealer schema from 36-character UUID keys to BINARY(16).
+--
+-- Migration path:
+--   1. Switch to spring.jpa.properties.cardealer.id.format=time-ordered-string. New rows get
+--      time-ordered ids straight away; no schema change is needed.
+--   2. Stop the application and run this script against the schema.
+--   3. Start with spring.jpa.properties.cardealer.id.format=time-ordered-binary.
+--      Hibernate (ddl-auto=update) recreates the foreign keys dropped below.
+--
+-- Existing ids keep their value, so URLs and references held outside the database stay valid.
+
+DELIMITER //
+
+CREATE PROCEDURE cardealer_drop_foreign_keys()
+BEGIN
+    DECLARE done BOOLEAN DEFAULT FALSE;
+    DECLARE table_name_value, constraint_name_value VARCHAR(64);
+    DECLARE foreign_keys CURSOR FOR
+        SELECT TABLE_NAME, CONSTRAINT_NAME
+        FROM information_schema.TABLE_CONSTRAINTS
+        WHERE CONSTRAINT_SCHEMA = DATABASE()
+          AND CONSTRAINT_TYPE = 'FOREIGN KEY'
+          AND TABLE_NAME IN ('parts', 'parts_cars', 'car_sales', 'part_sales');
+    DECLARE CONTINUE HANDLER FOR NOT FOUND SET done = TRUE;
+
+    OPEN foreign_keys;
+    drop_loop: LOOP
+        FETCH foreign_keys INTO table_name_value, constraint_name_value;
+        IF done THEN
+            LEAVE drop_loop;
+        END IF;
+
+        SET @statement = CONCAT('ALTER TABLE `', table_name_value, '` DROP FOREIGN KEY `', constraint_name_value, '`');
+        PREPARE drop_statement FROM @statement;
+        EXECUTE drop_statement;
+        DEALLOCATE PREPARE drop_statement;
+    END LOOP;
+    CLOSE foreign_keys;
+END //
+
+CREATE PROCEDURE cardealer_execute(IN statement_text TEXT)
+BEGIN
+    SET @statement = statement_text;
+    PREPARE dynamic_statement FROM @statement;
+    EXECUTE dynamic_statement;
+    DEALLOCATE PREPARE dynamic_statement;
+END //
+
+CREATE PROCEDURE cardealer_convert_uuid_column(IN table_name_value VARCHAR(64),
+                                               IN column_name_value VARCHAR(64),
+                                               IN is_nullable BOOLEAN)
+BEGIN
+    CALL cardealer_execute(CONCAT('ALTER TABLE `', table_name_value, '` ADD COLUMN `',
+                                  column_name_value, '_bin` BINARY(16) NULL AFTER `', column_name_value, '`'));
+    CALL cardealer_execute(CONCAT('UPDATE `', table_name_value, '` SET `', column_name_value,
+                                  '_bin` = UNHEX(REPLACE(`', column_name_value, '`, ''-'', ''''))'));
+    CALL cardealer_execute(CONCAT('ALTER TABLE `', table_name_value, '` DROP COLUMN `', column_name_value, '`'));
+    CALL cardealer_execute(CONCAT('ALTER TABLE `', table_name_value, '` CHANGE COLUMN `', column_name_value,
+                                  '_bin` `', column_name_value, '` BINARY(16) ', IF(is_nullable, 'NULL', 'NOT NULL')));
+END //
+
+DELIMITER ;
+
+CALL cardealer_drop_foreign_keys();
+
+CALL cardealer_convert_uuid_column('suppliers', 'id', FALSE);
+CALL cardealer_convert_uuid_column('customers', 'id', FALSE);
+CALL cardealer_convert_uuid_column('parts', 'id', FALSE);
+CALL cardealer_convert_uuid_column('parts', 'supplier_id', TRUE);
+CALL cardealer_convert_uuid_column('cars', 'id', FALSE);
+CALL cardealer_convert_uuid_column('parts_cars', 'car_id', FALSE);
+CALL cardealer_convert_uuid_column('parts_cars', 'part_id', FALSE);
+CALL cardealer_convert_uuid_column('car_sales', 'id', FALSE);
+CALL cardealer_convert_uuid_column('car_sales', 'customer_id', TRUE);
+CALL cardealer_convert_uuid_column('car_sales', 'car_id', TRUE);
+CALL cardealer_convert_uuid_column('part_sales', 'id', FALSE);
+CALL cardealer_convert_uuid_column('part_sales', 'customer_id', TRUE);
+CALL cardealer_convert_uuid_column('part_sales', 'part_id', TRUE);
+
+-- dropping the old id columns dropped the primary keys with them
+ALTER TABLE suppliers ADD PRIMARY KEY (id);
+ALTER TABLE customers ADD PRIMARY KEY (id);
+ALTER TABLE parts ADD PRIMARY KEY (id);
+ALTER TABLE cars ADD PRIMARY KEY (id);
+ALTER TABLE car_sales ADD PRIMARY KEY (id);
+ALTER TABLE part_sales ADD PRIMARY KEY (id);
+
+DROP PROCEDURE cardealer_convert_uuid_column;
+DROP PROCEDURE cardealer_execute;
+DROP PROCEDURE cardealer_drop_foreign_keys;
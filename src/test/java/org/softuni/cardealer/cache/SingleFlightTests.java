@@ -0,0 +1,182 @@
+package org.softuni.cardealer.cache;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class SingleFlightTests {
+
+    private static final int CALLERS = 8;
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @After
+    public void shutdown() {
+        callers.shutdownNow();
+    }
+
+    /**
+     * Starts a caller that leads a load of car 1 which waits for {@code release}, and returns
+     * once that load is in progress.
+     */
+    private Future<String> leadBlockedLoad(SingleFlight singleFlight, AtomicInteger loads,
+                                           CountDownLatch release, Supplier<String> result) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Future<String> leader = callers.submit(() -> singleFlight.load("Car", "1", () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return result.get();
+        }));
+        assertTrue(unmatchedParamFor("Started"), started.await(10, TimeUnit.SECONDS));
+
+        return leader;
+    }
+
+    private List<Future<String>> followers(SingleFlight singleFlight, AtomicInteger loads, int count) {
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            followers.add(callers.submit(() -> singleFlight.load("Car", "1", () -> {
+                loads.incrementAndGet();
+                return "own load";
+            })));
+        }
+
+        return followers;
+    }
+
+    private void awaitWaiting(SingleFlight singleFlight) throws InterruptedException {
+        // the followers cannot be observed joining; give them time to reach the flight
+        Thread.sleep(200);
+        assertEquals(unmatchedParamFor("In flight"), 1, singleFlight.inFlight());
+    }
+
+    @Test
+    public void load_whenConcurrentForSameId_expectOneLoadSharedByAll() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, 10_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = leadBlockedLoad(singleFlight, loads, release, () -> "car 1");
+        List<Future<String>> followers = followers(singleFlight, loads, CALLERS - 1);
+        awaitWaiting(singleFlight);
+        release.countDown();
+
+        assertEquals(unmatchedParamFor("Leader"), "car 1", leader.get(10, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals(unmatchedParamFor("Follower"), "car 1", follower.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(unmatchedParamFor("Loads"), 1, loads.get());
+        assertEquals(unmatchedParamFor("In flight"), 0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void load_whenLoadFails_expectEveryCallerFailsAndNextLoadRuns() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, 10_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("connection lost");
+
+        Future<String> leader = leadBlockedLoad(singleFlight, loads, release, () -> {
+            throw failure;
+        });
+        List<Future<String>> followers = followers(singleFlight, loads, 2);
+        awaitWaiting(singleFlight);
+        release.countDown();
+
+        for (Future<String> caller : List.of(leader, followers.get(0), followers.get(1))) {
+            try {
+                caller.get(10, TimeUnit.SECONDS);
+                fail("The failure was not propagated");
+            } catch (ExecutionException e) {
+                assertSame(unmatchedParamFor("Failure"), failure, e.getCause());
+            }
+        }
+        assertEquals(unmatchedParamFor("Retry"), "car 1", singleFlight.load("Car", "1", () -> "car 1"));
+    }
+
+    @Test
+    public void load_whenLoadOutlastsWaitTimeout_expectFollowerTimesOutAndLeaderCompletes() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = leadBlockedLoad(singleFlight, loads, release, () -> "car 1");
+        try {
+            singleFlight.load("Car", "1", () -> "own load");
+            fail("The follower did not time out");
+        } catch (QueryTimeoutException e) {
+            assertTrue(unmatchedParamFor("Message"), e.getMessage().contains("Car 1"));
+        }
+        release.countDown();
+
+        assertEquals(unmatchedParamFor("Leader"), "car 1", leader.get(10, TimeUnit.SECONDS));
+        assertEquals(unmatchedParamFor("Loads"), 1, loads.get());
+    }
+
+    @Test
+    public void load_whenOtherIdOrForgotten_expectOwnLoad() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, 10_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = leadBlockedLoad(singleFlight, loads, release, () -> "stale car 1");
+        String otherCar = singleFlight.load("Car", "2", () -> "car 2");
+        String otherKind = singleFlight.load("Part", "1", () -> "part 1");
+        singleFlight.forget("Car", "1");
+        String afterEdit = singleFlight.load("Car", "1", () -> "edited car 1");
+        release.countDown();
+
+        assertEquals(unmatchedParamFor("Other car"), "car 2", otherCar);
+        assertEquals(unmatchedParamFor("Other kind"), "part 1", otherKind);
+        assertEquals(unmatchedParamFor("After edit"), "edited car 1", afterEdit);
+        assertEquals(unmatchedParamFor("Leader"), "stale car 1", leader.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void load_whenInReadWriteTransaction_expectOwnLoad() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(true, 10_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = leadBlockedLoad(singleFlight, loads, release, () -> "committed car 1");
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            assertEquals(unmatchedParamFor("Own load"), "uncommitted car 1",
+                    singleFlight.load("Car", "1", () -> "uncommitted car 1"));
+        } finally {
+            TransactionSynchronizationManager.clear();
+            release.countDown();
+        }
+
+        assertEquals(unmatchedParamFor("Leader"), "committed car 1", leader.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_whenNoWaitTimeout_expectException() {
+        new SingleFlight(true, 0);
+    }
+}
@@ -0,0 +1,68 @@
+package org.softuni.cardealer.config;
+
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Starts the web server with the {@code virtual-threads} profile. Skipped on Java before 21.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("virtual-threads")
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class VirtualThreadConfigTests {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Autowired
+    private ExecutorService requestExecutor;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @BeforeClass
+    public static void requireVirtualThreads() {
+        Assume.assumeTrue(VirtualThreads.supported());
+    }
+
+    @Test
+    public void requestExecutor_expectTomcatRunsRequestsOnVirtualThreads() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) context.getWebServer();
+
+        assertSame(unmatchedParamFor("Executor"), requestExecutor,
+                webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+        assertTrue(unmatchedParamFor("Virtual"),
+                requestExecutor.submit(() -> VirtualThreads.isVirtual(Thread.currentThread())).get(1, TimeUnit.MINUTES));
+    }
+
+    @Test
+    public void health_whenServedOnVirtualThread_expectUp() {
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/health", String.class);
+
+        assertEquals(unmatchedParamFor("Status"), HttpStatus.OK, response.getStatusCode());
+        assertTrue(unmatchedParamFor("Body"), response.getBody().contains("UP"));
+    }
+}
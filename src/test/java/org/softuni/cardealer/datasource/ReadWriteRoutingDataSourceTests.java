@@ -0,0 +1,256 @@
+package org.softuni.cardealer.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.config.ReplicaDataSourceConfig;
+import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.mapper.CustomerMapper;
+import org.softuni.cardealer.repository.CustomerRepository;
+import org.softuni.cardealer.service.CustomerService;
+import org.softuni.cardealer.service.CustomerServiceImpl;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Two embedded H2 databases stand in for the primary and a replica. The replica gets the
+ * primary's schema but none of its rows, so a read finds a row just written only if it went
+ * to the primary.
+ */
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingDataSourceTests.PRIMARY_URL,
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.hikari.pool-name=primary",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "cardealer.datasource.replicas.urls=" + ReadWriteRoutingDataSourceTests.REPLICA_URL,
+        "cardealer.datasource.replicas.maximum-pool-size=2",
+        "cardealer.datasource.replicas.minimum-idle=1",
+        "cardealer.datasource.replicas.read-your-writes-millis=60000"})
+@Import(ReplicaDataSourceConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReadWriteRoutingDataSourceTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+    private final DriverManagerDataSource primary = new DriverManagerDataSource(PRIMARY_URL, "sa", "");
+    private final DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+
+    private CustomerService customerService;
+    private String customerId;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.execute("DROP ALL OBJECTS");
+        for (String statement : new JdbcTemplate(primary).queryForList("SCRIPT NODATA", String.class)) {
+            replicaJdbc.execute(statement);
+        }
+
+        customerService = new CustomerServiceImpl(customerRepository, Mappers.getMapper(CustomerMapper.class),
+                transactionManager);
+        CustomerServiceModel customer = new CustomerServiceModel();
+        customer.setName("TestName");
+        customer.setBirthDate(LocalDate.now());
+        customer.setYoungDriver(true);
+        customerId = customerService.saveCustomer(customer).getId();
+    }
+
+    @After
+    public void cleanUp() {
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    public void dataSource_whenPoolPropertiesSet_expectPoolsBoundToThem() {
+        HikariDataSource primaryPool = (HikariDataSource) routingDataSource.getPrimary();
+        HikariDataSource replicaPool = (HikariDataSource) routingDataSource.getReplicas().get(0);
+
+        assertEquals(unmatchedParamFor("Pool Name"), "primary", primaryPool.getPoolName());
+        assertEquals(unmatchedParamFor("Primary Pool Size"), 4, primaryPool.getMaximumPoolSize());
+        assertEquals(unmatchedParamFor("Replica Pool Size"), 2, replicaPool.getMaximumPoolSize());
+        assertEquals(unmatchedParamFor("Replica Minimum Idle"), 1, replicaPool.getMinimumIdle());
+    }
+
+    @Test
+    public void readOnlyTransaction_whenOtherThreadWroteWithinWindow_expectPrimary() throws Exception {
+        boolean found = onOtherThread(() -> customerRepository.findById(customerId).isPresent());
+
+        assertTrue(unmatchedParamFor("Found"), found);
+    }
+
+    @Test
+    public void readOnlyTransaction_whenThreadWroteWithinWindow_expectPrimary() {
+        assertTrue(unmatchedParamFor("Found"), customerRepository.findById(customerId).isPresent());
+    }
+
+    @Test
+    public void readWriteTransaction_expectPrimary() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        boolean found = onOtherThread(() -> transactionTemplate.execute(
+                status -> customerRepository.findById(customerId).isPresent()));
+
+        assertTrue(unmatchedParamFor("Found"), found);
+    }
+
+    @Test
+    public void readOnlyTransaction_whenNothingWritten_expectReplica() {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, List.of(replica),
+                Duration.ofMinutes(1), Duration.ZERO);
+
+        assertEquals(unmatchedParamFor("Customers"), Integer.valueOf(0), new JdbcTransactions(routing).countCustomers());
+    }
+
+    @Test
+    public void onPrimary_whenNothingWritten_expectPrimary() {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, List.of(replica),
+                Duration.ofMinutes(1), Duration.ZERO);
+        JdbcTransactions transactions = new JdbcTransactions(routing);
+
+        assertEquals(unmatchedParamFor("Customers"), Integer.valueOf(1),
+                ReadWriteRoutingDataSource.onPrimary(transactions::countCustomers));
+    }
+
+    @Test
+    public void readOnlyTransaction_whenWindowHasPassed_expectReplica() {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, List.of(replica),
+                Duration.ZERO, Duration.ZERO);
+        JdbcTransactions transactions = new JdbcTransactions(routing);
+
+        transactions.readWrite("UPDATE customers SET name = 'Changed'");
+
+        assertEquals(unmatchedParamFor("Customers"), Integer.valueOf(0), transactions.countCustomers());
+    }
+
+    @Test
+    public void readOnlyTransaction_whenReplicaDown_expectPrimaryAndReplicaLeftAlone() {
+        ToggledDataSource toggled = new ToggledDataSource(replica);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, List.of(toggled),
+                Duration.ZERO, Duration.ofMinutes(1));
+        JdbcTransactions transactions = new JdbcTransactions(routing);
+
+        toggled.down = true;
+        assertEquals(unmatchedParamFor("Customers"), Integer.valueOf(1), transactions.countCustomers());
+
+        toggled.down = false;
+        assertEquals(unmatchedParamFor("Customers"), Integer.valueOf(1), transactions.countCustomers());
+        assertEquals(unmatchedParamFor("Attempts"), 1, toggled.attempts.get());
+    }
+
+    @Test
+    public void readOnlyTransaction_whenReplicaBackAfterRetryDelay_expectReplica() {
+        ToggledDataSource toggled = new ToggledDataSource(replica);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, List.of(toggled),
+                Duration.ZERO, Duration.ZERO);
+        JdbcTransactions transactions = new JdbcTransactions(routing);
+
+        toggled.down = true;
+        assertEquals(unmatchedParamFor("Customers"), Integer.valueOf(1), transactions.countCustomers());
+
+        toggled.down = false;
+        assertEquals(unmatchedParamFor("Customers"), Integer.valueOf(0), transactions.countCustomers());
+    }
+
+    private static <T> T onOtherThread(Supplier<T> reads) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(reads::get).get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Plain JDBC transactions over a routing data source.
+     */
+    private static final class JdbcTransactions {
+
+        private final JdbcTemplate jdbcTemplate;
+        private final TransactionTemplate readOnly;
+        private final TransactionTemplate readWrite;
+
+        JdbcTransactions(ReadWriteRoutingDataSource routing) {
+            DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+            this.jdbcTemplate = new JdbcTemplate(routing);
+            this.readOnly = new TransactionTemplate(transactionManager);
+            this.readOnly.setReadOnly(true);
+            this.readWrite = new TransactionTemplate(transactionManager);
+        }
+
+        Integer countCustomers() {
+            return this.readOnly.execute(status -> this.jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM customers", Integer.class));
+        }
+
+        void readWrite(String sql) {
+            this.readWrite.execute(status -> this.jdbcTemplate.update(sql));
+        }
+    }
+
+    private static final class ToggledDataSource extends DelegatingDataSource {
+
+        final AtomicInteger attempts = new AtomicInteger();
+        volatile boolean down;
+
+        ToggledDataSource(DriverManagerDataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            this.attempts.incrementAndGet();
+            if (this.down) {
+                throw new SQLException("Replica down");
+            }
+
+            return super.getConnection();
+        }
+    }
+}
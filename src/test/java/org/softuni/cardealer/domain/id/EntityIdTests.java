@@ -0,0 +1,191 @@
+package org.softuni.cardealer.domain.id;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.cache.CatalogCache;
+import org.softuni.cardealer.cache.SingleFlight;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SaleMapper;
+import org.softuni.cardealer.mapper.SupplierMapper;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.CarServiceImpl;
+import org.softuni.cardealer.service.PartService;
+import org.softuni.cardealer.service.PartServiceImpl;
+import org.softuni.cardealer.service.SaleService;
+import org.softuni.cardealer.service.SaleServiceImpl;
+import org.softuni.cardealer.service.StockReservations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.cardealer.id.format=time-ordered-binary")
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class EntityIdTests {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private CarServiceModel newCar(String make) {
+        CarServiceModel car = new CarServiceModel();
+        car.setMake(make);
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+
+        return car;
+    }
+
+    @Test
+    public void next_whenGeneratedInSequence_expectIncreasingVersion7Ids() {
+        UUID previous = TimeOrderedUuids.next();
+
+        for (int i = 0; i < 10_000; i++) {
+            UUID next = TimeOrderedUuids.next();
+
+            assertEquals("Version doesn't match!", 7, next.version());
+            assertEquals("Variant doesn't match!", 2, next.variant());
+            assertTrue("Ids are not increasing!", next.toString().compareTo(previous.toString()) > 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    public void fromSettingValue_whenUnknownValue_expectException() {
+        try {
+            EntityIdFormat.fromSettingValue("sequence");
+            fail("Unknown format accepted!");
+        } catch (IllegalArgumentException expected) {
+            assertTrue(expected.getMessage().contains(EntityIdFormat.SETTING));
+        }
+    }
+
+    @Test
+    public void saveCar_whenBinaryIds_expectStringIdsRoundTrip() {
+        CarService carService = new CarServiceImpl(carRepository, partRepository, Mappers.getMapper(CarMapper.class),
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new SingleFlight(true, 5000), transactionManager);
+
+        CarServiceModel saved = carService.saveCar(newCar("TestMake"));
+        entityManager.clear();
+
+        CarServiceModel found = carService.findCarById(saved.getId());
+
+        assertEquals("Id doesn't match!", saved.getId(), found.getId());
+        assertEquals("Version doesn't match!", 7, UUID.fromString(found.getId()).version());
+        assertEquals("Make doesn't match!", "TestMake", found.getMake());
+    }
+
+    @Test
+    public void saveCars_whenBinaryIds_expectIdsInInsertionOrder() {
+        CarService carService = new CarServiceImpl(carRepository, partRepository, Mappers.getMapper(CarMapper.class),
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new SingleFlight(true, 5000), transactionManager);
+
+        List<CarServiceModel> saved = carService.saveCars(List.of(newCar("A"), newCar("B"), newCar("C")));
+
+        List<?> ordered = entityManager
+                .createQuery("SELECT c.make FROM Car c ORDER BY c.id")
+                .getResultList();
+        assertEquals("Order doesn't match!", List.of("A", "B", "C"), ordered);
+        assertTrue("Ids are not increasing!", saved.get(0).getId().compareTo(saved.get(2).getId()) < 0);
+    }
+
+    @Test
+    public void saleCar_whenBinaryIds_expectForeignKeyResolved() {
+        CarService carService = new CarServiceImpl(carRepository, partRepository, Mappers.getMapper(CarMapper.class),
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new SingleFlight(true, 5000), transactionManager);
+        SaleService saleService = new SaleServiceImpl(carSaleRepository, partSaleRepository, partRepository,
+                Mappers.getMapper(SaleMapper.class), new StockReservations(false, 1, 0), transactionManager);
+
+        CarSaleServiceModel carSale = new CarSaleServiceModel();
+        carSale.setDiscount(0.1);
+        carSale.setCar(carService.saveCar(newCar("TestMake")));
+
+        CarSaleServiceModel saved = saleService.saleCar(carSale);
+        entityManager.clear();
+
+        assertEquals("Car doesn't match!", carSale.getCar().getId(),
+                carSaleRepository.findById(saved.getId()).orElseThrow().getCar().getId());
+    }
+
+    @Test
+    public void deleteParts_whenBinaryIds_expectAttachedPartsDetached() {
+        CarService carService = new CarServiceImpl(carRepository, partRepository, Mappers.getMapper(CarMapper.class),
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new SingleFlight(true, 5000), transactionManager);
+        PartMapper partMapper = Mappers.getMapper(PartMapper.class);
+        PartService partService = new PartServiceImpl(partRepository, carRepository, partMapper,
+                new CatalogCache(100, 60, partMapper, Mappers.getMapper(SupplierMapper.class), new SingleFlight(true, 5000)),
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new StockReservations(false, 1, 0), transactionManager);
+
+        PartServiceModel part = new PartServiceModel();
+        part.setName("TestPart");
+        part.setPrice(BigDecimal.TEN);
+        part = partService.savePart(part);
+        CarServiceModel car = carService.saveCar(newCar("TestMake"));
+        carService.attachPart(car.getId(), part.getId());
+
+        int deleted = partService.deleteParts(List.of(part.getId()));
+        CarServiceModel found = carService.findCarById(car.getId());
+
+        assertEquals("Deleted doesn't match!", 1, deleted);
+        assertTrue("Parts don't match!", found.getParts().isEmpty());
+        assertEquals("Total Cost doesn't match!", 0, BigDecimal.ZERO.compareTo(found.getTotalCost()));
+    }
+
+    @Test
+    public void schema_whenBinaryIds_expectSixteenByteKeyColumns() {
+        List<?> lengths = entityManager
+                .createNativeQuery("SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS "
+                        + "WHERE (TABLE_NAME = 'CARS' AND COLUMN_NAME = 'ID') "
+                        + "OR (TABLE_NAME = 'PARTS_CARS' AND COLUMN_NAME = 'PART_ID') "
+                        + "OR (TABLE_NAME = 'CAR_SALES' AND COLUMN_NAME = 'CUSTOMER_ID')")
+                .getResultList();
+
+        assertEquals("Column count doesn't match!", 3, lengths.size());
+        lengths.forEach(length -> assertEquals("Length doesn't match!", 16, ((Number) length).intValue()));
+    }
+}
@@ -0,0 +1,103 @@
+package org.softuni.cardealer.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.cache.SingleFlight;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
+import org.softuni.cardealer.service.CarService;
+import org.softuni.cardealer.service.CarServiceImpl;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.stats.factory=org.softuni.cardealer.metrics.StatementCountingStatisticsFactory"
+})
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class ServiceMetricsInterceptorTests {
+
+    private MeterRegistry meterRegistry;
+    private CarService carService;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        meterRegistry = new SimpleMeterRegistry();
+
+        ProxyFactory proxyFactory = new ProxyFactory(
+                new CarServiceImpl(carRepository, partRepository, Mappers.getMapper(CarMapper.class),
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new SingleFlight(true, 5000), transactionManager));
+        proxyFactory.addAdvice(new ServiceMetricsInterceptor(() -> meterRegistry));
+        carService = (CarService) proxyFactory.getProxy();
+    }
+
+    @Test
+    public void findCarById_whenFound_expectCallTimedWithItsStatements() {
+        CarServiceModel car = new CarServiceModel();
+        car.setMake("TestMake");
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+        String id = carService.saveCar(car).getId();
+        entityManager.clear();
+
+        carService.findCarById(id);
+
+        assertEquals(unmatchedParamFor("Calls"), 1, meterRegistry.get(ServiceMetricsInterceptor.CALLS)
+                .tags("service", "CarService", "method", "findCarById", "outcome", "success").timer().count());
+        assertEquals(unmatchedParamFor("Statements"), 1.0, meterRegistry.get(ServiceMetricsInterceptor.STATEMENTS)
+                .tags("service", "CarService", "method", "findCarById").summary().totalAmount(), 0);
+    }
+
+    @Test
+    public void findCarById_whenIdIsNull_expectErrorCounted() {
+        try {
+            carService.findCarById(null);
+            fail("Expected an exception");
+        } catch (NullPointerException expected) {
+            // counted below
+        }
+
+        assertEquals(unmatchedParamFor("Errors"), 1.0, meterRegistry.get(ServiceMetricsInterceptor.ERRORS)
+                .tags("service", "CarService", "method", "findCarById", "exception", "NullPointerException")
+                .counter().count(), 0);
+        assertEquals(unmatchedParamFor("Calls"), 1, meterRegistry.get(ServiceMetricsInterceptor.CALLS)
+                .tags("service", "CarService", "method", "findCarById", "outcome", "error").timer().count());
+    }
+}
@@ -0,0 +1,184 @@
+package org.softuni.cardealer.search;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.service.CarInventoryFilterServiceModel;
+import org.softuni.cardealer.domain.models.service.CarInventoryServiceModel;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class CarInventoryIndexTests {
+
+    private static final long[] DISTANCE_BUCKETS = {0, 50_000, 100_000};
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    private CarInventoryIndex carInventoryIndex;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        carInventoryIndex = new CarInventoryIndex(carRepository, DISTANCE_BUCKETS, 2);
+    }
+
+    private Part savedPart(String name) {
+        Part part = new Part();
+        part.setName(name);
+        part.setPrice(BigDecimal.TEN);
+
+        return partRepository.saveAndFlush(part);
+    }
+
+    private String savedCar(String make, String model, long travelledDistance, Part... parts) {
+        Car car = new Car();
+        car.setMake(make);
+        car.setModel(model);
+        car.setTravelledDistance(travelledDistance);
+        car.setParts(new ArrayList<>(List.of(parts)));
+
+        return carRepository.saveAndFlush(car).getId();
+    }
+
+    private CarInventoryFilterServiceModel filterOf(Set<String> makes, Set<String> models,
+                                                    Set<Long> distanceBuckets, Set<String> partIds) {
+        CarInventoryFilterServiceModel filter = new CarInventoryFilterServiceModel();
+        filter.setMakes(makes);
+        filter.setModels(models);
+        filter.setDistanceBuckets(distanceBuckets);
+        filter.setPartIds(partIds);
+
+        return filter;
+    }
+
+    @Test
+    public void rebuild_whenCarsSpanSeveralPages_expectEveryCarCounted() {
+        Part towBar = savedPart("Tow Bar");
+        savedCar("Ford", "Fiesta", 10_000, towBar);
+        savedCar("Ford", "Focus", 60_000);
+        savedCar("VW", "Golf", 120_000, towBar);
+
+        carInventoryIndex.rebuild();
+        CarInventoryServiceModel all = carInventoryIndex.filter(null, 10);
+
+        assertEquals(unmatchedParamFor("Count"), 3, all.getMatchingCount());
+        assertEquals(unmatchedParamFor("Ids"), 3, all.getCarIds().size());
+        assertEquals(unmatchedParamFor("Makes"), Map.of("Ford", 2, "VW", 1), all.getMakeCounts());
+        assertEquals(unmatchedParamFor("Distances"), Map.of(0L, 1, 50_000L, 1, 100_000L, 1),
+                all.getDistanceBucketCounts());
+    }
+
+    @Test
+    public void filter_whenSeveralFacetsSelected_expectIntersectionAndCountsOfAlternatives() {
+        Part towBar = savedPart("Tow Bar");
+        Part roofRack = savedPart("Roof Rack");
+        String fiesta = savedCar("Ford", "Fiesta", 10_000, towBar, roofRack);
+        savedCar("Ford", "Focus", 60_000, towBar);
+        savedCar("Ford", "Fiesta", 70_000);
+        savedCar("VW", "Polo", 20_000, towBar);
+        carInventoryIndex.rebuild();
+
+        CarInventoryServiceModel fords = carInventoryIndex.filter(
+                filterOf(Set.of("Ford"), null, Set.of(0L), Set.of(towBar.getId())), 10);
+
+        assertEquals(unmatchedParamFor("Ids"), List.of(fiesta), fords.getCarIds());
+        assertEquals(unmatchedParamFor("Makes"), Map.of("Ford", 1, "VW", 1), fords.getMakeCounts());
+        assertEquals(unmatchedParamFor("Models"), Map.of("Fiesta", 1), fords.getModelCounts());
+        assertEquals(unmatchedParamFor("Distances"), Map.of(0L, 1, 50_000L, 1), fords.getDistanceBucketCounts());
+    }
+
+    @Test
+    public void filter_whenPartsSelected_expectCarsWithAllOfThem() {
+        Part towBar = savedPart("Tow Bar");
+        Part roofRack = savedPart("Roof Rack");
+        String both = savedCar("Ford", "Fiesta", 10_000, towBar, roofRack);
+        savedCar("Ford", "Focus", 10_000, towBar);
+        carInventoryIndex.rebuild();
+
+        CarInventoryServiceModel withBoth = carInventoryIndex.filter(
+                filterOf(null, null, null, Set.of(towBar.getId(), roofRack.getId())), 10);
+        CarInventoryServiceModel withUnknown = carInventoryIndex.filter(
+                filterOf(null, null, null, Set.of(towBar.getId(), "no-such-part")), 10);
+
+        assertEquals(unmatchedParamFor("Ids"), List.of(both), withBoth.getCarIds());
+        assertEquals(unmatchedParamFor("Count"), 0, withUnknown.getMatchingCount());
+    }
+
+    @Test
+    public void filter_whenLimitBelowMatches_expectFullCountAndLimitedIds() {
+        for (int i = 0; i < 5; i++) {
+            savedCar("Ford", "Fiesta", 10_000);
+        }
+        carInventoryIndex.rebuild();
+
+        CarInventoryServiceModel fords = carInventoryIndex.filter(filterOf(Set.of("Ford"), null, null, null), 2);
+
+        assertEquals(unmatchedParamFor("Count"), 5, fords.getMatchingCount());
+        assertEquals(unmatchedParamFor("Ids"), 2, fords.getCarIds().size());
+    }
+
+    @Test
+    public void putCar_whenEditedAndRemoved_expectFacetsFollow() {
+        carInventoryIndex.putCar("car-1", "Ford", "Fiesta", 10_000L, List.of("part-1"));
+        carInventoryIndex.putCar("car-2", "Ford", "Focus", 160_000L, List.of());
+
+        carInventoryIndex.putCar("car-1", "Opel", "Corsa", 55_000L, List.of("part-2"));
+        carInventoryIndex.removeCar("car-2");
+        CarInventoryServiceModel all = carInventoryIndex.filter(null, 10);
+
+        assertEquals(unmatchedParamFor("Ids"), List.of("car-1"), all.getCarIds());
+        assertEquals(unmatchedParamFor("Makes"), Map.of("Opel", 1), all.getMakeCounts());
+        assertEquals(unmatchedParamFor("Distances"), Map.of(50_000L, 1), all.getDistanceBucketCounts());
+        assertEquals(unmatchedParamFor("Old part"), 0,
+                carInventoryIndex.filter(filterOf(null, null, null, Set.of("part-1")), 10).getMatchingCount());
+        assertEquals(unmatchedParamFor("Size"), 1, carInventoryIndex.size());
+    }
+
+    @Test
+    public void removeParts_whenPartsAttached_expectCarsKeptWithoutThem() {
+        carInventoryIndex.putCar("car-1", "Ford", "Fiesta", 10_000L, List.of("part-1", "part-2"));
+        carInventoryIndex.putCar("car-2", "Ford", "Focus", 10_000L, List.of("part-1", "part-3"));
+        carInventoryIndex.putCar("car-3", "Opel", "Corsa", 10_000L, List.of("part-3"));
+
+        carInventoryIndex.removeParts(List.of("part-1", "part-3", "no-such-part"));
+
+        assertEquals(unmatchedParamFor("Ids"), List.of("car-1", "car-2", "car-3"),
+                carInventoryIndex.filter(null, 10).getCarIds());
+        assertEquals(unmatchedParamFor("Removed part"), 0,
+                carInventoryIndex.filter(filterOf(null, null, null, Set.of("part-1")), 10).getMatchingCount());
+        assertEquals(unmatchedParamFor("Kept part"), List.of("car-1"),
+                carInventoryIndex.filter(filterOf(null, null, null, Set.of("part-2")), 10).getCarIds());
+        assertEquals(unmatchedParamFor("Makes"), Map.of("Ford", 2, "Opel", 1),
+                carInventoryIndex.filter(null, 10).getMakeCounts());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_whenBucketsDoNotAscend_expectException() {
+        new CarInventoryIndex(carRepository, new long[]{0, 100_000, 50_000}, 10);
+    }
+}
@@ -0,0 +1,157 @@
+package org.softuni.cardealer.search;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class CatalogSearchIndexTests {
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    private CatalogSearchIndex catalogSearchIndex;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        catalogSearchIndex = new CatalogSearchIndex(carRepository, partRepository, 3, 2);
+    }
+
+    @After
+    public void cleanUp() {
+        catalogSearchIndex.destroy();
+    }
+
+    private String savedCar(String make, String model) {
+        Car car = new Car();
+        car.setMake(make);
+        car.setModel(model);
+        car.setTravelledDistance(0L);
+        car.setTotalCost(BigDecimal.ZERO);
+
+        return carRepository.saveAndFlush(car).getId();
+    }
+
+    private String savedPart(String name) {
+        Part part = new Part();
+        part.setName(name);
+        part.setPrice(BigDecimal.TEN);
+
+        return partRepository.saveAndFlush(part).getId();
+    }
+
+    @Test
+    public void rebuild_whenCatalogSpansSeveralPages_expectEveryEntryFound() {
+        String fiesta = savedCar("Ford", "Fiesta");
+        String focus = savedCar("Ford", "Focus");
+        String golf = savedCar("VW", "Golf");
+        String brake = savedPart("Brake Pad");
+        String bulb = savedPart("Bulb");
+
+        catalogSearchIndex.rebuild();
+
+        assertEquals(unmatchedParamFor("Ford"), List.of(fiesta, focus), catalogSearchIndex.searchCars("ford", 10));
+        assertEquals(unmatchedParamFor("Golf"), List.of(golf), catalogSearchIndex.searchCars("GOLF", 10));
+        assertEquals(unmatchedParamFor("Parts"), List.of(brake, bulb), catalogSearchIndex.searchParts("b", 10));
+    }
+
+    @Test
+    public void searchCars_whenQuerySpansMakeAndModel_expectPhraseMatched() {
+        String fiesta = savedCar("Ford", "Fiesta");
+        savedCar("Ford", "Focus");
+        savedCar("Fiat", "Punto");
+        catalogSearchIndex.rebuild();
+
+        assertEquals(unmatchedParamFor("Ids"), List.of(fiesta), catalogSearchIndex.searchCars("  ford   fi", 10));
+        assertEquals(unmatchedParamFor("Ids"), List.of(), catalogSearchIndex.searchCars("fiesta ford", 10));
+    }
+
+    @Test
+    public void searchParts_expectFirstWordMatchesFirstThenInTextOrder() {
+        String wiper = savedPart("Wiper Blade");
+        String blade = savedPart("Blade");
+        String bladeFuse = savedPart("Blade Fuse");
+        String rearWiper = savedPart("rear-wiper blades");
+        catalogSearchIndex.rebuild();
+
+        assertEquals(unmatchedParamFor("Ranking"), List.of(blade, bladeFuse, wiper, rearWiper),
+                catalogSearchIndex.searchParts("blade", 10));
+        assertEquals(unmatchedParamFor("Limit"), List.of(blade, bladeFuse),
+                catalogSearchIndex.searchParts("blade", 2));
+        assertEquals(unmatchedParamFor("Hyphen"), List.of(rearWiper),
+                catalogSearchIndex.searchParts("rear wiper", 10));
+    }
+
+    @Test
+    public void putAndRemove_whenBelowMerge_expectPendingChangesShadowIndex() {
+        String fiesta = savedCar("Ford", "Fiesta");
+        String focus = savedCar("Ford", "Focus");
+        catalogSearchIndex.rebuild();
+
+        catalogSearchIndex.putCar(fiesta, "Ford", "Puma");
+        catalogSearchIndex.removeCar(focus);
+
+        assertEquals(unmatchedParamFor("Edited"), List.of(), catalogSearchIndex.searchCars("ford f", 10));
+        assertEquals(unmatchedParamFor("Edited"), List.of(fiesta), catalogSearchIndex.searchCars("puma", 10));
+        assertEquals(unmatchedParamFor("Pending"), 2, catalogSearchIndex.pendingChanges());
+    }
+
+    @Test
+    public void putPart_whenPendingChangesReachLimit_expectMergedAndRankedWithIndex() throws InterruptedException {
+        String bulb = savedPart("Bulb");
+        catalogSearchIndex.rebuild();
+
+        catalogSearchIndex.putPart("part-1", "Belt");
+        catalogSearchIndex.putPart("part-2", "Wheel Bolt");
+        assertEquals(unmatchedParamFor("Before merge"), List.of("part-1", bulb, "part-2"),
+                catalogSearchIndex.searchParts("b", 10));
+
+        catalogSearchIndex.removePart(bulb);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (catalogSearchIndex.pendingChanges() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(unmatchedParamFor("Pending"), 0, catalogSearchIndex.pendingChanges());
+        assertEquals(unmatchedParamFor("After merge"), List.of("part-1", "part-2"),
+                catalogSearchIndex.searchParts("b", 10));
+    }
+
+    @Test
+    public void search_whenQueryHasNoLettersOrDigits_expectNothing() {
+        savedPart("Bulb");
+        catalogSearchIndex.rebuild();
+
+        assertEquals(unmatchedParamFor("Ids"), List.of(), catalogSearchIndex.searchParts(" -- ", 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void search_whenLimitNotPositive_expectException() {
+        catalogSearchIndex.searchCars("ford", 0);
+    }
+}
@@ -1,41 +1,125 @@
 package org.softuni.cardealer.service;
 
+import org.hibernate.Session;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.cache.SingleFlight;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.CarSale;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.service.CarInventoryFilterServiceModel;
+import org.softuni.cardealer.domain.models.service.CarPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
 import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.CustomerRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.SupplierRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
+import org.softuni.cardealer.sql.StatementCounter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
-@DataJpaTest
+@DataJpaTest(properties = StatementCounter.PROPERTY)
 @RunWith(SpringRunner.class)
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
 public class CarServiceTests {
 
     private CarServiceModel testCar;
 
-    private ModelMapper modelMapper;
+    private CarMapper carMapper;
+    private CatalogSearchIndex catalogSearchIndex;
+    private CarInventoryIndex carInventoryIndex;
     private CarService carService;
 
     @Autowired
     private CarRepository carRepository;
 
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private boolean committed;
+
     private String unmatchedParamFor(String param) {
         return String.format("%s doesn't match!", param);
     }
 
+    /**
+     * The indexes follow a change only once it has committed, so the tests that check them
+     * commit the test transaction first. The committed rows are deleted after the test.
+     */
+    private void commitTestTransaction() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        committed = true;
+    }
+
+    @After
+    public void deleteCommitted() {
+        if (committed) {
+            carSaleRepository.deleteAll();
+            customerRepository.deleteAll();
+            carRepository.deleteAll();
+            partRepository.deleteAll();
+            supplierRepository.deleteAll();
+        }
+    }
+
     @Before
     public void init() {
-        modelMapper = new ModelMapper();
-        carService = new CarServiceImpl(carRepository, modelMapper);
+        carMapper = Mappers.getMapper(CarMapper.class);
+        catalogSearchIndex = new CatalogSearchIndex(carRepository, partRepository, 4096, 10000);
+        carInventoryIndex = new CarInventoryIndex(carRepository, new long[]{0, 100_000}, 10000);
+        carService = new CarServiceImpl(carRepository, partRepository, carMapper, catalogSearchIndex,
+                carInventoryIndex, new SingleFlight(true, 5000), transactionManager);
 
         testCar = new CarServiceModel();
         testCar.setMake("TestMake");
@@ -47,8 +131,8 @@ public class CarServiceTests {
     public void saveCar_whenSaveCorrectCar_expectSameOne() {
         CarServiceModel actual = carService.saveCar(testCar);
 
-        CarServiceModel expected = modelMapper
-                .map(carRepository.findAll().get(0), CarServiceModel.class);
+        CarServiceModel expected = carMapper
+                .toServiceModel(carRepository.findAll().get(0));
 
         assertEquals(unmatchedParamFor("Id"), expected.getId(), actual.getId());
         assertEquals(unmatchedParamFor("Make"), expected.getMake(), actual.getMake());
@@ -102,6 +186,99 @@ public class CarServiceTests {
         carService.editCar(testCar);
     }
 
+    @Test
+    public void editCar_whenEditCar_expectVersionIncremented() {
+        CarServiceModel car = carService.saveCar(testCar);
+        car.setMake("DifferentTestMake");
+
+        CarServiceModel actual = carService.editCar(car);
+
+        assertEquals(unmatchedParamFor("Version"), Long.valueOf(car.getVersion() + 1), actual.getVersion());
+    }
+
+    @Test
+    public void editCar_whenVersionIsStale_expectEditConflictAndNothingChanged() {
+        CarServiceModel car = carService.saveCar(testCar);
+        CarServiceModel stale = carService.findCarById(car.getId());
+        car.setMake("FirstMake");
+        carService.editCar(car);
+
+        stale.setMake("SecondMake");
+        try {
+            carService.editCar(stale);
+            fail(unmatchedParamFor("Conflict"));
+        } catch (EditConflictException e) {
+            assertEquals(unmatchedParamFor("Expected Version"), stale.getVersion(), e.getExpectedVersion());
+            assertEquals(unmatchedParamFor("Actual Version"), Long.valueOf(stale.getVersion() + 1), e.getActualVersion());
+        }
+
+        assertEquals(unmatchedParamFor("Make"), "FirstMake", carService.findCarById(car.getId()).getMake());
+    }
+
+    @Test
+    public void editCar_whenVersionIsNull_expectEditWithoutCheck() {
+        CarServiceModel car = carService.saveCar(testCar);
+        carService.editCar(carService.findCarById(car.getId()));
+        car.setVersion(null);
+        car.setMake("DifferentTestMake");
+
+        CarServiceModel actual = carService.editCar(car);
+
+        assertEquals(unmatchedParamFor("Make"), "DifferentTestMake", actual.getMake());
+    }
+
+    @Test
+    public void editCar_whenPartAttachedSinceRead_expectEditConflict() {
+        CarServiceModel car = carService.findCarById(savedCarWithSuppliedParts(1).getId());
+        carService.attachPart(car.getId(), savedPart("Wheel", "50.25").getId());
+        car.setMake("DifferentTestMake");
+
+        try {
+            carService.editCar(car);
+            fail(unmatchedParamFor("Conflict"));
+        } catch (EditConflictException expected) {
+            assertCost("60.25", carService.findCarById(car.getId()).getTotalCost());
+        }
+    }
+
+    @Test
+    public void editCarWithChanges_whenConcurrentEditChangedOtherField_expectBothKept() {
+        String id = carService.saveCar(testCar).getId();
+        boolean[] raced = {false};
+
+        CarServiceModel actual = carService.editCar(id, car -> {
+            if (!raced[0]) {
+                raced[0] = true;
+                CarServiceModel concurrent = carService.findCarById(id);
+                concurrent.setModel("ConcurrentModel");
+                carService.editCar(concurrent);
+            }
+            car.setMake("DifferentTestMake");
+        });
+
+        assertEquals(unmatchedParamFor("Make"), "DifferentTestMake", actual.getMake());
+        assertEquals(unmatchedParamFor("Model"), "ConcurrentModel", actual.getModel());
+    }
+
+    @Test
+    public void editCarWithChanges_whenConcurrentEditChangedSameField_expectEditConflict() {
+        String id = carService.saveCar(testCar).getId();
+
+        try {
+            carService.editCar(id, car -> {
+                CarServiceModel concurrent = carService.findCarById(id);
+                concurrent.setMake("ConcurrentMake");
+                carService.editCar(concurrent);
+                car.setMake("DifferentTestMake");
+            });
+            fail(unmatchedParamFor("Conflict"));
+        } catch (EditConflictException e) {
+            assertEquals(unmatchedParamFor("Fields"), Set.of("make"), e.getConflictingFields());
+        }
+
+        assertEquals(unmatchedParamFor("Make"), "ConcurrentMake", carService.findCarById(id).getMake());
+    }
+
     @Test
     public void deleteCar_whenDeletedCar_expectSameCar() {
         CarServiceModel actual = carService.saveCar(testCar);
@@ -142,6 +319,102 @@ public class CarServiceTests {
         carService.deleteCar(null);
     }
 
+    private long partLinks() {
+        return ((Number) entityManager.createNativeQuery("SELECT COUNT(*) FROM parts_cars").getSingleResult()).longValue();
+    }
+
+    @Test
+    public void deleteCars_whenCarsHaveParts_expectCarsAndLinksDeletedAndPartsKept() {
+        Part wheel = savedPart("Wheel", "50.25");
+        Part door = savedPart("Door", "120");
+        CarServiceModel first = carService.saveCar(testCar);
+        CarServiceModel second = carService.saveCar(testCar);
+        CarServiceModel kept = carService.saveCar(testCar);
+        carService.attachPart(first.getId(), wheel.getId());
+        carService.attachPart(first.getId(), door.getId());
+        carService.attachPart(second.getId(), wheel.getId());
+        carService.attachPart(kept.getId(), door.getId());
+        commitTestTransaction();
+        TestTransaction.start();
+
+        int deleted = StatementCounter.expectAtMost(3, entityManager,
+                () -> carService.deleteCars(List.of(first.getId(), second.getId(), first.getId(), "missing")));
+
+        assertEquals(unmatchedParamFor("Deleted"), 2, deleted);
+        assertNull(carRepository.findById(first.getId()).orElse(null));
+        assertNull(carRepository.findById(second.getId()).orElse(null));
+        assertEquals(unmatchedParamFor("Links"), 1, partLinks());
+        assertEquals(unmatchedParamFor("Parts"), 2, partRepository.count());
+        assertEquals(unmatchedParamFor("Kept"), 1, carService.findCarById(kept.getId()).getParts().size());
+
+        commitTestTransaction();
+        assertEquals(unmatchedParamFor("Search"), List.of(kept.getId()), carService.searchCars("testmake", 10));
+        assertEquals(unmatchedParamFor("Inventory"), List.of(kept.getId()),
+                carService.filterInventory(new CarInventoryFilterServiceModel(), 10).getCarIds());
+    }
+
+    @Test
+    public void deleteCars_whenOneCarSold_expectExceptionAndNothingDeleted() {
+        CarServiceModel unsold = carService.saveCar(testCar);
+        CarServiceModel sold = carService.saveCar(testCar);
+        Customer customer = new Customer();
+        customer.setName("TestCustomer");
+        customer.setBirthDate(LocalDate.of(1990, 1, 1));
+        CarSale sale = new CarSale();
+        sale.setCustomer(customerRepository.saveAndFlush(customer));
+        sale.setCar(carRepository.findById(sold.getId()).orElseThrow());
+        sale.setDiscount(0.0);
+        sale.setSaleDate(LocalDateTime.now());
+        carSaleRepository.saveAndFlush(sale);
+        commitTestTransaction();
+
+        try {
+            carService.deleteCars(List.of(unsold.getId(), sold.getId()));
+            fail("The sold car was deleted");
+        } catch (DataIntegrityViolationException e) {
+            assertTrue(unmatchedParamFor("Message"), e.getMessage().contains(sold.getId()));
+            assertFalse(unmatchedParamFor("Message"), e.getMessage().contains(unsold.getId()));
+        }
+
+        assertEquals(unmatchedParamFor("Cars"), 2, carRepository.count());
+        assertEquals(unmatchedParamFor("Search"), 2, carService.searchCars("testmake", 10).size());
+    }
+
+    @Test
+    public void searchCars_whenCarSavedEditedAndDeleted_expectIndexFollows() {
+        CarServiceModel car = carService.saveCar(testCar);
+        assertEquals(unmatchedParamFor("Before Commit"), List.of(), carService.searchCars("testmake", 10));
+
+        commitTestTransaction();
+        assertEquals(unmatchedParamFor("Saved"), List.of(car.getId()), carService.searchCars("testmake test", 10));
+
+        car.setModel("OtherModel");
+        carService.editCar(car);
+        assertEquals(unmatchedParamFor("Edited"), List.of(), carService.searchCars("testmodel", 10));
+        assertEquals(unmatchedParamFor("Edited"), List.of(car.getId()), carService.searchCars("othermodel", 10));
+
+        carService.deleteCar(car.getId());
+        assertEquals(unmatchedParamFor("Deleted"), List.of(), carService.searchCars("testmake", 10));
+    }
+
+    @Test
+    public void filterInventory_whenCarSavedEditedAndDeleted_expectIndexFollows() {
+        CarInventoryFilterServiceModel testMakes = new CarInventoryFilterServiceModel();
+        testMakes.setMakes(Set.of("TestMake"));
+        CarServiceModel car = carService.saveCar(testCar);
+        commitTestTransaction();
+        assertEquals(unmatchedParamFor("Saved"), List.of(car.getId()),
+                carService.filterInventory(testMakes, 10).getCarIds());
+
+        car.setTravelledDistance(150_000L);
+        carService.editCar(car);
+        assertEquals(unmatchedParamFor("Edited"), Map.of(100_000L, 1),
+                carService.filterInventory(testMakes, 10).getDistanceBucketCounts());
+
+        carService.deleteCar(car.getId());
+        assertEquals(unmatchedParamFor("Deleted"), 0, carService.filterInventory(testMakes, 10).getMatchingCount());
+    }
+
     @Test
     public void findCarById_whenFoundCar_expectSameCar() {
         CarServiceModel actual = carService.saveCar(testCar);
@@ -158,4 +431,371 @@ public class CarServiceTests {
     public void findCarById_whenIdIsNull_expectException() {
         carService.findCarById(null);
     }
+
+
+    @Test
+    public void saveCars_whenSaveSeveralCars_expectSavedInInputOrder() {
+        List<CarServiceModel> cars = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CarServiceModel car = new CarServiceModel();
+            car.setMake("TestMake" + i);
+            car.setModel("TestModel" + i);
+            car.setTravelledDistance((long) i);
+            cars.add(car);
+        }
+
+        List<CarServiceModel> actual = carService.saveCars(cars);
+
+        assertEquals(unmatchedParamFor("Count"), cars.size(), carRepository.count());
+        for (int i = 0; i < cars.size(); i++) {
+            assertNotNull(unmatchedParamFor("Id"), actual.get(i).getId());
+            assertEquals(unmatchedParamFor("Make"), cars.get(i).getMake(), actual.get(i).getMake());
+            assertEquals(unmatchedParamFor("Make"), cars.get(i).getMake(),
+                    carRepository.findById(actual.get(i).getId()).orElseThrow().getMake());
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void saveCars_whenOneCarIsInvalid_expectException() {
+        carService.saveCars(List.of(testCar, new CarServiceModel()));
+    }
+
+    private Part savedPart(String name, String price) {
+        Part part = new Part();
+        part.setName(name);
+        part.setPrice(new BigDecimal(price));
+
+        return partRepository.saveAndFlush(part);
+    }
+
+    private CarServiceModel savedCarWithSuppliedParts(int partCount) {
+        CarServiceModel car = carService.saveCar(testCar);
+        for (int i = 0; i < partCount; i++) {
+            Supplier supplier = new Supplier();
+            supplier.setName("Supplier" + i);
+            supplier.setImporter(i % 2 == 0);
+
+            Part part = savedPart("Part" + i, "10");
+            part.setSupplier(supplierRepository.saveAndFlush(supplier));
+            carService.attachPart(car.getId(), part.getId());
+        }
+
+        return car;
+    }
+
+    private static void assertCost(String expected, BigDecimal actual) {
+        assertEquals(String.format("Total Cost doesn't match! expected:<%s> but was:<%s>", expected, actual),
+                0, new BigDecimal(expected).compareTo(actual));
+    }
+
+    @Test
+    public void saveCar_whenCarHasParts_expectTotalCostFromStoredPrices() {
+        Part wheel = savedPart("Wheel", "50.25");
+        Part door = savedPart("Door", "120");
+
+        PartServiceModel staleWheel = new PartServiceModel();
+        staleWheel.setId(wheel.getId());
+        staleWheel.setName(wheel.getName());
+        staleWheel.setPrice(BigDecimal.ONE);
+        PartServiceModel doorModel = new PartServiceModel();
+        doorModel.setId(door.getId());
+        doorModel.setName(door.getName());
+        doorModel.setPrice(door.getPrice());
+        testCar.setParts(List.of(staleWheel, staleWheel, doorModel));
+
+        CarServiceModel actual = carService.saveCar(testCar);
+
+        assertCost("220.50", actual.getTotalCost());
+        assertCost("220.50", carRepository.findById(actual.getId()).orElseThrow().getTotalCost());
+    }
+
+    @Test
+    public void saveCar_whenCarHasNoParts_expectZeroTotalCost() {
+        CarServiceModel actual = carService.saveCar(testCar);
+
+        assertCost("0", actual.getTotalCost());
+    }
+
+    @Test
+    public void attachPart_thenDetachPart_expectTotalCostFollows() {
+        Part wheel = savedPart("Wheel", "50.25");
+        Part door = savedPart("Door", "120");
+        CarServiceModel car = carService.saveCar(testCar);
+
+        carService.attachPart(car.getId(), wheel.getId());
+        CarServiceModel attached = carService.attachPart(car.getId(), door.getId());
+
+        assertCost("170.25", attached.getTotalCost());
+        assertEquals(unmatchedParamFor("Parts"), 2, attached.getParts().size());
+
+        CarServiceModel detached = carService.detachPart(car.getId(), wheel.getId());
+
+        assertCost("120", detached.getTotalCost());
+        assertEquals(unmatchedParamFor("Parts"), 1, detached.getParts().size());
+        assertEquals(unmatchedParamFor("Part"), door.getId(), detached.getParts().get(0).getId());
+    }
+
+    @Test
+    public void attachPart_whenTransactionRollsBack_expectIndexesUnchanged() {
+        Part wheel = savedPart("Wheel", "50.25");
+        CarServiceModel car = carService.saveCar(testCar);
+        CarInventoryFilterServiceModel withWheel = new CarInventoryFilterServiceModel();
+        withWheel.setPartIds(Set.of(wheel.getId()));
+
+        CarServiceModel attached = carService.attachPart(car.getId(), wheel.getId());
+        assertEquals(unmatchedParamFor("Attached"), 1, attached.getParts().size());
+        assertEquals(unmatchedParamFor("Before Commit"), List.of(), carService.filterInventory(withWheel, 10).getCarIds());
+
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        assertEquals(unmatchedParamFor("Rolled Back"), List.of(), carService.filterInventory(withWheel, 10).getCarIds());
+    }
+
+    @Test
+    public void editCar_whenTransactionRollsBack_expectIndexesUnchanged() {
+        CarServiceModel car = carService.saveCar(testCar);
+        commitTestTransaction();
+        TestTransaction.start();
+
+        car.setModel("OtherModel");
+        CarServiceModel edited = carService.editCar(car);
+        assertEquals(unmatchedParamFor("Edited"), "OtherModel", edited.getModel());
+        assertEquals(unmatchedParamFor("Before Commit"), List.of(), carService.searchCars("othermodel", 10));
+
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        assertEquals(unmatchedParamFor("Rolled Back"), List.of(), carService.searchCars("othermodel", 10));
+        assertEquals(unmatchedParamFor("Rolled Back"), List.of(car.getId()), carService.searchCars("testmodel", 10));
+        assertEquals(unmatchedParamFor("Model"), "TestModel", carService.findCarById(car.getId()).getModel());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void detachPart_whenPartNotAttached_expectException() {
+        Part wheel = savedPart("Wheel", "50.25");
+        CarServiceModel car = carService.saveCar(testCar);
+
+        carService.detachPart(car.getId(), wheel.getId());
+    }
+
+    @Test
+    public void rebuildTotalCosts_whenStoredCostIsWrong_expectOnlyThatCarCorrected() {
+        Part wheel = savedPart("Wheel", "50.25");
+        CarServiceModel first = carService.saveCar(testCar);
+        CarServiceModel second = carService.saveCar(testCar);
+        carService.attachPart(first.getId(), wheel.getId());
+        carService.attachPart(second.getId(), wheel.getId());
+        carRepository.addToTotalCost(List.of(first.getId()), BigDecimal.TEN);
+
+        int corrected = carService.rebuildTotalCosts();
+
+        assertEquals(unmatchedParamFor("Corrected"), 1, corrected);
+        assertCost("50.25", carRepository.findById(first.getId()).orElseThrow().getTotalCost());
+        assertCost("50.25", carRepository.findById(second.getId()).orElseThrow().getTotalCost());
+    }
+
+    @Test
+    public void findCarById_whenPartsHaveSuppliers_expectOneStatement() {
+        CarServiceModel car = savedCarWithSuppliedParts(3);
+
+        CarServiceModel actual = StatementCounter.expectAtMost(1, entityManager,
+                () -> carService.findCarById(car.getId()));
+
+        assertEquals(unmatchedParamFor("Parts"), 3, actual.getParts().size());
+        for (PartServiceModel part : actual.getParts()) {
+            assertEquals(unmatchedParamFor("Supplier"), part.getName().replace("Part", "Supplier"),
+                    part.getSupplier().getName());
+        }
+    }
+
+    @Test
+    public void findCarsByIds_whenMissingAndRepeatedIds_expectRequestOrderFromOneStatement() {
+        CarServiceModel withParts = savedCarWithSuppliedParts(2);
+        CarServiceModel withoutParts = carService.saveCar(testCar);
+
+        List<CarServiceModel> actual = StatementCounter.expectAtMost(1, entityManager, () -> carService.findCarsByIds(
+                List.of(withoutParts.getId(), "missing", withParts.getId(), withoutParts.getId())));
+
+        assertEquals(unmatchedParamFor("Count"), 4, actual.size());
+        assertEquals(unmatchedParamFor("First"), withoutParts.getId(), actual.get(0).getId());
+        assertNull(unmatchedParamFor("Missing"), actual.get(1));
+        assertEquals(unmatchedParamFor("Third"), withParts.getId(), actual.get(2).getId());
+        assertEquals(unmatchedParamFor("Parts"), 2, actual.get(2).getParts().size());
+        assertEquals(unmatchedParamFor("Repeated"), withoutParts.getId(), actual.get(3).getId());
+    }
+
+    @Test
+    public void editCar_whenPartsHaveSuppliers_expectLoadAndUpdateOnly() {
+        CarServiceModel car = carService.findCarById(savedCarWithSuppliedParts(3).getId());
+        car.setMake("EditedMake");
+
+        CarServiceModel actual = StatementCounter.expectAtMost(2, entityManager, () -> carService.editCar(car));
+
+        assertEquals(unmatchedParamFor("Make"), "EditedMake", actual.getMake());
+        assertEquals(unmatchedParamFor("Parts"), 3, actual.getParts().size());
+    }
+
+    @Test
+    public void patchCar_whenOneFieldSet_expectOnlyItUpdatedAndCarReadBack() {
+        CarServiceModel car = savedCarWithSuppliedParts(3);
+        CarPatchServiceModel patch = new CarPatchServiceModel();
+        patch.setId(car.getId());
+        patch.setMake("PatchedMake");
+
+        List<String> statements = StatementCounter.record(entityManager, () -> carService.patchCar(patch));
+        CarServiceModel actual = carService.findCarById(car.getId());
+
+        assertEquals(unmatchedParamFor("Statements"), 2, statements.size());
+        assertTrue(unmatchedParamFor("Update"), statements.get(0).startsWith("update cars set make=?, version=version+1"));
+        assertFalse(unmatchedParamFor("Update"), statements.get(0).contains("model"));
+        assertEquals(unmatchedParamFor("Make"), "PatchedMake", actual.getMake());
+        assertEquals(unmatchedParamFor("Model"), testCar.getModel(), actual.getModel());
+        assertEquals(unmatchedParamFor("Parts"), 3, actual.getParts().size());
+        assertEquals(unmatchedParamFor("Version"), Long.valueOf(car.getVersion() + 4), actual.getVersion());
+
+        commitTestTransaction();
+        assertEquals(unmatchedParamFor("Search"), List.of(car.getId()), carService.searchCars("patchedmake", 10));
+    }
+
+    @Test
+    public void patchCar_whenVersionIsStale_expectEditConflictAndNothingChanged() {
+        CarServiceModel car = carService.saveCar(testCar);
+        CarPatchServiceModel patch = new CarPatchServiceModel();
+        patch.setId(car.getId());
+        patch.setVersion(car.getVersion());
+        patch.setModel("FirstModel");
+        carService.patchCar(patch);
+
+        patch.setModel("SecondModel");
+        try {
+            carService.patchCar(patch);
+            fail(unmatchedParamFor("Conflict"));
+        } catch (EditConflictException e) {
+            assertEquals(unmatchedParamFor("Expected Version"), car.getVersion(), e.getExpectedVersion());
+            assertEquals(unmatchedParamFor("Actual Version"), Long.valueOf(car.getVersion() + 1), e.getActualVersion());
+        }
+
+        assertEquals(unmatchedParamFor("Model"), "FirstModel", carService.findCarById(car.getId()).getModel());
+    }
+
+    @Test
+    public void patchCar_whenCarDoesNotExist_expectNotFoundFromUpdateAlone() {
+        CarPatchServiceModel patch = new CarPatchServiceModel();
+        patch.setId("missing");
+        patch.setTravelledDistance(1L);
+
+        List<String> statements = StatementCounter.record(entityManager, () -> {
+            try {
+                carService.patchCar(patch);
+                fail(unmatchedParamFor("Not Found"));
+            } catch (NoSuchElementException expected) {
+                assertTrue(unmatchedParamFor("Message"), expected.getMessage().contains("missing"));
+            }
+        });
+
+        assertEquals(unmatchedParamFor("Statements"), 1, statements.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void patchCar_whenNothingSet_expectException() {
+        CarPatchServiceModel patch = new CarPatchServiceModel();
+        patch.setId(carService.saveCar(testCar).getId());
+
+        carService.patchCar(patch);
+    }
+
+    @Test
+    public void attachPart_whenCarHasParts_expectStatementsBoundedByBatches() {
+        CarServiceModel car = savedCarWithSuppliedParts(20);
+        Part part = savedPart("Extra", "10");
+
+        CarServiceModel actual = StatementCounter.expectAtMost(6, entityManager,
+                () -> carService.attachPart(car.getId(), part.getId()));
+
+        assertEquals(unmatchedParamFor("Parts"), 21, actual.getParts().size());
+        assertCost("210", actual.getTotalCost());
+    }
+
+    @Test
+    public void listCars_whenPagingThroughAll_expectEveryCarOnceInIdOrder() {
+        Part wheel = savedPart("Wheel", "50.25");
+        for (int i = 0; i < 4; i++) {
+            carService.saveCar(testCar);
+        }
+        CarServiceModel withParts = savedCarWithSuppliedParts(2);
+        carService.attachPart(withParts.getId(), wheel.getId());
+        carService.attachPart(withParts.getId(), wheel.getId());
+
+        List<CarServiceModel> listed = new ArrayList<>();
+        PageServiceModel<CarServiceModel> page = carService.listCars(null, 2);
+        listed.addAll(page.getItems());
+        while (page.hasNext()) {
+            page = carService.listCars(page.getNextPageToken(), 2);
+            listed.addAll(page.getItems());
+        }
+
+        List<String> expectedIds = carRepository.findAll().stream()
+                .map(Car::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(unmatchedParamFor("Ids"), expectedIds,
+                listed.stream().map(CarServiceModel::getId).collect(Collectors.toList()));
+        assertEquals(unmatchedParamFor("Parts"), 4, listed.stream()
+                .filter(car -> car.getId().equals(withParts.getId()))
+                .findFirst().orElseThrow().getParts().size());
+    }
+
+    @Test
+    public void listCars_whenPageIsDeep_expectLimitWithoutOffset() {
+        for (int i = 0; i < 5; i++) {
+            savedCarWithSuppliedParts(1);
+        }
+        String token = carService.listCars(carService.listCars(null, 2).getNextPageToken(), 2).getNextPageToken();
+
+        List<PageServiceModel<CarServiceModel>> pages = new ArrayList<>();
+        List<String> statements = StatementCounter.record(entityManager,
+                () -> pages.add(carService.listCars(token, 2)));
+
+        assertEquals(unmatchedParamFor("Statements"), 2, statements.size());
+        assertTrue(unmatchedParamFor("Limit"), statements.get(0).toLowerCase().contains("limit"));
+        assertTrue(unmatchedParamFor("Offset"), statements.stream().noneMatch(sql -> sql.toLowerCase().contains("offset")));
+        assertEquals(unmatchedParamFor("Cars"), 1, pages.get(0).getItems().size());
+        assertFalse(unmatchedParamFor("Next Page"), pages.get(0).hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void listCars_whenTokenIsInvalid_expectException() {
+        carService.listCars("not a token", 10);
+    }
+
+    @Test
+    public void findCarById_whenPartAttachedTwice_expectBothAndNothingManaged() {
+        CarServiceModel car = savedCarWithSuppliedParts(1);
+        Part wheel = savedPart("Wheel", "50.25");
+        carService.attachPart(car.getId(), wheel.getId());
+        carService.attachPart(car.getId(), wheel.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        CarServiceModel actual = carService.findCarById(car.getId());
+
+        assertEquals(unmatchedParamFor("Parts"), 3, actual.getParts().size());
+        assertEquals(unmatchedParamFor("Wheels"), 2, actual.getParts().stream()
+                .filter(part -> part.getId().equals(wheel.getId()))
+                .count());
+        assertCost("110.50", actual.getTotalCost());
+        assertEquals(unmatchedParamFor("Managed Entities"), 0,
+                entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
+
+    @Test
+    public void findCarById_whenCarHasNoParts_expectEmptyParts() {
+        CarServiceModel car = carService.saveCar(testCar);
+
+        CarServiceModel actual = carService.findCarById(car.getId());
+
+        assertEquals(unmatchedParamFor("Make"), testCar.getMake(), actual.getMake());
+        assertTrue(unmatchedParamFor("Parts"), actual.getParts().isEmpty());
+    }
 }
@@ -0,0 +1,165 @@
+package org.softuni.cardealer.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.imports.ImportReport;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CatalogImportServiceTests {
+
+    private CatalogImportService catalogImportService;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Before
+    public void init() {
+        catalogImportService = new CatalogImportServiceImpl(supplierRepository, partRepository, carRepository,
+                transactionManager, 2, 100, 10);
+    }
+
+    @After
+    public void cleanUp() {
+        carRepository.deleteAll();
+        partRepository.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    public void importSuppliers_whenCsv_expectAllSaved() throws IOException {
+        ImportReport report = catalogImportService.importSuppliers(input(
+                "name,importer\n"
+                        + "Bosch,true\r\n"
+                        + "\"Mann, Hummel\",false\n"
+                        + "\n"
+                        + "Valeo,\n"), ImportFormat.CSV, ImportProgressListener.NONE);
+
+        assertEquals(unmatchedParamFor("Imported"), 3, report.getImportedRows());
+        assertEquals(unmatchedParamFor("Failed"), 0, report.getFailedRows());
+
+        Supplier actual = supplierRepository.findById(supplierRepository.findIdByName("Mann, Hummel").orElseThrow())
+                .orElseThrow();
+        assertFalse(unmatchedParamFor("Importer"), actual.isImporter());
+    }
+
+    @Test
+    public void importParts_whenSupplierReferenced_expectResolvedAndErrorsReported() throws IOException {
+        catalogImportService.importSuppliers(input("name,importer\nBosch,true\n"),
+                ImportFormat.CSV, ImportProgressListener.NONE);
+
+        ImportReport report = catalogImportService.importParts(input(
+                "name,price,supplier\n"
+                        + "Spark plug,4.20,Bosch\n"
+                        + "Filter,abc,Bosch\n"
+                        + "Wiper,7,Nobody\n"
+                        + "Bolt,0.10,\n"), ImportFormat.CSV, ImportProgressListener.NONE);
+
+        assertEquals(unmatchedParamFor("Processed"), 4, report.getProcessedRows());
+        assertEquals(unmatchedParamFor("Imported"), 2, report.getImportedRows());
+        assertEquals(unmatchedParamFor("Failed"), 2, report.getFailedRows());
+        assertEquals(unmatchedParamFor("First error row"), 2, report.getErrors().get(0).getRow());
+        assertEquals(unmatchedParamFor("First error"), "Invalid price 'abc'", report.getErrors().get(0).getMessage());
+        assertEquals(unmatchedParamFor("Second error"), "Unknown supplier 'Nobody'", report.getErrors().get(1).getMessage());
+
+        Part sparkPlug = partRepository.findWithSupplierById(partRepository.findIdByName("Spark plug").orElseThrow()).orElseThrow();
+        assertEquals(unmatchedParamFor("Price"), 0, new BigDecimal("4.20").compareTo(sparkPlug.getPrice()));
+        assertEquals(unmatchedParamFor("Supplier"), "Bosch", sparkPlug.getSupplier().getName());
+    }
+
+    @Test
+    public void importCars_whenJsonArray_expectPartsLinked() throws IOException {
+        catalogImportService.importParts(input(
+                "{\"name\": \"Wheel\", \"price\": 50}\n{\"name\": \"Door\", \"price\": 120.5}"),
+                ImportFormat.JSON, ImportProgressListener.NONE);
+
+        ImportReport report = catalogImportService.importCars(input("["
+                        + "{\"make\": \"Opel\", \"model\": \"Astra\", \"travelledDistance\": 1000, \"parts\": [\"Wheel\", \"Door\"]},"
+                        + "{\"make\": \"Opel\", \"model\": \"Corsa\", \"travelledDistance\": 20, \"parts\": []},"
+                        + "{\"make\": \"Audi\", \"model\": \"A4\", \"travelledDistance\": 5, \"parts\": [\"Roof\"]}"
+                        + "]"), ImportFormat.JSON, ImportProgressListener.NONE);
+
+        assertEquals(unmatchedParamFor("Imported"), 2, report.getImportedRows());
+        assertEquals(unmatchedParamFor("Error"), "Unknown part 'Roof'", report.getErrors().get(0).getMessage());
+        assertEquals(unmatchedParamFor("Cars"), 2, carRepository.count());
+        assertEquals(unmatchedParamFor("Links"), Integer.valueOf(2),
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM parts_cars", Integer.class));
+        assertEquals(unmatchedParamFor("Total Cost"), 0, new BigDecimal("170.5").compareTo(
+                jdbcTemplate.queryForObject("SELECT total_cost FROM cars WHERE model = 'Astra'", BigDecimal.class)));
+    }
+
+    @Test
+    public void importSuppliers_whenRowFailsInDatabase_expectOnlyThatRowRejected() throws IOException {
+        String tooLong = "x".repeat(300);
+
+        ImportReport report = catalogImportService.importSuppliers(input(
+                "name\nFirst\n" + tooLong + "\nThird\n"), ImportFormat.CSV, ImportProgressListener.NONE);
+
+        assertEquals(unmatchedParamFor("Imported"), 2, report.getImportedRows());
+        assertEquals(unmatchedParamFor("Failed row"), 2, report.getErrors().get(0).getRow());
+        assertEquals(unmatchedParamFor("Suppliers"), 2, supplierRepository.count());
+    }
+
+    @Test
+    public void importSuppliers_whenManyChunks_expectProgressAfterEachChunk() throws IOException {
+        List<Long> progress = new ArrayList<>();
+
+        catalogImportService.importSuppliers(input("name\na\nb\nc\nd\ne\n"), ImportFormat.CSV,
+                report -> progress.add(report.getProcessedRows()));
+
+        assertEquals(unmatchedParamFor("Progress"), List.of(2L, 4L, 5L), progress);
+    }
+
+    @Test(expected = IOException.class)
+    public void importSuppliers_whenCsvQuoteUnterminated_expectException() throws IOException {
+        catalogImportService.importSuppliers(input("name\n\"Bosch\n"), ImportFormat.CSV, ImportProgressListener.NONE);
+    }
+}
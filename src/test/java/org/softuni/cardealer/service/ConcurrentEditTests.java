@@ -0,0 +1,217 @@
+package org.softuni.cardealer.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.cache.SingleFlight;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.SupplierRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Edits the same car, which has a part from a supplier, from several threads at once, each
+ * edit in its own transaction as it would come from a separate terminal.
+ */
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ConcurrentEditTests {
+
+    private static final int THREADS = 4;
+    private static final int EDITS_PER_THREAD = 25;
+
+    private CarService carService;
+    private String carId;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        carService = new CarServiceImpl(carRepository, partRepository, Mappers.getMapper(CarMapper.class),
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new SingleFlight(true, 5000), transactionManager);
+
+        Supplier supplier = new Supplier();
+        supplier.setName("TestSupplier");
+        supplier.setImporter(true);
+        Part part = new Part();
+        part.setName("TestPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setSupplier(supplierRepository.saveAndFlush(supplier));
+
+        CarServiceModel car = new CarServiceModel();
+        car.setMake("TestMake");
+        car.setModel("TestModel");
+        car.setTravelledDistance(0L);
+        car.setParts(List.of(Mappers.getMapper(PartMapper.class).toServiceModel(partRepository.saveAndFlush(part))));
+        carId = carService.saveCar(car).getId();
+    }
+
+    @After
+    public void cleanUp() {
+        carRepository.deleteAll();
+        partRepository.deleteAll();
+        supplierRepository.deleteAll();
+    }
+
+    @Test
+    public void editCar_whenThreadsIncrementSameField_expectNoUpdateLost() throws Exception {
+        AtomicInteger conflicts = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < EDITS_PER_THREAD; i++) {
+                while (true) {
+                    CarServiceModel car = carService.findCarById(carId);
+                    car.setTravelledDistance(car.getTravelledDistance() + 1);
+                    try {
+                        carService.editCar(car);
+                        break;
+                    } catch (EditConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+            }
+        });
+
+        CarServiceModel actual = carService.findCarById(carId);
+        assertEquals(unmatchedParamFor("Travelled Distance"),
+                Long.valueOf(THREADS * EDITS_PER_THREAD), actual.getTravelledDistance());
+        assertEquals(unmatchedParamFor("Version"), Long.valueOf(THREADS * EDITS_PER_THREAD), actual.getVersion());
+        assertTrue(unmatchedParamFor("Conflicts"), conflicts.get() > 0);
+    }
+
+    @Test
+    public void editCarWithChanges_whenThreadsChangeDifferentFields_expectAllMerged() throws Exception {
+        runConcurrently(3, thread -> {
+            for (int i = 1; i <= EDITS_PER_THREAD; i++) {
+                long value = i;
+                retryWhileRacing(() -> carService.editCar(carId, car -> {
+                    if (thread == 0) {
+                        car.setMake("Make" + value);
+                    } else if (thread == 1) {
+                        car.setModel("Model" + value);
+                    } else {
+                        car.setTravelledDistance(value);
+                    }
+                }));
+            }
+        });
+
+        CarServiceModel actual = carService.findCarById(carId);
+        assertEquals(unmatchedParamFor("Supplier"), "TestSupplier", actual.getParts().get(0).getSupplier().getName());
+        assertEquals(unmatchedParamFor("Make"), "Make" + EDITS_PER_THREAD, actual.getMake());
+        assertEquals(unmatchedParamFor("Model"), "Model" + EDITS_PER_THREAD, actual.getModel());
+        assertEquals(unmatchedParamFor("Travelled Distance"),
+                Long.valueOf(EDITS_PER_THREAD), actual.getTravelledDistance());
+    }
+
+    @Test
+    public void editCarWithChanges_whenThreadsChangeSameField_expectConflictsNamingIt() throws Exception {
+        AtomicInteger edits = new AtomicInteger();
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < EDITS_PER_THREAD; i++) {
+                String make = String.format("Make%d-%d", thread, i);
+                try {
+                    carService.editCar(carId, car -> car.setMake(make));
+                    edits.incrementAndGet();
+                } catch (EditConflictException e) {
+                    assertTrue(unmatchedParamFor("Fields"), e.getConflictingFields().isEmpty()
+                            || e.getConflictingFields().equals(Set.of("make")));
+                }
+            }
+        });
+
+        assertEquals(unmatchedParamFor("Version"), Long.valueOf(edits.get()), carService.findCarById(carId).getVersion());
+    }
+
+    /**
+     * Retries an edit that gave up after {@link OptimisticEdits#MAX_ATTEMPTS} races, failing on
+     * a conflict over the same fields, which these edits should never have.
+     */
+    private static void retryWhileRacing(Runnable edit) {
+        while (true) {
+            try {
+                edit.run();
+                return;
+            } catch (EditConflictException e) {
+                assertTrue("Overlapping edits: " + e.getConflictingFields(), e.getConflictingFields().isEmpty());
+            }
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(int threads, ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int thread = i;
+                Callable<Void> task = () -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                };
+                futures.add(executor.submit(task));
+            }
+            start.countDown();
+
+            for (Future<Void> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
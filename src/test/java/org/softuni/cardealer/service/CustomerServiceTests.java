@@ -3,17 +3,26 @@ package org.softuni.cardealer.service;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.models.service.CustomerPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.mapper.CustomerMapper;
 import org.softuni.cardealer.repository.CustomerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
@@ -23,20 +32,23 @@ import static org.junit.Assert.*;
 public class CustomerServiceTests {
     private CustomerServiceModel testCustomer;
 
-    private ModelMapper modelMapper;
+    private CustomerMapper customerMapper;
     private CustomerService customerService;
 
     @Autowired
     private CustomerRepository customerRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private String unmatchedParamFor(String param) {
         return String.format("%s doesn't match!", param);
     }
 
     @Before
     public void init() {
-        modelMapper = new ModelMapper();
-        customerService = new CustomerServiceImpl(customerRepository, modelMapper);
+        customerMapper = Mappers.getMapper(CustomerMapper.class);
+        customerService = new CustomerServiceImpl(customerRepository, customerMapper, transactionManager);
 
         testCustomer = new CustomerServiceModel();
         testCustomer.setName("TestName");
@@ -48,8 +60,8 @@ public class CustomerServiceTests {
     public void saveCustomer_whenSaveCorrectCustomer_expectSameOne() {
         CustomerServiceModel actual = customerService.saveCustomer(testCustomer);
 
-        CustomerServiceModel expected = modelMapper
-                .map(customerRepository.findAll().get(0), CustomerServiceModel.class);
+        CustomerServiceModel expected = customerMapper
+                .toServiceModel(customerRepository.findAll().get(0));
 
         assertEquals(unmatchedParamFor("Id"), expected.getId(), actual.getId());
         assertEquals(unmatchedParamFor("Name"), expected.getName(), actual.getName());
@@ -57,6 +69,19 @@ public class CustomerServiceTests {
         assertEquals(unmatchedParamFor("Young Driver"), expected.isYoungDriver(), actual.isYoungDriver());
     }
 
+    @Test
+    public void findCustomersByIds_whenOneMissing_expectNullInItsPlace() {
+        CustomerServiceModel first = customerService.saveCustomer(testCustomer);
+        CustomerServiceModel second = customerService.saveCustomer(testCustomer);
+
+        List<CustomerServiceModel> actual = customerService.findCustomersByIds(
+                List.of(second.getId(), "missing", first.getId()));
+
+        assertEquals(unmatchedParamFor("First"), second.getId(), actual.get(0).getId());
+        assertNull(unmatchedParamFor("Missing"), actual.get(1));
+        assertEquals(unmatchedParamFor("Third"), first.getId(), actual.get(2).getId());
+    }
+
     @Test(expected = Exception.class)
     public void saveCustomer_whenSaveNullCustomer_expectException(){
         customerService.saveCustomer(new CustomerServiceModel());
@@ -93,6 +118,31 @@ public class CustomerServiceTests {
         assertEquals(unmatchedParamFor("Young Driver"), expected.isYoungDriver(), actual.isYoungDriver());
     }
 
+    @Test
+    public void patchCustomer_whenOnlyYoungDriverSet_expectOtherFieldsKept() {
+        CustomerServiceModel customer = customerService.saveCustomer(testCustomer);
+        CustomerPatchServiceModel patch = new CustomerPatchServiceModel();
+        patch.setId(customer.getId());
+        patch.setVersion(customer.getVersion());
+        patch.setYoungDriver(false);
+
+        CustomerServiceModel actual = customerService.patchCustomer(patch);
+
+        assertFalse(unmatchedParamFor("Young Driver"), actual.isYoungDriver());
+        assertEquals(unmatchedParamFor("Name"), testCustomer.getName(), actual.getName());
+        assertEquals(unmatchedParamFor("Birth Date"), testCustomer.getBirthDate(), actual.getBirthDate());
+        assertEquals(unmatchedParamFor("Version"), Long.valueOf(customer.getVersion() + 1), actual.getVersion());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void patchCustomer_whenCustomerDoesNotExist_expectException() {
+        CustomerPatchServiceModel patch = new CustomerPatchServiceModel();
+        patch.setId("missing");
+        patch.setName("TestName");
+
+        customerService.patchCustomer(patch);
+    }
+
     @Test(expected = Exception.class)
     public void editCustomer_whenIdIsNull_expectException() {
         customerService.saveCustomer(testCustomer);
@@ -160,4 +210,59 @@ public class CustomerServiceTests {
     public void findCustomerById_whenIdIsNull_expectException() {
         customerService.findCustomerById(null);
     }
+
+
+    @Test
+    public void saveCustomers_whenSaveSeveralCustomers_expectSavedInInputOrder() {
+        List<CustomerServiceModel> customers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            CustomerServiceModel customer = new CustomerServiceModel();
+            customer.setName("TestName" + i);
+            customer.setBirthDate(LocalDate.now().minusYears(i));
+            customers.add(customer);
+        }
+
+        List<CustomerServiceModel> actual = customerService.saveCustomers(customers);
+
+        assertEquals(unmatchedParamFor("Count"), customers.size(), customerRepository.count());
+        for (int i = 0; i < customers.size(); i++) {
+            assertNotNull(unmatchedParamFor("Id"), actual.get(i).getId());
+            assertEquals(unmatchedParamFor("Name"), customers.get(i).getName(), actual.get(i).getName());
+            assertEquals(unmatchedParamFor("Name"), customers.get(i).getName(),
+                    customerRepository.findById(actual.get(i).getId()).orElseThrow().getName());
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void saveCustomers_whenOneCustomerIsInvalid_expectException() {
+        customerService.saveCustomers(List.of(testCustomer, new CustomerServiceModel()));
+    }
+
+    @Test
+    public void listCustomers_whenPagingThroughAll_expectEveryCustomerOnceInIdOrder() {
+        for (int i = 0; i < 7; i++) {
+            customerService.saveCustomer(testCustomer);
+        }
+
+        List<String> listedIds = new ArrayList<>();
+        PageServiceModel<CustomerServiceModel> page = customerService.listCustomers(null, 3);
+        page.getItems().forEach(customer -> listedIds.add(customer.getId()));
+        while (page.hasNext()) {
+            assertEquals(unmatchedParamFor("Page Size"), 3, page.getItems().size());
+            page = customerService.listCustomers(page.getNextPageToken(), 3);
+            page.getItems().forEach(customer -> listedIds.add(customer.getId()));
+        }
+
+        List<String> expectedIds = customerRepository.findAll().stream()
+                .map(Customer::getId)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(unmatchedParamFor("Ids"), expectedIds, listedIds);
+        assertEquals(unmatchedParamFor("Name"), "TestName", page.getItems().get(0).getName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void listCustomers_whenPageSizeIsZero_expectException() {
+        customerService.listCustomers(null, 0);
+    }
 }
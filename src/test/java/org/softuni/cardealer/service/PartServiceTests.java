@@ -1,43 +1,120 @@
 package org.softuni.cardealer.service;
 
+import org.hibernate.Session;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.cache.CatalogCache;
+import org.softuni.cardealer.cache.SingleFlight;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.PartSale;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.service.CarInventoryFilterServiceModel;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.PartPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SupplierMapper;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.CustomerRepository;
 import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.softuni.cardealer.repository.SupplierRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
+import org.softuni.cardealer.sql.StatementCounter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertEquals;
 
-@DataJpaTest
+@DataJpaTest(properties = StatementCounter.PROPERTY)
 @RunWith(SpringRunner.class)
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
 public class PartServiceTests {
 
     private PartServiceModel testPart;
 
-    private ModelMapper modelMapper;
+    private PartMapper partMapper;
+    private CatalogCache catalogCache;
+    private CatalogSearchIndex catalogSearchIndex;
+    private CarInventoryIndex carInventoryIndex;
     private PartService partService;
+    private boolean committed;
 
     @Autowired
     private PartRepository partRepository;
 
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private String unmatchedParamFor(String param) {
         return String.format("%s doesn't match!", param);
     }
 
+    /**
+     * Commits what the test has done so far, for what only happens once a change has
+     * committed. The committed rows are deleted after the test.
+     */
+    private void commitTestTransaction() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        committed = true;
+    }
+
+    @After
+    public void deleteCommitted() {
+        if (committed) {
+            carRepository.deleteAll();
+            partRepository.deleteAll();
+        }
+    }
+
     @Before
     public void init() {
-        modelMapper = new ModelMapper();
-        partService = new PartServiceImpl(partRepository, modelMapper);
+        partMapper = Mappers.getMapper(PartMapper.class);
+        catalogCache = new CatalogCache(100, 60, partMapper, Mappers.getMapper(SupplierMapper.class),
+                new SingleFlight(true, 5000));
+        catalogSearchIndex = new CatalogSearchIndex(carRepository, partRepository, 4096, 10000);
+        carInventoryIndex = new CarInventoryIndex(carRepository, new long[]{0}, 10000);
+        partService = new PartServiceImpl(partRepository, carRepository, partMapper, catalogCache, catalogSearchIndex,
+                carInventoryIndex, new StockReservations(false, 1, 0), transactionManager);
 
         testPart = new PartServiceModel();
         testPart.setName("TestName");
@@ -48,8 +125,8 @@ public class PartServiceTests {
     public void savePart_whenSaveCorrectPart_expectSameOne() {
         PartServiceModel actual = partService.savePart(testPart);
 
-        PartServiceModel expected = modelMapper
-                .map(partRepository.findAll().get(0), PartServiceModel.class);
+        PartServiceModel expected = partMapper
+                .toServiceModel(partRepository.findAll().get(0));
 
         assertEquals(unmatchedParamFor("Id"), expected.getId(), actual.getId());
         assertEquals(unmatchedParamFor("Name"), expected.getName(), actual.getName());
@@ -88,6 +165,71 @@ public class PartServiceTests {
         assertEquals(unmatchedParamFor("Price"), expected.getPrice(), actual.getPrice());
     }
 
+    @Test
+    public void editPart_whenVersionIsStale_expectEditConflictAndCurrentPartRead() {
+        PartServiceModel part = partService.savePart(testPart);
+        PartServiceModel stale = partService.findPartById(part.getId());
+        part.setPrice(BigDecimal.ONE);
+        partService.editPart(part);
+
+        stale.setName("DifferentTestName");
+        try {
+            partService.editPart(stale);
+            fail(unmatchedParamFor("Conflict"));
+        } catch (EditConflictException e) {
+            assertEquals(unmatchedParamFor("Id"), part.getId(), e.getId());
+        }
+
+        PartServiceModel actual = partService.findPartById(part.getId());
+        assertEquals(unmatchedParamFor("Name"), testPart.getName(), actual.getName());
+        assertEquals(unmatchedParamFor("Version"), Long.valueOf(stale.getVersion() + 1), actual.getVersion());
+    }
+
+    @Test
+    public void editPartWithChanges_whenPriceChanged_expectCarTotalCostFollows() {
+        PartServiceModel part = partService.savePart(testPart);
+        Car car = new Car();
+        car.setMake("TestMake");
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+        car.setTotalCost(BigDecimal.TEN);
+        car.setParts(List.of(partRepository.findById(part.getId()).orElseThrow()));
+        String carId = carRepository.saveAndFlush(car).getId();
+
+        partService.editPart(part.getId(), edit -> edit.setPrice(BigDecimal.ONE));
+
+        assertEquals(unmatchedParamFor("Total Cost"), 0,
+                BigDecimal.ONE.compareTo(carRepository.findById(carId).orElseThrow().getTotalCost()));
+    }
+
+    @Test
+    public void editPart_whenStockTakenSinceRead_expectStockKept() {
+        testPart.setStock(5);
+        PartServiceModel part = partService.savePart(testPart);
+        partRepository.takeStock(part.getId(), 2);
+
+        part.setName("DifferentTestName");
+        PartServiceModel actual = partService.editPart(part);
+
+        assertEquals(unmatchedParamFor("Name"), "DifferentTestName", actual.getName());
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(3), partService.findStock(part.getId()));
+    }
+
+    @Test
+    public void addStock_whenStockNotTracked_expectTrackedFromZero() {
+        PartServiceModel part = partService.savePart(testPart);
+
+        int actual = partService.addStock(part.getId(), 7);
+
+        assertEquals(unmatchedParamFor("Stock"), 7, actual);
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(7), partService.findStock(part.getId()));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void findStock_whenPartDoesNotExist_expectException() {
+        partService.findStock("missing");
+    }
+
     @Test(expected = Exception.class)
     public void editPart_whenIdIsNull_expectException() {
         partService.savePart(testPart);
@@ -138,11 +280,348 @@ public class PartServiceTests {
         PartServiceModel expected = partService.findPartById(actual.getId());
 
         assertEquals(unmatchedParamFor("Name"), expected.getName(), actual.getName());
-        assertEquals(unmatchedParamFor("Price"), expected.getPrice(), actual.getPrice());
+        assertEquals(unmatchedParamFor("Price"), 0, expected.getPrice().compareTo(actual.getPrice()));
     }
 
     @Test(expected = Exception.class)
     public void findPartById_whenIdIsNull_expectException() {
         partService.findPartById(null);
     }
+
+
+    @Test
+    public void saveParts_whenSaveSeveralParts_expectSavedInInputOrder() {
+        List<PartServiceModel> parts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            PartServiceModel part = new PartServiceModel();
+            part.setName("TestName" + i);
+            part.setPrice(BigDecimal.valueOf(i));
+            parts.add(part);
+        }
+
+        List<PartServiceModel> actual = partService.saveParts(parts);
+
+        assertEquals(unmatchedParamFor("Count"), parts.size(), partRepository.count());
+        for (int i = 0; i < parts.size(); i++) {
+            assertNotNull(unmatchedParamFor("Id"), actual.get(i).getId());
+            assertEquals(unmatchedParamFor("Name"), parts.get(i).getName(), actual.get(i).getName());
+            assertEquals(unmatchedParamFor("Name"), parts.get(i).getName(),
+                    partRepository.findById(actual.get(i).getId()).orElseThrow().getName());
+        }
+    }
+
+    @Test
+    public void saveParts_whenSaveExistingPartsWithSupplier_expectSupplierMapped() {
+        Supplier supplier = new Supplier();
+        supplier.setName("Supplier");
+        supplier = supplierRepository.saveAndFlush(supplier);
+        List<PartServiceModel> parts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Part part = new Part();
+            part.setName("TestName" + i);
+            part.setPrice(BigDecimal.valueOf(i));
+            part.setSupplier(supplier);
+            PartServiceModel model = partMapper.toServiceModel(partRepository.saveAndFlush(part));
+            model.setName("Renamed" + i);
+            model.getSupplier().setName(null);
+            parts.add(model);
+        }
+        entityManager.clear();
+
+        List<PartServiceModel> actual = partService.saveParts(parts);
+
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals(unmatchedParamFor("Name"), "Renamed" + i, actual.get(i).getName());
+            assertEquals(unmatchedParamFor("Supplier"), "Supplier", actual.get(i).getSupplier().getName());
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void saveParts_whenOnePartIsInvalid_expectException() {
+        partService.saveParts(List.of(testPart, new PartServiceModel()));
+    }
+
+    @Test
+    public void findPartById_whenFoundTwice_expectSecondLookupFromCache() {
+        PartServiceModel part = partService.savePart(testPart);
+        commitTestTransaction();
+
+        partService.findPartById(part.getId());
+        partService.findPartById(part.getId());
+
+        assertEquals(unmatchedParamFor("Misses"), 1, catalogCache.partStats().missCount());
+        assertEquals(unmatchedParamFor("Hits"), 1, catalogCache.partStats().hitCount());
+    }
+
+    @Test
+    public void findPartsByIds_whenOneCached_expectOthersFromOneStatementInRequestOrder() {
+        PartServiceModel cached = partService.savePart(testPart);
+        PartServiceModel uncached = partService.savePart(testPart);
+        commitTestTransaction();
+        partService.findPartById(cached.getId());
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<PartServiceModel> actual = readOnly.execute(status -> StatementCounter.expectAtMost(1, entityManager,
+                () -> partService.findPartsByIds(List.of(uncached.getId(), "missing", cached.getId()))));
+
+        assertEquals(unmatchedParamFor("First"), uncached.getId(), actual.get(0).getId());
+        assertNull(unmatchedParamFor("Missing"), actual.get(1));
+        assertEquals(unmatchedParamFor("Third"), cached.getId(), actual.get(2).getId());
+        assertEquals(unmatchedParamFor("Hits"), 1, catalogCache.partStats().hitCount());
+        assertEquals(unmatchedParamFor("Cached"), uncached.getName(), partService.findPartById(uncached.getId()).getName());
+        assertEquals(unmatchedParamFor("Hits"), 2, catalogCache.partStats().hitCount());
+    }
+
+    @Test
+    public void findPartById_whenCallerChangesResult_expectCachedPartUnchanged() {
+        PartServiceModel part = partService.savePart(testPart);
+
+        partService.findPartById(part.getId()).setName("DifferentTestName");
+
+        assertEquals(unmatchedParamFor("Name"), testPart.getName(), partService.findPartById(part.getId()).getName());
+    }
+
+    @Test
+    public void editPart_whenPartIsCached_expectEditedValuesOnNextLookup() {
+        PartServiceModel part = partService.savePart(testPart);
+        partService.findPartById(part.getId());
+
+        part.setPrice(BigDecimal.ONE);
+        partService.editPart(part);
+
+        assertEquals(unmatchedParamFor("Price"), 0,
+                BigDecimal.ONE.compareTo(partService.findPartById(part.getId()).getPrice()));
+    }
+
+    @Test
+    public void editPart_whenCallerRollsBack_expectUncommittedValuesNeverCached() {
+        PartServiceModel part = partService.savePart(testPart);
+        commitTestTransaction();
+        partService.findPartById(part.getId());
+        TestTransaction.start();
+
+        part.setName("UncommittedName");
+        partService.editPart(part);
+        assertEquals(unmatchedParamFor("In Transaction"), "UncommittedName",
+                partService.findPartById(part.getId()).getName());
+
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        assertEquals(unmatchedParamFor("Rolled Back"), testPart.getName(),
+                partService.findPartById(part.getId()).getName());
+        assertEquals(unmatchedParamFor("Misses"), 2, catalogCache.partStats().missCount());
+    }
+
+    @Test
+    public void deletePart_whenPartIsCached_expectPartEvicted() {
+        PartServiceModel part = partService.savePart(testPart);
+        partService.findPartById(part.getId());
+
+        partService.deletePart(part.getId());
+
+        assertNull(partService.findPartById(part.getId()));
+    }
+
+    @Test
+    public void searchParts_whenPartSavedEditedAndDeleted_expectIndexFollows() {
+        PartServiceModel part = partService.savePart(testPart);
+        assertEquals(unmatchedParamFor("Saved"), List.of(part.getId()), partService.searchParts("test", 10));
+
+        part.setName("Brake Disc");
+        partService.editPart(part);
+        assertEquals(unmatchedParamFor("Edited"), List.of(), partService.searchParts("test", 10));
+        assertEquals(unmatchedParamFor("Edited"), List.of(part.getId()), partService.searchParts("disc", 10));
+
+        partService.deletePart(part.getId());
+        assertEquals(unmatchedParamFor("Deleted"), List.of(), partService.searchParts("brake", 10));
+    }
+
+    private Car savedCar(Part... parts) {
+        Car car = new Car();
+        car.setMake("TestMake");
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+        car.setParts(new ArrayList<>(List.of(parts)));
+        car.setTotalCost(List.of(parts).stream().map(Part::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        return carRepository.saveAndFlush(car);
+    }
+
+    @Test
+    public void editPart_whenPriceChanges_expectOnlyCarsWithPartUpdated() {
+        PartServiceModel part = partService.savePart(testPart);
+        Part wheel = partRepository.findById(part.getId()).orElseThrow();
+        testPart.setName("Door");
+        Part door = partRepository.findById(partService.savePart(testPart).getId()).orElseThrow();
+
+        Car once = savedCar(wheel, door);
+        Car twice = savedCar(wheel, wheel);
+        Car without = savedCar(door);
+
+        part.setPrice(new BigDecimal("12.5"));
+        partService.editPart(part);
+
+        assertEquals(unmatchedParamFor("Once"), 0, new BigDecimal("22.5")
+                .compareTo(carRepository.findById(once.getId()).orElseThrow().getTotalCost()));
+        assertEquals(unmatchedParamFor("Twice"), 0, new BigDecimal("25")
+                .compareTo(carRepository.findById(twice.getId()).orElseThrow().getTotalCost()));
+        assertEquals(unmatchedParamFor("Without"), 0, BigDecimal.TEN
+                .compareTo(carRepository.findById(without.getId()).orElseThrow().getTotalCost()));
+    }
+
+    @Test
+    public void patchPart_whenPriceSet_expectCarTotalCostsFollow() {
+        PartServiceModel part = partService.savePart(testPart);
+        Part wheel = partRepository.findById(part.getId()).orElseThrow();
+        Car twice = savedCar(wheel, wheel);
+        PartPatchServiceModel patch = new PartPatchServiceModel();
+        patch.setId(part.getId());
+        patch.setVersion(part.getVersion());
+        patch.setPrice(new BigDecimal("12.5"));
+
+        PartServiceModel actual = partService.patchPart(patch);
+
+        assertEquals(unmatchedParamFor("Price"), 0, new BigDecimal("12.5").compareTo(actual.getPrice()));
+        assertEquals(unmatchedParamFor("Name"), testPart.getName(), actual.getName());
+        assertEquals(unmatchedParamFor("Version"), Long.valueOf(part.getVersion() + 1), actual.getVersion());
+        assertEquals(unmatchedParamFor("Total Cost"), 0, new BigDecimal("25")
+                .compareTo(carRepository.findById(twice.getId()).orElseThrow().getTotalCost()));
+    }
+
+    @Test
+    public void patchPart_whenOnlyNameSet_expectPriceAndStockKeptAndCacheEvicted() {
+        testPart.setStock(5);
+        PartServiceModel part = partService.savePart(testPart);
+        partService.findPartById(part.getId());
+        PartPatchServiceModel patch = new PartPatchServiceModel();
+        patch.setId(part.getId());
+        patch.setName("Brake Disc");
+
+        partService.patchPart(patch);
+        PartServiceModel actual = partService.findPartById(part.getId());
+
+        assertEquals(unmatchedParamFor("Name"), "Brake Disc", actual.getName());
+        assertEquals(unmatchedParamFor("Price"), 0, BigDecimal.TEN.compareTo(actual.getPrice()));
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(5), partService.findStock(part.getId()));
+        assertEquals(unmatchedParamFor("Search"), List.of(part.getId()), partService.searchParts("disc", 10));
+    }
+
+    @Test
+    public void deleteParts_whenPartsAttached_expectDetachedAndCarTotalCostsFollow() {
+        Part wheel = partRepository.findById(partService.savePart(testPart).getId()).orElseThrow();
+        testPart.setName("Door");
+        Part door = partRepository.findById(partService.savePart(testPart).getId()).orElseThrow();
+        testPart.setName("Seat");
+        Part seat = partRepository.findById(partService.savePart(testPart).getId()).orElseThrow();
+        Car once = savedCar(wheel, door);
+        Car twice = savedCar(wheel, wheel, seat);
+        carInventoryIndex.rebuild();
+        partService.findPartById(wheel.getId());
+
+        int deleted = StatementCounter.expectAtMost(6, entityManager,
+                () -> partService.deleteParts(List.of(wheel.getId(), seat.getId(), "missing")));
+
+        assertEquals(unmatchedParamFor("Deleted"), 2, deleted);
+        assertEquals(unmatchedParamFor("Parts"), 1, partRepository.count());
+        assertEquals(unmatchedParamFor("Once"), 0, BigDecimal.TEN
+                .compareTo(carRepository.findById(once.getId()).orElseThrow().getTotalCost()));
+        assertEquals(unmatchedParamFor("Twice"), 0, BigDecimal.ZERO
+                .compareTo(carRepository.findById(twice.getId()).orElseThrow().getTotalCost()));
+        assertEquals(unmatchedParamFor("Twice Parts"), 0,
+                carRepository.findWithPartsById(twice.getId()).orElseThrow().getParts().size());
+        assertEquals(unmatchedParamFor("Before Commit"), List.of(wheel.getId()), partService.searchParts("testname", 10));
+
+        commitTestTransaction();
+        assertNull(partService.findPartById(wheel.getId()));
+        assertEquals(unmatchedParamFor("Searched"), List.of(), partService.searchParts("testname", 10));
+        assertEquals(unmatchedParamFor("Searched"), List.of(door.getId()), partService.searchParts("door", 10));
+
+        CarInventoryFilterServiceModel withDoor = new CarInventoryFilterServiceModel();
+        withDoor.setPartIds(Set.of(door.getId()));
+        assertEquals(unmatchedParamFor("With Door"), List.of(once.getId()), carInventoryIndex.filter(withDoor, 10).getCarIds());
+    }
+
+    @Test
+    public void deleteParts_whenOnePartSold_expectExceptionAndNothingDeleted() {
+        PartServiceModel unsold = partService.savePart(testPart);
+        PartServiceModel sold = partService.savePart(testPart);
+        Car car = savedCar(partRepository.findById(unsold.getId()).orElseThrow());
+        Customer customer = new Customer();
+        customer.setName("TestCustomer");
+        customer.setBirthDate(LocalDate.of(1990, 1, 1));
+        PartSale sale = new PartSale();
+        sale.setCustomer(customerRepository.saveAndFlush(customer));
+        sale.setPart(partRepository.findById(sold.getId()).orElseThrow());
+        sale.setQuantity(1);
+        sale.setDiscount(0.0);
+        sale.setSaleDate(LocalDateTime.now());
+        partSaleRepository.saveAndFlush(sale);
+
+        try {
+            partService.deleteParts(List.of(unsold.getId(), sold.getId()));
+            fail("The sold part was deleted");
+        } catch (DataIntegrityViolationException e) {
+            assertTrue(unmatchedParamFor("Message"), e.getMessage().contains(sold.getId()));
+        }
+
+        assertEquals(unmatchedParamFor("Parts"), 2, partRepository.count());
+        assertEquals(unmatchedParamFor("Total Cost"), 0, BigDecimal.TEN
+                .compareTo(carRepository.findById(car.getId()).orElseThrow().getTotalCost()));
+    }
+
+    @Test
+    public void findPartById_whenPartHasSupplier_expectOneStatement() {
+        Supplier supplier = new Supplier();
+        supplier.setName("TestSupplier");
+        supplier.setImporter(true);
+        Part part = partMapper.toEntity(testPart);
+        part.setSupplier(supplierRepository.saveAndFlush(supplier));
+        partRepository.saveAndFlush(part);
+
+        PartServiceModel actual = StatementCounter.expectAtMost(1, entityManager,
+                () -> partService.findPartById(part.getId()));
+
+        assertEquals(unmatchedParamFor("Supplier"), supplier.getName(), actual.getSupplier().getName());
+    }
+
+    @Test
+    public void listParts_whenPageIsDeep_expectOneStatementWithoutOffset() {
+        Supplier supplier = new Supplier();
+        supplier.setName("TestSupplier");
+        supplier.setImporter(true);
+        supplier = supplierRepository.saveAndFlush(supplier);
+        for (int i = 0; i < 5; i++) {
+            Part part = new Part();
+            part.setName("Part" + i);
+            part.setPrice(BigDecimal.TEN);
+            part.setSupplier(supplier);
+            partRepository.saveAndFlush(part);
+        }
+        String token = partService.listParts(null, 3).getNextPageToken();
+
+        List<PageServiceModel<PartServiceModel>> pages = new ArrayList<>();
+        List<String> statements = StatementCounter.record(entityManager,
+                () -> pages.add(partService.listParts(token, 3)));
+
+        assertEquals(unmatchedParamFor("Statements"), 1, statements.size());
+        assertFalse(unmatchedParamFor("Offset"), statements.get(0).toLowerCase().contains("offset"));
+        assertEquals(unmatchedParamFor("Parts"), 2, pages.get(0).getItems().size());
+        assertEquals(unmatchedParamFor("Supplier"), "TestSupplier",
+                pages.get(0).getItems().get(0).getSupplier().getName());
+    }
+
+    @Test
+    public void findPartById_whenPartHasNoSupplier_expectNullSupplierAndNothingManaged() {
+        PartServiceModel part = partService.savePart(testPart);
+        entityManager.clear();
+
+        PartServiceModel actual = partService.findPartById(part.getId());
+
+        assertEquals(unmatchedParamFor("Name"), testPart.getName(), actual.getName());
+        assertNull(unmatchedParamFor("Supplier"), actual.getSupplier());
+        assertEquals(unmatchedParamFor("Managed Entities"), 0,
+                entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+    }
 }
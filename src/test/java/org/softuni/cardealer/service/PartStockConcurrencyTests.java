@@ -0,0 +1,163 @@
+package org.softuni.cardealer.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SaleMapper;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Sells the same part from hundreds of threads at once, each sale in its own transaction,
+ * asking for twice the units in stock, and watches the stock while they do.
+ */
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PartStockConcurrencyTests {
+
+    private static final int THREADS = 200;
+    private static final int SALES_PER_THREAD = 2;
+    private static final int STOCK = THREADS * SALES_PER_THREAD / 2;
+    private static final int H2_LOCK_TIMEOUT_MILLIS = 1000;
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    /**
+     * Without reservations the sales queue on the part's row lock, for longer than H2 waits by
+     * default. The embedded test database opens a session per connection, so this reaches them all.
+     */
+    @Before
+    public void init() {
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT 60000");
+    }
+
+    @After
+    public void cleanUp() {
+        jdbcTemplate.execute("SET DEFAULT_LOCK_TIMEOUT " + H2_LOCK_TIMEOUT_MILLIS);
+        partSaleRepository.deleteAll();
+        partRepository.deleteAll();
+    }
+
+    @Test
+    public void salePart_whenThreadsOversellPart_expectStockNeverNegative() throws Exception {
+        sellConcurrently(new StockReservations(false, 1, 0));
+    }
+
+    @Test
+    public void salePart_whenThreadsOversellPartThroughReservations_expectStockNeverNegative() throws Exception {
+        sellConcurrently(new StockReservations(true, 64, 60_000));
+    }
+
+    private void sellConcurrently(StockReservations stockReservations) throws Exception {
+        SaleService saleService = new SaleServiceImpl(carSaleRepository, partSaleRepository, partRepository,
+                Mappers.getMapper(SaleMapper.class), stockReservations, transactionManager);
+
+        Part part = new Part();
+        part.setName("HotPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setStock(STOCK);
+        part = partRepository.saveAndFlush(part);
+        String partId = part.getId();
+        PartSaleServiceModel sale = new PartSaleServiceModel();
+        sale.setPart(Mappers.getMapper(PartMapper.class).toServiceModel(part));
+        sale.setQuantity(1);
+        sale.setDiscount(0.0);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicBoolean selling = new AtomicBoolean(true);
+        List<Integer> negativeStock = new ArrayList<>();
+        Thread watcher = new Thread(() -> {
+            while (selling.get()) {
+                Integer stock = partRepository.findStockById(partId).get(0);
+                if (stock < 0) {
+                    negativeStock.add(stock);
+                }
+            }
+        });
+        watcher.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int s = 0; s < SALES_PER_THREAD; s++) {
+                        try {
+                            saleService.salePart(sale);
+                            sold.incrementAndGet();
+                        } catch (InsufficientStockException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            selling.set(false);
+            watcher.join();
+        }
+
+        assertEquals(unmatchedParamFor("Negative Stock"), List.of(), negativeStock);
+        assertEquals(unmatchedParamFor("Sold"), STOCK, sold.get());
+        assertEquals(unmatchedParamFor("Rejected"), THREADS * SALES_PER_THREAD - STOCK, rejected.get());
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(0), partRepository.findStockById(partId).get(0));
+        assertEquals(unmatchedParamFor("Sales"), STOCK, partSaleRepository.count());
+    }
+}
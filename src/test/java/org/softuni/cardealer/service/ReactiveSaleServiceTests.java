@@ -0,0 +1,177 @@
+package org.softuni.cardealer.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SaleMapper;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * The sales run on the service's own threads, so nothing here is inside a test transaction
+ * and the saved rows are deleted after each test.
+ */
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReactiveSaleServiceTests {
+
+    private static final int DATABASE_THREADS = 2;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SaleService saleService;
+    private ReactiveSaleServiceImpl reactiveSaleService;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        saleService = new SaleServiceImpl(carSaleRepository, partSaleRepository, partRepository,
+                Mappers.getMapper(SaleMapper.class), new StockReservations(false, 1, 0), transactionManager);
+        reactiveSaleService = new ReactiveSaleServiceImpl(saleService, DATABASE_THREADS);
+    }
+
+    @After
+    public void cleanUp() {
+        reactiveSaleService.destroy();
+        partSaleRepository.deleteAll();
+        partRepository.deleteAll();
+    }
+
+    private Part savedPartInStock(int stock) {
+        Part part = new Part();
+        part.setName("StockedPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setStock(stock);
+
+        return partRepository.saveAndFlush(part);
+    }
+
+    private PartSaleServiceModel partSaleOf(Part part, int quantity) {
+        PartSaleServiceModel sale = new PartSaleServiceModel();
+        sale.setPart(Mappers.getMapper(PartMapper.class).toServiceModel(part));
+        sale.setQuantity(quantity);
+        sale.setDiscount(0.0);
+
+        return sale;
+    }
+
+    private Integer stockOf(Part part) {
+        return partRepository.findStockById(part.getId()).get(0);
+    }
+
+    @Test
+    public void salePart_whenSubscribed_expectSaleSavedOnDatabaseThread() {
+        Part part = savedPartInStock(5);
+
+        StepVerifier.create(reactiveSaleService.salePart(partSaleOf(part, 2))
+                .map(sale -> Thread.currentThread().getName()))
+                .assertNext(thread -> assertTrue(unmatchedParamFor("Thread"), thread.startsWith("sale-database")))
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(3), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 1, partSaleRepository.count());
+    }
+
+    @Test
+    public void salePart_whenNotSubscribed_expectNothingSaved() {
+        Part part = savedPartInStock(5);
+
+        Mono<PartSaleServiceModel> sale = reactiveSaleService.salePart(partSaleOf(part, 2));
+
+        assertNotNull(sale);
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(5), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 0, partSaleRepository.count());
+    }
+
+    @Test
+    public void salePart_whenTooFewInStock_expectErrorSignalAndNothingSaved() {
+        Part part = savedPartInStock(1);
+
+        StepVerifier.create(reactiveSaleService.salePart(partSaleOf(part, 2)))
+                .expectError(InsufficientStockException.class)
+                .verify(TIMEOUT);
+
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(1), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 0, partSaleRepository.count());
+    }
+
+    @Test
+    public void saleParts_whenOneSaleRequested_expectSubmissionsPulledByDemand() {
+        Part part = savedPartInStock(100);
+        AtomicLong pulled = new AtomicLong();
+        Flux<PartSaleServiceModel> submissions = Flux.range(0, 20)
+                .map(i -> partSaleOf(part, 1))
+                .doOnRequest(pulled::addAndGet);
+
+        StepVerifier.create(reactiveSaleService.saleParts(submissions), 1)
+                .expectNextCount(1)
+                .then(() -> assertTrue(unmatchedParamFor("Pulled"), pulled.get() <= 1 + DATABASE_THREADS))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(19)
+                .expectComplete()
+                .verify(TIMEOUT);
+
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(80), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 20, partSaleRepository.count());
+    }
+
+    @Test
+    public void saleParts_whenSaleFails_expectErrorAndEarlierSalesKept() {
+        reactiveSaleService.destroy();
+        reactiveSaleService = new ReactiveSaleServiceImpl(saleService, 1);
+        Part part = savedPartInStock(2);
+
+        StepVerifier.create(reactiveSaleService.saleParts(Flux.range(0, 5).map(i -> partSaleOf(part, 1))))
+                .expectNextCount(2)
+                .expectError(InsufficientStockException.class)
+                .verify(TIMEOUT);
+
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(0), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 2, partSaleRepository.count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_whenNoDatabaseThreads_expectException() {
+        new ReactiveSaleServiceImpl(saleService, 0);
+    }
+}
@@ -0,0 +1,154 @@
+package org.softuni.cardealer.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.cache.CatalogCache;
+import org.softuni.cardealer.cache.SingleFlight;
+import org.softuni.cardealer.domain.models.service.CarServiceModel;
+import org.softuni.cardealer.domain.models.service.CustomerServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.mapper.CustomerMapper;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SupplierMapper;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.CustomerRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
+import org.softuni.cardealer.sql.StatementCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+@DataJpaTest(properties = StatementCounter.PROPERTY)
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class RequestLookupsTests {
+
+    private CarService carService;
+    private PartService partService;
+    private CustomerService customerService;
+    private RequestLookups requestLookups;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        PartMapper partMapper = Mappers.getMapper(PartMapper.class);
+        CatalogSearchIndex catalogSearchIndex = new CatalogSearchIndex(carRepository, partRepository, 4096, 10000);
+        CarInventoryIndex carInventoryIndex = new CarInventoryIndex(carRepository, new long[]{0}, 10000);
+        SingleFlight singleFlight = new SingleFlight(true, 5000);
+
+        carService = new CarServiceImpl(carRepository, partRepository, Mappers.getMapper(CarMapper.class),
+                catalogSearchIndex, carInventoryIndex, singleFlight, transactionManager);
+        partService = new PartServiceImpl(partRepository, carRepository, partMapper,
+                new CatalogCache(100, 60, partMapper, Mappers.getMapper(SupplierMapper.class), singleFlight),
+                catalogSearchIndex, carInventoryIndex, new StockReservations(false, 1, 0), transactionManager);
+        customerService = new CustomerServiceImpl(customerRepository, Mappers.getMapper(CustomerMapper.class),
+                transactionManager);
+        requestLookups = new RequestLookups(carService, partService, customerService);
+    }
+
+    private CarServiceModel savedCar(String make) {
+        CarServiceModel car = new CarServiceModel();
+        car.setMake(make);
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+
+        return carService.saveCar(car);
+    }
+
+    private PartServiceModel savedPart(String name) {
+        PartServiceModel part = new PartServiceModel();
+        part.setName(name);
+        part.setPrice(BigDecimal.TEN);
+
+        return partService.savePart(part);
+    }
+
+    private CustomerServiceModel savedCustomer(String name) {
+        CustomerServiceModel customer = new CustomerServiceModel();
+        customer.setName(name);
+        customer.setBirthDate(LocalDate.of(1990, 1, 1));
+
+        return customerService.saveCustomer(customer);
+    }
+
+    @Test
+    public void get_whenLookupsOfEveryType_expectOneStatementPerType() {
+        String ford = savedCar("Ford").getId();
+        String opel = savedCar("Opel").getId();
+        String wheel = savedPart("Wheel").getId();
+        String pesho = savedCustomer("Pesho").getId();
+
+        Supplier<CarServiceModel> firstCar = requestLookups.car(ford);
+        Supplier<PartServiceModel> part = requestLookups.part(wheel);
+        Supplier<CustomerServiceModel> customer = requestLookups.customer(pesho);
+        Supplier<CarServiceModel> secondCar = requestLookups.car(opel);
+        Supplier<PartServiceModel> missingPart = requestLookups.part("missing");
+        Supplier<CarServiceModel> repeatedCar = requestLookups.car(ford);
+
+        List<String> statements = StatementCounter.record(entityManager, firstCar::get);
+
+        assertEquals(unmatchedParamFor("Statements"), 3, statements.size());
+        List<String> afterDispatch = StatementCounter.record(entityManager, () -> {
+            assertEquals(unmatchedParamFor("First car"), "Ford", firstCar.get().getMake());
+            assertEquals(unmatchedParamFor("Second car"), "Opel", secondCar.get().getMake());
+            assertSame(unmatchedParamFor("Repeated car"), firstCar.get(), repeatedCar.get());
+            assertEquals(unmatchedParamFor("Part"), "Wheel", part.get().getName());
+            assertNull(unmatchedParamFor("Missing part"), missingPart.get());
+            assertEquals(unmatchedParamFor("Customer"), "Pesho", customer.get().getName());
+        });
+        assertEquals(unmatchedParamFor("Statements after dispatch"), 0, afterDispatch.size());
+    }
+
+    @Test
+    public void get_whenLookupAfterDispatch_expectOnlyNewIdsLoaded() {
+        String ford = savedCar("Ford").getId();
+        String opel = savedCar("Opel").getId();
+        requestLookups.car(ford);
+        requestLookups.dispatch();
+
+        Supplier<CarServiceModel> resolved = requestLookups.car(ford);
+        Supplier<CarServiceModel> added = requestLookups.car(opel);
+        List<String> statements = StatementCounter.record(entityManager, () -> {
+            resolved.get();
+            added.get();
+        });
+
+        assertEquals(unmatchedParamFor("Statements"), 1, statements.size());
+        assertEquals(unmatchedParamFor("Added car"), "Opel", added.get().getMake());
+        assertTrue(unmatchedParamFor("Only new id"), statements.get(0).contains("in (?)"));
+    }
+}
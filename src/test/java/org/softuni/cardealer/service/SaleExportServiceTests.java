@@ -0,0 +1,176 @@
+package org.softuni.cardealer.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * The row count of the volume test can be raised to check memory use against a small heap, e.g.
+ * {@code mvn test -Dtest=SaleExportServiceTests -Dexport.rows=2000000 -DargLine=-Xmx96m}.
+ */
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class SaleExportServiceTests {
+    private static final int EXPORT_ROWS = Integer.getInteger("export.rows", 20_000);
+    private static final int BATCH_SIZE = 1_000;
+
+    private SaleExportService saleExportService;
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        saleExportService = new SaleExportServiceImpl(carSaleRepository, partSaleRepository);
+
+        jdbcTemplate.update("INSERT INTO customers (id, name, birth_date, is_young_driver) VALUES (?, ?, ?, ?)",
+                "customer-1", "Doe, \"Johnny\"", java.sql.Date.valueOf("1990-01-01"), false);
+        jdbcTemplate.update("INSERT INTO cars (id, make, model, travelled_distance) VALUES (?, ?, ?, ?)",
+                "car-1", "Opel", "Astra\nG", 1000L);
+        jdbcTemplate.update("INSERT INTO suppliers (id, name, is_importer) VALUES (?, ?, ?)",
+                "supplier-1", "Supplier", true);
+        jdbcTemplate.update("INSERT INTO parts (id, name, price, supplier_id) VALUES (?, ?, ?, ?)",
+                "part-1", "Wheel", new BigDecimal("12.50"), "supplier-1");
+    }
+
+    private void insertCarSales(int count) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"car-sale-" + i, 0.1, "customer-1", "car-1"});
+            if (rows.size() == BATCH_SIZE || i == count - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO car_sales (id, discount, customer_id, car_id) VALUES (?, ?, ?, ?)", rows);
+                rows.clear();
+            }
+        }
+    }
+
+    @Test
+    public void exportCarSales_whenCsv_expectHeaderAndQuotedRow() throws IOException {
+        insertCarSales(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = saleExportService.exportCarSales(out, ExportFormat.CSV);
+
+        assertEquals(unmatchedParamFor("count"), 1, exported);
+        assertEquals(unmatchedParamFor("content"),
+                "id,customerId,customerName,carId,carMake,carModel,discount\n"
+                        + "car-sale-0,customer-1,\"Doe, \"\"Johnny\"\"\",car-1,Opel,\"Astra\nG\",0.1\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void exportCarSales_whenNoSales_expectOnlyHeader() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = saleExportService.exportCarSales(out, ExportFormat.CSV);
+
+        assertEquals(unmatchedParamFor("count"), 0, exported);
+        assertEquals(unmatchedParamFor("content"),
+                "id,customerId,customerName,carId,carMake,carModel,discount\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void exportPartSales_whenNdjson_expectOneObjectPerLine() throws IOException {
+        jdbcTemplate.update("INSERT INTO part_sales (id, discount, quantity, customer_id, part_id) VALUES (?, ?, ?, ?, ?)",
+                "part-sale-1", 0.2, 3, "customer-1", "part-1");
+        jdbcTemplate.update("INSERT INTO part_sales (id, discount, quantity, customer_id, part_id) VALUES (?, ?, ?, ?, ?)",
+                "part-sale-2", 0.0, 1, null, "part-1");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = saleExportService.exportPartSales(out, ExportFormat.NDJSON);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(unmatchedParamFor("count"), 2, exported);
+        assertEquals(unmatchedParamFor("lines"), 2, lines.length);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (String line : lines) {
+            JsonNode row = objectMapper.readTree(line);
+            assertEquals(unmatchedParamFor("partName"), "Wheel", row.get("partName").asText());
+            assertEquals(unmatchedParamFor("partPrice"), 0, new BigDecimal("12.50").compareTo(row.get("partPrice").decimalValue()));
+
+            if ("part-sale-1".equals(row.get("id").asText())) {
+                assertEquals(unmatchedParamFor("quantity"), 3, row.get("quantity").asInt());
+                assertEquals(unmatchedParamFor("customerName"), "Doe, \"Johnny\"", row.get("customerName").asText());
+            } else {
+                assertEquals(unmatchedParamFor("customerId"), true, row.get("customerId").isNull());
+            }
+        }
+    }
+
+    @Test
+    public void exportCarSales_whenManySales_expectAllRowsAndNoManagedEntities() throws IOException {
+        insertCarSales(EXPORT_ROWS);
+        CountingOutputStream out = new CountingOutputStream();
+
+        long exported = saleExportService.exportCarSales(out, ExportFormat.NDJSON);
+
+        assertEquals(unmatchedParamFor("count"), EXPORT_ROWS, exported);
+        assertEquals(unmatchedParamFor("lines"), EXPORT_ROWS, out.lines);
+        assertEquals(unmatchedParamFor("managed entities"), 0,
+                entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+        assertFalse(unmatchedParamFor("closed"), out.closed);
+    }
+
+    static class CountingOutputStream extends OutputStream {
+        long lines;
+        boolean closed;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
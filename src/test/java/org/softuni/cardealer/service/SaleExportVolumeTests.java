@@ -0,0 +1,99 @@
+package org.softuni.cardealer.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Exports more car sales than the heap this test runs with could hold as entities, see the
+ * {@code export-volume} execution in the pom, which runs it in a fork of its own. The sales
+ * are kept in an H2 file database, as an in-memory one would hold them in that same heap.
+ */
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/export-volume/car_dealer",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SaleExportVolumeTests {
+    private static final int EXPORT_ROWS = Integer.getInteger("export.rows", 150_000);
+
+    private SaleExportService saleExportService;
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    @Before
+    public void init() {
+        saleExportService = new SaleExportServiceImpl(carSaleRepository, partSaleRepository);
+
+        jdbcTemplate.update("INSERT INTO customers (id, name, birth_date, is_young_driver) VALUES (?, ?, ?, ?)",
+                "customer-1", "Customer", java.sql.Date.valueOf("1990-01-01"), false);
+        jdbcTemplate.update("INSERT INTO cars (id, make, model, travelled_distance) VALUES (?, ?, ?, ?)",
+                "car-1", "Opel", "Astra", 1000L);
+        jdbcTemplate.update("INSERT INTO car_sales (id, discount, customer_id, car_id) "
+                + "SELECT CONCAT('car-sale-', x), 0.1, 'customer-1', 'car-1' FROM SYSTEM_RANGE(1, ?)", EXPORT_ROWS);
+    }
+
+    @After
+    public void cleanUp() {
+        jdbcTemplate.update("DELETE FROM car_sales");
+        jdbcTemplate.update("DELETE FROM cars");
+        jdbcTemplate.update("DELETE FROM customers");
+    }
+
+    @Test
+    public void exportCarSales_whenMoreSalesThanHeapHoldsAsEntities_expectAllRows() {
+        SaleExportServiceTests.CountingOutputStream out = new SaleExportServiceTests.CountingOutputStream();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // the transaction the service's @Transactional(readOnly = true) opens when it is a bean
+        long exported = readOnly.execute(status -> {
+            try {
+                return saleExportService.exportCarSales(out, ExportFormat.CSV);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        assertEquals(unmatchedParamFor("count"), EXPORT_ROWS, exported);
+        assertEquals(unmatchedParamFor("lines"), EXPORT_ROWS + 1, out.lines);
+    }
+}
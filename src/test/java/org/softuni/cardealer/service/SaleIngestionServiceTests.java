@@ -0,0 +1,210 @@
+package org.softuni.cardealer.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.mapper.SaleMapper;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SaleIngestionServiceTests {
+
+    private SaleIngestionServiceImpl saleIngestionService;
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    private SaleIngestionServiceImpl newService(int queueCapacity, int batchSize) {
+        return new SaleIngestionServiceImpl(carSaleRepository, partSaleRepository, partRepository,
+                Mappers.getMapper(SaleMapper.class), transactionManager,
+                queueCapacity, batchSize, 5, 2, 0);
+    }
+
+    private CarSaleServiceModel carSale(Double discount) {
+        CarSaleServiceModel carSale = new CarSaleServiceModel();
+        carSale.setDiscount(discount);
+
+        return carSale;
+    }
+
+    private PartSaleServiceModel partSale(Integer quantity) {
+        PartSaleServiceModel partSale = new PartSaleServiceModel();
+        partSale.setDiscount(0.1);
+        partSale.setQuantity(quantity);
+
+        return partSale;
+    }
+
+    @Before
+    public void init() {
+        saleIngestionService = newService(1000, 50);
+    }
+
+    @After
+    public void cleanUp() {
+        if (saleIngestionService.isRunning()) {
+            saleIngestionService.stop();
+        }
+        carSaleRepository.deleteAll();
+        partSaleRepository.deleteAll();
+        partRepository.deleteAll();
+    }
+
+    @Test
+    public void submitCarSale_whenAccepted_expectFutureCompletesWithSavedSale() throws Exception {
+        saleIngestionService.start();
+
+        CarSaleServiceModel actual = saleIngestionService.submitCarSale(carSale(0.2)).get(10, TimeUnit.SECONDS);
+
+        assertNotNull(unmatchedParamFor("Id"), actual.getId());
+        assertEquals(unmatchedParamFor("Discount"), 0.2,
+                carSaleRepository.findById(actual.getId()).orElseThrow().getDiscount(), 0);
+    }
+
+    @Test
+    public void submit_whenManySales_expectAllWrittenInBatches() throws Exception {
+        saleIngestionService.start();
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            futures.add(saleIngestionService.submitCarSale(carSale(0.1)));
+            futures.add(saleIngestionService.submitPartSale(partSale(i + 1)));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+
+        assertEquals(unmatchedParamFor("Car sales"), 300, carSaleRepository.count());
+        assertEquals(unmatchedParamFor("Part sales"), 300, partSaleRepository.count());
+    }
+
+    @Test
+    public void submit_whenOneSaleInBatchIsInvalid_expectOnlyItsFutureFails() throws Exception {
+        CompletableFuture<CarSaleServiceModel> valid = saleIngestionService.submitCarSale(carSale(0.1));
+        CompletableFuture<CarSaleServiceModel> invalid = saleIngestionService.submitCarSale(carSale(null));
+        CompletableFuture<PartSaleServiceModel> validPart = saleIngestionService.submitPartSale(partSale(2));
+
+        saleIngestionService.start();
+
+        assertNotNull(valid.get(10, TimeUnit.SECONDS).getId());
+        assertNotNull(validPart.get(10, TimeUnit.SECONDS).getId());
+        try {
+            invalid.get(10, TimeUnit.SECONDS);
+            fail("Invalid sale was saved!");
+        } catch (ExecutionException expected) {
+            assertEquals(unmatchedParamFor("Car sales"), 1, carSaleRepository.count());
+        }
+    }
+
+    @Test
+    public void submitPartSale_whenMoreSoldThanInStock_expectOnlyStockedSalesWritten() throws Exception {
+        Part part = new Part();
+        part.setName("TestPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setStock(10);
+        PartServiceModel stocked = new PartServiceModel();
+        stocked.setId(partRepository.saveAndFlush(part).getId());
+
+        List<CompletableFuture<PartSaleServiceModel>> futures = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            PartSaleServiceModel partSale = partSale(1);
+            partSale.setPart(stocked);
+            futures.add(saleIngestionService.submitPartSale(partSale));
+        }
+        saleIngestionService.start();
+
+        int written = 0;
+        int rejected = 0;
+        for (CompletableFuture<PartSaleServiceModel> future : futures) {
+            try {
+                future.get(30, TimeUnit.SECONDS);
+                written++;
+            } catch (ExecutionException e) {
+                assertTrue(unmatchedParamFor("Failure"), e.getCause() instanceof InsufficientStockException);
+                rejected++;
+            }
+        }
+
+        assertEquals(unmatchedParamFor("Written"), 10, written);
+        assertEquals(unmatchedParamFor("Rejected"), 15, rejected);
+        assertEquals(unmatchedParamFor("Part sales"), 10, partSaleRepository.count());
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(0), partRepository.findStockById(stocked.getId()).get(0));
+    }
+
+    @Test
+    public void submit_whenQueueIsFull_expectRejection() {
+        saleIngestionService = newService(1, 50);
+
+        CompletableFuture<CarSaleServiceModel> accepted = saleIngestionService.submitCarSale(carSale(0.1));
+        CompletableFuture<CarSaleServiceModel> rejected = saleIngestionService.submitCarSale(carSale(0.1));
+
+        assertFalse(accepted.isDone());
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            rejected.join();
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void stop_whenSalesAreQueued_expectAllWrittenBeforeShutdown() {
+        List<CompletableFuture<CarSaleServiceModel>> futures = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            futures.add(saleIngestionService.submitCarSale(carSale(0.1)));
+        }
+
+        saleIngestionService.stop();
+
+        futures.forEach(future -> assertNotNull(future.join().getId()));
+        assertEquals(unmatchedParamFor("Car sales"), 120, carSaleRepository.count());
+    }
+
+    @Test
+    public void submit_whenStopped_expectRejection() {
+        saleIngestionService.start();
+        saleIngestionService.stop();
+
+        assertTrue(saleIngestionService.submitPartSale(partSale(1)).isCompletedExceptionally());
+    }
+}
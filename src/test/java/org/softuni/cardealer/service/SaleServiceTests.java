@@ -3,27 +3,56 @@ package org.softuni.cardealer.service;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.PartSale;
+import org.softuni.cardealer.domain.entities.Supplier;
 import org.softuni.cardealer.domain.models.service.CarSaleServiceModel;
 import org.softuni.cardealer.domain.models.service.PartSaleServiceModel;
+import org.softuni.cardealer.mapper.CarMapper;
+import org.softuni.cardealer.mapper.CustomerMapper;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SaleMapper;
+import org.softuni.cardealer.repository.CarRepository;
 import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.CustomerRepository;
+import org.softuni.cardealer.repository.PartRepository;
 import org.softuni.cardealer.repository.PartSaleRepository;
+import org.softuni.cardealer.repository.SupplierRepository;
+import org.softuni.cardealer.sql.StatementCounter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
-@DataJpaTest
+@DataJpaTest(properties = StatementCounter.PROPERTY)
 @RunWith(SpringRunner.class)
 @AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
 public class SaleServiceTests {
     private CarSaleServiceModel testCarSale;
     private PartSaleServiceModel testPartSale;
 
-    private ModelMapper modelMapper;
+    private SaleMapper saleMapper;
     private SaleService saleService;
 
     @Autowired
@@ -32,14 +61,33 @@ public class SaleServiceTests {
     @Autowired
     private PartSaleRepository partSaleRepository;
 
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private String unmatchedParamFor(String param) {
         return String.format("%s doesn't match!", param);
     }
 
     @Before
     public void init() {
-        modelMapper = new ModelMapper();
-        saleService = new SaleServiceImpl(carSaleRepository, partSaleRepository, modelMapper);
+        saleMapper = Mappers.getMapper(SaleMapper.class);
+        saleService = new SaleServiceImpl(carSaleRepository, partSaleRepository, partRepository, saleMapper,
+                new StockReservations(false, 1, 0), transactionManager);
 
         testCarSale = new CarSaleServiceModel();
         testCarSale.setDiscount(22.2);
@@ -53,13 +101,34 @@ public class SaleServiceTests {
     public void saleCar_whenSaleCorrectData_expectSameOne() {
         CarSaleServiceModel actual = saleService.saleCar(testCarSale);
 
-        CarSaleServiceModel expected = modelMapper
-                .map(carSaleRepository.findAll().get(0), CarSaleServiceModel.class);
+        CarSaleServiceModel expected = saleMapper
+                .toServiceModel(carSaleRepository.findAll().get(0));
 
         assertEquals(unmatchedParamFor("Id"), expected.getId(), actual.getId());
         assertEquals(unmatchedParamFor("Discount"), expected.getDiscount(), actual.getDiscount());
     }
 
+    @Test
+    public void saleCar_whenNoSaleDate_expectSaleDateSetOnSave() {
+        LocalDateTime before = LocalDateTime.now();
+
+        CarSaleServiceModel actual = saleService.saleCar(testCarSale);
+
+        assertNotNull(unmatchedParamFor("Sale Date"), actual.getSaleDate());
+        assertFalse(unmatchedParamFor("Sale Date"), actual.getSaleDate().isBefore(before));
+    }
+
+    @Test
+    public void salePart_whenSaleDateGiven_expectSameSaleDate() {
+        LocalDateTime saleDate = LocalDateTime.of(2019, 3, 1, 12, 30);
+        testPartSale.setSaleDate(saleDate);
+
+        PartSaleServiceModel actual = saleService.salePart(testPartSale);
+
+        assertEquals(unmatchedParamFor("Sale Date"), saleDate,
+                partSaleRepository.findById(actual.getId()).orElseThrow().getSaleDate());
+    }
+
     @Test(expected = Exception.class)
     public void saleCar_whenSaleNullCar_expectException(){
         saleService.saleCar(new CarSaleServiceModel());
@@ -69,8 +138,8 @@ public class SaleServiceTests {
     public void salePart_whenSaleCorrectData_expectSameOne() {
         PartSaleServiceModel actual = saleService.salePart(testPartSale);
 
-        PartSaleServiceModel expected = modelMapper
-                .map(partSaleRepository.findAll().get(0), PartSaleServiceModel.class);
+        PartSaleServiceModel expected = saleMapper
+                .toServiceModel(partSaleRepository.findAll().get(0));
 
         assertEquals(unmatchedParamFor("Id"), expected.getId(), actual.getId());
         assertEquals(unmatchedParamFor("Quantity"), expected.getQuantity(), actual.getQuantity());
@@ -82,4 +151,200 @@ public class SaleServiceTests {
         saleService.salePart(new PartSaleServiceModel());
     }
 
+    @Test
+    public void saleCar_whenSaleWithCustomerAndCar_expectNestedGraphMapped() {
+        Supplier supplier = new Supplier();
+        supplier.setName("TestSupplier");
+        supplier.setImporter(true);
+        supplier = supplierRepository.saveAndFlush(supplier);
+
+        Part part = new Part();
+        part.setName("TestPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setSupplier(supplier);
+        part = partRepository.saveAndFlush(part);
+
+        Car car = new Car();
+        car.setMake("TestMake");
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+        car.setParts(List.of(part));
+        car = carRepository.saveAndFlush(car);
+
+        Customer customer = new Customer();
+        customer.setName("TestCustomer");
+        customer.setBirthDate(LocalDate.now());
+        customer = customerRepository.saveAndFlush(customer);
+
+        testCarSale.setCar(Mappers.getMapper(CarMapper.class).toServiceModel(car));
+        testCarSale.setCustomer(Mappers.getMapper(CustomerMapper.class).toServiceModel(customer));
+
+        CarSaleServiceModel actual = saleService.saleCar(testCarSale);
+
+        assertEquals(unmatchedParamFor("Customer"), customer.getId(), actual.getCustomer().getId());
+        assertEquals(unmatchedParamFor("Car"), car.getId(), actual.getCar().getId());
+        assertEquals(unmatchedParamFor("Part"), part.getId(), actual.getCar().getParts().get(0).getId());
+        assertEquals(unmatchedParamFor("Supplier"), supplier.getName(),
+                actual.getCar().getParts().get(0).getSupplier().getName());
+    }
+
+    private Part savedPart(String name) {
+        Supplier supplier = new Supplier();
+        supplier.setName(name + "Supplier");
+        supplier.setImporter(true);
+
+        Part part = new Part();
+        part.setName(name);
+        part.setPrice(BigDecimal.TEN);
+        part.setSupplier(supplierRepository.saveAndFlush(supplier));
+
+        return partRepository.saveAndFlush(part);
+    }
+
+    private Customer savedCustomer() {
+        Customer customer = new Customer();
+        customer.setName("TestCustomer");
+        customer.setBirthDate(LocalDate.now());
+
+        return customerRepository.saveAndFlush(customer);
+    }
+
+    @Test
+    public void findCarSaleById_whenSaleHasCustomerAndCar_expectOneStatement() {
+        Car car = new Car();
+        car.setMake("TestMake");
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+        car.setParts(List.of(savedPart("Wheel"), savedPart("Door")));
+        car = carRepository.saveAndFlush(car);
+
+        testCarSale.setCar(Mappers.getMapper(CarMapper.class).toServiceModel(car));
+        testCarSale.setCustomer(Mappers.getMapper(CustomerMapper.class).toServiceModel(savedCustomer()));
+        String id = saleService.saleCar(testCarSale).getId();
+
+        CarSaleServiceModel actual = StatementCounter.expectAtMost(1, entityManager,
+                () -> saleService.findCarSaleById(id));
+
+        assertEquals(unmatchedParamFor("Customer"), "TestCustomer", actual.getCustomer().getName());
+        assertEquals(unmatchedParamFor("Parts"), 2, actual.getCar().getParts().size());
+        assertEquals(unmatchedParamFor("Supplier"), "DoorSupplier",
+                actual.getCar().getParts().get(1).getSupplier().getName());
+    }
+
+    @Test
+    public void findPartSaleById_whenSaleHasCustomerAndPart_expectOneStatement() {
+        testPartSale.setPart(Mappers.getMapper(PartMapper.class).toServiceModel(savedPart("Wheel")));
+        testPartSale.setCustomer(Mappers.getMapper(CustomerMapper.class).toServiceModel(savedCustomer()));
+        String id = saleService.salePart(testPartSale).getId();
+
+        PartSaleServiceModel actual = StatementCounter.expectAtMost(1, entityManager,
+                () -> saleService.findPartSaleById(id));
+
+        assertEquals(unmatchedParamFor("Customer"), "TestCustomer", actual.getCustomer().getName());
+        assertEquals(unmatchedParamFor("Supplier"), "WheelSupplier", actual.getPart().getSupplier().getName());
+    }
+
+    private PartSaleServiceModel partSaleOf(Part part, int quantity) {
+        testPartSale.setPart(Mappers.getMapper(PartMapper.class).toServiceModel(part));
+        testPartSale.setQuantity(quantity);
+
+        return testPartSale;
+    }
+
+    private Part savedPartInStock(int stock) {
+        Part part = new Part();
+        part.setName("StockedPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setStock(stock);
+
+        return partRepository.saveAndFlush(part);
+    }
+
+    private Integer stockOf(Part part) {
+        return partRepository.findStockById(part.getId()).get(0);
+    }
+
+    @Test
+    public void salePart_whenEnoughInStock_expectStockTaken() {
+        Part part = savedPartInStock(5);
+
+        saleService.salePart(partSaleOf(part, 2));
+        saleService.salePart(partSaleOf(part, 3));
+
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(0), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 2, partSaleRepository.count());
+    }
+
+    @Test
+    public void salePart_whenTooFewInStock_expectExceptionAndNothingSaved() {
+        Part part = savedPartInStock(2);
+
+        try {
+            saleService.salePart(partSaleOf(part, 3));
+            fail(unmatchedParamFor("Stock"));
+        } catch (InsufficientStockException e) {
+            assertEquals(unmatchedParamFor("Available"), 2, e.getAvailable());
+        }
+
+        assertEquals(unmatchedParamFor("Stock"), Integer.valueOf(2), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 0, partSaleRepository.count());
+    }
+
+    @Test
+    public void salePart_whenStockNotTracked_expectSaleSavedAndStockUntracked() {
+        Part part = savedPart("Wheel");
+
+        saleService.salePart(partSaleOf(part, 1000));
+
+        assertNull(unmatchedParamFor("Stock"), stockOf(part));
+        assertEquals(unmatchedParamFor("Sales"), 1, partSaleRepository.count());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void salePart_whenQuantityIsNotPositive_expectException() {
+        saleService.salePart(partSaleOf(savedPartInStock(5), 0));
+    }
+
+    @Test
+    public void salePart_whenReservationsKnowPartIsShort_expectRejectedWithoutStatements() {
+        saleService = new SaleServiceImpl(carSaleRepository, partSaleRepository, partRepository, saleMapper,
+                new StockReservations(true, 4, 60_000), transactionManager);
+        Part part = savedPartInStock(1);
+        saleService.salePart(partSaleOf(part, 1));
+        try {
+            saleService.salePart(partSaleOf(part, 1));
+            fail(unmatchedParamFor("Stock"));
+        } catch (InsufficientStockException expected) {
+        }
+
+        List<String> statements = StatementCounter.record(entityManager, () -> {
+            try {
+                saleService.salePart(partSaleOf(part, 1));
+                fail(unmatchedParamFor("Stock"));
+            } catch (InsufficientStockException expected) {
+            }
+        });
+
+        assertEquals(unmatchedParamFor("Statements"), List.of(), statements);
+    }
+
+    @Test
+    public void partSaleRepository_whenPagingAfterKey_expectSalesWithDetailsInOneStatement() {
+        Customer customer = savedCustomer();
+        testPartSale.setCustomer(Mappers.getMapper(CustomerMapper.class).toServiceModel(customer));
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            testPartSale.setPart(Mappers.getMapper(PartMapper.class).toServiceModel(savedPart("Part" + i)));
+            ids.add(saleService.salePart(testPartSale).getId());
+        }
+        Collections.sort(ids);
+
+        List<PartSale> page = StatementCounter.expectAtMost(1, entityManager,
+                () -> partSaleRepository.findPageAfter(ids.get(0), PageRequest.of(0, 2)));
+
+        assertEquals(unmatchedParamFor("Ids"), ids.subList(1, 3),
+                page.stream().map(PartSale::getId).collect(Collectors.toList()));
+        assertEquals(unmatchedParamFor("Customer"), "TestCustomer", page.get(0).getCustomer().getName());
+        assertNotNull(unmatchedParamFor("Supplier"), page.get(1).getPart().getSupplier().getName());
+    }
 }
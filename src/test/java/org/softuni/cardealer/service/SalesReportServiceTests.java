@@ -0,0 +1,241 @@
+package org.softuni.cardealer.service;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.CarSale;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.PartSale;
+import org.softuni.cardealer.domain.entities.Supplier;
+import org.softuni.cardealer.domain.models.report.CustomerRevenueModel;
+import org.softuni.cardealer.domain.models.report.DiscountTotalsModel;
+import org.softuni.cardealer.domain.models.report.MakeModelSalesModel;
+import org.softuni.cardealer.domain.models.report.SupplierRevenueModel;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.CarSaleRepository;
+import org.softuni.cardealer.repository.CustomerRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
+import org.softuni.cardealer.repository.SupplierRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+@DataJpaTest
+@RunWith(SpringRunner.class)
+@AutoConfigureTestDatabase(connection = EmbeddedDatabaseConnection.H2)
+public class SalesReportServiceTests {
+    private static final LocalDateTime JANUARY = LocalDateTime.of(2019, 1, 15, 10, 0);
+    private static final LocalDateTime FEBRUARY = LocalDateTime.of(2019, 2, 15, 10, 0);
+
+    private SalesReportService salesReportService;
+
+    private Customer alice;
+    private Customer bob;
+    private Car astra;
+    private Car corsa;
+    private Part wheel;
+    private Part door;
+
+    @Autowired
+    private CarSaleRepository carSaleRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private SupplierRepository supplierRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private String unmatchedParamFor(String param) {
+        return String.format("%s doesn't match!", param);
+    }
+
+    private void assertMoney(String param, String expected, BigDecimal actual) {
+        assertEquals(unmatchedParamFor(param), new BigDecimal(expected).setScale(2), actual);
+    }
+
+    @Before
+    public void init() {
+        salesReportService = new SalesReportServiceImpl(carSaleRepository, partSaleRepository, carRepository, partRepository);
+
+        Supplier bosch = supplier("Bosch");
+        Supplier valeo = supplier("Valeo");
+        wheel = part("Wheel", "100", bosch);
+        door = part("Door", "300", valeo);
+        astra = car("Opel", "Astra", wheel, door);
+        corsa = car("Opel", "Corsa", wheel);
+        alice = customer("Alice");
+        bob = customer("Bob");
+
+        carSale(alice, astra, 0.1, JANUARY);
+        carSale(bob, astra, 0.0, FEBRUARY);
+        carSale(bob, corsa, 0.5, FEBRUARY);
+        partSale(alice, door, 2, 0.0, FEBRUARY);
+        partSale(bob, wheel, 1, 0.2, JANUARY);
+    }
+
+    private Supplier supplier(String name) {
+        Supplier supplier = new Supplier();
+        supplier.setName(name);
+
+        return supplierRepository.save(supplier);
+    }
+
+    private Part part(String name, String price, Supplier supplier) {
+        Part part = new Part();
+        part.setName(name);
+        part.setPrice(new BigDecimal(price));
+        part.setSupplier(supplier);
+
+        return partRepository.save(part);
+    }
+
+    private Car car(String make, String model, Part... parts) {
+        Car car = new Car();
+        car.setMake(make);
+        car.setModel(model);
+        car.setTravelledDistance(0L);
+        car.setParts(List.of(parts));
+        car.setTotalCost(List.of(parts).stream().map(Part::getPrice).reduce(BigDecimal.ZERO, BigDecimal::add));
+
+        return carRepository.save(car);
+    }
+
+    private Customer customer(String name) {
+        Customer customer = new Customer();
+        customer.setName(name);
+        customer.setBirthDate(LocalDate.of(1990, 1, 1));
+
+        return customerRepository.save(customer);
+    }
+
+    private void carSale(Customer customer, Car car, double discount, LocalDateTime saleDate) {
+        CarSale carSale = new CarSale();
+        carSale.setCustomer(customer);
+        carSale.setCar(car);
+        carSale.setDiscount(discount);
+        carSale.setSaleDate(saleDate);
+        carSaleRepository.saveAndFlush(carSale);
+    }
+
+    private void partSale(Customer customer, Part part, int quantity, double discount, LocalDateTime saleDate) {
+        PartSale partSale = new PartSale();
+        partSale.setCustomer(customer);
+        partSale.setPart(part);
+        partSale.setQuantity(quantity);
+        partSale.setDiscount(discount);
+        partSale.setSaleDate(saleDate);
+        partSaleRepository.saveAndFlush(partSale);
+    }
+
+    @Test
+    public void revenuePerCustomer_whenNoDateRange_expectCarAndPartSalesCombined() {
+        List<CustomerRevenueModel> actual = salesReportService.revenuePerCustomer(null, null);
+
+        assertEquals(unmatchedParamFor("Customers"), 2, actual.size());
+        assertEquals(unmatchedParamFor("First"), alice.getId(), actual.get(0).getCustomerId());
+        assertEquals(unmatchedParamFor("Sales Count"), 2, actual.get(0).getSalesCount());
+        assertMoney("Alice Revenue", "960", actual.get(0).getRevenue());
+        assertEquals(unmatchedParamFor("Sales Count"), 3, actual.get(1).getSalesCount());
+        assertMoney("Bob Revenue", "530", actual.get(1).getRevenue());
+    }
+
+    @Test
+    public void revenuePerCustomer_whenDateRange_expectOnlySalesInRange() {
+        List<CustomerRevenueModel> actual = salesReportService.revenuePerCustomer(
+                LocalDateTime.of(2019, 2, 1, 0, 0), LocalDateTime.of(2019, 3, 1, 0, 0));
+
+        assertEquals(unmatchedParamFor("Customers"), 2, actual.size());
+        assertMoney("Alice Revenue", "600", actual.get(0).getRevenue());
+        assertMoney("Bob Revenue", "450", actual.get(1).getRevenue());
+    }
+
+    @Test
+    public void revenuePerSupplier_whenNoDateRange_expectCarPartsAttributedToTheirSuppliers() {
+        List<SupplierRevenueModel> actual = salesReportService.revenuePerSupplier(null, null);
+
+        assertEquals(unmatchedParamFor("Suppliers"), 2, actual.size());
+        assertEquals(unmatchedParamFor("First"), "Valeo", actual.get(0).getSupplierName());
+        assertEquals(unmatchedParamFor("Valeo Parts"), 4, actual.get(0).getPartsSold());
+        assertMoney("Valeo Revenue", "1170", actual.get(0).getRevenue());
+        assertEquals(unmatchedParamFor("Bosch Parts"), 4, actual.get(1).getPartsSold());
+        assertMoney("Bosch Revenue", "320", actual.get(1).getRevenue());
+    }
+
+    @Test
+    public void discountTotals_whenNoDateRange_expectAllDiscountsSummed() {
+        DiscountTotalsModel actual = salesReportService.discountTotals(null, null);
+
+        assertEquals(unmatchedParamFor("Sales"), 5, actual.getSalesCount());
+        assertEquals(unmatchedParamFor("Discounted Sales"), 3, actual.getDiscountedSalesCount());
+        assertMoney("Discount Total", "110", actual.getDiscountTotal());
+    }
+
+    @Test
+    public void discountTotals_whenNoSalesInRange_expectZeros() {
+        DiscountTotalsModel actual = salesReportService.discountTotals(LocalDateTime.of(2020, 1, 1, 0, 0), null);
+
+        assertEquals(unmatchedParamFor("Sales"), 0, actual.getSalesCount());
+        assertMoney("Discount Total", "0", actual.getDiscountTotal());
+    }
+
+    @Test
+    public void backfillSaleDates_whenSalesHaveNoDate_expectThemInReportsOpenAtStartOnly() {
+        carSale(alice, corsa, 0.5, JANUARY);
+        partSale(bob, door, 1, 0.0, JANUARY);
+        entityManager.createNativeQuery("UPDATE car_sales SET sale_date = NULL WHERE customer_id = ?1 AND discount = 0.5")
+                .setParameter(1, alice.getId())
+                .executeUpdate();
+        entityManager.createNativeQuery("UPDATE part_sales SET sale_date = NULL WHERE customer_id = ?1 AND part_id = ?2")
+                .setParameter(1, bob.getId())
+                .setParameter(2, door.getId())
+                .executeUpdate();
+        assertEquals(unmatchedParamFor("Undated Sales"), 5, salesReportService.discountTotals(null, null).getSalesCount());
+
+        int dated = salesReportService.backfillSaleDates();
+
+        assertEquals(unmatchedParamFor("Dated"), 2, dated);
+        DiscountTotalsModel unbounded = salesReportService.discountTotals(null, null);
+        assertEquals(unmatchedParamFor("Sales"), 7, unbounded.getSalesCount());
+        assertMoney("Discount Total", "160", unbounded.getDiscountTotal());
+        assertEquals(unmatchedParamFor("Sales From January"), 5,
+                salesReportService.discountTotals(LocalDateTime.of(2019, 1, 1, 0, 0), null).getSalesCount());
+        assertEquals(unmatchedParamFor("Dated Again"), 0, salesReportService.backfillSaleDates());
+    }
+
+    @Test
+    public void salesPerMakeModel_whenDateRangeOpenAtStart_expectMostSoldFirst() {
+        List<MakeModelSalesModel> actual = salesReportService.salesPerMakeModel(null, LocalDateTime.of(2019, 3, 1, 0, 0));
+
+        assertEquals(unmatchedParamFor("Models"), 2, actual.size());
+        assertEquals(unmatchedParamFor("Model"), "Astra", actual.get(0).getModel());
+        assertEquals(unmatchedParamFor("Sales Count"), 2, actual.get(0).getSalesCount());
+        assertMoney("Astra Revenue", "760", actual.get(0).getRevenue());
+        assertEquals(unmatchedParamFor("Model"), "Corsa", actual.get(1).getModel());
+        assertMoney("Corsa Revenue", "50", actual.get(1).getRevenue());
+    }
+}
@@ -1,18 +1,45 @@
 package org.softuni.cardealer.service;
 
 import static org.junit.Assert.*;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.modelmapper.ModelMapper;
+import org.mapstruct.factory.Mappers;
+import org.softuni.cardealer.cache.CatalogCache;
+import org.softuni.cardealer.cache.SingleFlight;
+import org.softuni.cardealer.domain.entities.Car;
+import org.softuni.cardealer.domain.entities.Customer;
+import org.softuni.cardealer.domain.entities.Part;
+import org.softuni.cardealer.domain.entities.PartSale;
+import org.softuni.cardealer.domain.models.service.PageServiceModel;
+import org.softuni.cardealer.domain.models.service.PartServiceModel;
+import org.softuni.cardealer.domain.models.service.SupplierPatchServiceModel;
 import org.softuni.cardealer.domain.models.service.SupplierServiceModel;
+import org.softuni.cardealer.mapper.PartMapper;
+import org.softuni.cardealer.mapper.SupplierMapper;
+import org.softuni.cardealer.repository.CarRepository;
+import org.softuni.cardealer.repository.CustomerRepository;
+import org.softuni.cardealer.repository.PartRepository;
+import org.softuni.cardealer.repository.PartSaleRepository;
 import org.softuni.cardealer.repository.SupplierRepository;
+import org.softuni.cardealer.search.CarInventoryIndex;
+import org.softuni.cardealer.search.CatalogSearchIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.jdbc.EmbeddedDatabaseConnection;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @DataJpaTest
 @RunWith(SpringRunner.class)
@@ -21,20 +48,66 @@ public class SupplierServiceTests {
 
     private SupplierServiceModel testSupplier;
 
-    private ModelMapper modelMapper;
+    private SupplierMapper supplierMapper;
     private SupplierService supplierService;
+    private PartService partService;
+    private CatalogCache catalogCache;
+    private boolean committed;
 
     @Autowired
     private SupplierRepository supplierRepository;
 
+    @Autowired
+    private PartRepository partRepository;
+
+    @Autowired
+    private CarRepository carRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PartSaleRepository partSaleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private String unmatchedParamFor(String param) {
         return String.format("%s doesn't match!", param);
     }
 
+    /**
+     * Commits what the test has done so far, so that a later transaction can be rolled back
+     * without undoing it. The committed rows are deleted after the test.
+     */
+    private void commitTestTransaction() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        committed = true;
+    }
+
+    @After
+    public void deleteCommitted() {
+        if (committed) {
+            partSaleRepository.deleteAll();
+            customerRepository.deleteAll();
+            carRepository.deleteAll();
+            partRepository.deleteAll();
+            supplierRepository.deleteAll();
+        }
+    }
+
     @Before
     public void init() {
-        modelMapper = new ModelMapper();
-        supplierService = new SupplierServiceImpl(supplierRepository, modelMapper);
+        supplierMapper = Mappers.getMapper(SupplierMapper.class);
+        PartMapper partMapper = Mappers.getMapper(PartMapper.class);
+        catalogCache = new CatalogCache(100, 60, partMapper, supplierMapper, new SingleFlight(true, 5000));
+        partService = new PartServiceImpl(partRepository, carRepository, partMapper, catalogCache,
+                new CatalogSearchIndex(carRepository, partRepository, 4096, 10000),
+                new CarInventoryIndex(carRepository, new long[]{0}, 10000),
+                new StockReservations(false, 1, 0), transactionManager);
+        supplierService = new SupplierServiceImpl(supplierRepository, partRepository, supplierMapper, catalogCache,
+                partService, transactionManager);
         testSupplier = new SupplierServiceModel();
         testSupplier.setName("TestName");
     }
@@ -43,8 +116,8 @@ public class SupplierServiceTests {
     public void saveSupplier_whenSaveCorrectSupplier_expectSameOne() {
         SupplierServiceModel actual = supplierService.saveSupplier(testSupplier);
 
-        SupplierServiceModel expected = modelMapper
-                .map(supplierRepository.findAll().get(0), SupplierServiceModel.class);
+        SupplierServiceModel expected = supplierMapper
+                .toServiceModel(supplierRepository.findAll().get(0));
 
         assertEquals(unmatchedParamFor("Id"), expected.getId(), actual.getId());
         assertEquals(unmatchedParamFor("Name"), expected.getName(), actual.getName());
@@ -137,4 +210,202 @@ public class SupplierServiceTests {
     public void findSupplierById_whenIdIsNull_expectException() {
         supplierService.findSupplierById(null);
     }
+
+
+    @Test
+    public void saveSuppliers_whenSaveSeveralSuppliers_expectSavedInInputOrder() {
+        List<SupplierServiceModel> suppliers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            SupplierServiceModel supplier = new SupplierServiceModel();
+            supplier.setName("TestName" + i);
+            supplier.setImporter(i % 2 == 0);
+            suppliers.add(supplier);
+        }
+
+        List<SupplierServiceModel> actual = supplierService.saveSuppliers(suppliers);
+
+        assertEquals(unmatchedParamFor("Count"), suppliers.size(), supplierRepository.count());
+        for (int i = 0; i < suppliers.size(); i++) {
+            assertNotNull(unmatchedParamFor("Id"), actual.get(i).getId());
+            assertEquals(unmatchedParamFor("Name"), suppliers.get(i).getName(), actual.get(i).getName());
+            assertEquals(unmatchedParamFor("Name"), suppliers.get(i).getName(),
+                    supplierRepository.findById(actual.get(i).getId()).orElseThrow().getName());
+        }
+    }
+
+    @Test(expected = Exception.class)
+    public void saveSuppliers_whenOneSupplierIsInvalid_expectException() {
+        supplierService.saveSuppliers(List.of(testSupplier, new SupplierServiceModel()));
+    }
+
+    @Test
+    public void findSupplierById_whenFoundTwice_expectSecondLookupFromCache() {
+        SupplierServiceModel supplier = supplierService.saveSupplier(testSupplier);
+        commitTestTransaction();
+
+        supplierService.findSupplierById(supplier.getId());
+        supplierService.findSupplierById(supplier.getId());
+
+        assertEquals(unmatchedParamFor("Misses"), 1, catalogCache.supplierStats().missCount());
+        assertEquals(unmatchedParamFor("Hits"), 1, catalogCache.supplierStats().hitCount());
+    }
+
+    @Test
+    public void editSupplier_whenSupplierAndItsPartAreCached_expectBothEvicted() {
+        SupplierServiceModel supplier = supplierService.saveSupplier(testSupplier);
+        PartServiceModel part = new PartServiceModel();
+        part.setName("TestPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setSupplier(supplier);
+        part = partService.savePart(part);
+        commitTestTransaction();
+        supplierService.findSupplierById(supplier.getId());
+        partService.findPartById(part.getId());
+
+        supplier.setName("DifferentTestName");
+        supplierService.editSupplier(supplier);
+
+        assertEquals(unmatchedParamFor("Name"), "DifferentTestName",
+                supplierService.findSupplierById(supplier.getId()).getName());
+        partService.findPartById(part.getId());
+        assertEquals(unmatchedParamFor("Part misses"), 2, catalogCache.partStats().missCount());
+    }
+
+    @Test
+    public void patchSupplier_whenSupplierIsCached_expectPatchedValuesOnNextLookup() {
+        testSupplier.setImporter(true);
+        SupplierServiceModel supplier = supplierService.saveSupplier(testSupplier);
+        commitTestTransaction();
+        supplierService.findSupplierById(supplier.getId());
+        SupplierPatchServiceModel patch = new SupplierPatchServiceModel();
+        patch.setId(supplier.getId());
+        patch.setVersion(supplier.getVersion());
+        patch.setName("DifferentTestName");
+
+        supplierService.patchSupplier(patch);
+        SupplierServiceModel actual = supplierService.findSupplierById(supplier.getId());
+
+        assertEquals(unmatchedParamFor("Name"), "DifferentTestName", actual.getName());
+        assertTrue(unmatchedParamFor("Importer"), actual.isImporter());
+        assertEquals(unmatchedParamFor("Misses"), 2, catalogCache.supplierStats().missCount());
+    }
+
+    @Test
+    public void deleteSupplier_whenSupplierIsCached_expectSupplierEvicted() {
+        SupplierServiceModel supplier = supplierService.saveSupplier(testSupplier);
+        supplierService.findSupplierById(supplier.getId());
+        commitTestTransaction();
+
+        supplierService.deleteSupplier(supplier.getId());
+
+        assertNull(supplierService.findSupplierById(supplier.getId()));
+    }
+
+    @Test
+    public void deleteSupplier_whenSupplierHasAttachedParts_expectPartsDeletedAndDetached() {
+        SupplierServiceModel supplier = supplierService.saveSupplier(testSupplier);
+        PartServiceModel part = new PartServiceModel();
+        part.setName("TestPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setSupplier(supplier);
+        part = partService.savePart(part);
+        PartServiceModel otherPart = new PartServiceModel();
+        otherPart.setName("OtherPart");
+        otherPart.setPrice(BigDecimal.TEN);
+        otherPart = partService.savePart(otherPart);
+        partService.findPartById(part.getId());
+
+        Car car = new Car();
+        car.setMake("TestMake");
+        car.setModel("TestModel");
+        car.setTravelledDistance(100L);
+        car.setParts(new ArrayList<>(partRepository.findAllById(List.of(part.getId(), otherPart.getId()))));
+        car.setTotalCost(new BigDecimal("20"));
+        car = carRepository.saveAndFlush(car);
+        commitTestTransaction();
+
+        supplierService.deleteSupplier(supplier.getId());
+
+        assertNull(supplierRepository.findById(supplier.getId()).orElse(null));
+        assertEquals(unmatchedParamFor("Parts"), List.of(otherPart.getId()),
+                partRepository.findAll().stream().map(Part::getId).collect(Collectors.toList()));
+        assertEquals(unmatchedParamFor("Total Cost"), 0, BigDecimal.TEN
+                .compareTo(carRepository.findById(car.getId()).orElseThrow().getTotalCost()));
+        assertNull(partService.findPartById(part.getId()));
+    }
+
+    private PartServiceModel suppliedPart(SupplierServiceModel supplier) {
+        PartServiceModel part = new PartServiceModel();
+        part.setName("TestPart");
+        part.setPrice(BigDecimal.TEN);
+        part.setSupplier(supplier);
+
+        return partService.savePart(part);
+    }
+
+    @Test
+    public void deleteSupplier_whenPartIsSold_expectExceptionAndPartStillCachedAndIndexed() {
+        SupplierServiceModel supplier = supplierService.saveSupplier(testSupplier);
+        PartServiceModel part = suppliedPart(supplier);
+        Customer customer = new Customer();
+        customer.setName("TestCustomer");
+        customer.setBirthDate(LocalDate.of(1990, 1, 1));
+        PartSale sale = new PartSale();
+        sale.setCustomer(customerRepository.saveAndFlush(customer));
+        sale.setPart(partRepository.findById(part.getId()).orElseThrow());
+        sale.setQuantity(1);
+        sale.setDiscount(0.0);
+        sale.setSaleDate(LocalDateTime.now());
+        partSaleRepository.saveAndFlush(sale);
+        commitTestTransaction();
+        partService.findPartById(part.getId());
+
+        try {
+            supplierService.deleteSupplier(supplier.getId());
+            fail("The supplier of a sold part was deleted");
+        } catch (DataIntegrityViolationException expected) {
+            assertTrue(unmatchedParamFor("Message"), expected.getMessage().contains(part.getId()));
+        }
+
+        assertEquals(unmatchedParamFor("Searched"), List.of(part.getId()), partService.searchParts("testpart", 10));
+        assertNotNull(partService.findPartById(part.getId()));
+        assertEquals(unmatchedParamFor("Part misses"), 1, catalogCache.partStats().missCount());
+    }
+
+    @Test
+    public void deleteSupplier_whenCallerRollsBack_expectPartsStillCachedAndIndexed() {
+        SupplierServiceModel supplier = supplierService.saveSupplier(testSupplier);
+        PartServiceModel part = suppliedPart(supplier);
+        commitTestTransaction();
+        supplierService.findSupplierById(supplier.getId());
+        TestTransaction.start();
+
+        supplierService.deleteSupplier(supplier.getId());
+        assertEquals(unmatchedParamFor("Before Commit"), List.of(part.getId()), partService.searchParts("testpart", 10));
+
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        assertEquals(unmatchedParamFor("Searched"), List.of(part.getId()), partService.searchParts("testpart", 10));
+        assertEquals(unmatchedParamFor("Supplier"), supplier.getId(),
+                partService.findPartById(part.getId()).getSupplier().getId());
+        assertNotNull(supplierService.findSupplierById(supplier.getId()));
+        assertEquals(unmatchedParamFor("Supplier misses"), 1, catalogCache.supplierStats().missCount());
+    }
+
+    @Test
+    public void listSuppliers_whenLastPageIsFull_expectNoNextPageToken() {
+        for (int i = 0; i < 4; i++) {
+            supplierService.saveSupplier(testSupplier);
+        }
+
+        PageServiceModel<SupplierServiceModel> first = supplierService.listSuppliers(null, 2);
+        PageServiceModel<SupplierServiceModel> second = supplierService.listSuppliers(first.getNextPageToken(), 2);
+
+        assertTrue(unmatchedParamFor("Next Page"), first.hasNext());
+        assertEquals(unmatchedParamFor("Page Size"), 2, second.getItems().size());
+        assertTrue(unmatchedParamFor("Order"),
+                first.getItems().get(1).getId().compareTo(second.getItems().get(0).getId()) < 0);
+        assertFalse(unmatchedParamFor("Next Page"), second.hasNext());
+    }
 }
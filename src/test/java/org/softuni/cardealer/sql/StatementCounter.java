@@ -0,0 +1,75 @@
+package org.softuni.cardealer.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the calling thread. Registered by the
+ * tests that use it through
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector}, see
+ * {@link #PROPERTY}.
+ */
+public class StatementCounter implements StatementInspector {
+
+    public static final String PROPERTY = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "org.softuni.cardealer.sql.StatementCounter";
+
+    private static final ThreadLocal<List<String>> RECORDED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> recorded = RECORDED.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+
+        return sql;
+    }
+
+    /**
+     * Flushes and clears the persistence context, so nothing is served from it, then runs the
+     * action and fails if it issued more than {@code budget} statements.
+     */
+    public static <T> T expectAtMost(int budget, EntityManager entityManager, Supplier<T> action) {
+        List<String> recorded = new ArrayList<>();
+        T result = run(entityManager, recorded, action);
+
+        if (recorded.size() > budget) {
+            throw new AssertionError(String.format("Expected at most %d statements but %d were issued:%n%s",
+                    budget, recorded.size(), String.join(System.lineSeparator(), recorded)));
+        }
+
+        return result;
+    }
+
+    /**
+     * Flushes and clears the persistence context like {@link #expectAtMost}, then runs the action.
+     *
+     * @return the SQL of the statements the action issued, in order
+     */
+    public static List<String> record(EntityManager entityManager, Runnable action) {
+        List<String> recorded = new ArrayList<>();
+        run(entityManager, recorded, () -> {
+            action.run();
+            return null;
+        });
+
+        return recorded;
+    }
+
+    private static <T> T run(EntityManager entityManager, List<String> recorded, Supplier<T> action) {
+        entityManager.flush();
+        entityManager.clear();
+
+        RECORDED.set(recorded);
+        try {
+            return action.get();
+        } finally {
+            RECORDED.remove();
+        }
+    }
+}